@@ -31,14 +31,18 @@
 
 package org.hsqldb;
 
+import java.util.regex.Pattern;
+
 import org.hsqldb.HsqlNameManager.HsqlName;
 import org.hsqldb.dbinfo.DatabaseInformation;
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
 import org.hsqldb.lib.FrameworkLogger;
+import org.hsqldb.lib.HashMap;
 import org.hsqldb.lib.HashMappedList;
 import org.hsqldb.lib.HsqlArrayList;
 import org.hsqldb.lib.HsqlTimer;
+import org.hsqldb.lib.Iterator;
 import org.hsqldb.lib.OrderedHashSet;
 import org.hsqldb.map.ValuePool;
 import org.hsqldb.persist.HsqlDatabaseProperties;
@@ -61,7 +65,7 @@ import org.hsqldb.types.Collation;
  * It holds the data structures that form an HSQLDB database instance.
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.9.0
  */
 public class Database {
@@ -96,6 +100,7 @@ public class Database {
      *  databaseProperties or URL properties for new databases.
      */
     public int                    sqlAvgScale            = 0;
+    public int                    sqlMaxRecursive        = 256;
     public boolean                sqlRestrictExec        = false;
     public boolean                sqlCharLiteral         = true;
     public boolean                sqlConcatNulls         = true;
@@ -126,6 +131,10 @@ public class Database {
     public HsqlDatabaseProperties databaseProperties;
     private final boolean         shutdownOnNoConnection;
     int                           resultMaxMemoryRows;
+    int                           resultCacheSize;
+
+    // query results shared by all sessions
+    public final ResultCache resultCache = new ResultCache();
 
     // schema invariant objects
     public UserManager     userManager;
@@ -155,6 +164,11 @@ public class Database {
     //
     Result updateZeroResult = Result.updateZeroResult;
 
+    // compiled regular expressions shared by all sessions
+    private static final int patternCacheSize = 256;
+    private final HashMap    patternCache     = new HashMap();
+    private long             patternUseCount;
+
     //
     public static final int DATABASE_ONLINE       = 1;
     public static final int DATABASE_OPENING      = 2;
@@ -279,6 +293,8 @@ public class Database {
             timeoutRunner.stop();
         }
 
+        resultCache.clear();
+
         lobManager       = null;
         granteeManager   = null;
         userManager      = null;
@@ -454,6 +470,62 @@ public class Database {
         return granteeManager;
     }
 
+    /**
+     *  Returns the compiled form of a regular expression. Compiled patterns
+     *  are kept in a bounded cache. When the cache is full, the least
+     *  recently used pattern is removed to make room for a new one.
+     */
+    public Pattern getPattern(String regex, int flags) {
+
+        String       key = Integer.toString(flags) + ':' + regex;
+        PatternEntry entry;
+
+        synchronized (patternCache) {
+            entry = (PatternEntry) patternCache.get(key);
+
+            if (entry != null) {
+                entry.lastUse = ++patternUseCount;
+
+                return entry.pattern;
+            }
+        }
+
+        Pattern pattern = Pattern.compile(regex, flags);
+
+        synchronized (patternCache) {
+            if (patternCache.size() >= patternCacheSize
+                    && !patternCache.containsKey(key)) {
+                removeLeastUsedPattern();
+            }
+
+            entry         = new PatternEntry(pattern);
+            entry.lastUse = ++patternUseCount;
+
+            patternCache.put(key, entry);
+        }
+
+        return pattern;
+    }
+
+    private void removeLeastUsedPattern() {
+
+        Iterator it     = patternCache.keySet().iterator();
+        Object   lruKey = null;
+        long     lruUse = Long.MAX_VALUE;
+
+        while (it.hasNext()) {
+            Object       key   = it.next();
+            PatternEntry entry = (PatternEntry) patternCache.get(key);
+
+            if (entry.lastUse < lruUse) {
+                lruKey = key;
+                lruUse = entry.lastUse;
+            }
+        }
+
+        patternCache.remove(lruKey);
+    }
+
     public void setLiveObject(boolean mode) {
         sqlLiveObject = mode;
     }
@@ -480,6 +552,20 @@ public class Database {
         resultMaxMemoryRows = size;
     }
 
+    public int getResultCacheSize() {
+        return resultCacheSize;
+    }
+
+    /**
+     *  Sets the capacity of the result cache in kilobytes, zero disables it
+     */
+    public void setResultCacheSize(int size) {
+
+        resultCacheSize = size;
+
+        resultCache.setCapacity(size * 1024L);
+    }
+
     public void setRestrictExec(boolean mode) {
         sqlRestrictExec = mode;
     }
@@ -551,6 +637,10 @@ public class Database {
         sqlAvgScale = scale;
     }
 
+    public void setMaxRecursive(int rounds) {
+        sqlMaxRecursive = rounds;
+    }
+
     public void setLongVarIsLob(boolean mode) {
         sqlLongvarIsLob = mode;
     }
@@ -682,7 +772,7 @@ public class Database {
         dbState = state;
     }
 
-    int getState() {
+    public int getState() {
         return dbState;
     }
 
@@ -829,6 +919,19 @@ public class Database {
         return timeoutRunner;
     }
 
+    /**
+     * A compiled pattern and the count of its last use.
+     */
+    private static final class PatternEntry {
+
+        final Pattern pattern;
+        long          lastUse;
+
+        PatternEntry(Pattern pattern) {
+            this.pattern = pattern;
+        }
+    }
+
     class CheckpointRunner implements Runnable {
 
         private volatile boolean waiting;
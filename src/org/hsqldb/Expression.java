@@ -1526,11 +1526,29 @@ public class Expression implements Cloneable {
             }
             case OpTypes.TABLE_SUBQUERY :
             case OpTypes.ROW_SUBQUERY : {
+                Object[] key = table.getColumnCount() == 1
+                               ? table.getCorrelatedValues(session, null)
+                               : null;
+
+                if (key != null) {
+                    Object result =
+                        session.sessionContext.getSubqueryResult(this, key);
+
+                    if (result != SessionContext.noSubqueryResult) {
+                        return result;
+                    }
+                }
+
                 table.materialiseCorrelated(session);
 
                 Object[] value = table.getValues(session);
 
                 if (value.length == 1) {
+                    if (key != null) {
+                        session.sessionContext.setSubqueryResult(this, key,
+                                value[0]);
+                    }
+
                     return value[0];
                 }
 
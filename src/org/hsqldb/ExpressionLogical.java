@@ -34,6 +34,8 @@ package org.hsqldb;
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
 import org.hsqldb.index.Index;
+import org.hsqldb.lib.HashSet;
+import org.hsqldb.lib.HsqlArrayList;
 import org.hsqldb.lib.HsqlList;
 import org.hsqldb.lib.OrderedIntHashSet;
 import org.hsqldb.navigator.RowIterator;
@@ -41,7 +43,9 @@ import org.hsqldb.persist.PersistentStore;
 import org.hsqldb.types.ArrayType;
 import org.hsqldb.types.DTIType;
 import org.hsqldb.types.DateTimeType;
+import org.hsqldb.types.RowType;
 import org.hsqldb.types.Type;
+import org.hsqldb.types.TypedComparator;
 import org.hsqldb.types.Types;
 
 /**
@@ -55,6 +59,7 @@ public class ExpressionLogical extends Expression {
     boolean noOptimisation;
     boolean isQuantified;
     boolean isTerminal;
+    boolean isHashedValueList;
 
     /**
      * For LIKE
@@ -1237,6 +1242,64 @@ public class ExpressionLogical extends Expression {
             nodes[LEFT].nodeDataTypes[i]  = type;
             nodes[LEFT].nodes[i].dataType = type;
         }
+
+        isHashedValueList = isHashCompatibleValueList();
+    }
+
+    /**
+     * An IN list consisting of constants and parameters is tested with a
+     * hash set of its values when the values of all its types can be hashed
+     * and the left values hash the same way without conversion.
+     */
+    private boolean isHashCompatibleValueList() {
+
+        if (opType != OpTypes.EQUAL
+                || exprSubType != OpTypes.ANY_QUANTIFIED
+                || nodes[RIGHT].opType != OpTypes.VALUELIST) {
+            return false;
+        }
+
+        Expression list = nodes[RIGHT];
+
+        for (int i = 0; i < list.nodeDataTypes.length; i++) {
+            Type leftType = nodes[LEFT].nodeDataTypes[i];
+            Type type     = list.nodeDataTypes[i];
+
+            if (!type.isHashCompatible()) {
+                return false;
+            }
+
+            if (leftType.typeCode == type.typeCode) {
+                if (type.isCharacterType()
+                        && leftType.getCollation() != type.getCollation()) {
+                    return false;
+                }
+            } else if (!leftType.isIntegralType() || !type.isIntegralType()) {
+                return false;
+            }
+        }
+
+        for (int i = 0; i < list.nodes.length; i++) {
+            Expression row = list.nodes[i];
+
+            if (row.opType != OpTypes.ROW) {
+                return false;
+            }
+
+            for (int j = 0; j < row.nodes.length; j++) {
+                switch (row.nodes[j].opType) {
+
+                    case OpTypes.VALUE :
+                    case OpTypes.DYNAMIC_PARAM :
+                        break;
+
+                    default :
+                        return false;
+                }
+            }
+        }
+
+        return true;
     }
 
     void resolveTypesForIn(Session session) {
@@ -1366,6 +1429,10 @@ public class ExpressionLogical extends Expression {
             case OpTypes.GREATER_EQUAL_PRE :
             case OpTypes.SMALLER :
             case OpTypes.NOT_EQUAL : {
+                if (isHashedValueList) {
+                    return testHashedValueListCondition(session);
+                }
+
                 if (exprSubType == OpTypes.ANY_QUANTIFIED
                         || exprSubType == OpTypes.ALL_QUANTIFIED) {
                     return testAllAnyCondition(session);
@@ -1783,21 +1850,83 @@ public class ExpressionLogical extends Expression {
 
     private Boolean testExistsCondition(Session session) {
 
+        TableDerived td  = nodes[LEFT].table;
+        Object[]     key = td.getCorrelatedValues(session, null);
+
+        if (key != null) {
+            Object result = session.sessionContext.getSubqueryResult(this,
+                key);
+
+            if (result != SessionContext.noSubqueryResult) {
+                return (Boolean) result;
+            }
+        }
+
         nodes[LEFT].materialise(session);
 
-        return nodes[LEFT].getTable().isEmpty(session) ? Boolean.FALSE
-                                                       : Boolean.TRUE;
+        Boolean result = td.isEmpty(session) ? Boolean.FALSE
+                                             : Boolean.TRUE;
+
+        if (key != null) {
+            session.sessionContext.setSubqueryResult(this, key, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * The set of values is built once for each execution of the top level
+     * statement, as the list may contain parameters. A row of the list with
+     * a null value is not added to the set, but can make the result of a
+     * failed test unknown.
+     */
+    private Boolean testHashedValueListCondition(Session session) {
+
+        Object[] data = nodes[LEFT].getRowValue(session);
+
+        if (countNulls(data) != 0) {
+            return testAllAnyCondition(session);
+        }
+
+        ValueListSet set =
+            (ValueListSet) session.sessionContext.getValueListSet(this);
+
+        if (set == null) {
+            set = new ValueListSet(session, nodes[RIGHT]);
+
+            session.sessionContext.setValueListSet(this, set);
+        }
+
+        if (set.contains(data)) {
+            return Boolean.TRUE;
+        }
+
+        return set.testNullRows(session, data);
     }
 
     private Boolean testAllAnyCondition(Session session) {
 
         Object[]     rowData = nodes[LEFT].getRowValue(session);
         TableDerived td      = nodes[RIGHT].table;
+        Object[]     key     = td.getCorrelatedValues(session, rowData);
+
+        if (key != null) {
+            Object result = session.sessionContext.getSubqueryResult(this,
+                key);
+
+            if (result != SessionContext.noSubqueryResult) {
+                return (Boolean) result;
+            }
+        }
 
         td.materialiseCorrelated(session);
 
         Boolean result = getAllAnyValue(session, rowData, td);
 
+        if (key != null) {
+            session.sessionContext.setSubqueryResult(this, key, result);
+        }
+
         return result;
     }
 
@@ -2448,4 +2577,78 @@ public class ExpressionLogical extends Expression {
 
         return cost;
     }
+
+    static class ValueListSet extends HashSet {
+
+        Type[]        types;
+        HsqlArrayList nullRows;
+
+        ValueListSet(Session session, Expression list) {
+
+            super(list.nodes.length);
+
+            TypedComparator comparator = new TypedComparator(session);
+
+            types = list.nodeDataTypes;
+            SortAndSlice    sort       = new SortAndSlice();
+
+            sort.prepareMultiColumn(types.length);
+            comparator.setType(new RowType(types), sort);
+            setComparator(comparator);
+
+            for (int i = 0; i < list.nodes.length; i++) {
+                Expression row    = list.nodes[i];
+                Object[]   values = row.getRowValue(session);
+                Object[]   data   = new Object[types.length];
+
+                for (int j = 0; j < types.length; j++) {
+                    data[j] = types[j].convertToType(session, values[j],
+                                                     row.nodes[j].dataType);
+                }
+
+                if (countNulls(data) == 0) {
+                    add(data);
+                } else {
+                    if (nullRows == null) {
+                        nullRows = new HsqlArrayList();
+                    }
+
+                    nullRows.add(data);
+                }
+            }
+        }
+
+        /**
+         * Called when the data is not in the set. A row of the list with a
+         * null value makes the result unknown, unless one of its other values
+         * differs from the data.
+         */
+        Boolean testNullRows(Session session, Object[] data) {
+
+            if (nullRows == null) {
+                return Boolean.FALSE;
+            }
+
+            for (int i = 0; i < nullRows.size(); i++) {
+                Object[] row   = (Object[]) nullRows.get(i);
+                boolean  match = true;
+
+                for (int j = 0; j < row.length; j++) {
+                    if (row[j] != null
+                            && types[j].compare(session, data[j], row[j])
+                               != 0) {
+                        match = false;
+
+                        break;
+                    }
+                }
+
+                if (match) {
+                    return null;
+                }
+            }
+
+            return Boolean.FALSE;
+        }
+    }
 }
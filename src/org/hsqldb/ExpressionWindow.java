@@ -0,0 +1,911 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb;
+
+import org.hsqldb.error.Error;
+import org.hsqldb.error.ErrorCode;
+import org.hsqldb.index.Index;
+import org.hsqldb.lib.HsqlArrayList;
+import org.hsqldb.lib.HsqlList;
+import org.hsqldb.lib.OrderedIntHashSet;
+import org.hsqldb.map.ValuePool;
+import org.hsqldb.types.Type;
+
+/**
+ * Implementation of window functions with an OVER clause.<p>
+ *
+ * A window function is a leaf in the select list expression. The partition,
+ * order and argument expressions are allocated as hidden columns of the
+ * query result by QuerySpecification and are computed for each row. After
+ * the rows have been built, the result is sorted once on the partition and
+ * order columns and the values of the function are set in a single pass over
+ * each partition.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class ExpressionWindow extends Expression {
+
+    static final int FRAME_UNBOUNDED_PRECEDING = 0;
+    static final int FRAME_PRECEDING           = 1;
+    static final int FRAME_CURRENT_ROW         = 2;
+    static final int FRAME_FOLLOWING           = 3;
+    static final int FRAME_UNBOUNDED_FOLLOWING = 4;
+
+    //
+    static final OrderedIntHashSet windowAggregateSet =
+        new OrderedIntHashSet(new int[] {
+        OpTypes.COUNT, OpTypes.SUM, OpTypes.MIN, OpTypes.MAX, OpTypes.AVG,
+        OpTypes.EVERY, OpTypes.SOME, OpTypes.STDDEV_POP, OpTypes.STDDEV_SAMP,
+        OpTypes.VAR_POP, OpTypes.VAR_SAMP
+    });
+
+    // not allowed outside window functions in a column with window functions
+    static final OrderedIntHashSet excludedExpressionSet =
+        new OrderedIntHashSet(new int[] {
+        OpTypes.ROWNUM, OpTypes.SEQUENCE, OpTypes.SCALAR_SUBQUERY,
+        OpTypes.ROW_SUBQUERY, OpTypes.TABLE_SUBQUERY, OpTypes.ARRAY_SUBQUERY
+    });
+
+    // token type of the function, or the OpTypes type of an aggregate
+    int                 functionType;
+    boolean             isAggregate;
+    boolean             isCountAll;
+    ExpressionAggregate aggregate;
+    Expression[]        arguments;
+    Type[]              argumentTypes;
+
+    // partition columns followed by order columns
+    SortAndSlice sortAndSlice = new SortAndSlice();
+    int          partitionCount;
+    int          orderCount;
+
+    //
+    boolean hasFrame;
+    boolean isRows;
+    int     frameStartType  = FRAME_UNBOUNDED_PRECEDING;
+    int     frameEndType    = FRAME_CURRENT_ROW;
+    int     frameStartOffset;
+    int     frameEndOffset;
+
+    // first hidden column of the inputs, set by QuerySpecification
+    int inputStart = -1;
+
+    ExpressionWindow(int functionType, Expression[] arguments) {
+
+        super(OpTypes.WINDOW);
+
+        this.functionType = functionType;
+        this.arguments    = arguments;
+    }
+
+    ExpressionWindow(ExpressionAggregate aggregate) {
+
+        super(OpTypes.WINDOW);
+
+        this.aggregate    = aggregate;
+        this.functionType = aggregate.opType;
+        this.isAggregate  = true;
+
+        Expression e = aggregate.getLeftNode();
+
+        if (e.opType == OpTypes.ASTERISK) {
+            isCountAll = true;
+            arguments  = Expression.emptyArray;
+        } else {
+            arguments = new Expression[]{ e };
+        }
+    }
+
+    void setPartitionList(HsqlArrayList list) {
+
+        partitionCount = list.size();
+
+        for (int i = 0; i < partitionCount; i++) {
+            Expression e = (Expression) list.get(i);
+
+            sortAndSlice.addOrderExpression(new ExpressionOrderBy(e));
+        }
+    }
+
+    void setOrderList(SortAndSlice order) {
+
+        orderCount = order.getOrderLength();
+
+        for (int i = 0; i < orderCount; i++) {
+            sortAndSlice.addOrderExpression(
+                (Expression) order.exprList.get(i));
+        }
+    }
+
+    void setFrame(boolean isRows, int startType, int startOffset,
+                  int endType, int endOffset) {
+
+        this.hasFrame         = true;
+        this.isRows           = isRows;
+        this.frameStartType   = startType;
+        this.frameStartOffset = startOffset;
+        this.frameEndType     = endType;
+        this.frameEndOffset   = endOffset;
+    }
+
+    boolean hasEmptySpecification() {
+        return sortAndSlice.getOrderLength() == 0 && !hasFrame;
+    }
+
+    /**
+     * Returns the expressions to allocate as hidden columns, in the order:
+     * partition, order, arguments
+     */
+    Expression[] getInputExpressions() {
+
+        int          keyCount = sortAndSlice.getOrderLength();
+        Expression[] inputs   = new Expression[keyCount + arguments.length];
+
+        for (int i = 0; i < keyCount; i++) {
+            inputs[i] =
+                ((Expression) sortAndSlice.exprList.get(i)).getLeftNode();
+        }
+
+        for (int i = 0; i < arguments.length; i++) {
+            inputs[keyCount + i] = arguments[i];
+        }
+
+        return inputs;
+    }
+
+    void setInputStart(int index) {
+
+        inputStart = index;
+
+        sortAndSlice.prepare(index);
+    }
+
+    /**
+     * Collects by identity all the expressions of the given type. Does not
+     * descend into subqueries or aggregates.
+     */
+    static HsqlList collectExpressions(Expression e, HsqlList list,
+                                       int type) {
+
+        if (OpTypes.subqueryAggregateExpressionSet.contains(e.opType)) {
+            return list;
+        }
+
+        for (int i = 0; i < e.nodes.length; i++) {
+            if (e.nodes[i] != null) {
+                list = collectExpressions(e.nodes[i], list, type);
+            }
+        }
+
+        if (e.opType == type) {
+            if (list == null) {
+                list = new HsqlArrayList();
+            }
+
+            list.add(e);
+        }
+
+        return list;
+    }
+
+    public String getSQL() {
+
+        StringBuilder sb = new StringBuilder(64);
+
+        if (isAggregate) {
+            sb.append(aggregate.getSQL());
+        } else {
+            sb.append(Tokens.getKeyword(functionType)).append('(');
+
+            for (int i = 0; i < arguments.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+
+                sb.append(arguments[i].getSQL());
+            }
+
+            sb.append(')');
+        }
+
+        sb.append(' ').append(Tokens.T_OVER).append(' ').append('(');
+
+        for (int i = 0; i < sortAndSlice.getOrderLength(); i++) {
+            ExpressionOrderBy e =
+                (ExpressionOrderBy) sortAndSlice.exprList.get(i);
+
+            if (i == 0) {
+                sb.append(Tokens.T_PARTITION).append(' ').append(Tokens.T_BY);
+            } else if (i == partitionCount) {
+                sb.append(' ').append(Tokens.T_ORDER).append(' ').append(
+                    Tokens.T_BY);
+            } else {
+                sb.append(',');
+            }
+
+            if (i == 0 && partitionCount == 0) {
+                sb.setLength(sb.length() - Tokens.T_PARTITION.length()
+                             - Tokens.T_BY.length() - 1);
+                sb.append(Tokens.T_ORDER).append(' ').append(Tokens.T_BY);
+            }
+
+            sb.append(' ').append(e.getLeftNode().getSQL());
+
+            if (e.isDescending()) {
+                sb.append(' ').append(Tokens.T_DESC);
+            }
+        }
+
+        if (hasFrame) {
+            sb.append(' ').append(isRows ? Tokens.T_ROWS
+                                         : Tokens.T_RANGE);
+            sb.append(' ').append(Tokens.T_BETWEEN).append(' ');
+            sb.append(getFrameBoundSQL(frameStartType, frameStartOffset));
+            sb.append(' ').append(Tokens.T_AND).append(' ');
+            sb.append(getFrameBoundSQL(frameEndType, frameEndOffset));
+        }
+
+        sb.append(')');
+
+        return sb.toString();
+    }
+
+    private static String getFrameBoundSQL(int type, int offset) {
+
+        switch (type) {
+
+            case FRAME_UNBOUNDED_PRECEDING :
+                return Tokens.T_UNBOUNDED + ' ' + Tokens.T_PRECEDING;
+
+            case FRAME_PRECEDING :
+                return offset + " " + Tokens.T_PRECEDING;
+
+            case FRAME_CURRENT_ROW :
+                return Tokens.T_CURRENT + ' ' + Tokens.T_ROW;
+
+            case FRAME_FOLLOWING :
+                return offset + " " + Tokens.T_FOLLOWING;
+
+            case FRAME_UNBOUNDED_FOLLOWING :
+                return Tokens.T_UNBOUNDED + ' ' + Tokens.T_FOLLOWING;
+
+            default :
+                throw Error.runtimeError(ErrorCode.U_S0500,
+                                         "ExpressionWindow");
+        }
+    }
+
+    protected String describe(Session session, int blanks) {
+
+        StringBuilder sb = new StringBuilder(64);
+
+        sb.append('\n');
+
+        for (int i = 0; i < blanks; i++) {
+            sb.append(' ');
+        }
+
+        sb.append("WINDOW FUNCTION ").append(getSQL());
+
+        return sb.toString();
+    }
+
+    public void resolveTypes(Session session, Expression parent) {
+
+        if (inputStart < 0) {
+
+            // not in a select list
+            throw Error.error(ErrorCode.X_0A501, Tokens.T_OVER);
+        }
+
+        argumentTypes = new Type[arguments.length];
+
+        for (int i = 0; i < arguments.length; i++) {
+            Expression e = arguments[i];
+
+            if (e.isUnresolvedParam()) {
+                if (i == 0 || isAggregate) {
+                    throw Error.error(ErrorCode.X_42567);
+                }
+
+                e.setDataType(session, i == 2 ? argumentTypes[0]
+                                              : Type.SQL_INTEGER);
+            }
+
+            if (e.dataType == null) {
+                throw Error.error(ErrorCode.X_42567);
+            }
+
+            argumentTypes[i] = e.dataType;
+        }
+
+        sortAndSlice.setSortIndex(null);
+
+        if (isAggregate) {
+            dataType = ExpressionAggregate.getType(session, functionType,
+                                                   isCountAll ? null
+                                                              : argumentTypes[0]);
+
+            return;
+        }
+
+        switch (functionType) {
+
+            case Tokens.ROW_NUMBER :
+            case Tokens.RANK :
+            case Tokens.DENSE_RANK :
+                dataType = Type.SQL_BIGINT;
+                break;
+
+            case Tokens.PERCENT_RANK :
+            case Tokens.CUME_DIST :
+                dataType = Type.SQL_DOUBLE;
+                break;
+
+            case Tokens.NTILE :
+                if (!argumentTypes[0].isIntegralType()) {
+                    throw Error.error(ErrorCode.X_42563);
+                }
+
+                dataType = Type.SQL_BIGINT;
+                break;
+
+            case Tokens.LAG :
+            case Tokens.LEAD :
+                if (arguments.length > 1
+                        && !argumentTypes[1].isIntegralType()) {
+                    throw Error.error(ErrorCode.X_42563);
+                }
+
+                dataType = argumentTypes[0];
+
+                if (arguments.length > 2) {
+                    dataType = Type.getAggregateType(argumentTypes[2],
+                                                     dataType);
+                }
+                break;
+
+            case Tokens.FIRST_VALUE :
+            case Tokens.LAST_VALUE :
+                dataType = argumentTypes[0];
+                break;
+
+            default :
+                throw Error.runtimeError(ErrorCode.U_S0500,
+                                         "ExpressionWindow");
+        }
+    }
+
+    public Object getValue(Session session) {
+        throw Error.error(ErrorCode.X_0A501, Tokens.T_OVER);
+    }
+
+    boolean equals(Expression other) {
+
+        if (other == this) {
+            return true;
+        }
+
+        if (!(other instanceof ExpressionWindow)) {
+            return false;
+        }
+
+        ExpressionWindow o = (ExpressionWindow) other;
+
+        if (functionType != o.functionType || isAggregate != o.isAggregate
+                || isCountAll != o.isCountAll
+                || partitionCount != o.partitionCount
+                || orderCount != o.orderCount || isRows != o.isRows
+                || frameStartType != o.frameStartType
+                || frameEndType != o.frameEndType
+                || frameStartOffset != o.frameStartOffset
+                || frameEndOffset != o.frameEndOffset) {
+            return false;
+        }
+
+        if (!equals(arguments, o.arguments)) {
+            return false;
+        }
+
+        return hasKeys(o, sortAndSlice.getOrderLength());
+    }
+
+    /**
+     * Returns true if the rows sorted for the other window are also sorted
+     * for this one.
+     */
+    boolean isSortedBy(ExpressionWindow other) {
+
+        int count = sortAndSlice.getOrderLength();
+
+        if (other == null || other.sortAndSlice.getOrderLength() < count) {
+            return false;
+        }
+
+        return hasKeys(other, count);
+    }
+
+    private boolean hasKeys(ExpressionWindow other, int count) {
+
+        for (int i = 0; i < count; i++) {
+            ExpressionOrderBy e =
+                (ExpressionOrderBy) sortAndSlice.exprList.get(i);
+            ExpressionOrderBy oe =
+                (ExpressionOrderBy) other.sortAndSlice.exprList.get(i);
+
+            if (e.isDescending() != oe.isDescending()
+                    || e.isNullsLast() != oe.isNullsLast()
+                    || e.collation != oe.collation
+                    || !e.getLeftNode().equals(oe.getLeftNode())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns true if the expression is one of the partition keys, so a
+     * condition on its value selects whole partitions.
+     */
+    boolean isPartitionedBy(Expression e) {
+
+        for (int i = 0; i < partitionCount; i++) {
+            ExpressionOrderBy key =
+                (ExpressionOrderBy) sortAndSlice.exprList.get(i);
+
+            if (key.getLeftNode().equals(e)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Sets the values of the function in the result column for rows that
+     * have been sorted on the partition and order columns.
+     */
+    void setWindowValues(Session session, Object[][] rows, int size) {
+
+        for (int start = 0; start < size; ) {
+            int end = start + 1;
+
+            while (end < size
+                    && compareKeys(session, rows[start], rows[end],
+                                   partitionCount) == 0) {
+                end++;
+            }
+
+            setPartitionValues(session, rows, start, end);
+
+            start = end;
+        }
+    }
+
+    private int compareKeys(Session session, Object[] a, Object[] b,
+                            int count) {
+
+        if (count == 0) {
+            return 0;
+        }
+
+        Index index = sortAndSlice.index;
+
+        return index.compareRowNonUnique(session, a, b, count);
+    }
+
+    private void setPartitionValues(Session session, Object[][] rows,
+                                    int start, int end) {
+
+        int   resultIndex = resultTableColumnIndex;
+        int   argIndex    = inputStart + partitionCount + orderCount;
+        int   count       = end - start;
+        int[] peerStart   = null;
+        int[] peerEnd     = null;
+
+        if (!isRows || !isAggregate) {
+            peerStart = new int[count];
+            peerEnd   = new int[count];
+
+            for (int i = start; i < end; ) {
+                int j = i + 1;
+
+                while (j < end
+                        && compareKeys(session, rows[i], rows[j],
+                                       partitionCount + orderCount) == 0) {
+                    j++;
+                }
+
+                for (int k = i; k < j; k++) {
+                    peerStart[k - start] = i;
+                    peerEnd[k - start]   = j;
+                }
+
+                i = j;
+            }
+        }
+
+        if (isAggregate) {
+            setAggregateValues(session, rows, start, end, peerStart,
+                               peerEnd);
+
+            return;
+        }
+
+        switch (functionType) {
+
+            case Tokens.ROW_NUMBER :
+                for (int i = start; i < end; i++) {
+                    rows[i][resultIndex] = ValuePool.getLong(i - start + 1);
+                }
+                break;
+
+            case Tokens.RANK :
+                for (int i = start; i < end; i++) {
+                    rows[i][resultIndex] =
+                        ValuePool.getLong(peerStart[i - start] - start + 1);
+                }
+                break;
+
+            case Tokens.DENSE_RANK : {
+                long rank = 0;
+
+                for (int i = start; i < end; i++) {
+                    if (peerStart[i - start] == i) {
+                        rank++;
+                    }
+
+                    rows[i][resultIndex] = ValuePool.getLong(rank);
+                }
+
+                break;
+            }
+            case Tokens.PERCENT_RANK :
+                for (int i = start; i < end; i++) {
+                    double rank = count == 1 ? 0
+                                             : (double) (peerStart[i - start]
+                                                 - start) / (count - 1);
+
+                    rows[i][resultIndex] = ValuePool.getDouble(
+                        Double.doubleToLongBits(rank));
+                }
+                break;
+
+            case Tokens.CUME_DIST :
+                for (int i = start; i < end; i++) {
+                    double dist = (double) (peerEnd[i - start] - start)
+                                  / count;
+
+                    rows[i][resultIndex] = ValuePool.getDouble(
+                        Double.doubleToLongBits(dist));
+                }
+                break;
+
+            case Tokens.NTILE :
+                for (int i = start; i < end; i++) {
+                    Object value = rows[i][argIndex];
+
+                    if (value == null) {
+                        rows[i][resultIndex] = null;
+
+                        continue;
+                    }
+
+                    long buckets = ((Number) value).longValue();
+
+                    if (buckets <= 0) {
+                        throw Error.error(ErrorCode.X_22014);
+                    }
+
+                    // the first (count % buckets) tiles have one extra row
+                    long size     = count / buckets;
+                    long larger   = count % buckets;
+                    long position = i - start;
+                    long limit    = larger * (size + 1);
+                    long tile     = position < limit
+                                    ? position / (size + 1) + 1
+                                    : (position - limit) / size + larger + 1;
+
+                    rows[i][resultIndex] = ValuePool.getLong(tile);
+                }
+                break;
+
+            case Tokens.LAG :
+            case Tokens.LEAD :
+                for (int i = start; i < end; i++) {
+                    long offset = 1;
+
+                    if (arguments.length > 1) {
+                        Object value = rows[i][argIndex + 1];
+
+                        if (value == null) {
+                            rows[i][resultIndex] = null;
+
+                            continue;
+                        }
+
+                        offset = ((Number) value).longValue();
+
+                        if (offset < 0) {
+                            throw Error.error(ErrorCode.X_22023);
+                        }
+                    }
+
+                    long position = functionType == Tokens.LAG ? i - offset
+                                                               : i + offset;
+
+                    if (position >= start && position < end) {
+                        rows[i][resultIndex] = convertArgument(session,
+                                rows[(int) position][argIndex], 0);
+                    } else if (arguments.length > 2) {
+                        rows[i][resultIndex] = convertArgument(session,
+                                rows[i][argIndex + 2], 2);
+                    } else {
+                        rows[i][resultIndex] = null;
+                    }
+                }
+                break;
+
+            case Tokens.FIRST_VALUE :
+            case Tokens.LAST_VALUE :
+                for (int i = start; i < end; i++) {
+                    int frameStart = getFrameStart(i, start, end, peerStart);
+                    int frameEnd   = getFrameEnd(i, start, end, peerEnd);
+
+                    if (frameStart >= frameEnd) {
+                        rows[i][resultIndex] = null;
+
+                        continue;
+                    }
+
+                    int position = functionType == Tokens.FIRST_VALUE
+                                   ? frameStart
+                                   : frameEnd - 1;
+
+                    rows[i][resultIndex] = rows[position][argIndex];
+                }
+                break;
+
+            default :
+                throw Error.runtimeError(ErrorCode.U_S0500,
+                                         "ExpressionWindow");
+        }
+    }
+
+    /**
+     * When the frame starts at the partition start, the rows are added to
+     * a single set function as the frame end moves forward. When the frame
+     * ends at the partition end, the same is done in reverse. For other
+     * frames of COUNT, and of SUM and AVG of exact numbers, rows are added
+     * as the frame end moves forward and removed as the frame start moves
+     * forward. Other frames are aggregated separately for each row.
+     */
+    private void setAggregateValues(Session session, Object[][] rows,
+                                    int start, int end, int[] peerStart,
+                                    int[] peerEnd) {
+
+        int         resultIndex = resultTableColumnIndex;
+        SetFunction function    = null;
+        Object      value       = null;
+        boolean     changed     = true;
+
+        if (frameStartType == FRAME_UNBOUNDED_PRECEDING) {
+            int added = start;
+
+            for (int i = start; i < end; i++) {
+                int frameEnd = getFrameEnd(i, start, end, peerEnd);
+
+                for (; added < frameEnd; added++) {
+                    function = addRow(session, function, rows[added]);
+                    changed  = true;
+                }
+
+                if (changed) {
+                    value   = getAggregatedValue(function);
+                    changed = false;
+                }
+
+                rows[i][resultIndex] = value;
+            }
+        } else if (frameEndType == FRAME_UNBOUNDED_FOLLOWING) {
+            int added = end;
+
+            for (int i = end - 1; i >= start; i--) {
+                int frameStart = getFrameStart(i, start, end, peerStart);
+
+                while (added > frameStart) {
+                    added--;
+
+                    function = addRow(session, function, rows[added]);
+                    changed  = true;
+                }
+
+                if (changed) {
+                    value   = getAggregatedValue(function);
+                    changed = false;
+                }
+
+                rows[i][resultIndex] = value;
+            }
+        } else if (SetFunctionValueAggregate.isRemovable(functionType,
+                isCountAll ? null
+                           : argumentTypes[0], false)) {
+
+            // the rows from removed to added are in the function
+            int added   = start;
+            int removed = start;
+
+            for (int i = start; i < end; i++) {
+                int frameStart = getFrameStart(i, start, end, peerStart);
+                int frameEnd   = getFrameEnd(i, start, end, peerEnd);
+
+                if (frameStart >= added) {
+                    function = null;
+                    added    = frameStart;
+                    removed  = frameStart;
+                    changed  = true;
+                }
+
+                for (; removed < frameStart; removed++) {
+                    removeRow(function, rows[removed]);
+
+                    changed = true;
+                }
+
+                for (; added < frameEnd; added++) {
+                    function = addRow(session, function, rows[added]);
+                    changed  = true;
+                }
+
+                if (changed) {
+                    value   = getAggregatedValue(function);
+                    changed = false;
+                }
+
+                rows[i][resultIndex] = value;
+            }
+        } else {
+            for (int i = start; i < end; i++) {
+                int frameStart = getFrameStart(i, start, end, peerStart);
+                int frameEnd   = getFrameEnd(i, start, end, peerEnd);
+
+                function = null;
+
+                for (int j = frameStart; j < frameEnd; j++) {
+                    function = addRow(session, function, rows[j]);
+                }
+
+                rows[i][resultIndex] = getAggregatedValue(function);
+            }
+        }
+    }
+
+    private SetFunction addRow(Session session, SetFunction function,
+                               Object[] row) {
+
+        if (function == null) {
+            function = new SetFunctionValueAggregate(session, functionType,
+                    isCountAll ? null
+                               : argumentTypes[0], dataType, false);
+        }
+
+        Object value = isCountAll ? ValuePool.INTEGER_1
+                                  : row[inputStart + partitionCount
+                                        + orderCount];
+
+        function.add(value);
+
+        return function;
+    }
+
+    private void removeRow(SetFunction function, Object[] row) {
+
+        Object value = isCountAll ? ValuePool.INTEGER_1
+                                  : row[inputStart + partitionCount
+                                        + orderCount];
+
+        ((SetFunctionValueAggregate) function).remove(value);
+    }
+
+    private Object getAggregatedValue(SetFunction function) {
+
+        if (function == null) {
+            return functionType == OpTypes.COUNT ? ValuePool.getLong(0)
+                                                 : null;
+        }
+
+        return function.getValue();
+    }
+
+    /**
+     * Returns the first row of the frame
+     */
+    private int getFrameStart(int row, int start, int end, int[] peerStart) {
+
+        switch (frameStartType) {
+
+            case FRAME_UNBOUNDED_PRECEDING :
+                return start;
+
+            case FRAME_PRECEDING :
+                return Math.max(start, row - frameStartOffset);
+
+            case FRAME_CURRENT_ROW :
+                return isRows ? row
+                              : peerStart[row - start];
+
+            case FRAME_FOLLOWING :
+                return (int) Math.min(end, (long) row + frameStartOffset);
+
+            default :
+                throw Error.runtimeError(ErrorCode.U_S0500,
+                                         "ExpressionWindow");
+        }
+    }
+
+    /**
+     * Returns the row after the last row of the frame
+     */
+    private int getFrameEnd(int row, int start, int end, int[] peerEnd) {
+
+        switch (frameEndType) {
+
+            case FRAME_PRECEDING :
+                return Math.max(start, row - frameEndOffset + 1);
+
+            case FRAME_CURRENT_ROW :
+                return isRows ? row + 1
+                              : peerEnd[row - start];
+
+            case FRAME_FOLLOWING :
+                return (int) Math.min(end, (long) row + frameEndOffset + 1);
+
+            case FRAME_UNBOUNDED_FOLLOWING :
+                return end;
+
+            default :
+                throw Error.runtimeError(ErrorCode.U_S0500,
+                                         "ExpressionWindow");
+        }
+    }
+
+    private Object convertArgument(Session session, Object value, int i) {
+
+        if (argumentTypes[i] == dataType || value == null) {
+            return value;
+        }
+
+        return dataType.convertToType(session, value, argumentTypes[i]);
+    }
+}
@@ -221,6 +221,7 @@ public class FunctionCustom extends FunctionSQL {
         nonDeterministicFuncSet.add(FUNC_ISREADONLYDATABASE);
         nonDeterministicFuncSet.add(FUNC_ISREADONLYDATABASEFILES);
         nonDeterministicFuncSet.add(FUNC_ISOLATION_LEVEL);
+        nonDeterministicFuncSet.add(FUNC_RAND);
         nonDeterministicFuncSet.add(FUNC_SESSION_ID);
         nonDeterministicFuncSet.add(FUNC_SESSION_ISOLATION_LEVEL);
         nonDeterministicFuncSet.add(FUNC_SESSION_TIMEZONE);
@@ -2091,12 +2092,13 @@ public class FunctionCustom extends FunctionSQL {
                     count = ((Number) data[4]).intValue();
                 }
 
-                if (isFixed) {
+                if (isFixed && pattern != null && pattern.flags() == flags) {
                     currentPattern = pattern;
                 }
 
                 if (currentPattern == null) {
-                    currentPattern = Pattern.compile(matchPattern, flags);
+                    currentPattern = session.database.getPattern(matchPattern,
+                            flags);
                 }
 
                 if (isFixed) {
@@ -2134,7 +2136,8 @@ public class FunctionCustom extends FunctionSQL {
                 if (currentPattern == null) {
                     String matchPattern = (String) data[1];
 
-                    currentPattern = Pattern.compile(matchPattern);
+                    currentPattern = session.database.getPattern(matchPattern,
+                            0);
                 }
 
                 Matcher matcher = currentPattern.matcher((String) data[0]);
@@ -3583,7 +3586,7 @@ public class FunctionCustom extends FunctionSQL {
                 if (nodes[1].exprSubType == OpTypes.VALUE) {
                     String matchPattern = (String) nodes[1].getValue(session);
 
-                    pattern = Pattern.compile(matchPattern);
+                    pattern = session.database.getPattern(matchPattern, 0);
                 }
 
                 switch (funcType) {
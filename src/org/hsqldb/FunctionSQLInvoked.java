@@ -34,6 +34,7 @@ package org.hsqldb;
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
 import org.hsqldb.lib.ArrayListIdentity;
+import org.hsqldb.lib.ArrayUtil;
 import org.hsqldb.lib.HsqlList;
 import org.hsqldb.lib.Set;
 import org.hsqldb.map.ValuePool;
@@ -44,7 +45,7 @@ import org.hsqldb.types.Type;
  * Implementation of SQL-invoked user-defined function calls - PSM and JRT
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.4.1
+ * @version 2.5.1
  * @since 1.9.0
  */
 public class FunctionSQLInvoked extends Expression {
@@ -171,6 +172,18 @@ public class FunctionSQLInvoked extends Expression {
             }
         }
 
+        Object[] key = null;
+
+        if (opType != OpTypes.USER_AGGREGATE && routine.isResultCacheable()) {
+            result = session.sessionContext.getRoutineResult(this, data);
+
+            if (result != null) {
+                return result;
+            }
+
+            key = (Object[]) ArrayUtil.duplicateArray(data);
+        }
+
         result = routine.invoke(session, data, aggregateData, push);
 
         session.releaseInternalConnection();
@@ -179,6 +192,10 @@ public class FunctionSQLInvoked extends Expression {
             throw result.getException();
         }
 
+        if (key != null && result.isSimpleValue()) {
+            session.sessionContext.setRoutineResult(this, key, result);
+        }
+
         if (isValue) {
             return result.valueData;
         } else {
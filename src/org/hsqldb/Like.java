@@ -73,6 +73,7 @@ package org.hsqldb;
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
 import org.hsqldb.lib.HsqlByteArrayOutputStream;
+import org.hsqldb.lib.KMPSearchAlgorithm;
 import org.hsqldb.lib.StringUtil;
 import org.hsqldb.types.BinaryData;
 import org.hsqldb.types.BlobData;
@@ -88,7 +89,7 @@ import org.hsqldb.types.Type;
  *
  * @author Fred Toussi (fredt@users dot sourceforge dot net)
  * @author Thomas Mueller (Hypersonic SQL Group)
- * @version 2.3.1
+ * @version 2.5.1
  * @since 1.6.2
  */
 
@@ -114,6 +115,20 @@ class Like implements Cloneable {
     boolean          isBinary        = false;
     Type             dataType;
 
+    // specialised matching of character strings
+    static final int MATCH_GENERIC  = 0;
+    static final int MATCH_EXACT    = 1;
+    static final int MATCH_PREFIX   = 2;
+    static final int MATCH_SUFFIX   = 3;
+    static final int MATCH_CONTAINS = 4;
+    private int      matchType;
+    private String   matchString;
+    private int[]    matchTable;
+
+    // last variable pattern and escape
+    private Object lastPattern;
+    private Object lastEscape;
+
     Like() {}
 
     void setParams(boolean collation) {
@@ -172,6 +187,11 @@ class Like implements Cloneable {
             o = ((CharacterType) dataType).upper(session, o);
         }
 
+        if (matchType != MATCH_GENERIC && o instanceof String) {
+            return compareString((String) o) ? Boolean.TRUE
+                                             : Boolean.FALSE;
+        }
+
         int length = getLength(session, o);
 
         if (o instanceof ClobData) {
@@ -216,6 +236,28 @@ class Like implements Cloneable {
         return l;
     }
 
+    private boolean compareString(String s) {
+
+        switch (matchType) {
+
+            case MATCH_EXACT :
+                return s.equals(matchString);
+
+            case MATCH_PREFIX :
+                return s.startsWith(matchString);
+
+            case MATCH_SUFFIX :
+                return s.endsWith(matchString);
+
+            case MATCH_CONTAINS :
+                return KMPSearchAlgorithm.search(s, matchString, matchTable, 0)
+                       >= 0;
+
+            default :
+                throw Error.runtimeError(ErrorCode.U_S0500, "Like");
+        }
+    }
+
     private boolean compareAt(Session session, Object o, int i, int j,
                               int iLen, int jLen, char[] cLike,
                               int[] wildCardType) {
@@ -265,7 +307,21 @@ class Like implements Cloneable {
     void setPattern(Session session, Object pattern, Object escape,
                     boolean hasEscape) {
 
-        isNull = pattern == null;
+        if (pattern != null && pattern.equals(lastPattern)) {
+            if (escape == null ? lastEscape == null
+                               : escape.equals(lastEscape)) {
+                return;
+            }
+        }
+
+        Object likePattern = pattern;
+
+        lastPattern = null;
+        lastEscape  = null;
+        matchType   = MATCH_GENERIC;
+        matchString = null;
+        matchTable  = null;
+        isNull      = pattern == null;
 
         if (!hasEscape) {
             escapeChar = -1;
@@ -359,6 +415,60 @@ class Like implements Cloneable {
                 wildCardType[i + 1] = PERCENT_CHAR;
             }
         }
+
+        if (!isBinary) {
+            setMatchType();
+        }
+
+        lastPattern = likePattern;
+        lastEscape  = escape;
+    }
+
+    /**
+     * Patterns that are a literal, optionally with a leading and / or
+     * trailing percent, are matched without interpreting the pattern.
+     */
+    private void setMatchType() {
+
+        int start = 0;
+        int end   = iLen;
+
+        if (start < end && wildCardType[start] == PERCENT_CHAR) {
+            start++;
+        }
+
+        if (start < end && wildCardType[end - 1] == PERCENT_CHAR) {
+            end--;
+        }
+
+        for (int i = start; i < end; i++) {
+            if (wildCardType[i] != 0) {
+                return;
+            }
+        }
+
+        boolean leading  = start > 0;
+        boolean trailing = end < iLen;
+
+        if (start == end && leading) {
+            return;
+        }
+
+        matchString = new String(cLike, start, end - start);
+
+        if (leading && trailing) {
+            matchType = MATCH_CONTAINS;
+
+            if (matchString.length() > 1) {
+                matchTable = KMPSearchAlgorithm.computeTable(matchString);
+            }
+        } else if (leading) {
+            matchType = MATCH_SUFFIX;
+        } else if (trailing) {
+            matchType = MATCH_PREFIX;
+        } else {
+            matchType = MATCH_EXACT;
+        }
     }
 
     boolean isEquivalentToUnknownPredicate() {
@@ -419,6 +529,7 @@ class Like implements Cloneable {
         sb.append("isIgnoreCase=").append(isIgnoreCase).append('\n');
         sb.append("iLen=").append(iLen).append('\n');
         sb.append("iFirstWildCard=").append(iFirstWildCard).append('\n');
+        sb.append("matchType=").append(matchType).append('\n');
         sb.append("cLike=");
 
         if (cLike != null) {
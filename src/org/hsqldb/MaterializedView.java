@@ -0,0 +1,784 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb;
+
+import org.hsqldb.HsqlNameManager.HsqlName;
+import org.hsqldb.error.Error;
+import org.hsqldb.error.ErrorCode;
+import org.hsqldb.index.Index;
+import org.hsqldb.lib.ArrayUtil;
+import org.hsqldb.lib.HashSet;
+import org.hsqldb.lib.HsqlArrayList;
+import org.hsqldb.lib.Iterator;
+import org.hsqldb.lib.OrderedHashSet;
+import org.hsqldb.lib.OrderedIntHashSet;
+import org.hsqldb.map.ValuePool;
+import org.hsqldb.navigator.RangeIterator;
+import org.hsqldb.navigator.RowIterator;
+import org.hsqldb.navigator.RowSetNavigator;
+import org.hsqldb.persist.PersistentStore;
+import org.hsqldb.result.Result;
+import org.hsqldb.types.RowType;
+import org.hsqldb.types.Type;
+import org.hsqldb.types.TypedComparator;
+
+/**
+ * Represents an SQL MATERIALIZED VIEW, a table that holds the result of its
+ * query expression.<p>
+ *
+ * REFRESH MATERIALIZED VIEW replaces the rows with the current result of the
+ * query. With REFRESH ON COMMIT, the changes made by each transaction to the
+ * single base table of the query are applied to the rows when the
+ * transaction commits. This is supported for queries that select and filter
+ * the rows of the base table, and for GROUP BY queries with COUNT and SUM
+ * aggregates.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class MaterializedView extends Table {
+
+    private static final OrderedIntHashSet routineExpressionSet =
+        new OrderedIntHashSet(new int[]{ OpTypes.FUNCTION });
+
+    private String  statement;
+    private boolean isRefreshOnCommit;
+
+    //
+    private StatementQuery queryStatement;
+    private OrderedHashSet schemaObjectNames;
+
+    // plan for applying the changes to the base table
+    private Table         sourceTable;
+    private RangeVariable sourceRange;
+    private Expression    sourceCondition;
+    private Expression[]  sourceExpressions;
+    private int[]         aggregateTypes;
+    private int[]         countColumns;
+    private int[]         groupColumns;
+    private int           countAllColumn;
+    private boolean       isAggregated;
+
+    MaterializedView(Database database, HsqlName name, int type,
+                     String statement, boolean refreshOnCommit) {
+
+        super(database, name, type);
+
+        this.statement         = statement;
+        this.isRefreshOnCommit = refreshOnCommit;
+    }
+
+    /**
+     * Returns a table with the same query and plan, for changes of table
+     * type and structure.
+     */
+    MaterializedView duplicate(int newType) {
+
+        MaterializedView view = new MaterializedView(database, tableName,
+            newType, statement, isRefreshOnCommit);
+
+        view.queryStatement    = queryStatement;
+        view.schemaObjectNames = schemaObjectNames;
+        view.sourceTable       = sourceTable;
+        view.sourceRange       = sourceRange;
+        view.sourceCondition   = sourceCondition;
+        view.sourceExpressions = sourceExpressions;
+        view.aggregateTypes    = aggregateTypes;
+        view.countColumns      = countColumns;
+        view.groupColumns      = groupColumns;
+        view.countAllColumn    = countAllColumn;
+        view.isAggregated      = isAggregated;
+
+        return view;
+    }
+
+    public boolean isRefreshOnCommit() {
+        return isRefreshOnCommit;
+    }
+
+    boolean isSourceTable(Table table) {
+        return sourceTable == table;
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    StatementQuery getQueryStatement() {
+        return queryStatement;
+    }
+
+    public OrderedHashSet getReferences() {
+
+        OrderedHashSet set = super.getReferences();
+
+        set.addAll(schemaObjectNames);
+
+        return set;
+    }
+
+    /**
+     * Column references in the query are to the columns of other tables.
+     */
+    public OrderedHashSet getReferencesForScript() {
+
+        OrderedHashSet set = new OrderedHashSet();
+
+        for (int i = 0; i < schemaObjectNames.size(); i++) {
+            HsqlName name = (HsqlName) schemaObjectNames.get(i);
+
+            if (name.type == SchemaObject.COLUMN) {
+                set.add(name.parent);
+            } else {
+                set.add(name);
+            }
+        }
+
+        return set;
+    }
+
+    /**
+     * Compiles the query expression and the plan for applying changes.
+     */
+    public void compile(Session session, SchemaObject parentObject) {
+
+        super.compile(session, parentObject);
+
+        ParserDQL p = new ParserDQL(session, new Scanner(session, statement),
+                                    null);
+
+        p.isViewDefinition = true;
+
+        p.read();
+
+        QueryExpression queryExpression = p.XreadQueryExpression();
+
+        queryExpression.setReturningResult();
+        queryExpression.resolve(session);
+
+        if (queryExpression.getColumnCount() != getColumnCount()) {
+            throw Error.error(ErrorCode.X_42593, getName().statementName);
+        }
+
+        queryStatement = new StatementQuery(session, queryExpression,
+                                            p.compileContext);
+        schemaObjectNames = p.compileContext.getSchemaObjectNames();
+
+        if (isRefreshOnCommit) {
+            setChangePlan(queryExpression);
+        }
+    }
+
+    public String getSQL() {
+
+        StringBuilder sb = new StringBuilder(128);
+
+        sb.append(Tokens.T_CREATE).append(' ');
+
+        if (isCached()) {
+            sb.append(Tokens.T_CACHED).append(' ');
+        } else {
+            sb.append(Tokens.T_MEMORY).append(' ');
+        }
+
+        sb.append(Tokens.T_MATERIALIZED).append(' ');
+        sb.append(Tokens.T_VIEW).append(' ');
+        sb.append(getName().getSchemaQualifiedStatementName());
+        sb.append('(');
+
+        for (int j = 0; j < columnCount; j++) {
+            if (j > 0) {
+                sb.append(',');
+            }
+
+            sb.append(getColumn(j).getName().statementName);
+        }
+
+        sb.append(')').append(' ');
+
+        if (isRefreshOnCommit) {
+            sb.append(Tokens.T_REFRESH).append(' ').append(Tokens.T_ON);
+            sb.append(' ').append(Tokens.T_COMMIT).append(' ');
+        }
+
+        sb.append(Tokens.T_AS).append(' ').append(statement).append(' ');
+        sb.append(Tokens.T_WITH).append(' ').append(Tokens.T_NO).append(' ');
+        sb.append(Tokens.T_DATA);
+
+        return sb.toString();
+    }
+
+    /**
+     * Replaces the rows with the result of the query.
+     */
+    long refresh(Session session) {
+
+        Result          result = executeQuery(session);
+        PersistentStore store  = getRowStore(session);
+        HsqlArrayList   list  = new HsqlArrayList();
+        RowIterator     it    = rowIterator(store);
+
+        while (it.next()) {
+            list.add(it.getCurrentRow());
+        }
+
+        for (int i = 0; i < list.size(); i++) {
+            session.addDeleteAction(this, store, (Row) list.get(i), null);
+        }
+
+        RowSetNavigator nav   = result.initialiseNavigator();
+        long            count = 0;
+
+        while (nav.next()) {
+            Object[] data = (Object[]) ArrayUtil.resizeArrayIfDifferent(
+                nav.getCurrent(), columnCount);
+
+            for (int i = 0; i < columnCount; i++) {
+                data[i] = colTypes[i].convertToTypeLimits(session, data[i]);
+            }
+
+            insertSingleRow(session, store, data, null);
+
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Replaces the rows with the result of the query without recording
+     * the changes in the transaction, after the base table is truncated.
+     */
+    void reload(Session session) {
+
+        Result result = executeQuery(session);
+
+        getRowStore(session).removeAll();
+        insertIntoTable(session, result);
+    }
+
+    private Result executeQuery(Session session) {
+
+        Result  result;
+        int     maxRows   = session.sessionContext.currentMaxRows;
+        boolean allowLazy = session.sessionContext.allowLazyResult;
+
+        try {
+            session.sessionContext.currentMaxRows  = 0;
+            session.sessionContext.allowLazyResult = false;
+            result = queryStatement.execute(session);
+        } finally {
+            session.sessionContext.currentMaxRows  = maxRows;
+            session.sessionContext.allowLazyResult = allowLazy;
+        }
+
+        if (result.isError()) {
+            throw result.getException();
+        }
+
+        return result;
+    }
+
+    /**
+     * Applies the changes made by the session to the base table, recorded
+     * in the row actions up to the limit.
+     */
+    void applyRowChanges(Session session, int limit) {
+
+        Object[]        list    = session.rowActionList.getArray();
+        HashSet         actions = new HashSet();
+        HashSet         deltas  = isAggregated ? newDeltaSet(session)
+                                               : null;
+        PersistentStore store   = getRowStore(session);
+        RangeIterator checkIterator =
+            session.sessionContext.getCheckIterator(sourceRange);
+
+        for (int i = 0; i < limit; i++) {
+            RowAction action = (RowAction) list[i];
+
+            if (action.table != sourceTable || !actions.add(action)) {
+                continue;
+            }
+
+            int type = action.getSessionActionType(session);
+
+            if (type == RowAction.ACTION_NONE) {
+                continue;
+            }
+
+            Row row = action.memoryRow;
+
+            if (row == null) {
+                row = (Row) action.store.get(action.getPos(), false);
+            }
+
+            checkIterator.setCurrent(row.getData());
+
+            if (sourceCondition != null
+                    && !Boolean.TRUE.equals(
+                        sourceCondition.getValue(session))) {
+                continue;
+            }
+
+            boolean isInsert = type == RowAction.ACTION_INSERT;
+
+            if (isAggregated) {
+                addDelta(session, deltas, isInsert);
+
+                continue;
+            }
+
+            Object[] data = new Object[columnCount];
+
+            for (int j = 0; j < columnCount; j++) {
+                data[j] = colTypes[j].convertToType(
+                    session, sourceExpressions[j].getValue(session),
+                    sourceExpressions[j].getDataType());
+            }
+
+            if (isInsert) {
+                insertSingleRow(session, store, data, null);
+            } else {
+                Row current = findRow(session, store, data, defaultColumnMap);
+
+                if (current != null) {
+                    session.addDeleteAction(this, store, current, null);
+                }
+            }
+        }
+
+        if (isAggregated) {
+            Iterator it = deltas.iterator();
+
+            while (it.hasNext()) {
+                applyDelta(session, store, (Object[]) it.next());
+            }
+        }
+    }
+
+    private HashSet newDeltaSet(Session session) {
+
+        Type[] types = new Type[groupColumns.length];
+
+        for (int i = 0; i < groupColumns.length; i++) {
+            types[i] = colTypes[groupColumns[i]];
+        }
+
+        HashSet         set        = new HashSet();
+        TypedComparator comparator = new TypedComparator(session);
+        SortAndSlice    sort       = new SortAndSlice();
+
+        sort.prepareMultiColumn(types.length);
+        comparator.setType(new RowType(types), sort);
+        set.setComparator(comparator);
+
+        return set;
+    }
+
+    /**
+     * Each entry of the set has the group column values, followed by an
+     * array of the changes to the aggregate columns.
+     */
+    private void addDelta(Session session, HashSet deltas,
+                          boolean isInsert) {
+
+        int      keyCount = groupColumns.length;
+        Object[] key      = new Object[keyCount + 1];
+
+        for (int i = 0; i < keyCount; i++) {
+            Expression e = sourceExpressions[groupColumns[i]];
+
+            key[i] = colTypes[groupColumns[i]].convertToType(session,
+                    e.getValue(session), e.getDataType());
+        }
+
+        Object[] entry = (Object[]) deltas.getOrAdd(key);
+        Object[] delta = (Object[]) entry[keyCount];
+
+        if (delta == null) {
+            delta           = new Object[columnCount];
+            entry[keyCount] = delta;
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            Object value;
+
+            switch (aggregateTypes[i]) {
+
+                case OpTypes.COUNT : {
+                    if (sourceExpressions[i] != null
+                            && sourceExpressions[i].getValue(session)
+                               == null) {
+                        continue;
+                    }
+
+                    value = isInsert ? ValuePool.getLong(1)
+                                     : ValuePool.getLong(-1);
+
+                    break;
+                }
+                case OpTypes.SUM : {
+                    Expression e = sourceExpressions[i];
+
+                    value = e.getValue(session);
+
+                    if (value == null) {
+                        continue;
+                    }
+
+                    value = colTypes[i].convertToType(session, value,
+                                                      e.getDataType());
+
+                    if (!isInsert) {
+                        value = colTypes[i].negate(value);
+                    }
+
+                    break;
+                }
+                default :
+                    continue;
+            }
+
+            if (delta[i] == null) {
+                delta[i] = value;
+            } else {
+                delta[i] = colTypes[i].add(session, delta[i], value,
+                                           colTypes[i]);
+            }
+        }
+    }
+
+    private void applyDelta(Session session, PersistentStore store,
+                            Object[] entry) {
+
+        int      keyCount = groupColumns.length;
+        Object[] delta    = (Object[]) entry[keyCount];
+        Object[] data     = new Object[columnCount];
+
+        for (int i = 0; i < keyCount; i++) {
+            data[groupColumns[i]] = entry[i];
+        }
+
+        Row      current = findRow(session, store, data, groupColumns);
+        Object[] newData;
+
+        if (current == null) {
+            newData = data;
+
+            for (int i = 0; i < columnCount; i++) {
+                if (aggregateTypes[i] == OpTypes.COUNT) {
+                    newData[i] = ValuePool.getLong(0);
+                }
+            }
+        } else {
+            newData = (Object[]) ArrayUtil.duplicateArray(current.getData());
+        }
+
+        boolean changed = false;
+
+        for (int i = 0; i < columnCount; i++) {
+            if (delta[i] == null) {
+                continue;
+            }
+
+            if (newData[i] == null) {
+                newData[i] = delta[i];
+            } else {
+                newData[i] = colTypes[i].add(session, newData[i], delta[i],
+                                             colTypes[i]);
+            }
+
+            changed = true;
+        }
+
+        if (!changed) {
+            return;
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            if (aggregateTypes[i] == OpTypes.SUM) {
+                if (((Number) newData[countColumns[i]]).longValue() == 0) {
+                    newData[i] = null;
+                }
+            }
+        }
+
+        if (current != null) {
+            session.addDeleteAction(this, store, current, null);
+        }
+
+        // a query without GROUP BY returns one row for an empty table
+        if (keyCount > 0
+                && ((Number) newData[countAllColumn]).longValue() == 0) {
+            return;
+        }
+
+        insertSingleRow(session, store, newData, null);
+    }
+
+    /**
+     * Returns a row with the given values in the columns, using an index
+     * where possible.
+     */
+    private Row findRow(Session session, PersistentStore store,
+                        Object[] data, int[] cols) {
+
+        Index index       = null;
+        int   matchLength = 0;
+
+        for (int i = 0; i < indexList.length; i++) {
+            int[] indexCols = indexList[i].getColumns();
+            int   length    = 0;
+
+            while (length < indexCols.length
+                    && ArrayUtil.find(cols, indexCols[length]) >= 0
+                    && data[indexCols[length]] != null) {
+                length++;
+            }
+
+            if (length > matchLength) {
+                index       = indexList[i];
+                matchLength = length;
+            }
+        }
+
+        RowIterator it;
+        int[]       matchCols = null;
+
+        if (index == null) {
+            it = rowIterator(store);
+        } else {
+            matchCols = ArrayUtil.arraySlice(index.getColumns(), 0,
+                                             matchLength);
+            it = index.findFirstRow(session, store, data, matchCols);
+        }
+
+        try {
+            while (it.next()) {
+                Object[] rowData = it.getCurrent();
+
+                if (matchCols != null
+                        && compareRows(session, rowData, data, matchCols,
+                                       colTypes) != 0) {
+                    break;
+                }
+
+                if (compareRows(session, rowData, data, cols, colTypes)
+                        == 0) {
+                    return it.getCurrentRow();
+                }
+            }
+        } finally {
+            it.release();
+        }
+
+        return null;
+    }
+
+    /**
+     * Sets up the plan for applying the changes, or throws if the query is
+     * not supported for REFRESH ON COMMIT.
+     */
+    private void setChangePlan(QueryExpression queryExpression) {
+
+        if (!(queryExpression instanceof QuerySpecification)) {
+            throw Error.error(ErrorCode.X_0A501, Tokens.T_REFRESH);
+        }
+
+        QuerySpecification select = (QuerySpecification) queryExpression;
+
+        if (select.rangeVariables.length != 1 || select.isDistinctSelect
+                || select.hasWindowFunctions || select.isGroupingSets
+                || select.hasHavingCondition()
+                || select.sortAndSlice.hasLimit()) {
+            throw Error.error(ErrorCode.X_0A501, Tokens.T_REFRESH);
+        }
+
+        RangeVariable range = select.rangeVariables[0];
+        Table         table = range.rangeTable;
+
+        switch (table.getTableType()) {
+
+            case TableBase.MEMORY_TABLE :
+            case TableBase.CACHED_TABLE :
+            case TableBase.TEXT_TABLE :
+                break;
+
+            default :
+                throw Error.error(ErrorCode.X_0A501, Tokens.T_REFRESH);
+        }
+
+        if (table instanceof MaterializedView || table.isSystemVersioned()
+                || !isSimpleExpression(select.queryCondition)) {
+            throw Error.error(ErrorCode.X_0A501, Tokens.T_REFRESH);
+        }
+
+        Expression[] expressions = new Expression[columnCount];
+        int[]        types       = new int[columnCount];
+        int[]        counts      = new int[columnCount];
+        int          countAll    = -1;
+        boolean      aggregated  = select.isAggregated || select.isGrouped;
+
+        for (int i = 0; i < columnCount; i++) {
+            Expression e = select.exprColumns[i];
+
+            // aggregates are evaluated in the columns after the visible ones
+            if (e.getType() == OpTypes.SIMPLE_COLUMN
+                    && e.columnIndex >= select.indexStartAggregates) {
+                e = select.exprColumns[e.columnIndex];
+            }
+
+            switch (e.getType()) {
+
+                case OpTypes.COUNT :
+                case OpTypes.SUM : {
+                    Expression arg = e.getLeftNode();
+
+                    if (e.isDistinctAggregate
+                            || !e.getRightNode().isTrue()) {
+                        throw Error.error(ErrorCode.X_0A501,
+                                          Tokens.T_REFRESH);
+                    }
+
+                    if (arg.getType() == OpTypes.ASTERISK) {
+                        countAll = i;
+                    } else if (isSimpleExpression(arg)) {
+                        expressions[i] = arg;
+                    } else {
+                        throw Error.error(ErrorCode.X_0A501,
+                                          Tokens.T_REFRESH);
+                    }
+
+                    if (e.getType() == OpTypes.SUM
+                            && !colTypes[i].isExactNumberType()) {
+                        throw Error.error(ErrorCode.X_0A501,
+                                          Tokens.T_REFRESH);
+                    }
+
+                    types[i] = e.getType();
+
+                    break;
+                }
+                default :
+                    if (!isSimpleExpression(e)) {
+                        throw Error.error(ErrorCode.X_0A501,
+                                          Tokens.T_REFRESH);
+                    }
+
+                    expressions[i] = e;
+                    types[i]       = OpTypes.NONE;
+            }
+        }
+
+        int[] groups     = new int[columnCount];
+        int   groupCount = 0;
+
+        if (aggregated) {
+            int[] groupMap = select.getGroupByColumnMap();
+
+            if (groupMap == null || countAll < 0) {
+                throw Error.error(ErrorCode.X_0A501, Tokens.T_REFRESH);
+            }
+
+            for (int i = 0; i < columnCount; i++) {
+                switch (types[i]) {
+
+                    case OpTypes.NONE :
+                        if (ArrayUtil.find(groupMap, i) < 0) {
+                            throw Error.error(ErrorCode.X_0A501,
+                                              Tokens.T_REFRESH);
+                        }
+
+                        groups[groupCount++] = i;
+                        break;
+
+                    case OpTypes.SUM :
+                        counts[i] = getCountColumn(expressions, types,
+                                                   expressions[i], countAll);
+                        break;
+                }
+            }
+        }
+
+        sourceTable       = table;
+        sourceRange       = range;
+        sourceCondition   = select.queryCondition;
+        sourceExpressions = expressions;
+        aggregateTypes    = types;
+        countColumns      = counts;
+        groupColumns      = (int[]) ArrayUtil.resizeArray(groups,
+                groupCount);
+        countAllColumn    = countAll;
+        isAggregated      = aggregated;
+    }
+
+    /**
+     * A SUM becomes null when its argument has no non-null values. The
+     * count of these values is a COUNT of the same argument, or COUNT(*)
+     * when the argument is never null.
+     */
+    private static int getCountColumn(Expression[] expressions, int[] types,
+                                      Expression arg, int countAll) {
+
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == OpTypes.COUNT && expressions[i] != null
+                    && expressions[i].equals(arg)) {
+                return i;
+            }
+        }
+
+        if (arg.getNullability() == SchemaObject.Nullability.NO_NULLS) {
+            return countAll;
+        }
+
+        throw Error.error(ErrorCode.X_0A501, Tokens.T_REFRESH);
+    }
+
+    private static boolean isSimpleExpression(Expression e) {
+
+        if (e == null) {
+            return true;
+        }
+
+        if (e.collectAllSubqueries(null) != null) {
+            return false;
+        }
+
+        if (e.collectAllExpressions(null, OpTypes.sequenceExpressionSet,
+                                    OpTypes.emptyExpressionSet) != null) {
+            return false;
+        }
+
+        return e.collectAllExpressions(null, routineExpressionSet,
+                                       OpTypes.emptyExpressionSet) == null;
+    }
+}
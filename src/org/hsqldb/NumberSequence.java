@@ -32,6 +32,7 @@
 package org.hsqldb;
 
 import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 import org.hsqldb.HsqlNameManager.HsqlName;
 import org.hsqldb.error.Error;
@@ -43,10 +44,16 @@ import org.hsqldb.types.Type;
 import org.hsqldb.types.Types;
 
 /**
- * Maintains a sequence of numbers.
+ * Maintains a sequence of numbers.<p>
+ *
+ * The current value is advanced with compare-and-set by getValue(),
+ * userUpdate() and systemUpdate(), so that sessions generating values
+ * concurrently do not contend for the monitor. Only the step that reaches
+ * the minimum or maximum value is synchronized, together with the methods
+ * that redefine the sequence.
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version  2.3.4
+ * @version  2.5.1
  * @since 1.7.2
  */
 public final class NumberSequence implements SchemaObject {
@@ -56,20 +63,23 @@ public final class NumberSequence implements SchemaObject {
     //
     private HsqlName name;
 
+    private static final AtomicLongFieldUpdater<NumberSequence> currUpdater =
+        AtomicLongFieldUpdater.newUpdater(NumberSequence.class, "currValue");
+
     // present value
-    private long currValue;
+    private volatile long currValue;
 
     // last value
     private long lastValue;
 
     // limit state
-    private boolean limitReached;
+    private volatile boolean limitReached;
 
     // original start value - used in CREATE and ALTER commands
-    private long    startValue;
-    private long    minValue;
-    private long    maxValue;
-    private long    increment;
+    private long          startValue;
+    private volatile long minValue;
+    private volatile long maxValue;
+    private volatile long increment;
     private Type    dataType;
     private boolean isCycle;
     private boolean isAlways;
@@ -368,8 +378,9 @@ public final class NumberSequence implements SchemaObject {
             throw Error.error(ErrorCode.X_42597);
         }
 
-        startValue = value;
-        currValue  = lastValue = startValue;
+        startValue   = value;
+        currValue    = lastValue = startValue;
+        limitReached = false;
     }
 
     synchronized void setMinValue(long value) {
@@ -415,15 +426,17 @@ public final class NumberSequence implements SchemaObject {
 
         checkInTypeRange(value);
 
-        currValue = lastValue = value;
+        currValue    = lastValue = value;
+        limitReached = false;
     }
 
     synchronized void setStartValueNoCheck(long value) {
 
         checkInTypeRange(value);
 
-        startValue = value;
-        currValue  = lastValue = startValue;
+        startValue   = value;
+        currValue    = lastValue = startValue;
+        limitReached = false;
     }
 
     synchronized void setStartValueDefault() {
@@ -539,6 +552,7 @@ public final class NumberSequence implements SchemaObject {
 
         if (restartValueDefault) {
             currValue           = lastValue = startValue;
+            limitReached        = false;
             restartValueDefault = false;
         }
 
@@ -554,7 +568,7 @@ public final class NumberSequence implements SchemaObject {
         NumberSequence copy = new NumberSequence(name, dataType);
 
         copy.startValue = startValue;
-        copy.currValue  = currValue;
+        copy.currValue  = peek();
         copy.lastValue  = lastValue;
         copy.increment  = increment;
         copy.minValue   = minValue;
@@ -567,42 +581,43 @@ public final class NumberSequence implements SchemaObject {
 
     synchronized void reset(NumberSequence other) {
 
-        name       = other.name;
-        startValue = other.startValue;
-        currValue  = other.currValue;
-        lastValue  = other.lastValue;
-        increment  = other.increment;
-        dataType   = other.dataType;
-        minValue   = other.minValue;
-        maxValue   = other.maxValue;
-        isCycle    = other.isCycle;
-        isAlways   = other.isAlways;
+        name         = other.name;
+        startValue   = other.startValue;
+        currValue    = other.peek();
+        limitReached = false;
+        lastValue    = other.lastValue;
+        increment    = other.increment;
+        dataType     = other.dataType;
+        minValue     = other.minValue;
+        maxValue     = other.maxValue;
+        isCycle      = other.isCycle;
+        isAlways     = other.isAlways;
     }
 
     /**
      * getter for a given value
      */
-    synchronized long userUpdate(long value) {
-
-        if (value == currValue) {
-            currValue += increment;
-
-            return value;
-        }
-
-        if (increment > 0) {
-            if (value > currValue) {
-                currValue += ((value - currValue + increment) / increment)
-                             * increment;
+    long userUpdate(long value) {
+
+        while (true) {
+            long current = currValue;
+            long next;
+
+            if (value == current) {
+                next = current + increment;
+            } else if (increment > 0 ? value > current
+                                     : value < current) {
+                next = current
+                       + ((value - current + increment) / increment)
+                         * increment;
+            } else {
+                return value;
             }
-        } else {
-            if (value < currValue) {
-                currValue += ((value - currValue + increment) / increment)
-                             * increment;
+
+            if (currUpdater.compareAndSet(this, current, next)) {
+                return value;
             }
         }
-
-        return value;
     }
 
     /**
@@ -611,28 +626,24 @@ public final class NumberSequence implements SchemaObject {
      * this.
      * No checks as values may have overridden the sequence defaults
      */
-    synchronized long systemUpdate(long value) {
-
-        if (value == currValue) {
-            currValue += increment;
+    long systemUpdate(long value) {
 
-            return value;
-        }
+        while (true) {
+            long current = currValue;
 
-        if (increment > 0) {
-            if (value > currValue) {
-                currValue = value + increment;
+            if (value != current
+                    && (increment > 0 ? value < current
+                                      : value > current)) {
+                return value;
             }
-        } else {
-            if (value < currValue) {
-                currValue = value + increment;
+
+            if (currUpdater.compareAndSet(this, current, value + increment)) {
+                return value;
             }
         }
-
-        return value;
     }
 
-    synchronized Object getValueObject() {
+    Object getValueObject() {
 
         long   value = getValue();
         Object result;
@@ -661,43 +672,62 @@ public final class NumberSequence implements SchemaObject {
     /**
      * principal getter for the next sequence value
      */
-    synchronized public long getValue() {
+    public long getValue() {
 
-        if (limitReached) {
-            throw Error.error(ErrorCode.X_2200H);
-        }
+        while (true) {
+            long value = currValue;
 
-        long nextValue;
+            // limitReached is read after currValue as it is set before
+            // the last value is returned
+            if (limitReached) {
+                throw Error.error(ErrorCode.X_2200H);
+            }
+
+            long nextValue;
+
+            if (increment > 0 ? value > maxValue - increment
+                              : value < minValue - increment) {
+                if (!isCycle) {
+                    if (setLimitReached(value)) {
+                        return value;
+                    }
 
-        if (increment > 0) {
-            if (currValue > maxValue - increment) {
-                if (isCycle) {
-                    nextValue = minValue;
-                } else {
-                    limitReached = true;
-                    nextValue    = minValue;
+                    continue;
                 }
+
+                nextValue = increment > 0 ? minValue
+                                          : maxValue;
             } else {
-                nextValue = currValue + increment;
+                nextValue = value + increment;
             }
-        } else {
-            if (currValue < minValue - increment) {
-                if (isCycle) {
-                    nextValue = maxValue;
-                } else {
-                    limitReached = true;
-                    nextValue    = minValue;
-                }
-            } else {
-                nextValue = currValue + increment;
+
+            if (currUpdater.compareAndSet(this, value, nextValue)) {
+                return value;
             }
         }
+    }
+
+    /**
+     * The last value of a NO CYCLE sequence is returned here. currValue is
+     * left at the last value, so compareAndSet() in getValue() cannot succeed
+     * with an older value after the limit is reached. With CYCLE, the value
+     * that follows each value does not depend on earlier values, so a
+     * compareAndSet() that succeeds after the sequence has cycled back to
+     * the expected value returns the correct next value.
+     */
+    private synchronized boolean setLimitReached(long value) {
+
+        if (limitReached) {
+            throw Error.error(ErrorCode.X_2200H);
+        }
 
-        long result = currValue;
+        if (currValue != value) {
+            return false;
+        }
 
-        currValue = nextValue;
+        limitReached = true;
 
-        return result;
+        return true;
     }
 
     /**
@@ -706,14 +736,16 @@ public final class NumberSequence implements SchemaObject {
     synchronized void reset() {
 
         // no change if called before getValue() or called twice
-        lastValue = currValue = startValue;
+        lastValue    = currValue = startValue;
+        limitReached = false;
     }
 
     /**
      * get next value without incrementing
      */
-    synchronized public long peek() {
-        return currValue;
+    public long peek() {
+        return limitReached ? minValue
+                            : currValue;
     }
 
     /**
@@ -721,9 +753,10 @@ public final class NumberSequence implements SchemaObject {
      */
     synchronized boolean resetWasUsed() {
 
-        boolean result = lastValue != currValue;
+        long    value  = peek();
+        boolean result = lastValue != value;
 
-        lastValue = currValue;
+        lastValue = value;
 
         return result;
     }
@@ -737,6 +770,7 @@ public final class NumberSequence implements SchemaObject {
             throw Error.error(ErrorCode.X_42597);
         }
 
-        startValue = currValue = lastValue = value;
+        startValue   = currValue = lastValue = value;
+        limitReached = false;
     }
 }
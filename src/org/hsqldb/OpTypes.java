@@ -138,7 +138,8 @@ public interface OpTypes {
         USER_AGGREGATE             = 98,
         ARRAY_ACCESS               = 99,
         ARRAY_SUBQUERY             = 100,
-        GROUPING                   = 101;    // grouping function
+        GROUPING                   = 101,    // grouping function
+        WINDOW                     = 102;    // window function
     //J-
     int[] aggOpTypes = new int[] {
 
@@ -41,6 +41,7 @@ import org.hsqldb.lib.OrderedHashSet;
 import org.hsqldb.map.ValuePool;
 import org.hsqldb.persist.HsqlDatabaseProperties;
 import org.hsqldb.persist.RowInsertInterface;
+import org.hsqldb.persist.TableExporter;
 import org.hsqldb.result.Result;
 import org.hsqldb.result.ResultProperties;
 import org.hsqldb.rights.User;
@@ -199,6 +200,11 @@ public class ParserCommand extends ParserDDL {
 
                 break;
             }
+            case Tokens.REFRESH : {
+                cs = compileRefreshStatement();
+
+                break;
+            }
             case Tokens.REPLACE : {
                 cs = compileInsertStatement(RangeGroup.emptyArray);
 
@@ -1261,6 +1267,18 @@ public class ParserCommand extends ParserDDL {
                     StatementTypes.SET_DATABASE_SQL_REFERENTIAL_INTEGRITY,
                     args, null, null);
             }
+            case Tokens.RESULT : {
+                read();
+                readThis(Tokens.CACHE);
+                readThis(Tokens.SIZE);
+
+                Integer  size = readIntegerObject();
+                Object[] args = new Object[]{ size };
+
+                return new StatementCommand(
+                    StatementTypes.SET_DATABASE_RESULT_CACHE_SIZE, args, null,
+                    null);
+            }
             case Tokens.SQL : {
                 read();
 
@@ -1401,6 +1419,19 @@ public class ParserCommand extends ParserDDL {
                         property = HsqlDatabaseProperties.sql_avg_scale;
                         break;
 
+                    case Tokens.MAX :
+                        read();
+                        readThis(Tokens.RECURSIVE);
+
+                        value = readIntegerObject();
+
+                        if (value.intValue() < 1) {
+                            throw Error.error(ErrorCode.X_22003);
+                        }
+
+                        property = HsqlDatabaseProperties.sql_max_recursive;
+                        break;
+
                     case Tokens.DOUBLE :
                         read();
                         readThis(Tokens.NAN);
@@ -1644,6 +1675,15 @@ public class ParserCommand extends ParserDDL {
 
                 break;
             }
+            case Tokens.COMPRESSED : {
+                read();
+
+                type  = StatementTypes.SET_DATABASE_FILES_COMPRESSED;
+                flag  = processTrueOrFalseObject();
+                names = database.schemaManager.getCatalogAndBaseTableNames();
+
+                break;
+            }
             case Tokens.SPACE : {
                 read();
 
@@ -1670,6 +1710,11 @@ public class ParserCommand extends ParserDDL {
                 if (readIfThis(Tokens.SCALE)) {
                     value = readIntegerObject();
                     type  = StatementTypes.SET_DATABASE_FILES_LOBS_SCALE;
+                } else if (readIfThis(Tokens.INLINE)) {
+                    readThis(Tokens.SIZE);
+
+                    value = readIntegerObject();
+                    type  = StatementTypes.SET_DATABASE_FILES_LOBS_INLINE;
                 } else {
                     readThis(Tokens.COMPRESSED);
 
@@ -2474,6 +2519,10 @@ public class ParserCommand extends ParserDDL {
             case Tokens.IMPORT : {
                 read();
 
+                if (token.tokenType == Tokens.TABLE) {
+                    return compileImportTable();
+                }
+
                 return compileImportScript();
             }
             case Tokens.EXPORT : {
@@ -2488,9 +2537,46 @@ public class ParserCommand extends ParserDDL {
 
         read();
 
+        if (token.tokenType == Tokens.TABLE) {
+            return compileExportTable();
+        }
+
         return compileScript(true);
     }
 
+    private Statement compileExportTable() {
+
+        int format = TableExporter.FORMAT_TEXT;
+
+        readThis(Tokens.TABLE);
+
+        Table table = readTableName();
+
+        if (table.isView() || table.isTemp()) {
+            throw Error.error(ErrorCode.X_42501);
+        }
+
+        readThis(Tokens.TO);
+
+        String source = readQuotedString();
+
+        if (readIfThis(Tokens.FORMAT)) {
+            if (readIfThis(Tokens.BINARY)) {
+                format = TableExporter.FORMAT_BINARY;
+            } else {
+                readThis(Tokens.TEXT);
+            }
+        }
+
+        HsqlName[] names = new HsqlName[]{ table.getName() };
+        Object[]   args  = new Object[] {
+            table.getName(), source, Integer.valueOf(format)
+        };
+
+        return new StatementCommand(StatementTypes.EXPORT_TABLE, args, names,
+                                    null);
+    }
+
     private Statement compileImportScript() {
 
         String  fileName;
@@ -2524,6 +2610,42 @@ public class ParserCommand extends ParserDDL {
                                     names);
     }
 
+    private Statement compileImportTable() {
+
+        int format = TableExporter.FORMAT_TEXT;
+
+        readThis(Tokens.TABLE);
+
+        Table table = readTableName();
+
+        if (table.isView() || table.isTemp() || table.isText()) {
+            throw Error.error(ErrorCode.X_42501);
+        }
+
+        readThis(Tokens.FROM);
+
+        String source = readQuotedString();
+
+        if (readIfThis(Tokens.FORMAT)) {
+            if (readIfThis(Tokens.BINARY)) {
+                format = TableExporter.FORMAT_BINARY;
+            } else {
+                readThis(Tokens.TEXT);
+            }
+        }
+
+        int mode = readLoadMode();
+        HsqlName[] names =
+            database.schemaManager.getCatalogAndBaseTableNames();
+        Object[] args = new Object[] {
+            table.getName(), source, Integer.valueOf(format),
+            Integer.valueOf(mode)
+        };
+
+        return new StatementCommand(StatementTypes.IMPORT_TABLE, args, null,
+                                    names);
+    }
+
     private int readLoadMode() {
 
         int mode = -1;
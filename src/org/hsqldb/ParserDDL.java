@@ -117,6 +117,12 @@ public class ParserDDL extends ParserRoutine {
 
             case Tokens.MEMORY :
                 read();
+
+                if (token.tokenType == Tokens.MATERIALIZED) {
+                    return compileCreateMaterializedView(
+                        TableBase.MEMORY_TABLE);
+                }
+
                 readThis(Tokens.TABLE);
 
                 isTable   = true;
@@ -125,6 +131,12 @@ public class ParserDDL extends ParserRoutine {
 
             case Tokens.CACHED :
                 read();
+
+                if (token.tokenType == Tokens.MATERIALIZED) {
+                    return compileCreateMaterializedView(
+                        TableBase.CACHED_TABLE);
+                }
+
                 readThis(Tokens.TABLE);
 
                 isTable   = true;
@@ -201,6 +213,10 @@ public class ParserDDL extends ParserRoutine {
             case Tokens.VIEW :
                 return compileCreateView(false, isOrReplace);
 
+            case Tokens.MATERIALIZED :
+                return compileCreateMaterializedView(
+                    database.schemaManager.getDefaultTableType());
+
             case Tokens.DOMAIN :
                 return compileCreateDomain();
 
@@ -565,6 +581,16 @@ public class ParserDDL extends ParserRoutine {
                 useIfExists   = true;
                 break;
 
+            case Tokens.MATERIALIZED :
+                read();
+                readThis(Tokens.VIEW);
+
+                statementType = StatementTypes.DROP_TABLE;
+                objectType    = SchemaObject.TABLE;
+                canCascade    = true;
+                useIfExists   = true;
+                break;
+
             case Tokens.SYNONYM :
                 read();
 
@@ -658,6 +684,11 @@ public class ParserDDL extends ParserRoutine {
 
                 object = database.schemaManager.findSchemaObject(name.name,
                         name.schema.name, name.type);
+
+                if (objectTokenType == Tokens.MATERIALIZED && object != null
+                        && !(object instanceof MaterializedView)) {
+                    throw Error.error(ErrorCode.X_42501, name.name);
+                }
         }
 
         if (!ifExists && useIfExists && token.tokenType == Tokens.IF) {
@@ -1101,6 +1132,110 @@ public class ParserDDL extends ParserRoutine {
                                    writeLockNames);
     }
 
+    /**
+     * Reads MATERIALIZED VIEW [IF NOT EXISTS] name [(columns)]
+     * [REFRESH ON {COMMIT | DEMAND}] AS query [WITH [NO] DATA]
+     */
+    StatementSchema compileCreateMaterializedView(int tableType) {
+
+        read();
+        readThis(Tokens.VIEW);
+
+        Boolean  ifNot = readIfNotExists();
+        HsqlName name  = readNewSchemaObjectName(SchemaObject.TABLE, true);
+
+        name.setSchemaIfNull(session.getCurrentSchemaHsqlName());
+        checkSchemaUpdateAuthorisation(name.schema);
+
+        HsqlName[] columnNames     = null;
+        boolean    refreshOnCommit = false;
+        boolean    withData        = true;
+
+        if (token.tokenType == Tokens.OPENBRACKET) {
+            columnNames = readColumnNames(name);
+        }
+
+        if (token.tokenType == Tokens.REFRESH) {
+            read();
+            readThis(Tokens.ON);
+
+            if (token.tokenType == Tokens.COMMIT) {
+                refreshOnCommit = true;
+            } else {
+                checkIsThis(Tokens.DEMAND);
+            }
+
+            read();
+        }
+
+        readThis(Tokens.AS);
+        startRecording();
+
+        QueryExpression queryExpression;
+
+        try {
+            isViewDefinition = true;
+            queryExpression  = XreadQueryExpression();
+        } finally {
+            isViewDefinition = false;
+        }
+
+        Token[] tokenisedStatement = getRecordedStatement();
+
+        if (token.tokenType == Tokens.WITH) {
+            read();
+
+            if (token.tokenType == Tokens.NO) {
+                read();
+
+                withData = false;
+            }
+
+            readThis(Tokens.DATA);
+        }
+
+        // rows that are not in the view cannot be maintained on commit
+        if (refreshOnCommit && !withData && !session.isProcessingScript()) {
+            throw unexpectedToken(Tokens.T_NO);
+        }
+
+        queryExpression.setReturningResult();
+        queryExpression.resolve(session);
+
+        if (columnNames == null) {
+            columnNames = queryExpression.getResultColumnNames();
+        } else {
+            if (columnNames.length != queryExpression.getColumnCount()) {
+                throw Error.error(ErrorCode.X_42593);
+            }
+        }
+
+        MaterializedView view = new MaterializedView(database, name,
+            tableType, Token.getSQL(tokenisedStatement), refreshOnCommit);
+
+        TableUtil.setColumnsInSchemaTable(view, columnNames,
+                                          queryExpression.getColumnTypes());
+        view.createPrimaryKey();
+
+        Statement  statement = null;
+        HsqlName[] readName  = null;
+
+        if (withData) {
+            statement = new StatementQuery(session, queryExpression,
+                                           compileContext);
+            readName = statement.getTableNamesForRead();
+        }
+
+        Object[] args = new Object[] {
+            view, new HsqlArrayList(), new HsqlArrayList(), statement, ifNot
+        };
+        String     sql            = getLastPart();
+        HsqlName[] writeLockNames = database.schemaManager.catalogNameArray;
+
+        return new StatementSchema(sql, StatementTypes.CREATE_TABLE, args,
+                                   readName, writeLockNames);
+    }
+
     StatementSchema compileCreateSequence() {
 
         read();
@@ -48,7 +48,7 @@ import org.hsqldb.types.Type;
  * Parser for DML statements
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.9.0
  */
 public class ParserDML extends ParserDQL {
@@ -568,7 +568,17 @@ public class ParserDML extends ParserDQL {
         }
 
         if (isTable) {
-            writeTableNames = new HsqlName[]{ table.getName() };
+            OrderedHashSet set = new OrderedHashSet();
+
+            set.add(table.getName());
+
+            if (withCommit) {
+                table.collectMaterializedViewWriteLocks(set);
+            }
+
+            writeTableNames = new HsqlName[set.size()];
+
+            set.toArray(writeTableNames);
         } else {
             writeTableNames =
                 session.database.schemaManager.getCatalogAndBaseTableNames();
@@ -592,6 +602,31 @@ public class ParserDML extends ParserDQL {
         return cs;
     }
 
+    /**
+     * Reads REFRESH MATERIALIZED VIEW name
+     */
+    Statement compileRefreshStatement() {
+
+        readThis(Tokens.REFRESH);
+        readThis(Tokens.MATERIALIZED);
+        readThis(Tokens.VIEW);
+
+        Table table = readTableName();
+
+        if (!(table instanceof MaterializedView)) {
+            throw Error.error(ErrorCode.X_42501, table.getName().name);
+        }
+
+        MaterializedView view = (MaterializedView) table;
+        HsqlName[] readTableNames =
+            view.getQueryStatement().getTableNamesForRead();
+        HsqlName[] writeTableNames = new HsqlName[]{ view.getName() };
+
+        return new StatementCommand(StatementTypes.REFRESH_MATERIALIZED_VIEW,
+                                    new Object[]{ view.getName() },
+                                    readTableNames, writeTableNames);
+    }
+
     /**
      * Creates a DELETE-type Statement from this parse context.
      */
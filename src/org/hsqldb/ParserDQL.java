@@ -1944,6 +1944,14 @@ public class ParserDQL extends ParserBase {
             throw Error.error(ErrorCode.X_0A501);
         }
 
+        // rows of materialized views are changed only by refresh
+        if (table instanceof MaterializedView
+                && !session.isProcessingScript()
+                && !session.isProcessingLog()) {
+            throw Error.error(ErrorCode.X_42545,
+                              table.getName().statementName);
+        }
+
         if (operation != StatementTypes.TRUNCATE) {
             switch (token.tokenType) {
 
@@ -2238,9 +2246,218 @@ public class ParserDQL extends ParserBase {
         readThis(Tokens.CLOSEBRACKET);
         readFilterClause(expr);
 
+        if (token.tokenType == Tokens.OVER) {
+            expr = readWindowAggregate(expr);
+        }
+
         return expr;
     }
 
+    private Expression readWindowAggregate(Expression e) {
+
+        if (!(e instanceof ExpressionAggregate)
+                || !ExpressionWindow.windowAggregateSet.contains(e.opType)
+                || e.isDistinctAggregate || e.hasCondition()
+                || e.getLeftNode().opType == OpTypes.ROW) {
+            throw unsupportedFeature(Tokens.T_OVER);
+        }
+
+        ExpressionWindow window =
+            new ExpressionWindow((ExpressionAggregate) e);
+
+        read();
+        readWindowSpecification(window);
+
+        return window;
+    }
+
+    private Expression readWindowFunctionOrNull() {
+
+        int          position = getPosition();
+        int          tokenT   = token.tokenType;
+        Expression[] args     = Expression.emptyArray;
+
+        read();
+
+        if (token.tokenType != Tokens.OPENBRACKET) {
+            rewind(position);
+
+            return null;
+        }
+
+        readThis(Tokens.OPENBRACKET);
+
+        switch (tokenT) {
+
+            case Tokens.NTILE :
+            case Tokens.FIRST_VALUE :
+            case Tokens.LAST_VALUE :
+                args = new Expression[]{ XreadValueExpression() };
+                break;
+
+            case Tokens.LAG :
+            case Tokens.LEAD : {
+                HsqlArrayList list = new HsqlArrayList();
+
+                list.add(XreadValueExpression());
+
+                for (int i = 0; i < 2 && token.tokenType == Tokens.COMMA;
+                        i++) {
+                    read();
+                    list.add(XreadValueExpression());
+                }
+
+                args = new Expression[list.size()];
+
+                list.toArray(args);
+
+                break;
+            }
+            default :
+        }
+
+        readThis(Tokens.CLOSEBRACKET);
+        readThis(Tokens.OVER);
+
+        ExpressionWindow window = new ExpressionWindow(tokenT, args);
+
+        readWindowSpecification(window);
+
+        if (tokenT == Tokens.ROW_NUMBER && window.hasEmptySpecification()) {
+            return new ExpressionColumn(OpTypes.ROWNUM);
+        }
+
+        return window;
+    }
+
+    private void readWindowSpecification(ExpressionWindow window) {
+
+        readThis(Tokens.OPENBRACKET);
+
+        if (token.tokenType == Tokens.PARTITION) {
+            HsqlArrayList list = new HsqlArrayList();
+
+            read();
+            readThis(Tokens.BY);
+
+            while (true) {
+                list.add(XreadValueExpression());
+
+                if (token.tokenType == Tokens.COMMA) {
+                    read();
+
+                    continue;
+                }
+
+                break;
+            }
+
+            window.setPartitionList(list);
+        }
+
+        if (token.tokenType == Tokens.ORDER) {
+            read();
+            readThis(Tokens.BY);
+            window.setOrderList(XreadOrderBy());
+        }
+
+        if (token.tokenType == Tokens.ROWS
+                || token.tokenType == Tokens.RANGE) {
+            boolean isRows = token.tokenType == Tokens.ROWS;
+            int[]   start;
+            int[]   end;
+
+            read();
+
+            if (token.tokenType == Tokens.BETWEEN) {
+                read();
+
+                start = readWindowFrameBound();
+
+                readThis(Tokens.AND);
+
+                end = readWindowFrameBound();
+            } else {
+                start = readWindowFrameBound();
+                end   = new int[]{ ExpressionWindow.FRAME_CURRENT_ROW, 0 };
+            }
+
+            if (start[0] > end[0]
+                    || start[0] == ExpressionWindow.FRAME_UNBOUNDED_FOLLOWING
+                    || end[0] == ExpressionWindow.FRAME_UNBOUNDED_PRECEDING) {
+                throw Error.error(ErrorCode.X_42581);
+            }
+
+            if (!isRows
+                    && (start[0] == ExpressionWindow.FRAME_PRECEDING
+                        || start[0] == ExpressionWindow.FRAME_FOLLOWING
+                        || end[0] == ExpressionWindow.FRAME_PRECEDING
+                        || end[0] == ExpressionWindow.FRAME_FOLLOWING)) {
+                throw unsupportedFeature(Tokens.T_RANGE);
+            }
+
+            window.setFrame(isRows, start[0], start[1], end[0], end[1]);
+        }
+
+        readThis(Tokens.CLOSEBRACKET);
+    }
+
+    /**
+     * Returns the type of the bound and the offset
+     */
+    private int[] readWindowFrameBound() {
+
+        switch (token.tokenType) {
+
+            case Tokens.UNBOUNDED :
+                read();
+
+                if (token.tokenType == Tokens.PRECEDING) {
+                    read();
+
+                    return new int[] {
+                        ExpressionWindow.FRAME_UNBOUNDED_PRECEDING, 0
+                    };
+                }
+
+                readThis(Tokens.FOLLOWING);
+
+                return new int[] {
+                    ExpressionWindow.FRAME_UNBOUNDED_FOLLOWING, 0
+                };
+
+            case Tokens.CURRENT :
+                read();
+                readThis(Tokens.ROW);
+
+                return new int[] {
+                    ExpressionWindow.FRAME_CURRENT_ROW, 0
+                };
+
+            default : {
+                int offset = readInteger();
+
+                if (offset < 0) {
+                    throw Error.error(ErrorCode.X_42581);
+                }
+
+                if (token.tokenType == Tokens.PRECEDING) {
+                    read();
+
+                    return new int[] {
+                        ExpressionWindow.FRAME_PRECEDING, offset
+                    };
+                }
+
+                readThis(Tokens.FOLLOWING);
+
+                return new int[] {
+                    ExpressionWindow.FRAME_FOLLOWING, offset
+                };
+            }
+        }
+    }
+
     private void readFilterClause(Expression e) {
 
         ExpressionLogical condition = XreadFilterExpressionOrNull();
@@ -2975,23 +3192,23 @@ public class ParserDQL extends ParserBase {
 
                 break;
             }
-            case Tokens.ROW_NUMBER : {
-                read();
+            case Tokens.ROW_NUMBER :
+            case Tokens.RANK :
+            case Tokens.DENSE_RANK :
+            case Tokens.PERCENT_RANK :
+            case Tokens.CUME_DIST :
+            case Tokens.NTILE :
+            case Tokens.LAG :
+            case Tokens.LEAD :
+            case Tokens.FIRST_VALUE :
+            case Tokens.LAST_VALUE :
+                e = readWindowFunctionOrNull();
 
-                if (token.tokenType == Tokens.OPENBRACKET) {
-                    read();
-                    readThis(Tokens.CLOSEBRACKET);
-                    readThis(Tokens.OVER);
-                    readThis(Tokens.OPENBRACKET);
-                    readThis(Tokens.CLOSEBRACKET);
-                } else {
-                    rewind(position);
-
-                    break;
+                if (e != null) {
+                    return e;
                 }
+                break;
 
-                return new ExpressionColumn(OpTypes.ROWNUM);
-            }
             case Tokens.ROWNUM : {
                 read();
 
@@ -50,7 +50,7 @@ import org.hsqldb.types.Type;
  * Parser for SQL stored procedures and functions - PSM
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.4.1
+ * @version 2.5.1
  * @since 1.9.0
  */
 public class ParserRoutine extends ParserTable {
@@ -2228,11 +2228,12 @@ public class ParserRoutine extends ParserTable {
                         read();
                         readIfThis(Tokens.AS);
                         checkIsSimpleName();
-                        read();
 
                         oldTableName = HsqlNameManager.getSimpleName(
                             token.tokenString, token.isDelimitedIdentifier);
 
+                        read();
+
                         SimpleName n = oldTableName;
 
                         if (n.equals(newTableName) || n.equals(oldRowName)
@@ -2243,8 +2244,8 @@ public class ParserRoutine extends ParserTable {
                         isForEachRow = Boolean.FALSE;
 
                         HsqlName hsqlName = database.nameManager.newHsqlName(
-                            table.getSchemaName(), n.name,
-                            isDelimitedIdentifier(), SchemaObject.TRANSITION);
+                            table.getSchemaName(), n.name, n.isNameQuoted,
+                            SchemaObject.TRANSITION);
                         Table transition = new Table(table, hsqlName);
                         RangeVariable range = new RangeVariable(transition,
                             null, null, null, compileContext);
@@ -2317,8 +2318,8 @@ public class ParserRoutine extends ParserTable {
                         }
 
                         HsqlName hsqlName = database.nameManager.newHsqlName(
-                            table.getSchemaName(), n.name,
-                            isDelimitedIdentifier(), SchemaObject.TRANSITION);
+                            table.getSchemaName(), n.name, n.isNameQuoted,
+                            SchemaObject.TRANSITION);
                         Table transition = new Table(table, hsqlName);
                         RangeVariable range = new RangeVariable(transition,
                             null, null, null, compileContext);
@@ -2518,6 +2519,7 @@ public class ParserRoutine extends ParserTable {
         session.sessionContext.pushRoutineTables();
 
         try {
+            routine.addTransitionTables(session);
             startRecording();
 
             StatementCompound parent =
@@ -55,7 +55,7 @@ import org.hsqldb.types.Types;
  * Implementation of an SQL query expression
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.3.4
+ * @version 2.5.1
  * @since 1.9.0
  */
 
@@ -121,6 +121,7 @@ public class QueryExpression implements RangeGroup {
 
     //
     TableDerived recursiveTable;
+    boolean      isLinearRecursive;
 
     //
     public TableBase resultTable;
@@ -537,9 +538,58 @@ public class QueryExpression implements RangeGroup {
 
         if (isRecursive) {
             recursiveTable.queryExpression.isCorrelated = false;
+            isLinearRecursive = isLinearRecursion();
         }
     }
 
+    /**
+     * The recursive member is linear when it references the recursive table
+     * once only, in its own FROM list. Each round then needs to read only
+     * the rows added by the previous round.
+     */
+    private boolean isLinearRecursion() {
+
+        if (!(rightQueryExpression instanceof QuerySpecification)) {
+            return false;
+        }
+
+        RangeVariable[] ranges =
+            ((QuerySpecification) rightQueryExpression).rangeVariables;
+        int count = 0;
+
+        for (int i = 0; i < ranges.length; i++) {
+            if (ranges[i].rangeTable == recursiveTable) {
+                count++;
+            }
+        }
+
+        if (count != 1) {
+            return false;
+        }
+
+        OrderedHashSet set = rightQueryExpression.getSubqueries();
+
+        if (set == null) {
+            return true;
+        }
+
+        for (int i = 0; i < set.size(); i++) {
+            TableDerived td = (TableDerived) set.get(i);
+
+            if (td == recursiveTable || td.queryExpression == null) {
+                continue;
+            }
+
+            OrderedHashSet nested = td.queryExpression.getSubqueries();
+
+            if (nested != null && nested.contains(recursiveTable)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     public Object[] getValues(Session session) {
 
         Result r    = getResult(session, 2);
@@ -556,6 +606,22 @@ public class QueryExpression implements RangeGroup {
 
     public void addExtraConditions(Expression e) {}
 
+    /**
+     * Adds a condition on the columns of the result to both sides of the
+     * set operation. Filtering the rows of each side gives the same result
+     * as filtering the result of UNION, INTERSECT or EXCEPT.
+     */
+    void addResultCondition(Session session, CompileContext context,
+                            RangeVariable range, Expression e) {
+
+        if (isRecursive || unionCorresponding || sortAndSlice.hasLimit()) {
+            return;
+        }
+
+        leftQueryExpression.addResultCondition(session, context, range, e);
+        rightQueryExpression.addResultCondition(session, context, range, e);
+    }
+
     public Object[] getSingleRowValues(Session session) {
 
         Result r    = getResult(session, 2);
@@ -672,8 +738,118 @@ public class QueryExpression implements RangeGroup {
         return first;
     }
 
+    /**
+     * Semi-naive evaluation of a linear recursive query. The recursive table
+     * holds only the rows added by the last round, which are fed to the
+     * recursive member, while the result accumulates separately. With UNION,
+     * the rows already in the result are found with a hash lookup and are
+     * not fed back, so cycles in the data end the recursion. The rows of the
+     * last round are kept in the row store of the recursive table and the
+     * result switches to a RowSetNavigatorDataTable, so both move to disk
+     * beyond the result memory rows limit. The number of rounds is limited by
+     * the sql.max_recursive property.
+     */
     Result getResultRecursive(Session session) {
 
+        if (!isLinearRecursive) {
+            return getResultRecursiveFull(session);
+        }
+
+        boolean distinct = unionType == UNION;
+        int     maxRows  = session.resultMaxMemoryRows;
+
+        recursiveTable.materialise(session);
+
+        RowSetNavigatorData workNav   = recursiveTable.getNavigator(session);
+        RowSetNavigatorData navigator = new RowSetNavigatorData(session, this);
+        Result              result    = Result.newResult(navigator);
+
+        result.metaData = resultMetaData;
+
+        while (workNav.next()) {
+            Object[] data = workNav.getCurrent();
+
+            data = (Object[]) ArrayUtil.resizeArrayIfDifferent(data,
+                    columnCount);
+
+            if (distinct) {
+                navigator.addDistinct(data);
+            } else {
+                navigator.add(data);
+            }
+
+            if (navigator.getSize() == maxRows) {
+                navigator = new RowSetNavigatorDataTable(session, this,
+                        navigator);
+
+                result.setNavigator(navigator);
+            }
+        }
+
+        if (navigator.getSize() != workNav.getSize()) {
+            workNav.clear();
+            navigator.reset();
+
+            while (navigator.next()) {
+                workNav.add(navigator.getCurrent());
+            }
+        }
+
+        navigator.reset();
+
+        for (int round = 0; ; round++) {
+            Result tempResult = rightQueryExpression.getResult(session, 0);
+            RowSetNavigatorData tempNavigator =
+                (RowSetNavigatorData) tempResult.getNavigator();
+
+            workNav.clear();
+
+            while (tempNavigator.next()) {
+                Object[] data = tempNavigator.getCurrent();
+
+                data = (Object[]) ArrayUtil.resizeArrayIfDifferent(data,
+                        columnCount);
+
+                if (distinct) {
+                    if (!navigator.addDistinct(data)) {
+                        continue;
+                    }
+                } else {
+                    navigator.add(data);
+                }
+
+                workNav.add(data);
+
+                if (navigator.getSize() == maxRows) {
+                    navigator = new RowSetNavigatorDataTable(session, this,
+                            navigator);
+
+                    result.setNavigator(navigator);
+                }
+            }
+
+            tempNavigator.release();
+
+            if (workNav.isEmpty()) {
+                break;
+            }
+
+            if (round >= session.database.sqlMaxRecursive) {
+                throw Error.error(ErrorCode.X_22522);
+            }
+        }
+
+        navigator.reset();
+
+        return result;
+    }
+
+    /**
+     * Evaluation of a recursive query where the recursive member references
+     * the recursive table more than once. Each round reads all the rows.
+     */
+    Result getResultRecursiveFull(Session session) {
+
         Result tempResult;
 
         recursiveTable.materialise(session);
@@ -714,7 +890,7 @@ public class QueryExpression implements RangeGroup {
                 break;
             }
 
-            if (round > 256) {
+            if (round >= session.database.sqlMaxRecursive) {
                 throw Error.error(ErrorCode.X_22522);
             }
         }
@@ -1105,6 +1281,11 @@ public class QueryExpression implements RangeGroup {
         rightQueryExpression.getBaseTableNames(set);
     }
 
+    void getRangeTables(OrderedHashSet set) {
+        leftQueryExpression.getRangeTables(set);
+        rightQueryExpression.getRangeTables(set);
+    }
+
     boolean isEquivalent(QueryExpression other) {
 
         return leftQueryExpression.isEquivalent(other.leftQueryExpression)
@@ -1138,5 +1319,19 @@ public class QueryExpression implements RangeGroup {
                 resultRangePosition);
     }
 
-    public void setAsExists() {}
+    /**
+     * A UNION is non-empty when either side is, so each side of the body of
+     * an EXISTS predicate can stop at its first row.
+     */
+    public void setAsExists() {
+
+        if (sortAndSlice != SortAndSlice.noSort) {
+            return;
+        }
+
+        if (unionType == UNION || unionType == UNION_ALL) {
+            leftQueryExpression.setAsExists();
+            rightQueryExpression.setAsExists();
+        }
+    }
 }
@@ -51,8 +51,10 @@ import org.hsqldb.lib.OrderedIntHashSet;
 import org.hsqldb.lib.Set;
 import org.hsqldb.map.ValuePool;
 import org.hsqldb.navigator.RangeIterator;
+import org.hsqldb.navigator.RowIterator;
 import org.hsqldb.navigator.RowSetNavigatorData;
 import org.hsqldb.navigator.RowSetNavigatorDataTable;
+import org.hsqldb.navigator.RowSetNavigatorLazy;
 import org.hsqldb.persist.PersistentStore;
 import org.hsqldb.result.Result;
 import org.hsqldb.result.ResultMetaData;
@@ -95,6 +97,7 @@ public class QuerySpecification extends QueryExpression {
     private int           indexLimitRowId;
     private int           indexStartHaving;
     public int            indexStartOrderBy;
+    private int           indexStartWindows;
     public int            indexStartAggregates;
     private int           indexLimitExpressions;
     public int            indexLimitData;
@@ -116,6 +119,18 @@ public class QuerySpecification extends QueryExpression {
     //
     private boolean[] aggregateCheck;
 
+    // window functions and their input columns
+    boolean               hasWindowFunctions;
+    private HsqlArrayList windowList;
+    private HsqlArrayList windowColumnList;
+    private boolean[]     windowCheck;
+
+    // the query is the body of an EXISTS predicate
+    private boolean isExistsPredicate;
+
+    // the rows can be produced on demand, see getLazyResult()
+    private boolean isLazyResultAllowed;
+
     //
     private OrderedHashSet tempSet = new OrderedHashSet();
 
@@ -378,10 +393,81 @@ public class QuerySpecification extends QueryExpression {
         havingColumnCount = 1;
     }
 
+    /**
+     * Collects the window functions in the select list. The inputs of each
+     * window function, followed by the column references outside the
+     * window functions, are added as hidden columns. The select columns
+     * that contain window functions are computed after the window values.
+     */
+    private void addWindowExpressions() {
+
+        HsqlArrayList columnRefs = null;
+
+        for (int i = 0; i < indexLimitVisible; i++) {
+            Expression e = (Expression) exprColumnList.get(i);
+            HsqlList list = ExpressionWindow.collectExpressions(e, null,
+                OpTypes.WINDOW);
+
+            if (list == null) {
+                continue;
+            }
+
+            if (isGroupingSets
+                    || e.collectAllExpressions(
+                        null, ExpressionWindow.excludedExpressionSet,
+                        OpTypes.aggregateFunctionSet) != null) {
+                throw Error.error(ErrorCode.X_0A501, Tokens.T_OVER);
+            }
+
+            if (windowList == null) {
+                windowList       = new HsqlArrayList();
+                windowColumnList = new HsqlArrayList();
+                columnRefs       = new HsqlArrayList();
+            }
+
+            for (int j = 0; j < list.size(); j++) {
+                ExpressionWindow window = (ExpressionWindow) list.get(j);
+                Expression[]     inputs = window.getInputExpressions();
+
+                windowList.add(window);
+
+                for (int k = 0; k < inputs.length; k++) {
+                    windowColumnList.add(inputs[k]);
+                }
+            }
+
+            list = ExpressionWindow.collectExpressions(e, null,
+                    OpTypes.COLUMN);
+
+            if (list != null) {
+                for (int j = 0; j < list.size(); j++) {
+                    Expression column = (Expression) list.get(j);
+
+                    columnRefs.add(column.duplicate());
+                }
+            }
+        }
+
+        if (windowList == null) {
+            return;
+        }
+
+        windowColumnList.addAll(columnRefs);
+
+        hasWindowFunctions = true;
+        isOrderSensitive   = true;
+        isMergeable        = false;
+        isBaseMergeable    = false;
+    }
+
     void addSortAndSlice(SortAndSlice sortAndSlice) {
         this.sortAndSlice = sortAndSlice;
     }
 
+    public void setAsExists() {
+        isExistsPredicate = true;
+    }
+
     public void resolveReferences(Session session, RangeGroup[] rangeGroups) {
 
         if (isReferencesResolved) {
@@ -395,6 +481,7 @@ public class QuerySpecification extends QueryExpression {
 
         // must be after asterisk expansion
         resolveColumnReferencesInGroupingSets(session, rangeGroups);
+        addWindowExpressions();
         setColumnIndexes();
         finaliseColumns();
         resolveColumnReferences(session, rangeGroups);
@@ -447,6 +534,7 @@ public class QuerySpecification extends QueryExpression {
 
         resolveExpressionTypes(session);
         resolveAggregates();
+        resolveWindows();
 
         for (int i = 0; i < unionColumnTypes.length; i++) {
             unionColumnTypes[i] = Type.getAggregateType(unionColumnTypes[i],
@@ -480,6 +568,7 @@ public class QuerySpecification extends QueryExpression {
 
         resolveGroups();
         resolveGroupingSets();
+        replaceWindowExpressions();
 
         for (int i = 0; i < unionColumnTypes.length; i++) {
             Type type = unionColumnTypes[i];
@@ -528,7 +617,9 @@ public class QuerySpecification extends QueryExpression {
         setRangeVariableConditions(session);
         setDistinctConditions(session);
         setAggregateConditions(session);
+        setExistsConditions();
         sortAndSlice.setSortRange(this);
+        setLazyResultConditions();
 
         for (int i = 0; i < rangeVariables.length; i++) {
             rangeVariables[i].resolveRangeTableTypes(session, rangeVariables);
@@ -552,6 +643,123 @@ public class QuerySpecification extends QueryExpression {
         queryCondition = ExpressionLogical.andExpressions(queryCondition, e);
     }
 
+    /**
+     * Adds a condition on the columns of the result, referenced via the
+     * range, to the WHERE condition when filtering the rows first gives the
+     * same result. For grouped queries the columns must be grouping columns,
+     * and with window functions they must be partition columns of all the
+     * windows. After resolution, only simple queries on a single table are
+     * processed, by recomputing the range conditions.
+     */
+    void addResultCondition(Session session, CompileContext context,
+                            RangeVariable range, Expression e) {
+
+        if (sortAndSlice.hasLimit() || isGroupingSets) {
+            return;
+        }
+
+        if (isAggregated && !isGrouped) {
+            return;
+        }
+
+        if (isOrderSensitive && !isGrouped && !hasWindowFunctions) {
+            return;
+        }
+
+        if (hasWindowFunctions) {
+            for (int i = 0; i < indexLimitVisible; i++) {
+                if (exprColumns[i].collectAllExpressions(null,
+                        OpTypes.sequenceExpressionSet,
+                        OpTypes.subqueryAggregateExpressionSet) != null) {
+                    return;
+                }
+            }
+        }
+
+        if (isResolved) {
+            if (rangeVariables.length != 1 || isGrouped || isDistinctSelect
+                    || hasWindowFunctions || isOrderSensitive) {
+                return;
+            }
+
+            if (queryCondition != null
+                    && queryCondition.collectAllSubqueries(null) != null) {
+                return;
+            }
+        }
+
+        Type[] types = range.rangeTable.getColumnTypes();
+        OrderedHashSet set = e.collectAllExpressions(null,
+            OpTypes.columnExpressionSet, OpTypes.emptyExpressionSet);
+
+        for (int i = 0; i < set.size(); i++) {
+            Expression column = (Expression) set.get(i);
+
+            if (column.getRangeVariable() != range) {
+                return;
+            }
+
+            int index = column.getColumnIndex();
+
+            if (!exprColumns[index].getDataType().equals(types[index])) {
+                return;
+            }
+
+            if (isGrouped && !isGroupingColumn(index)) {
+                return;
+            }
+
+            if (hasWindowFunctions && !isPartitionColumn(index)) {
+                return;
+            }
+        }
+
+        e              = e.duplicate();
+        e              = e.replaceColumnReferences(session, range, exprColumns);
+        queryCondition = ExpressionLogical.andExpressions(queryCondition, e);
+
+        if (isResolved) {
+            rangeVariables[0].resetConditions();
+
+            compileContext = context;
+
+            setRangeVariableConditions(session);
+
+            compileContext = null;
+        }
+    }
+
+    private boolean isGroupingColumn(int index) {
+
+        for (int i = indexLimitRowId;
+                i < indexLimitRowId + groupByColumnCount; i++) {
+            Expression e = exprColumns[i];
+
+            if (e.getType() == OpTypes.SIMPLE_COLUMN) {
+                if (e.columnIndex == index) {
+                    return true;
+                }
+            } else if (e.equals(exprColumns[index])) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isPartitionColumn(int index) {
+
+        for (int i = 0; i < windowList.size(); i++) {
+            ExpressionWindow window = (ExpressionWindow) windowList.get(i);
+
+            if (!window.isPartitionedBy(exprColumns[index])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     /**
      * Resolves all column expressions in the GROUP BY clause and beyond.
      * Replaces any alias column expression in the ORDER BY clause
@@ -615,6 +823,12 @@ public class QuerySpecification extends QueryExpression {
                                                rangeGroups, false);
         }
 
+        for (int i = indexStartWindows; i < indexStartAggregates; i++) {
+            resolveColumnReferencesAndAllocate(session, exprColumns[i],
+                                               rangeVariables.length,
+                                               rangeGroups, false);
+        }
+
         resolveColumnReferencesInOrderBy(session, rangeGroups, sortAndSlice);
     }
 
@@ -935,8 +1149,22 @@ public class QuerySpecification extends QueryExpression {
         indexLimitRowId   = indexLimitVisible;
         indexStartHaving  = indexLimitRowId + groupByColumnCount;
         indexStartOrderBy = indexStartHaving + havingColumnCount;
-        indexStartAggregates = indexStartOrderBy
-                               + sortAndSlice.getOrderLength();
+        indexStartWindows = indexStartOrderBy + sortAndSlice.getOrderLength();
+        indexStartAggregates = indexStartWindows;
+
+        if (hasWindowFunctions) {
+            indexStartAggregates += windowColumnList.size();
+
+            for (int i = 0, start = indexStartWindows; i < windowList.size();
+                    i++) {
+                ExpressionWindow e = (ExpressionWindow) windowList.get(i);
+
+                e.setInputStart(start);
+
+                start += e.getInputExpressions().length;
+            }
+        }
+
         indexLimitData = indexLimitExpressions = indexStartAggregates;
     }
 
@@ -955,6 +1183,15 @@ public class QuerySpecification extends QueryExpression {
             }
         }
 
+        if (hasWindowFunctions) {
+            for (int i = 0; i < windowColumnList.size(); i++) {
+                exprColumns[indexStartWindows + i] =
+                    (Expression) windowColumnList.get(i);
+            }
+
+            windowColumnList = null;
+        }
+
         rowExpression = new Expression(OpTypes.ROW, exprColumns);
     }
 
@@ -1013,7 +1250,13 @@ public class QuerySpecification extends QueryExpression {
      */
     public void resolveExpressionTypes(Session session) {
 
-        for (int i = 0; i < indexStartAggregates; i++) {
+        int windowColumnCount = indexStartAggregates - indexStartWindows;
+
+        for (int j = 0; j < indexStartAggregates; j++) {
+
+            // inputs of window functions are resolved first
+            int i = j < windowColumnCount ? indexStartWindows + j
+                                          : j - windowColumnCount;
             Expression e = exprColumns[i];
 
             e.resolveTypes(session, rowExpression);
@@ -1091,6 +1334,72 @@ public class QuerySpecification extends QueryExpression {
         }
     }
 
+    /**
+     * Adds the result columns of the window functions after the aggregates.
+     */
+    private void resolveWindows() {
+
+        if (!hasWindowFunctions) {
+            return;
+        }
+
+        int start = exprColumns.length;
+
+        indexLimitData = start + windowList.size();
+        exprColumns = (Expression[]) ArrayUtil.resizeArray(exprColumns,
+                indexLimitData);
+
+        for (int i = 0; i < windowList.size(); i++) {
+            Expression e = (Expression) windowList.get(i);
+
+            e.resultTableColumnIndex = start + i;
+            exprColumns[start + i]   = e;
+        }
+    }
+
+    /**
+     * Replaces the window functions, and the expressions that are computed
+     * as their inputs, with pointers to result columns in the select list
+     * and order by columns that contain window functions.
+     */
+    private void replaceWindowExpressions() {
+
+        if (!hasWindowFunctions) {
+            return;
+        }
+
+        OrderedHashSet expressions = new OrderedHashSet();
+
+        windowCheck = new boolean[indexStartAggregates];
+
+        expressions.addAll(windowList);
+
+        for (int i = indexStartWindows; i < indexStartAggregates; i++) {
+            Expression e = exprColumns[i];
+
+            if (e.getType() == OpTypes.SIMPLE_COLUMN) {
+                continue;
+            }
+
+            e.resultTableColumnIndex = i;
+
+            expressions.add(e);
+        }
+
+        // order by columns may share nodes with select columns
+        for (int i = 0; i < indexStartWindows; i++) {
+            windowCheck[i] = ExpressionWindow.collectExpressions(
+                exprColumns[i], null, OpTypes.WINDOW) != null;
+        }
+
+        for (int i = 0; i < indexStartWindows; i++) {
+            if (windowCheck[i]) {
+                exprColumns[i] = exprColumns[i].replaceExpressions(
+                    expressions, resultRangePosition);
+            }
+        }
+    }
+
     private void setRangeVariableConditions(Session session) {
 
         RangeVariableResolver rangeResolver =
@@ -1105,6 +1414,96 @@ public class QuerySpecification extends QueryExpression {
         }
     }
 
+    /**
+     * Only the first row of the body of an EXISTS predicate is ever needed.
+     * When there is no slice or aggregation, the scan stops after one row.
+     */
+    private void setExistsConditions() {
+
+        if (!isExistsPredicate || sortAndSlice != SortAndSlice.noSort) {
+            return;
+        }
+
+        if (isDistinctSelect || isAggregated || isGrouped
+                || hasWindowFunctions) {
+            return;
+        }
+
+        SortAndSlice slice = new SortAndSlice();
+
+        slice.isGenerated    = true;
+        slice.skipFullResult = true;
+
+        slice.addLimitCondition(ExpressionOp.limitOneExpression);
+
+        sortAndSlice = slice;
+    }
+
+    /**
+     * A top level query on memory tables with no DISTINCT, grouping or
+     * aggregation, and no sort or slice that needs the full result, can
+     * return its rows as they are read from the tables. Subqueries, sequences
+     * and right joins are excluded.
+     */
+    private void setLazyResultConditions() {
+
+        if (!isTopLevel || isUpdatable) {
+            return;
+        }
+
+        if (isDistinctSelect || isAggregated || isGrouped || isGroupingSets
+                || hasWindowFunctions || havingColumnCount > 0) {
+            return;
+        }
+
+        if (sortAndSlice.hasOrder() && !sortAndSlice.skipSort) {
+            return;
+        }
+
+        if (sortAndSlice.hasLimit() && !sortAndSlice.skipFullResult) {
+            return;
+        }
+
+        for (int i = 0; i < rangeVariables.length; i++) {
+            RangeVariable range = rangeVariables[i];
+
+            if (range.rangeTable.getTableType() != TableBase.MEMORY_TABLE
+                    || range.isRightJoin) {
+                return;
+            }
+
+            if (!isLazyResultExpression(range.joinCondition)) {
+                return;
+            }
+        }
+
+        if (!isLazyResultExpression(queryCondition)) {
+            return;
+        }
+
+        for (int i = 0; i < indexStartAggregates; i++) {
+            if (!isLazyResultExpression(exprColumns[i])) {
+                return;
+            }
+        }
+
+        isLazyResultAllowed = true;
+    }
+
+    private static boolean isLazyResultExpression(Expression e) {
+
+        if (e == null) {
+            return true;
+        }
+
+        if (e.collectAllSubqueries(null) != null) {
+            return false;
+        }
+
+        return e.collectAllExpressions(null, OpTypes.sequenceExpressionSet,
+                                       OpTypes.emptyExpressionSet) == null;
+    }
+
     private void setDistinctConditions(Session session) {
 
         if (!isDistinctSelect && !isGrouped) {
@@ -1191,7 +1590,7 @@ public class QuerySpecification extends QueryExpression {
 
     private void setAggregateConditions(Session session) {
 
-        if (!isAggregated) {
+        if (!isAggregated || hasWindowFunctions) {
             return;
         }
 
@@ -1357,6 +1756,18 @@ public class QuerySpecification extends QueryExpression {
 
         tempSet.clear();
 
+        if (isGrouped || isAggregated) {
+            for (int i = indexStartWindows; i < indexStartAggregates; i++) {
+                if (!exprColumns[i].isComposedOf(
+                        exprColumns, 0,
+                        indexLimitVisible + groupByColumnCount,
+                        OpTypes.aggregateFunctionSet)) {
+                    throw Error.error(ErrorCode.X_42574,
+                                      exprColumns[i].getSQL());
+                }
+            }
+        }
+
         if (havingColumnCount != 0) {
             if (unresolvedExpressions != null) {
                 tempSet.addAll(unresolvedExpressions);
@@ -1453,7 +1864,7 @@ public class QuerySpecification extends QueryExpression {
             }
         }
 
-        for (int i = indexStartOrderBy; i < indexStartAggregates; i++) {
+        for (int i = indexStartOrderBy; i < indexStartWindows; i++) {
             if (exprColumns[i].getLeftNode().hasAggregate()) {
                 exprColumns[i].setAggregate();
             }
@@ -1564,6 +1975,37 @@ public class QuerySpecification extends QueryExpression {
         return r;
     }
 
+    /**
+     * Returns a result with a RowSetNavigatorLazy that reads the rows from
+     * the tables when the navigator is advanced, or null if the query is not
+     * suitable. The session drains the navigator before it executes another
+     * statement or ends the transaction.
+     */
+    Result getLazyResult(Session session, int maxRows) {
+
+        if (!isLazyResultAllowed) {
+            return null;
+        }
+
+        int[] limits     = sortAndSlice.getLimits(session, this, maxRows);
+        int   skipCount  = 0;
+        int   limitCount = limits[2];
+
+        if (sortAndSlice.skipFullResult) {
+            skipCount  = limits[0];
+            limitCount = limits[1];
+        }
+
+        RowSetNavigatorLazy navigator = new RowSetNavigatorLazy(session,
+            new RowIteratorLazy(session, skipCount, limitCount));
+        Result result = Result.newResult(navigator);
+
+        result.metaData       = resultMetaData;
+        session.lazyNavigator = navigator;
+
+        return result;
+    }
+
     private Result getSingleResult(Session session, int maxRows) {
 
         int[] limits = sortAndSlice.getLimits(session, this, maxRows);
@@ -1702,6 +2144,8 @@ public class QuerySpecification extends QueryExpression {
             for (int i = start; i < indexStartAggregates; i++) {
                 if (isAggregated && aggregateCheck[i]) {
                     continue;
+                } else if (hasWindowFunctions && windowCheck[i]) {
+                    continue;
                 } else {
                     if (havingColumnCount > 0 && i == indexStartHaving) {}
                     else {
@@ -1759,7 +2203,8 @@ public class QuerySpecification extends QueryExpression {
             int rowCount = navigator.getSize();
 
             if (rowCount == session.resultMaxMemoryRows && !isAggregated
-                    && !isSingleMemoryTable && !isGroupingSets) {
+                    && !isSingleMemoryTable && !isGroupingSets
+                    && !hasWindowFunctions) {
                 navigator = new RowSetNavigatorDataTable(session, this,
                         navigator);
 
@@ -1784,6 +2229,8 @@ public class QuerySpecification extends QueryExpression {
         }
 
         if (!isGroupingSets && !isAggregated && havingColumnCount == 0) {
+            setWindowValues(session, navigator);
+
             return result;
         }
 
@@ -1891,6 +2338,10 @@ public class QuerySpecification extends QueryExpression {
                 Object[] data = new Object[exprColumns.length];
 
                 for (int i = 0; i < indexStartAggregates; i++) {
+                    if (hasWindowFunctions && windowCheck[i]) {
+                        continue;
+                    }
+
                     if (!aggregateCheck[i]) {
                         data[i] = exprColumns[i].getValue(session);
                     }
@@ -1915,6 +2366,10 @@ public class QuerySpecification extends QueryExpression {
                 }
 
                 for (int i = 0; i < indexStartAggregates; i++) {
+                    if (hasWindowFunctions && windowCheck[i]) {
+                        continue;
+                    }
+
                     if (aggregateCheck[i]) {
                         data[i] = exprColumns[i].getValue(session);
                     }
@@ -1939,10 +2394,54 @@ public class QuerySpecification extends QueryExpression {
         }
 
         session.sessionContext.unsetRangeIterator(navigator);
+        setWindowValues(session, navigator);
 
         return result;
     }
 
+    /**
+     * Sorts the rows for each window function and sets its values, then
+     * computes the columns that contain window functions.
+     */
+    private void setWindowValues(Session session,
+                                 RowSetNavigatorData navigator) {
+
+        if (!hasWindowFunctions) {
+            return;
+        }
+
+        ExpressionWindow sorted = null;
+
+        for (int i = 0; i < windowList.size(); i++) {
+            ExpressionWindow e = (ExpressionWindow) windowList.get(i);
+
+            if (e.sortAndSlice.hasOrder() && !e.isSortedBy(sorted)) {
+                navigator.sortOrderUnion(e.sortAndSlice);
+
+                sorted = e;
+            }
+
+            e.setWindowValues(session, navigator.getDataTable(),
+                              navigator.getSize());
+        }
+
+        navigator.reset();
+        session.sessionContext.setRangeIterator(navigator);
+
+        while (navigator.next()) {
+            Object[] data = navigator.getCurrent();
+
+            for (int i = 0; i < indexStartAggregates; i++) {
+                if (windowCheck[i]) {
+                    data[i] = exprColumns[i].getValue(session);
+                }
+            }
+        }
+
+        session.sessionContext.unsetRangeIterator(navigator);
+        navigator.reset();
+    }
+
     void setReferenceableColumns() {
 
         accessibleColumns = new boolean[indexLimitVisible];
@@ -2062,6 +2561,16 @@ public class QuerySpecification extends QueryExpression {
             groupIndex = mainIndex;
         }
 
+        if (hasWindowFunctions) {
+            for (int i = 0; i < windowList.size(); i++) {
+                ExpressionWindow e = (ExpressionWindow) windowList.get(i);
+
+                if (e.sortAndSlice.hasOrder()) {
+                    e.sortAndSlice.setIndex(session, resultTable);
+                }
+            }
+        }
+
         if (isUpdatable && view == null) {
             int[] idCols = new int[]{ indexLimitVisible };
 
@@ -2624,6 +3133,51 @@ public class QuerySpecification extends QueryExpression {
         return baseTable;
     }
 
+    boolean hasHavingCondition() {
+        return havingColumnCount > 0;
+    }
+
+    /**
+     * Returns the index of the select list column for each GROUP BY
+     * expression, or null if there are grouping sets or a GROUP BY
+     * expression is not in the select list.
+     */
+    int[] getGroupByColumnMap() {
+
+        if (isGroupingSets) {
+            return null;
+        }
+
+        int[] map = new int[groupByColumnCount];
+
+        for (int i = 0; i < groupByColumnCount; i++) {
+            Expression e     = exprColumns[indexLimitRowId + i];
+            int        index = -1;
+
+            if (e.getType() == OpTypes.SIMPLE_COLUMN) {
+                if (e.columnIndex < indexLimitVisible) {
+                    index = e.columnIndex;
+                }
+            } else {
+                for (int j = 0; j < indexLimitVisible; j++) {
+                    if (e.equals(exprColumns[j])) {
+                        index = j;
+
+                        break;
+                    }
+                }
+            }
+
+            if (index < 0) {
+                return null;
+            }
+
+            map[i] = index;
+        }
+
+        return map;
+    }
+
     public OrderedHashSet collectOuterColumnExpressions(OrderedHashSet set,
             OrderedHashSet exclude) {
 
@@ -2821,6 +3375,26 @@ public class QuerySpecification extends QueryExpression {
         }
     }
 
+    /**
+     * Adds all tables in the range variables, including those of derived
+     * tables and views at any depth
+     */
+    void getRangeTables(OrderedHashSet set) {
+
+        for (int i = 0; i < rangeVariables.length; i++) {
+            Table rangeTable = rangeVariables[i].rangeTable;
+
+            if (set.add(rangeTable)) {
+                QueryExpression queryExpression =
+                    rangeTable.getQueryExpression();
+
+                if (queryExpression != null) {
+                    queryExpression.getRangeTables(set);
+                }
+            }
+        }
+    }
+
     /**
      * returns true if almost equivalent
      */
@@ -2853,4 +3427,159 @@ public class QuerySpecification extends QueryExpression {
 
         return true;
     }
+
+    /**
+     * Produces the rows of a lazy result one at a time by advancing the
+     * range iterators of the query. The iterators and the parameter values
+     * are set in the session context only while a row is being read.
+     */
+    private class RowIteratorLazy implements RowIterator {
+
+        final Session   session;
+        final Object[]  arguments;
+        RangeIterator[] rangeIterators;
+        Object[]        currentData;
+        int             currentIndex;
+        int             skipCount;
+        int             limitCount;
+        int             rowCount;
+        boolean         isEnd;
+
+        RowIteratorLazy(Session session, int skipCount, int limitCount) {
+
+            this.session    = session;
+            this.arguments  = (Object[]) ArrayUtil.duplicateArray(
+                session.sessionContext.dynamicArguments);
+            this.skipCount  = skipCount;
+            this.limitCount = limitCount;
+        }
+
+        public boolean next() {
+
+            if (isEnd) {
+                return false;
+            }
+
+            SessionContext context   = session.sessionContext;
+            Object[]       arguments = context.dynamicArguments;
+
+            context.dynamicArguments = this.arguments;
+
+            if (rangeIterators == null) {
+                rangeIterators = new RangeIterator[rangeVariables.length];
+
+                for (int i = 0; i < rangeVariables.length; i++) {
+                    rangeIterators[i] = rangeVariables[i].getIterator(session);
+                }
+            } else {
+                for (int i = 0; i < rangeIterators.length; i++) {
+                    context.setRangeIterator(rangeIterators[i]);
+                }
+            }
+
+            try {
+                currentData = getNextRow();
+            } finally {
+                for (int i = 0; i < rangeIterators.length; i++) {
+                    context.unsetRangeIterator(rangeIterators[i]);
+                }
+
+                context.dynamicArguments = arguments;
+            }
+
+            if (currentData == null) {
+                release();
+
+                return false;
+            }
+
+            return true;
+        }
+
+        private Object[] getNextRow() {
+
+            while (rowCount < limitCount) {
+                RangeIterator it = rangeIterators[currentIndex];
+
+                if (it.next()) {
+                    if (currentIndex < rangeIterators.length - 1) {
+                        currentIndex++;
+
+                        continue;
+                    }
+                } else {
+                    it.reset();
+
+                    if (currentIndex == 0) {
+                        return null;
+                    }
+
+                    currentIndex--;
+
+                    continue;
+                }
+
+                Object[] data = new Object[indexLimitData];
+
+                for (int i = 0; i < indexStartAggregates; i++) {
+                    data[i] = exprColumns[i].getValue(session);
+                }
+
+                for (int i = indexLimitVisible; i < indexLimitRowId; i++) {
+                    if (i == indexLimitVisible) {
+                        data[i] = Long.valueOf(it.getRowId());
+                    } else {
+                        data[i] = it.getCurrentRow();
+                    }
+                }
+
+                if (skipCount > 0) {
+                    skipCount--;
+
+                    continue;
+                }
+
+                rowCount++;
+
+                return data;
+            }
+
+            return null;
+        }
+
+        public Object getField(int col) {
+            return currentData == null ? null
+                                       : currentData[col];
+        }
+
+        public Row getCurrentRow() {
+            throw Error.runtimeError(ErrorCode.U_S0500, "QuerySpecification");
+        }
+
+        public Object[] getCurrent() {
+            return currentData;
+        }
+
+        public void removeCurrent() {
+            throw Error.runtimeError(ErrorCode.U_S0500, "QuerySpecification");
+        }
+
+        public void release() {
+
+            if (rangeIterators != null) {
+                for (int i = 0; i < rangeIterators.length; i++) {
+                    rangeIterators[i].release();
+                }
+
+                rangeIterators = null;
+            }
+
+            currentData = null;
+            isEnd       = true;
+        }
+
+        public long getRowId() {
+            throw Error.runtimeError(ErrorCode.U_S0500, "QuerySpecification");
+        }
+    }
 }
@@ -34,6 +34,7 @@ package org.hsqldb;
 import org.hsqldb.HsqlNameManager.SimpleName;
 import org.hsqldb.ParserDQL.CompileContext;
 import org.hsqldb.RangeGroup.RangeGroupSimple;
+import org.hsqldb.dbinfo.DatabaseInformation;
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
 import org.hsqldb.index.Index;
@@ -893,11 +894,12 @@ public class RangeVariable {
                 QuerySpecification qs = (QuerySpecification) queryExpression;
 
                 if (qs.isGrouped || qs.isAggregated || qs.isOrderSensitive) {
-
-                    //
+                    moveResultConditionsToInner(session, ranges);
                 } else {
                     moveConditionsToInner(session, ranges);
                 }
+            } else {
+                moveResultConditionsToInner(session, ranges);
             }
 
             queryExpression.resolveTypesPartThree(session);
@@ -907,21 +909,113 @@ public class RangeVariable {
     void moveConditionsToInner(Session session, RangeVariable[] ranges) {
 
         Expression[]  colExpr;
-        int           exclude;
         HsqlArrayList conditionsList;
         Expression    condition = null;
 
-        if (whereConditions.length > 1) {
+        conditionsList = getInnerConditions(session, ranges);
+
+        if (conditionsList == null) {
             return;
         }
 
-        if (joinConditions.length > 1) {
+        if (conditionsList.size() == 0) {
+            if (rangeTable.isView()) {
+                ((TableDerived) rangeTable).resetToView();
+            }
+
             return;
         }
 
+        QueryExpression queryExpression = rangeTable.getQueryExpression();
+
+        colExpr = ((QuerySpecification) queryExpression).exprColumns;
+
+        for (int i = 0; i < conditionsList.size(); i++) {
+            Expression e = (Expression) conditionsList.get(i);
+
+            e = e.duplicate();
+            e = e.replaceColumnReferences(session, this, colExpr);
+
+            OrderedHashSet set = e.collectRangeVariables(null);
+
+            if (set != null) {
+                for (int j = 0; j < set.size(); j++) {
+                    RangeVariable range = (RangeVariable) set.get(j);
+
+                    if (this != range
+                            && range.rangeType == RangeVariable.TABLE_RANGE) {
+                        queryExpression.setCorrelated();
+
+                        break;
+                    }
+                }
+            }
+
+            condition = ExpressionLogical.andExpressions(condition, e);
+        }
+
+        queryExpression.addExtraConditions(condition);
+    }
+
+    /**
+     * Moves the conditions that reference only this range into a query
+     * that is grouped, has window functions or is a set operation. The
+     * query decides which conditions can be applied before its result is
+     * built. The derived table must not be shared with other ranges.
+     */
+    void moveResultConditionsToInner(Session session,
+                                     RangeVariable[] ranges) {
+
+        if (!rangeTable.isView()
+                && rangeTable.getName()
+                   != session.database.nameManager.getSubqueryTableName()) {
+            return;
+        }
+
+        HsqlArrayList conditionsList = getInnerConditions(session, ranges);
+
+        if (conditionsList == null) {
+            return;
+        }
+
+        QueryExpression queryExpression = rangeTable.getQueryExpression();
+
+        for (int i = 0; i < conditionsList.size(); i++) {
+            Expression     e   = (Expression) conditionsList.get(i);
+            OrderedHashSet set = e.collectRangeVariables(null);
+
+            if (set == null || set.size() != 1 || set.get(0) != this) {
+                continue;
+            }
+
+            queryExpression.addResultCondition(session,
+                                               queryExpression.compileContext,
+                                               this, e);
+        }
+    }
+
+    /**
+     * Returns the conditions on this range that do not reference the other
+     * ranges and contain no subqueries, or null if the conditions cannot be
+     * moved.
+     */
+    private HsqlArrayList getInnerConditions(Session session,
+            RangeVariable[] ranges) {
+
+        int           exclude;
+        HsqlArrayList conditionsList;
+
+        if (whereConditions.length > 1) {
+            return null;
+        }
+
+        if (joinConditions.length > 1) {
+            return null;
+        }
+
         for (int i = 0; i < ranges.length; i++) {
             if (ranges[i].isLeftJoin || ranges[i].isRightJoin) {
-                return;
+                return null;
             }
         }
 
@@ -952,14 +1046,6 @@ public class RangeVariable {
             }
         }
 
-        if (conditionsList.size() == 0) {
-            if (rangeTable.isView()) {
-                ((TableDerived) rangeTable).resetToView();
-            }
-
-            return;
-        }
-
         OrderedHashSet subquerySet = null;
 
         for (int i = 0; i < conditionsList.size(); i++) {
@@ -968,39 +1054,11 @@ public class RangeVariable {
             subquerySet = e.collectAllSubqueries(subquerySet);
 
             if (subquerySet != null) {
-                return;
+                return null;
             }
         }
 
-        QueryExpression queryExpression = rangeTable.getQueryExpression();
-
-        colExpr = ((QuerySpecification) queryExpression).exprColumns;
-
-        for (int i = 0; i < conditionsList.size(); i++) {
-            Expression e = (Expression) conditionsList.get(i);
-
-            e = e.duplicate();
-            e = e.replaceColumnReferences(session, this, colExpr);
-
-            OrderedHashSet set = e.collectRangeVariables(null);
-
-            if (set != null) {
-                for (int j = 0; j < set.size(); j++) {
-                    RangeVariable range = (RangeVariable) set.get(j);
-
-                    if (this != range
-                            && range.rangeType == RangeVariable.TABLE_RANGE) {
-                        queryExpression.setCorrelated();
-
-                        break;
-                    }
-                }
-            }
-
-            condition = ExpressionLogical.andExpressions(condition, e);
-        }
-
-        queryExpression.addExtraConditions(condition);
+        return conditionsList;
     }
 
     private static void addConditionsToList(HsqlArrayList list,
@@ -1119,6 +1177,108 @@ public class RangeVariable {
         return sb.toString();
     }
 
+    /**
+     * Returns the store for the table. For INFORMATION_SCHEMA tables that
+     * describe each table separately, when the conditions name a single
+     * table, a store containing only the rows for that table may be returned.
+     */
+    PersistentStore getRowStore(Session session) {
+
+        if (rangeTable.getTableType() == TableBase.INFO_SCHEMA_TABLE
+                && whereConditions.length == 1
+                && joinConditions.length == 1) {
+            DatabaseInformation dbInfo = session.database.dbInfo;
+            int[] columns = dbInfo.getTableNameColumns(rangeTable);
+
+            if (columns != null) {
+                Object[] values = new Object[columns.length];
+
+                getEqualityValues(session, whereConditions[0], columns,
+                                  values);
+                getEqualityValues(session, joinConditions[0], columns,
+                                  values);
+
+                if (values[0] instanceof String
+                        && values[1] instanceof String) {
+                    PersistentStore store =
+                        dbInfo.getTableNameFilteredStore(session,
+                                                         rangeTable,
+                                                         (String) values[0],
+                                                         (String) values[1]);
+
+                    if (store != null) {
+                        return store;
+                    }
+                }
+            }
+        }
+
+        return rangeTable.getRowStore(session);
+    }
+
+    private void getEqualityValues(Session session,
+                                   RangeVariableConditions conditions,
+                                   int[] columns, Object[] values) {
+
+        for (int i = 0; i < conditions.indexedColumnCount; i++) {
+            if (conditions.opTypes[i] == OpTypes.EQUAL) {
+                getEqualityValues(session, conditions.indexCond[i], columns,
+                                  values);
+            }
+        }
+
+        getEqualityValues(session, conditions.nonIndexCondition, columns,
+                          values);
+    }
+
+    /**
+     * Sets the values of AND-ed equality conditions between the columns of
+     * this range and literals or parameters.
+     */
+    private void getEqualityValues(Session session, Expression e,
+                                   int[] columns, Object[] values) {
+
+        if (e == null) {
+            return;
+        }
+
+        switch (e.getType()) {
+
+            case OpTypes.AND :
+                getEqualityValues(session, e.getLeftNode(), columns, values);
+                getEqualityValues(session, e.getRightNode(), columns, values);
+                break;
+
+            case OpTypes.EQUAL : {
+                Expression column = e.getLeftNode();
+                Expression value  = e.getRightNode();
+
+                if (value.getType() == OpTypes.COLUMN) {
+                    column = e.getRightNode();
+                    value  = e.getLeftNode();
+                }
+
+                if (column.getType() != OpTypes.COLUMN
+                        || column.getRangeVariable() != this) {
+                    break;
+                }
+
+                if (value.getType() != OpTypes.VALUE
+                        && value.getType() != OpTypes.DYNAMIC_PARAM) {
+                    break;
+                }
+
+                int index = ArrayUtil.find(columns, column.getColumnIndex());
+
+                if (index >= 0) {
+                    values[index] = value.getValue(session);
+                }
+
+                break;
+            }
+        }
+    }
+
     public RangeIteratorMain getIterator(Session session) {
 
         RangeIteratorMain it;
@@ -1258,7 +1418,7 @@ public class RangeVariable {
         private RangeIteratorMain(Session session, RangeVariable rangeVar) {
 
             this.rangePosition = rangeVar.rangePosition;
-            this.store         = rangeVar.rangeTable.getRowStore(session);
+            this.store         = rangeVar.getRowStore(session);
             this.session       = session;
             this.rangeVar      = rangeVar;
             isBeforeFirst      = true;
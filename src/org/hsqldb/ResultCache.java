@@ -0,0 +1,424 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb;
+
+import java.util.Arrays;
+
+import org.hsqldb.lib.HashMap;
+import org.hsqldb.map.ValuePool;
+import org.hsqldb.navigator.RowSetNavigator;
+import org.hsqldb.navigator.RowSetNavigatorClient;
+import org.hsqldb.persist.PersistentStore;
+import org.hsqldb.result.Result;
+import org.hsqldb.result.ResultConstants;
+import org.hsqldb.result.ResultMetaData;
+import org.hsqldb.types.BinaryData;
+
+/**
+ * Database wide cache of query results.<p>
+ *
+ * Results are kept for the compiled statement and the parameter values. Each
+ * entry records the modification count of the store of each table read by the
+ * query when the result was produced, and is used only while the counts are
+ * unchanged. The rows are shared by the results returned for the entry and
+ * are never modified. The least recently used entries are removed when the
+ * estimated size of the rows exceeds the capacity.<p>
+ *
+ * Results are cached only for sessions with READ COMMITTED isolation and no
+ * uncommitted changes.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class ResultCache {
+
+    private final HashMap map = new HashMap();
+    private Entry         first;
+    private Entry         last;
+    private volatile long capacity;
+    private long          size;
+    private long          hitCount;
+
+    /**
+     * Sets the capacity in bytes. Zero disables the cache.
+     */
+    public synchronized void setCapacity(long capacity) {
+
+        this.capacity = capacity;
+
+        removeExcess();
+    }
+
+    public boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * Returns the number of cached results.
+     */
+    public synchronized int getEntryCount() {
+        return map.size();
+    }
+
+    /**
+     * Returns the number of executions that returned a cached result.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized void clear() {
+
+        map.clear();
+
+        first = null;
+        last  = null;
+        size  = 0;
+    }
+
+    /**
+     * Returns the modification counts of the stores of the tables read by the
+     * statement, or null if the result of the statement is not cached for the
+     * session.<p>
+     *
+     * The counts must be read before the session is given the timestamp for
+     * the action. A commit that is counted has then received an earlier
+     * timestamp and is visible to the action, while a commit that is not
+     * counted changes the counts and invalidates the cached result.
+     */
+    long[] getModificationCounts(Session session, Statement cs) {
+
+        if (cs.getType() != StatementTypes.SELECT_CURSOR
+                || session.sessionContext.depth > 0
+                || session.isolationLevel
+                   != SessionInterface.TX_READ_COMMITTED
+                || !session.rowActionList.isEmpty()) {
+            return null;
+        }
+
+        Table[] tables = ((StatementQuery) cs).getResultCacheTables();
+
+        if (tables.length == 0) {
+            return null;
+        }
+
+        long[] counts = new long[tables.length];
+
+        for (int i = 0; i < tables.length; i++) {
+            counts[i] = tables[i].getRowStore(session).getModificationCount();
+        }
+
+        return counts;
+    }
+
+    /**
+     * Executes the statement or returns its cached result. The counts are
+     * returned by getModificationCounts() before the action started.
+     */
+    Result execute(Session session, Statement cs, Object[] pvals,
+                   long[] counts) {
+
+        Table[] tables = ((StatementQuery) cs).getResultCacheTables();
+        Key     key    = new Key(session, cs, pvals);
+        Entry   entry  = get(session, key);
+
+        if (entry != null) {
+            return entry.newResult(cs);
+        }
+
+        PersistentStore[] stores = new PersistentStore[tables.length];
+
+        for (int i = 0; i < tables.length; i++) {
+            stores[i] = tables[i].getRowStore(session);
+        }
+
+        Result  result;
+        boolean allowLazy = session.sessionContext.allowLazyResult;
+
+        try {
+            session.sessionContext.allowLazyResult = false;
+            result = cs.execute(session);
+        } finally {
+            session.sessionContext.allowLazyResult = allowLazy;
+        }
+
+        if (result.mode != ResultConstants.DATA) {
+            return result;
+        }
+
+        RowSetNavigator navigator = result.getNavigator();
+
+        if (!navigator.isMemory()) {
+            return result;
+        }
+
+        long       limit = capacity / 8;
+        long       bytes = 0;
+        Object[][] rows  = new Object[navigator.getSize()][];
+
+        for (int i = 0; navigator.next(); i++) {
+            rows[i] = navigator.getCurrent();
+            bytes   += getRowSize(rows[i]);
+
+            if (bytes > limit) {
+                break;
+            }
+        }
+
+        navigator.reset();
+
+        if (bytes > limit) {
+            return result;
+        }
+
+        for (int i = 0; i < tables.length; i++) {
+            if (counts[i] != stores[i].getModificationCount()) {
+                return result;
+            }
+        }
+
+        entry = new Entry(key, tables, stores, counts, result.metaData,
+                          result.rsProperties, rows, bytes);
+
+        put(entry);
+
+        return result;
+    }
+
+    private synchronized Entry get(Session session, Key key) {
+
+        Entry entry = (Entry) map.get(key);
+
+        if (entry == null || !entry.isValid(session)) {
+            return null;
+        }
+
+        unlink(entry);
+        link(entry);
+
+        hitCount++;
+
+        return entry;
+    }
+
+    private synchronized void put(Entry entry) {
+
+        Entry old = (Entry) map.put(entry.key, entry);
+
+        if (old != null) {
+            unlink(old);
+
+            size -= old.size;
+        }
+
+        link(entry);
+
+        size += entry.size;
+
+        removeExcess();
+    }
+
+    private void removeExcess() {
+
+        while (size > capacity && last != null) {
+            Entry entry = last;
+
+            map.remove(entry.key);
+            unlink(entry);
+
+            size -= entry.size;
+        }
+    }
+
+    private void link(Entry entry) {
+
+        entry.previous = null;
+        entry.next     = first;
+
+        if (first == null) {
+            last = entry;
+        } else {
+            first.previous = entry;
+        }
+
+        first = entry;
+    }
+
+    private void unlink(Entry entry) {
+
+        if (entry.previous == null) {
+            first = entry.next;
+        } else {
+            entry.previous.next = entry.next;
+        }
+
+        if (entry.next == null) {
+            last = entry.previous;
+        } else {
+            entry.next.previous = entry.previous;
+        }
+
+        entry.previous = null;
+        entry.next     = null;
+    }
+
+    private static long getRowSize(Object[] row) {
+
+        long bytes = 16 + 8L * row.length;
+
+        for (int i = 0; i < row.length; i++) {
+            bytes += getValueSize(row[i]);
+        }
+
+        return bytes;
+    }
+
+    private static long getValueSize(Object value) {
+
+        if (value == null) {
+            return 0;
+        }
+
+        if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        }
+
+        if (value instanceof BinaryData) {
+            return 24 + ((BinaryData) value).length(null);
+        }
+
+        if (value instanceof Object[]) {
+            return getRowSize((Object[]) value);
+        }
+
+        return 32;
+    }
+
+    /**
+     * Key for a cached result of a statement for a set of parameter values
+     */
+    private static final class Key {
+
+        final Statement statement;
+        final Object[]  values;
+        final int       maxRows;
+        final int       zoneSeconds;
+        final int       hash;
+
+        Key(Session session, Statement statement, Object[] values) {
+
+            this.statement   = statement;
+            this.values      = values == null ? ValuePool.emptyObjectArray
+                                              : values.clone();
+            this.maxRows     = session.getMaxRows();
+            this.zoneSeconds = session.getZoneSeconds();
+            this.hash = System.identityHashCode(statement) * 31
+                        + Arrays.deepHashCode(this.values) + maxRows;
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object other) {
+
+            if (other instanceof Key) {
+                Key key = (Key) other;
+
+                return statement == key.statement && hash == key.hash
+                       && maxRows == key.maxRows
+                       && zoneSeconds == key.zoneSeconds
+                       && Arrays.deepEquals(values, key.values);
+            }
+
+            return false;
+        }
+    }
+
+    private static final class Entry {
+
+        final Key               key;
+        final Table[]           tables;
+        final PersistentStore[] stores;
+        final long[]            counts;
+        final ResultMetaData    metaData;
+        final int               rsProperties;
+        final Object[][]        rows;
+        final long              size;
+        Entry                   previous;
+        Entry                   next;
+
+        Entry(Key key, Table[] tables, PersistentStore[] stores,
+              long[] counts, ResultMetaData metaData, int rsProperties,
+              Object[][] rows, long size) {
+
+            this.key          = key;
+            this.tables       = tables;
+            this.stores       = stores;
+            this.counts       = counts;
+            this.metaData     = metaData;
+            this.rsProperties = rsProperties;
+            this.rows         = rows;
+            this.size         = size;
+        }
+
+        boolean isValid(Session session) {
+
+            for (int i = 0; i < tables.length; i++) {
+                PersistentStore store = tables[i].getRowStore(session);
+
+                if (store != stores[i]
+                        || store.getModificationCount() != counts[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        Result newResult(Statement cs) {
+
+            RowSetNavigatorClient navigator = new RowSetNavigatorClient();
+
+            navigator.setData(rows);
+
+            Result result = Result.newResult(navigator);
+
+            result.metaData     = metaData;
+            result.rsProperties = rsProperties;
+
+            result.setStatement(cs);
+
+            return result;
+        }
+    }
+}
@@ -31,6 +31,9 @@
 
 package org.hsqldb;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -58,7 +61,7 @@ import org.hsqldb.types.Types;
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
  *
- * @version 2.4.1
+ * @version 2.5.1
  * @since 1.9.0
  */
 public class Routine implements SchemaObject, RangeGroup, Cloneable {
@@ -107,6 +110,7 @@ public class Routine implements SchemaObject, RangeGroup, Cloneable {
     //
     private String  methodName;
     Method          javaMethod;
+    MethodHandle    javaMethodHandle;
     boolean         javaMethodWithConnection;
     private boolean isLibraryRoutine;
 
@@ -189,6 +193,7 @@ public class Routine implements SchemaObject, RangeGroup, Cloneable {
         session.sessionContext.pushRoutineTables();
 
         try {
+            addTransitionTables(session);
             p.read();
             p.startRecording();
 
@@ -205,6 +210,23 @@ public class Routine implements SchemaObject, RangeGroup, Cloneable {
         }
     }
 
+    /**
+     * Makes the OLD TABLE and NEW TABLE transition tables of a trigger
+     * visible by name to the statements of the trigger body.
+     */
+    void addTransitionTables(Session session) {
+
+        if (routineType != SchemaObject.TRIGGER) {
+            return;
+        }
+
+        for (int i = TriggerDef.OLD_TABLE; i < ranges.length; i++) {
+            if (ranges[i] != null) {
+                session.sessionContext.addSessionTable(ranges[i].rangeTable);
+            }
+        }
+    }
+
     public String getSQL() {
         return getDefinitionSQL(true);
     }
@@ -510,7 +532,47 @@ public class Routine implements SchemaObject, RangeGroup, Cloneable {
     }
 
     public void setMethod(Method method) {
+
         this.javaMethod = method;
+
+        setMethodHandle();
+    }
+
+    /**
+     * Binds the method to a handle that takes the Object[] of arguments and
+     * returns an Object, so each call avoids the access checks and
+     * argument array copy of Method.invoke(). If the method cannot be
+     * unreflected, calls are made with Method.invoke().
+     */
+    private void setMethodHandle() {
+
+        javaMethodHandle = null;
+
+        if (javaMethod == null) {
+            return;
+        }
+
+        try {
+            MethodHandle handle = MethodHandles.lookup().unreflect(javaMethod);
+
+            handle = handle.asSpreader(Object[].class,
+                                       javaMethod.getParameterTypes().length);
+            javaMethodHandle = handle.asType(MethodType.methodType(Object.class,
+                    Object[].class));
+        } catch (IllegalAccessException e) {}
+    }
+
+    private Object invokeJavaMethod(Object[] data) throws Throwable {
+
+        if (javaMethodHandle == null) {
+            try {
+                return javaMethod.invoke(null, data);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        return javaMethodHandle.invokeExact(data);
     }
 
     public void setReturnTable(TableDerived table) {
@@ -621,6 +683,8 @@ public class Routine implements SchemaObject, RangeGroup, Cloneable {
 
             javaMethodWithConnection = hasConnection[0];
 
+            setMethodHandle();
+
             String className = javaMethod.getDeclaringClass().getName();
 
             if (className.equals("java.lang.Math")) {
@@ -810,6 +874,7 @@ public class Routine implements SchemaObject, RangeGroup, Cloneable {
         if (isPSM()) {
             methodName               = null;
             javaMethod               = null;
+            javaMethodHandle         = null;
             javaMethodWithConnection = false;
             parameterStyle           = PARAM_STYLE_SQL;
 
@@ -835,6 +900,7 @@ public class Routine implements SchemaObject, RangeGroup, Cloneable {
         maxDynamicResults = routine.maxDynamicResults;
         isRecursive       = routine.isRecursive;
         javaMethod        = routine.javaMethod;
+        javaMethodHandle  = routine.javaMethodHandle;
 
         //
         isRecursive              = routine.isRecursive;
@@ -926,7 +992,7 @@ public class Routine implements SchemaObject, RangeGroup, Cloneable {
         Result result;
 
         try {
-            Object returnValue = javaMethod.invoke(null, data);
+            Object returnValue = invokeJavaMethod(data);
 
             returnValue = returnType.convertJavaToSQL(null, returnValue);
             result      = Result.newPSMResult(returnValue);
@@ -938,6 +1004,93 @@ public class Routine implements SchemaObject, RangeGroup, Cloneable {
         return result;
     }
 
+    /**
+     * Results of deterministic functions that do not read or modify SQL data
+     * can be reused for the same arguments within a statement.
+     */
+    boolean isResultCacheable() {
+        return isDeterministic && routineType == SchemaObject.FUNCTION
+               && isPSM() && !isAggregate && !returnsTable
+               && (dataImpact == NO_SQL || dataImpact == CONTAINS_SQL);
+    }
+
+    /**
+     * An SQL function with a single RETURN statement that contains no
+     * subqueries or routine calls only reads its arguments.
+     */
+    private boolean isInlineFunction() {
+
+        if (!(statement instanceof StatementExpression)
+                || statement.type != StatementTypes.RETURN || isAggregate
+                || returnsTable || variableCount > 0 || cursorCount > 0) {
+            return false;
+        }
+
+        StatementExpression cs = (StatementExpression) statement;
+
+        return cs.subqueries.length == 0
+               && (cs.routines == null || cs.routines.length == 0);
+    }
+
+    /**
+     * Evaluates the RETURN expression with only the routine arguments and
+     * variables of the session context replaced, instead of pushing a new
+     * context.
+     */
+    private Result invokeInline(Session session, Object[] data) {
+
+        SessionContext context      = session.sessionContext;
+        Object[]       oldArguments = context.routineArguments;
+        Object[]       oldVariables = context.routineVariables;
+
+        context.routineArguments = data;
+        context.routineVariables = ValuePool.emptyObjectArray;
+
+        try {
+            return statement.execute(session);
+        } finally {
+            context.routineArguments = oldArguments;
+            context.routineVariables = oldVariables;
+        }
+    }
+
+    /**
+     * A Java function declared NO SQL and called outside any other routine
+     * cannot change the session context, so it is invoked without pushing a
+     * new context. The default connection is available to the function as
+     * before, and any SQL it executes is rejected.
+     */
+    private boolean isNoSQLJavaFunction() {
+        return language == LANGUAGE_JAVA && dataImpact == NO_SQL
+               && !isAggregate && !returnsTable && !javaMethodWithConnection
+               && routineType == SchemaObject.FUNCTION;
+    }
+
+    private Result invokeJavaMethodNoSQL(Session session, Object[] data) {
+
+        SessionContext context = session.sessionContext;
+        Boolean        noSQL   = context.noSQL;
+
+        context.depth++;
+
+        context.noSQL = Boolean.TRUE;
+
+        try {
+            Object returnValue = invokeJavaMethod(data);
+
+            returnValue = returnType.convertJavaToSQL(session, returnValue);
+
+            return Result.newPSMResult(returnValue);
+        } catch (Throwable e) {
+            return Result.newErrorResult(Error.error(e, ErrorCode.X_46000,
+                    getName().name));
+        } finally {
+            context.depth--;
+
+            context.noSQL = noSQL;
+        }
+    }
+
     Result invokeJavaMethod(Session session, Object[] data) {
 
         Result   result;
@@ -956,7 +1109,7 @@ public class Routine implements SchemaObject, RangeGroup, Cloneable {
 
             session.setCurrentSchemaHsqlName(getSchemaName());
 
-            Object returnValue = javaMethod.invoke(null, data);
+            Object returnValue = invokeJavaMethod(data);
 
             if (returnsTable()) {
                 if (returnValue instanceof JDBCResultSet) {
@@ -972,12 +1125,6 @@ public class Routine implements SchemaObject, RangeGroup, Cloneable {
                         returnValue);
                 result = Result.newPSMResult(returnValue);
             }
-        } catch (InvocationTargetException e) {
-            result = Result.newErrorResult(Error.error(e, ErrorCode.X_46000,
-                    getName().name));
-        } catch (IllegalAccessException e) {
-            result = Result.newErrorResult(Error.error(e, ErrorCode.X_46000,
-                    getName().name));
         } catch (Throwable e) {
             result = Result.newErrorResult(Error.error(e, ErrorCode.X_46000,
                     getName().name));
@@ -993,6 +1140,14 @@ public class Routine implements SchemaObject, RangeGroup, Cloneable {
 
         Result result;
 
+        if (isNoSQLJavaFunction() && session.sessionContext.depth == 0) {
+            return invokeJavaMethodNoSQL(session, data);
+        }
+
+        if (isInlineFunction()) {
+            return invokeInline(session, data);
+        }
+
         if (push) {
             session.sessionContext.pushRoutineInvocation();
         }
@@ -43,7 +43,7 @@ import org.hsqldb.types.TimestampData;
  * Base class for a database row object.
  *
  * @author Fred Toussi (fredt@users dot sourceforge dot net)
- * @version 2.5.0
+ * @version 2.5.1
  */
 public class Row implements CachedObject {
 
@@ -209,6 +209,16 @@ public class Row implements CachedObject {
         return 0;
     }
 
+    /**
+     * Returns the image of the row data prepared when the row was sized for
+     * storage, or null.
+     */
+    public byte[] getDataImage() {
+        return null;
+    }
+
+    public void setDataImage(byte[] image) {}
+
     public TableBase getTable() {
         return table;
     }
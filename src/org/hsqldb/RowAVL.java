@@ -70,6 +70,7 @@
 
 package org.hsqldb;
 
+import org.hsqldb.index.Index;
 import org.hsqldb.index.NodeAVL;
 import org.hsqldb.persist.PersistentStore;
 
@@ -86,7 +87,7 @@ import org.hsqldb.persist.PersistentStore;
  *
  * @author Fred Toussi (fredt@users dot sourceforge dot net)
  * @author Thomas Mueller (Hypersonic SQL Group)
- * @version 2.5.0
+ * @version 2.5.1
  * @since Hypersonic SQL
  */
 public class RowAVL extends Row {
@@ -116,14 +117,14 @@ public class RowAVL extends Row {
 
     public void setNewNodes(PersistentStore store) {
 
-        int indexCount = store.getAccessorKeys().length;
+        Index[] keys = store.getAccessorKeys();
 
-        nPrimaryNode = new NodeAVL(this);
+        nPrimaryNode = NodeAVL.newNode(this, keys[0]);
 
         NodeAVL n = nPrimaryNode;
 
-        for (int i = 1; i < indexCount; i++) {
-            n.nNext = new NodeAVL(this);
+        for (int i = 1; i < keys.length; i++) {
+            n.nNext = NodeAVL.newNode(this, keys[i]);
             n       = n.nNext;
         }
     }
@@ -158,10 +159,13 @@ public class RowAVL extends Row {
         return n;
     }
 
-    public NodeAVL insertNode(int index) {
+    /**
+     * Inserts a Node for a new Index at the position of the Index.
+     */
+    public NodeAVL insertNode(Index index) {
 
-        NodeAVL backnode = getNode(index - 1);
-        NodeAVL newnode  = new NodeAVL(this);
+        NodeAVL backnode = getNode(index.getPosition() - 1);
+        NodeAVL newnode  = NodeAVL.newNode(this, index);
 
         newnode.nNext  = backnode.nNext;
         backnode.nNext = newnode;
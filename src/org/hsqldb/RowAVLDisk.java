@@ -74,6 +74,7 @@ import java.io.IOException;
 
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
+import org.hsqldb.index.Index;
 import org.hsqldb.index.NodeAVL;
 import org.hsqldb.index.NodeAVLDisk;
 import org.hsqldb.lib.LongLookup;
@@ -119,6 +120,11 @@ public class RowAVLDisk extends RowAVL {
      */
     private boolean hasNodesChanged;
 
+    /**
+     *  Compressed data image of a new row, kept until the row is saved.
+     */
+    private byte[] dataImage;
+
     /**
      *  Constructor for new Rows.  Variable hasDataChanged is set to true in
      *  order to indicate the data needs saving.
@@ -169,7 +175,7 @@ public class RowAVLDisk extends RowAVL {
         super(t, (Object[]) null);
     }
 
-    public NodeAVL insertNode(int index) {
+    public NodeAVL insertNode(Index index) {
         return null;
     }
 
@@ -241,6 +247,14 @@ public class RowAVLDisk extends RowAVL {
         storageSize = size;
     }
 
+    public byte[] getDataImage() {
+        return dataImage;
+    }
+
+    public void setDataImage(byte[] image) {
+        dataImage = image;
+    }
+
     /**
      * Returns true if any of the Nodes for this row is a root node.
      * Used only in Cache.java to avoid removing the row from the cache.
@@ -318,6 +332,8 @@ public class RowAVLDisk extends RowAVL {
         if (hasDataChanged) {
             out.writeData(this, table.colTypes);
             out.writeEnd();
+
+            dataImage = null;
         }
     }
 
@@ -33,6 +33,7 @@ package org.hsqldb;
 
 import java.io.IOException;
 
+import org.hsqldb.index.Index;
 import org.hsqldb.index.NodeAVL;
 import org.hsqldb.persist.PersistentStore;
 import org.hsqldb.rowio.RowInputInterface;
@@ -48,7 +49,7 @@ import org.hsqldb.persist.RowStoreAVLDiskData;
  *
  * @author Bob Preston (sqlbob@users dot sourceforge.net)
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.3.4
+ * @version 2.5.1
  * @version 1.7.0
  */
 public class RowAVLDiskData extends RowAVL {
@@ -113,22 +114,22 @@ public class RowAVLDiskData extends RowAVL {
      */
     public void setNewNodes(PersistentStore store) {
 
-        int index = store.getAccessorKeys().length;
+        Index[] keys = store.getAccessorKeys();
 
-        nPrimaryNode = new NodeAVL(this);
+        nPrimaryNode = NodeAVL.newNode(this, keys[0]);
 
         NodeAVL n = nPrimaryNode;
 
-        for (int i = 1; i < index; i++) {
-            n.nNext = new NodeAVL(this);
+        for (int i = 1; i < keys.length; i++) {
+            n.nNext = NodeAVL.newNode(this, keys[i]);
             n       = n.nNext;
         }
     }
 
-    public NodeAVL insertNode(int index) {
+    public NodeAVL insertNode(Index index) {
 
-        NodeAVL backnode = getNode(index - 1);
-        NodeAVL newnode  = new NodeAVL(this);
+        NodeAVL backnode = getNode(index.getPosition() - 1);
+        NodeAVL newnode  = NodeAVL.newNode(this, index);
 
         newnode.nNext  = backnode.nNext;
         backnode.nNext = newnode;
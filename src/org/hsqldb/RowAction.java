@@ -335,6 +335,35 @@ public class RowAction extends RowActionBase {
         return actiontype;
     }
 
+    /**
+     * returns the net type of the uncommitted actions of the session,
+     * ACTION_NONE if the row was both inserted and deleted.
+     */
+    synchronized int getSessionActionType(Session session) {
+
+        RowActionBase action     = this;
+        int           actionType = ACTION_NONE;
+
+        do {
+            if (action.session == session && !action.rolledback
+                    && action.commitTimestamp == 0) {
+                if (action.type == ACTION_INSERT) {
+                    actionType = ACTION_INSERT;
+                } else if (action.type == ACTION_DELETE) {
+                    if (actionType == ACTION_INSERT) {
+                        actionType = ACTION_NONE;
+                    } else {
+                        actionType = ACTION_DELETE;
+                    }
+                }
+            }
+
+            action = action.next;
+        } while (action != null);
+
+        return actionType;
+    }
+
     public boolean isDeleted() {
 
         RowActionBase action = this;
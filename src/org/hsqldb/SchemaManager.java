@@ -38,9 +38,12 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.hsqldb.HsqlNameManager.HsqlName;
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
+import org.hsqldb.lib.ArrayUtil;
 import org.hsqldb.lib.HashMappedList;
 import org.hsqldb.lib.HsqlArrayList;
+import org.hsqldb.lib.HsqlDeque;
 import org.hsqldb.lib.Iterator;
+import org.hsqldb.lib.LongDeque;
 import org.hsqldb.lib.MultiValueHashMap;
 import org.hsqldb.lib.OrderedHashSet;
 import org.hsqldb.lib.StringConverter;
@@ -68,6 +71,13 @@ public class SchemaManager {
     long              schemaChangeTimestamp;
     HsqlName[]        catalogNameArray;
 
+
+    // recent schema changes and the names of the tables they affect
+    static final int schemaChangeLogSize       = 256;
+    LongDeque        schemaChangeLogTimestamps = new LongDeque();
+    HsqlDeque        schemaChangeLogNames      = new HsqlDeque();
+    long             schemaChangeLogStart      = Long.MAX_VALUE;
+
     //
     ReadWriteLock lock      = new ReentrantReadWriteLock();
     Lock          readLock  = lock.readLock();
@@ -77,6 +87,9 @@ public class SchemaManager {
     Table        dualTable;
     public Table dataChangeTable;
 
+    //
+    volatile MaterializedView[] refreshOnCommitViews;
+
     public SchemaManager(Database database) {
 
         this.database         = database;
@@ -107,13 +120,128 @@ public class SchemaManager {
     }
 
     public void setSchemaChangeTimestamp() {
+        setSchemaChangeTimestamp(null);
+    }
+
+    /**
+     * Records a schema change. The names are those of the tables and views
+     * whose definition alone was changed; null indicates a change that may
+     * affect any object.
+     */
+    public synchronized void setSchemaChangeTimestamp(HsqlName[] names) {
+
         schemaChangeTimestamp = database.txManager.getGlobalChangeTimestamp();
+        refreshOnCommitViews  = null;
+
+        if (!schemaChangeLogTimestamps.isEmpty()
+                && schemaChangeLogTimestamps.getLast()
+                   == schemaChangeTimestamp) {
+            HsqlName[] lastNames =
+                (HsqlName[]) schemaChangeLogNames.removeLast();
+
+            if (lastNames == null || names == null) {
+                names = null;
+            } else {
+                HsqlName[] newNames = (HsqlName[]) ArrayUtil.resizeArray(
+                    lastNames, lastNames.length + names.length);
+
+                System.arraycopy(names, 0, newNames, lastNames.length,
+                                 names.length);
+
+                names = newNames;
+            }
+
+            schemaChangeLogNames.addLast(names);
+
+            return;
+        }
+
+        if (schemaChangeLogTimestamps.size() == schemaChangeLogSize) {
+            schemaChangeLogStart = schemaChangeLogTimestamps.removeFirst();
+
+            schemaChangeLogNames.removeFirst();
+        }
+
+        if (schemaChangeLogTimestamps.isEmpty()) {
+            schemaChangeLogStart = schemaChangeTimestamp;
+        }
+
+        schemaChangeLogTimestamps.addLast(schemaChangeTimestamp);
+        schemaChangeLogNames.addLast(names);
+    }
+
+    /**
+     * Returns the names of the tables and views changed since the given
+     * schema change timestamp, or null if other changes have been made or
+     * the changes are no longer known.
+     */
+    public synchronized OrderedHashSet getChangedTableNames(long timestamp) {
+
+        if (timestamp < schemaChangeLogStart) {
+            return null;
+        }
+
+        OrderedHashSet set = new OrderedHashSet();
+
+        for (int i = 0; i < schemaChangeLogTimestamps.size(); i++) {
+            if (schemaChangeLogTimestamps.get(i) <= timestamp) {
+                continue;
+            }
+
+            HsqlName[] names = (HsqlName[]) schemaChangeLogNames.get(i);
+
+            if (names == null) {
+                return null;
+            }
+
+            set.addAll(names);
+        }
+
+        return set;
     }
 
     public long getSchemaChangeTimestamp() {
         return schemaChangeTimestamp;
     }
 
+    /**
+     * Returns the materialized views that are refreshed on commit.
+     */
+    public MaterializedView[] getRefreshOnCommitViews() {
+
+        MaterializedView[] views = refreshOnCommitViews;
+
+        if (views != null) {
+            return views;
+        }
+
+        readLock.lock();
+
+        try {
+            HsqlArrayList list   = getAllTables(false);
+            HsqlArrayList result = new HsqlArrayList();
+
+            for (int i = 0; i < list.size(); i++) {
+                Table table = (Table) list.get(i);
+
+                if (table instanceof MaterializedView
+                        && ((MaterializedView) table).isRefreshOnCommit()) {
+                    result.add(table);
+                }
+            }
+
+            views = new MaterializedView[result.size()];
+
+            result.toArray(views);
+
+            refreshOnCommitViews = views;
+
+            return views;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
     // pre-defined
     public HsqlName getSQLJSchemaHsqlName() {
         return SqlInvariants.SQLJ_SCHEMA_HSQLNAME;
@@ -829,7 +957,7 @@ public class SchemaManager {
 
         try {
             if (table.isView()) {
-                dropView(table, cascade);
+                dropView(session, table, cascade);
             } else {
                 dropTable(session, table, cascade);
             }
@@ -838,10 +966,14 @@ public class SchemaManager {
         }
     }
 
-    private void dropView(Table table, boolean cascade) {
+    private void dropView(Session session, Table table, boolean cascade) {
 
         Schema schema = (Schema) schemaMap.get(table.getSchemaName().name);
 
+        if (cascade) {
+            dropDependentMaterializedViews(session, table.getName());
+        }
+
         removeSchemaObject(table.getName(), cascade);
         removeTableDependentReferences(table);
         schema.triggerLookup.removeParent(table.getName());
@@ -850,6 +982,11 @@ public class SchemaManager {
     private void dropTable(Session session, Table table, boolean cascade) {
 
         Schema schema = (Schema) schemaMap.get(table.getSchemaName().name);
+
+        if (cascade) {
+            dropDependentMaterializedViews(session, table.getName());
+        }
+
         OrderedHashSet externalConstraints =
             table.getDependentExternalConstraints();
         OrderedHashSet externalReferences = new OrderedHashSet();
@@ -930,6 +1067,31 @@ public class SchemaManager {
         recompileDependentObjects(tableSet);
     }
 
+    /**
+     * Materialized views hold rows and are dropped as tables.
+     */
+    private void dropDependentMaterializedViews(Session session,
+            HsqlName name) {
+
+        OrderedHashSet set = new OrderedHashSet();
+
+        getCascadingReferencesTo(name, set);
+
+        for (int i = 0; i < set.size(); i++) {
+            HsqlName refName = (HsqlName) set.get(i);
+
+            if (refName.type != SchemaObject.TABLE) {
+                continue;
+            }
+
+            Table view = findUserTable(refName.name, refName.schema.name);
+
+            if (view instanceof MaterializedView) {
+                dropTable(session, view, true);
+            }
+        }
+    }
+
     private void removeTable(Session session, Table table) {
 
         database.getGranteeManager().removeDbObject(table.getName());
@@ -1029,6 +1191,15 @@ public class SchemaManager {
                         object.compile(session, null);
                         break;
 
+                    case SchemaObject.TABLE :
+                        Table view = findUserTable(name.name,
+                                                   name.schema.name);
+
+                        if (view instanceof MaterializedView) {
+                            view.compile(session, null);
+                        }
+                        break;
+
                     default :
                 }
             }
@@ -1080,6 +1251,15 @@ public class SchemaManager {
                         object.compile(session, null);
                         break;
 
+                    case SchemaObject.TABLE :
+                        Table view = findUserTable(name.name,
+                                                   name.schema.name);
+
+                        if (view instanceof MaterializedView) {
+                            view.compile(session, null);
+                        }
+                        break;
+
                     default :
                 }
             }
@@ -55,6 +55,7 @@ import org.hsqldb.lib.SimpleLog;
 import org.hsqldb.map.ValuePool;
 import org.hsqldb.navigator.RowSetNavigator;
 import org.hsqldb.navigator.RowSetNavigatorClient;
+import org.hsqldb.navigator.RowSetNavigatorLazy;
 import org.hsqldb.persist.HsqlDatabaseProperties;
 import org.hsqldb.persist.HsqlProperties;
 import org.hsqldb.persist.PersistentStore;
@@ -117,6 +118,10 @@ public class Session implements SessionInterface {
     public CountUpDownLatch latch = new CountUpDownLatch();
     TimeoutManager          timeoutManager;
 
+    // result still reading rows and the autocommit deferred until it ends
+    RowSetNavigatorLazy lazyNavigator;
+    boolean             lazyCommit;
+
     // current settings
     final String       zoneString;
     final int          sessionTimeZoneSeconds;
@@ -230,6 +235,9 @@ public class Session implements SessionInterface {
             return;
         }
 
+        lazyNavigator = null;
+        lazyCommit    = false;
+
         rollback(false);
 
         try {
@@ -562,6 +570,8 @@ public class Session implements SessionInterface {
             throw Error.error(ErrorCode.X_08003);
         }
 
+        drainLazyResult(false);
+
         if (!database.txManager.prepareCommitActions(this)) {
 
 //            tempActionHistory.add("commit aborts " + actionTimestamp);
@@ -587,6 +597,8 @@ public class Session implements SessionInterface {
             return;
         }
 
+        drainLazyResult(false);
+
         if (isTransaction) {
             if (!database.txManager.commitTransaction(this)) {
 
@@ -619,6 +631,7 @@ public class Session implements SessionInterface {
             return;
         }
 
+        drainLazyResult(false);
         rollbackNoCheck(chain);
     }
 
@@ -670,6 +683,51 @@ public class Session implements SessionInterface {
 //*/
     }
 
+    /**
+     * Called when a lazy result has read all its rows or is closed. Performs
+     * the autocommit that was deferred while the result was open.
+     */
+    public synchronized void endLazyResult(RowSetNavigatorLazy navigator) {
+
+        if (lazyNavigator != navigator) {
+            return;
+        }
+
+        lazyNavigator = null;
+
+        if (lazyCommit) {
+            lazyCommit = false;
+
+            commit(false);
+        }
+    }
+
+    /**
+     * Reads the remaining rows of an open lazy result into memory before the
+     * session executes another statement or ends the transaction, which
+     * would change the rows visible to the result. The deferred autocommit
+     * is performed only if deferredCommit is true, otherwise the caller is
+     * ending the transaction.
+     */
+    private void drainLazyResult(boolean deferredCommit) {
+
+        if (lazyNavigator == null) {
+            return;
+        }
+
+        RowSetNavigatorLazy navigator = lazyNavigator;
+        boolean             commit    = lazyCommit && deferredCommit;
+
+        lazyNavigator = null;
+        lazyCommit    = false;
+
+        navigator.drain();
+
+        if (commit) {
+            commit(false);
+        }
+    }
+
     /**
      * Clear structures and reset variables to original. For JDBC use only.
      * Note: sets autocommit true
@@ -680,6 +738,9 @@ public class Session implements SessionInterface {
             return;
         }
 
+        lazyNavigator = null;
+        lazyCommit    = false;
+
         rollbackNoCheck(false);
         sessionData.closeAllNavigators();
         sessionData.persistentStoreCollection.clearAllTables();
@@ -710,6 +771,8 @@ public class Session implements SessionInterface {
      */
     public synchronized void savepoint(String name) {
 
+        drainLazyResult(true);
+
         int index = sessionContext.savepoints.getIndex(name);
 
         if (index != -1) {
@@ -742,6 +805,7 @@ public class Session implements SessionInterface {
             throw Error.error(ErrorCode.X_3B001, name);
         }
 
+        drainLazyResult(true);
         database.txManager.rollbackSavepoint(this, index);
     }
 
@@ -756,6 +820,7 @@ public class Session implements SessionInterface {
             return;
         }
 
+        drainLazyResult(true);
         database.txManager.rollbackSavepoint(this, 0);
     }
 
@@ -974,8 +1039,9 @@ public class Session implements SessionInterface {
             return Result.newErrorResult(Error.error(ErrorCode.X_08503));
         }
 
-        sessionContext.currentMaxRows = 0;
-        isBatch                       = false;
+        sessionContext.currentMaxRows  = 0;
+        sessionContext.allowLazyResult = false;
+        isBatch                        = false;
 
         switch (cmd.mode) {
 
@@ -1011,6 +1077,9 @@ public class Session implements SessionInterface {
                 }
 
                 Object[] pvals = (Object[]) cmd.valueData;
+
+                sessionContext.allowLazyResult = isLazyResultAllowed(cmd);
+
                 Result result = executeCompiledStatement(cs, pvals,
                     cmd.queryTimeout);
 
@@ -1028,6 +1097,8 @@ public class Session implements SessionInterface {
                 return result;
             }
             case ResultConstants.EXECDIRECT : {
+                sessionContext.allowLazyResult = isLazyResultAllowed(cmd);
+
                 Result result = executeDirectStatement(cmd);
 
                 result = performPostExecute(cmd, result);
@@ -1180,6 +1251,27 @@ public class Session implements SessionInterface {
         }
     }
 
+    /**
+     * Lazy results are used with MVCC for forward-only, read-only results
+     * when the statement has a non-zero fetch size. As the autocommit is
+     * deferred until a lazy result is read or closed, they are not used
+     * unless the application asks for them.
+     */
+    private boolean isLazyResultAllowed(Result command) {
+
+        if (database.txManager.getTransactionControl()
+                != TransactionManager.MVCC) {
+            return false;
+        }
+
+        if (command.getFetchSize() == 0) {
+            return false;
+        }
+
+        return ResultProperties.isReadOnly(command.rsProperties)
+               && !ResultProperties.isScrollable(command.rsProperties);
+    }
+
     private Result performPostExecute(Result command, Result result) {
 
         if (result.mode == ResultConstants.DATA) {
@@ -1296,6 +1388,14 @@ public class Session implements SessionInterface {
             return handleAbortTransaction();
         }
 
+        if (sessionContext.depth == 0 && lazyNavigator != null) {
+            try {
+                drainLazyResult(true);
+            } catch (HsqlException e) {
+                return Result.newErrorResult(e);
+            }
+        }
+
         if (sessionContext.depth > 0) {
             if (sessionContext.noSQL.booleanValue()
                     || cs.isAutoCommitStatement()) {
@@ -1318,6 +1418,11 @@ public class Session implements SessionInterface {
         }
 
         sessionContext.currentStatement = cs;
+
+        if (sessionContext.depth == 0) {
+            sessionContext.clearRoutineResults();
+        }
+
         statementStartTimestamp =
             database.txManager.getGlobalChangeTimestamp();
 
@@ -1404,12 +1509,24 @@ public class Session implements SessionInterface {
                 return result;
             }
 
+            long[] cacheCounts = null;
+
+            if (database.resultCache.isEnabled()) {
+                cacheCounts =
+                    database.resultCache.getModificationCounts(this, cs);
+            }
+
             database.txManager.beginActionResume(this);
 
             //        tempActionHistory.add("sql execute " + cs.sql + " " + actionTimestamp + " " + rowActionList.size());
             sessionContext.setDynamicArguments(pvals);
 
-            r = cs.execute(this);
+            if (cacheCounts != null) {
+                r = database.resultCache.execute(this, cs, pvals,
+                                                 cacheCounts);
+            } else {
+                r = cs.execute(this);
+            }
 
             if (database.logger.getSqlEventLogLevel()
                     >= SimpleLog.LOG_NORMAL) {
@@ -1453,6 +1570,8 @@ public class Session implements SessionInterface {
             try {
                 if (r.mode == ResultConstants.ERROR) {
                     rollbackNoCheck(false);
+                } else if (lazyNavigator != null) {
+                    lazyCommit = true;
                 } else {
                     commit(false);
                 }
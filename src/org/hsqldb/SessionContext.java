@@ -31,10 +31,13 @@
 
 package org.hsqldb;
 
+import java.util.Arrays;
+
 import org.hsqldb.RangeGroup.RangeGroupSimple;
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
 import org.hsqldb.lib.ArrayUtil;
+import org.hsqldb.lib.HashMap;
 import org.hsqldb.lib.HashMappedList;
 import org.hsqldb.lib.HashSet;
 import org.hsqldb.lib.HsqlArrayList;
@@ -50,11 +53,18 @@ import org.hsqldb.result.Result;
  * Session execution context and temporary data structures
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.3.5
+ * @version 2.5.1
  * @since 1.9.0
  */
 public class SessionContext {
 
+    static final int routineResultsLimit  = 4096;
+    static final int subqueryResultsLimit = 4096;
+
+    /** returned by getSubqueryResult() when there is no cached result */
+    static final Object noSubqueryResult   = new Object();
+    private static final Object nullSubqueryResult = new Object();
+
     Session session;
 
     //
@@ -62,6 +72,7 @@ public class SessionContext {
     Boolean        isReadOnly;
     Boolean        noSQL;
     int            currentMaxRows;
+    boolean        allowLazyResult;
 
     //
     HashMappedList  sessionVariables;
@@ -108,6 +119,27 @@ public class SessionContext {
     HashSet               constraintPath;
     StatementResultUpdate rowUpdateStatement = new StatementResultUpdate();
 
+    /**
+     * Results of deterministic function calls in the current top level
+     * statement, keyed on the calling expression and argument values
+     */
+    HashMap routineResults;
+
+    /**
+     * Results of correlated subqueries in the current top level statement,
+     * keyed on the subquery expression and its outer values, and valid until
+     * the session changes any data
+     */
+    HashMap subqueryResults;
+    long    subqueryResultsTimestamp;
+    int     subqueryResultsActions;
+
+    /**
+     * Hash sets of the values of IN lists in the current top level statement,
+     * keyed on the IN predicate
+     */
+    HashMap valueListSets;
+
     //
 
     /**
@@ -268,6 +300,108 @@ public class SessionContext {
         }
     }
 
+    Result getRoutineResult(Expression function, Object[] arguments) {
+
+        if (routineResults == null || routineResults.isEmpty()) {
+            return null;
+        }
+
+        return (Result) routineResults.get(new ExpressionKey(function,
+            arguments));
+    }
+
+    void setRoutineResult(Expression function, Object[] arguments,
+                          Result result) {
+
+        if (routineResults == null) {
+            routineResults = new HashMap();
+        }
+
+        if (routineResults.size() < routineResultsLimit) {
+            routineResults.put(new ExpressionKey(function, arguments), result);
+        }
+    }
+
+    void clearRoutineResults() {
+
+        if (routineResults != null && !routineResults.isEmpty()) {
+            routineResults.clear();
+        }
+
+        if (subqueryResults != null && !subqueryResults.isEmpty()) {
+            subqueryResults.clear();
+        }
+
+        if (valueListSets != null && !valueListSets.isEmpty()) {
+            valueListSets.clear();
+        }
+    }
+
+    HashSet getValueListSet(Expression predicate) {
+
+        if (valueListSets == null) {
+            return null;
+        }
+
+        return (HashSet) valueListSets.get(new ExpressionKey(predicate,
+                null));
+    }
+
+    void setValueListSet(Expression predicate, HashSet set) {
+
+        if (valueListSets == null) {
+            valueListSets = new HashMap();
+        }
+
+        valueListSets.put(new ExpressionKey(predicate, null), set);
+    }
+
+    Object getSubqueryResult(Expression subquery, Object[] values) {
+
+        if (subqueryResults == null || subqueryResults.isEmpty()) {
+            return noSubqueryResult;
+        }
+
+        if (subqueryResultsTimestamp != session.actionTimestamp
+                || subqueryResultsActions != session.rowActionList.size()) {
+            subqueryResults.clear();
+
+            return noSubqueryResult;
+        }
+
+        Object result = subqueryResults.get(new ExpressionKey(subquery,
+            values));
+
+        if (result == null) {
+            return noSubqueryResult;
+        }
+
+        return result == nullSubqueryResult ? null
+                                            : result;
+    }
+
+    void setSubqueryResult(Expression subquery, Object[] values,
+                           Object result) {
+
+        if (subqueryResults == null) {
+            subqueryResults = new HashMap();
+        }
+
+        if (subqueryResultsTimestamp != session.actionTimestamp
+                || subqueryResultsActions != session.rowActionList.size()) {
+            subqueryResults.clear();
+
+            subqueryResultsTimestamp = session.actionTimestamp;
+            subqueryResultsActions   = session.rowActionList.size();
+        }
+
+        if (subqueryResults.size() < subqueryResultsLimit) {
+            subqueryResults.put(new ExpressionKey(subquery, values),
+                                result == null ? nullSubqueryResult
+                                               : result);
+        }
+    }
+
     RangeIterator checkIterator = new RangeVariable.RangeIteratorCheck();
 
     public RangeIterator getCheckIterator(RangeVariable rangeVariable) {
@@ -405,4 +539,38 @@ public class SessionContext {
     public void dropSessionTable(String name) {
         sessionTables.remove(name);
     }
+
+    /**
+     * Key for a cached result of an expression for a set of values
+     */
+    static final class ExpressionKey {
+
+        final Expression expression;
+        final Object[]   values;
+        final int        hash;
+
+        ExpressionKey(Expression expression, Object[] values) {
+
+            this.expression = expression;
+            this.values     = values;
+            this.hash       = System.identityHashCode(expression) * 31
+                              + Arrays.deepHashCode(values);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object other) {
+
+            if (other instanceof ExpressionKey) {
+                ExpressionKey key = (ExpressionKey) other;
+
+                return expression == key.expression && hash == key.hash
+                       && Arrays.deepEquals(values, key.values);
+            }
+
+            return false;
+        }
+    }
 }
@@ -300,7 +300,8 @@ public class SessionData {
             return;
         }
 
-        if (value == null) {
+        // a lob with inline contents has no id and no usage count
+        if (value == null || value.getId() == 0) {
             return;
         }
 
@@ -326,7 +327,7 @@ public class SessionData {
             if (table.colTypes[j].isLobType()) {
                 Object value = data[j];
 
-                if (value == null) {
+                if (value == null || ((LobData) value).getId() == 0) {
                     continue;
                 }
 
@@ -561,6 +562,10 @@ public class SessionData {
                 BlobData blob = (BlobDataID) data[i];
                 long     id   = blob.getId();
 
+                if (id == 0) {
+                    continue;
+                }
+
                 if (id < 0) {
                     id = resultLobs.get(id);
                 }
@@ -572,6 +577,10 @@ public class SessionData {
                 ClobData clob = (ClobDataID) data[i];
                 long     id   = clob.getId();
 
+                if (id == 0) {
+                    continue;
+                }
+
                 if (id < 0) {
                     id = resultLobs.get(id);
                 }
@@ -315,6 +315,95 @@ public class SetFunctionValueAggregate implements SetFunction {
         }
     }
 
+    /**
+     * Returns true if values can be removed from the aggregate with
+     * remove(Object). This is the case for COUNT, and for SUM and AVG of
+     * exact numeric values, without DISTINCT.
+     */
+    static boolean isRemovable(int setType, Type type, boolean isDistinct) {
+
+        if (isDistinct) {
+            return false;
+        }
+
+        switch (setType) {
+
+            case OpTypes.COUNT :
+                return true;
+
+            case OpTypes.SUM :
+            case OpTypes.AVG :
+                switch (type.typeCode) {
+
+                    case Types.TINYINT :
+                    case Types.SQL_SMALLINT :
+                    case Types.SQL_INTEGER :
+                    case Types.SQL_BIGINT :
+                    case Types.SQL_NUMERIC :
+                    case Types.SQL_DECIMAL :
+                        return true;
+
+                    default :
+                        return false;
+                }
+            default :
+                return false;
+        }
+    }
+
+    /**
+     * Removes a value that was added before. Used for window frames that
+     * move forward, when isRemovable() is true for the aggregate.
+     */
+    void remove(Object item) {
+
+        if (item == null) {
+            return;
+        }
+
+        count--;
+
+        switch (setType) {
+
+            case OpTypes.COUNT :
+                return;
+
+            case OpTypes.AVG :
+            case OpTypes.SUM : {
+                switch (typeCode) {
+
+                    case Types.TINYINT :
+                    case Types.SQL_SMALLINT :
+                    case Types.SQL_INTEGER :
+                        loLong -= ((Number) item).intValue();
+
+                        return;
+
+                    case Types.SQL_BIGINT : {
+                        long value = ((Number) item).longValue();
+
+                        if (value == Long.MIN_VALUE) {
+                            hiLong += 0x000000080000000L;
+                        } else {
+                            addLong(-value);
+                        }
+
+                        return;
+                    }
+                    case Types.SQL_NUMERIC :
+                    case Types.SQL_DECIMAL :
+                        currentBigDecimal =
+                            currentBigDecimal.subtract((BigDecimal) item);
+
+                        return;
+                }
+            }
+        }
+
+        throw Error.runtimeError(ErrorCode.U_S0500,
+                                 "SetFunctionValueAggregate");
+    }
+
     public void addGroup(SetFunction group) {
 
         SetFunctionValueAggregate item = (SetFunctionValueAggregate) group;
@@ -43,7 +43,7 @@ import org.hsqldb.types.Type;
  * Implementation of ORDER BY and LIMIT properties of query expressions.
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.4.1
+ * @version 2.5.1
  * @since 1.9.0
  */
 public final class SortAndSlice {
@@ -211,7 +211,7 @@ public final class SortAndSlice {
             }
         }
 
-        if (select == null) {
+        if (select == null || select.hasWindowFunctions) {
             return;
         }
 
@@ -450,6 +450,10 @@ public final class SortAndSlice {
             if (select.isSimpleDistinct) {
                 simpleLimit = true;
             }
+
+            if (select.hasWindowFunctions) {
+                simpleLimit = false;
+            }
         }
 
         if (hasLimits) {
@@ -45,6 +45,8 @@ import org.hsqldb.persist.HsqlDatabaseProperties;
 import org.hsqldb.persist.HsqlProperties;
 import org.hsqldb.persist.PersistentStore;
 import org.hsqldb.persist.ScriptLoader;
+import org.hsqldb.persist.TableExporter;
+import org.hsqldb.persist.TableImporter;
 import org.hsqldb.persist.TableSpaceManager;
 import org.hsqldb.result.Result;
 import org.hsqldb.result.ResultMetaData;
@@ -89,6 +91,11 @@ public class StatementCommand extends Statement {
                 group = StatementTypes.X_HSQLDB_DATABASE_OPERATION;
                 break;
 
+            case StatementTypes.REFRESH_MATERIALIZED_VIEW :
+                group    = StatementTypes.X_SQL_DATA_CHANGE;
+                isLogged = false;
+                break;
+
             case StatementTypes.EXPLAIN_PLAN :
             case StatementTypes.EXPLAIN_REFERENCES :
                 group                  = StatementTypes.X_SQL_DIAGNOSTICS;
@@ -120,6 +127,13 @@ public class StatementCommand extends Statement {
 
                 break;
             }
+            case StatementTypes.EXPORT_TABLE :
+            case StatementTypes.IMPORT_TABLE : {
+                group    = StatementTypes.X_HSQLDB_DATABASE_OPERATION;
+                isLogged = false;
+
+                break;
+            }
             case StatementTypes.CHECK_INDEX : {
                 statementReturnType = StatementTypes.RETURN_RESULT;
                 group = StatementTypes.X_HSQLDB_DATABASE_OPERATION;
@@ -154,10 +168,12 @@ public class StatementCommand extends Statement {
             case StatementTypes.SET_DATABASE_FILES_CACHE_ROWS :
             case StatementTypes.SET_DATABASE_FILES_CACHE_SIZE :
             case StatementTypes.SET_DATABASE_FILES_SCALE :
+            case StatementTypes.SET_DATABASE_FILES_COMPRESSED :
             case StatementTypes.SET_DATABASE_FILES_SPACE :
             case StatementTypes.SET_DATABASE_FILES_DEFRAG :
             case StatementTypes.SET_DATABASE_FILES_LOBS_SCALE :
             case StatementTypes.SET_DATABASE_FILES_LOBS_COMPRESSED :
+            case StatementTypes.SET_DATABASE_FILES_LOBS_INLINE :
             case StatementTypes.SET_DATABASE_FILES_LOG :
             case StatementTypes.SET_DATABASE_FILES_LOG_SIZE :
             case StatementTypes.SET_DATABASE_FILES_NIO :
@@ -166,6 +182,7 @@ public class StatementCommand extends Statement {
             case StatementTypes.SET_DATABASE_PASSWORD_CHECK :
             case StatementTypes.SET_DATABASE_PASSWORD_DIGEST :
             case StatementTypes.SET_DATABASE_PROPERTY :
+            case StatementTypes.SET_DATABASE_RESULT_CACHE_SIZE :
             case StatementTypes.SET_DATABASE_RESULT_MEMORY_ROWS :
             case StatementTypes.SET_DATABASE_SQL_REFERENTIAL_INTEGRITY :
             case StatementTypes.SET_DATABASE_SQL :
@@ -277,6 +294,27 @@ public class StatementCommand extends Statement {
             case StatementTypes.TRUNCATE : {
                 return getTruncateResult(session);
             }
+            case StatementTypes.REFRESH_MATERIALIZED_VIEW : {
+                try {
+                    HsqlName name = (HsqlName) arguments[0];
+                    MaterializedView view =
+                        (MaterializedView) session.database.schemaManager
+                            .getUserTable(name);
+
+                    session.checkReadWrite();
+                    session.getGrantee().checkDelete(view);
+                    session.getGrantee().checkInsert(
+                        view, view.getColumnCheckList(view.getColumnMap()));
+
+                    long count = view.refresh(session);
+
+                    return Result.newUpdateCountResult(
+                        count > Integer.MAX_VALUE ? Integer.MAX_VALUE
+                                                  : (int) count);
+                } catch (HsqlException e) {
+                    return Result.newErrorResult(e, sql);
+                }
+            }
             case StatementTypes.EXPLAIN_REFERENCES : {
                 HsqlName name = (HsqlName) arguments[0];
                 boolean referenceFrom =
@@ -470,6 +508,38 @@ public class StatementCommand extends Statement {
                     return Result.newErrorResult(e, sql);
                 }
             }
+            case StatementTypes.SET_DATABASE_FILES_LOBS_INLINE : {
+                try {
+                    int value = ((Integer) arguments[0]).intValue();
+
+                    session.checkAdmin();
+                    session.checkDDLWrite();
+                    session.database.logger.setLobInlineSize(value);
+
+                    return Result.updateZeroResult;
+                } catch (HsqlException e) {
+                    return Result.newErrorResult(e, sql);
+                }
+            }
+            case StatementTypes.SET_DATABASE_FILES_COMPRESSED : {
+                try {
+                    boolean mode = ((Boolean) arguments[0]).booleanValue();
+
+                    session.checkAdmin();
+                    session.checkDDLWrite();
+
+                    if (session.isProcessingScript()) {
+                        session.database.logger.setDataFileCompressedNoCheck(
+                            mode);
+                    } else {
+                        session.database.logger.setDataFileCompressed(mode);
+                    }
+
+                    return Result.updateZeroResult;
+                } catch (HsqlException e) {
+                    return Result.newErrorResult(e, sql);
+                }
+            }
             case StatementTypes.SET_DATABASE_FILES_SCALE : {
                 try {
                     int value = ((Integer) arguments[0]).intValue();
@@ -769,6 +839,9 @@ public class StatementCommand extends Statement {
                 } else if (HsqlDatabaseProperties.sql_avg_scale.equals(
                         property)) {
                     session.database.setAvgScale(value);
+                } else if (HsqlDatabaseProperties.sql_max_recursive.equals(
+                        property)) {
+                    session.database.setMaxRecursive(value);
                 } else if (HsqlDatabaseProperties.sql_double_nan.equals(
                         property)) {
                     session.database.setDoubleNaN(mode);
@@ -906,6 +979,23 @@ public class StatementCommand extends Statement {
                     return Result.newErrorResult(e, sql);
                 }
             }
+            case StatementTypes.SET_DATABASE_RESULT_CACHE_SIZE : {
+                try {
+                    int size = ((Integer) arguments[0]).intValue();
+
+                    session.checkAdmin();
+
+                    size = session.database.getProperties()
+                        .getPropertyWithinRange(HsqlDatabaseProperties
+                            .hsqldb_result_cache_size, size);
+
+                    session.database.setResultCacheSize(size);
+
+                    return Result.updateZeroResult;
+                } catch (HsqlException e) {
+                    return Result.newErrorResult(e, sql);
+                }
+            }
             case StatementTypes.SET_DATABASE_RESULT_MEMORY_ROWS : {
                 int size = ((Integer) arguments[0]).intValue();
 
@@ -1004,6 +1094,52 @@ public class StatementCommand extends Statement {
                     return Result.newErrorResult(e, sql);
                 }
             }
+            case StatementTypes.EXPORT_TABLE : {
+                HsqlName tableName = (HsqlName) arguments[0];
+                String   source    = (String) arguments[1];
+                int      format    = ((Integer) arguments[2]).intValue();
+
+                try {
+                    session.checkAdmin();
+
+                    Table table =
+                        session.database.schemaManager.getUserTable(
+                            tableName);
+                    TableExporter exporter = new TableExporter(session,
+                        table, source, format);
+                    long count = exporter.write();
+
+                    return Result.newUpdateCountResult(
+                        count > Integer.MAX_VALUE ? Integer.MAX_VALUE
+                                                  : (int) count);
+                } catch (HsqlException e) {
+                    return Result.newErrorResult(e, sql);
+                }
+            }
+            case StatementTypes.IMPORT_TABLE : {
+                HsqlName tableName = (HsqlName) arguments[0];
+                String   source    = (String) arguments[1];
+                int      format    = ((Integer) arguments[2]).intValue();
+                int      mode      = ((Integer) arguments[3]).intValue();
+
+                try {
+                    session.checkAdmin();
+                    session.checkDDLWrite();
+
+                    Table table =
+                        session.database.schemaManager.getUserTable(
+                            tableName);
+                    TableImporter importer = new TableImporter(session,
+                        table, source, format, mode);
+                    long count = importer.read();
+
+                    return Result.newUpdateCountResult(
+                        count > Integer.MAX_VALUE ? Integer.MAX_VALUE
+                                                  : (int) count);
+                } catch (HsqlException e) {
+                    return Result.newErrorResult(e, sql);
+                }
+            }
             case StatementTypes.DATABASE_SHUTDOWN : {
                 try {
                     int mode = ((Integer) arguments[0]).intValue();
@@ -1535,6 +1671,19 @@ public class StatementCommand extends Statement {
                 }
             }
 
+            MaterializedView[] views =
+                session.database.schemaManager.getRefreshOnCommitViews();
+
+            for (int i = 0; i < views.length; i++) {
+                for (int j = 0; j < tables.length; j++) {
+                    if (views[i].isSourceTable(tables[j])) {
+                        views[i].reload(session);
+
+                        break;
+                    }
+                }
+            }
+
             return Result.updateZeroResult;
         } catch (HsqlException e) {
             return Result.newErrorResult(e, sql);
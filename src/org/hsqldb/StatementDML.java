@@ -55,7 +55,7 @@ import org.hsqldb.types.Types;
  * Implementation of Statement for DML statements.<p>
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.9.0
  */
 
@@ -335,6 +335,7 @@ public class StatementDML extends StatementDMQL {
             getTriggerTableNames(set, true);
         } else if (!baseTable.isTemp()) {
             set.add(baseTable.getName());
+            baseTable.collectMaterializedViewWriteLocks(set);
 
             if (type == StatementTypes.UPDATE_WHERE
                     || type == StatementTypes.MERGE) {
@@ -958,8 +959,10 @@ public class StatementDML extends StatementDMQL {
         }
 
         if (baseTable.triggerLists[Trigger.INSERT_AFTER].length > 0) {
-            baseTable.fireTriggers(session, Trigger.INSERT_AFTER,
-                                   (RowSetNavigator) null);
+            RowSetNavigatorClient newData = new RowSetNavigatorClient(1);
+
+            newData.add(data);
+            baseTable.fireTriggers(session, Trigger.INSERT_AFTER, newData);
         }
 
         session.sessionContext
@@ -36,21 +36,34 @@ import org.hsqldb.ParserDQL.CompileContext;
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
 import org.hsqldb.lib.OrderedHashSet;
+import org.hsqldb.lib.OrderedIntHashSet;
 import org.hsqldb.result.Result;
 import org.hsqldb.result.ResultMetaData;
 import org.hsqldb.result.ResultProperties;
+import org.hsqldb.types.Type;
 
 /**
  * Implementation of Statement for query expressions.<p>
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.3.3
+ * @version 2.5.1
  * @since 1.9.0
  */
 public class StatementQuery extends StatementDMQL {
 
     public static final StatementQuery[] emptyArray = new StatementQuery[]{};
 
+    //
+    private static final OrderedIntHashSet uncachedResultExpressionSet =
+        new OrderedIntHashSet(new int[] {
+        OpTypes.VARIABLE, OpTypes.TRANSITION_VARIABLE,
+        OpTypes.DIAGNOSTICS_VARIABLE, OpTypes.ROWNUM, OpTypes.SEQUENCE,
+        OpTypes.SEQUENCE_CURRENT, OpTypes.FUNCTION, OpTypes.USER_AGGREGATE
+    });
+
+    // tables read when the result can be cached, or an empty array if not
+    private volatile Table[] resultCacheTables;
+
     StatementQuery(Session session, QueryExpression queryExpression,
                    CompileContext compileContext) {
 
@@ -66,8 +79,19 @@ public class StatementQuery extends StatementDMQL {
 
     Result getResult(Session session) {
 
-        Result result = queryExpression.getResult(session,
-            session.getMaxRows());
+        Result result = null;
+
+        if (session.sessionContext.allowLazyResult
+                && session.sessionContext.depth == 0 && subqueries.length == 0
+                && routines.length == 0
+                && queryExpression instanceof QuerySpecification) {
+            result = ((QuerySpecification) queryExpression).getLazyResult(
+                session, session.getMaxRows());
+        }
+
+        if (result == null) {
+            result = queryExpression.getResult(session, session.getMaxRows());
+        }
 
         result.setStatement(this);
 
@@ -119,6 +143,110 @@ public class StatementQuery extends StatementDMQL {
                : ResultProperties.defaultPropsValue;
     }
 
+    /**
+     * Returns the tables read by the statement if its result depends only on
+     * the parameter values and the rows of these tables, otherwise an empty
+     * array.
+     */
+    Table[] getResultCacheTables() {
+
+        Table[] tables = resultCacheTables;
+
+        if (tables == null) {
+            tables            = computeResultCacheTables();
+            resultCacheTables = tables;
+        }
+
+        return tables;
+    }
+
+    private Table[] computeResultCacheTables() {
+
+        if (type != StatementTypes.SELECT_CURSOR || isExplain
+                || routines.length > 0 || queryExpression.isUpdatable) {
+            return Table.emptyArray;
+        }
+
+        Type[] types = getResultMetaData().columnTypes;
+
+        for (int i = 0; i < types.length; i++) {
+            if (types[i].isLobType()) {
+                return Table.emptyArray;
+            }
+        }
+
+        types = parameterMetaData.columnTypes;
+
+        for (int i = 0; i < types.length; i++) {
+            if (types[i].isLobType()) {
+                return Table.emptyArray;
+            }
+        }
+
+        OrderedHashSet set = new OrderedHashSet();
+
+        queryExpression.collectAllExpressions(set,
+                                              uncachedResultExpressionSet,
+                                              OpTypes.emptyExpressionSet);
+
+        if (!set.isEmpty()) {
+            return Table.emptyArray;
+        }
+
+        queryExpression.collectAllExpressions(set,
+                                              OpTypes.functionExpressionSet,
+                                              OpTypes.emptyExpressionSet);
+
+        for (int i = 0; i < set.size(); i++) {
+            if (!((FunctionSQL) set.get(i)).isDeterministic()) {
+                return Table.emptyArray;
+            }
+        }
+
+        set.clear();
+        queryExpression.getRangeTables(set);
+
+        for (int i = 0; i < subqueries.length; i++) {
+            if (subqueries[i].queryExpression != null) {
+                subqueries[i].queryExpression.getRangeTables(set);
+            }
+        }
+
+        OrderedHashSet tables = new OrderedHashSet();
+
+        for (int i = 0; i < set.size(); i++) {
+            Table table = (Table) set.get(i);
+
+            if (table.getQueryExpression() != null
+                    || table.getDataExpression() != null) {
+                continue;
+            }
+
+            if (table.getName().schema
+                    == SqlInvariants.SYSTEM_SCHEMA_HSQLNAME) {
+                return Table.emptyArray;
+            }
+
+            switch (table.getTableType()) {
+
+                case TableBase.MEMORY_TABLE :
+                case TableBase.CACHED_TABLE :
+                case TableBase.TEXT_TABLE :
+                    tables.add(table);
+                    break;
+
+                default :
+                    return Table.emptyArray;
+            }
+        }
+
+        Table[] array = new Table[tables.size()];
+
+        tables.toArray(array);
+
+        return array;
+    }
+
     public void setCursorName(HsqlName name) {
         cursorName = name;
     }
@@ -52,7 +52,7 @@ import org.hsqldb.types.Type;
  * Implementation of Statement for DDL statements.<p>
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.9.0
  */
 public class StatementSchema extends Statement {
@@ -288,7 +288,8 @@ public class StatementSchema extends Statement {
             return result;
         }
 
-        session.database.schemaManager.setSchemaChangeTimestamp();
+        session.database.schemaManager.setSchemaChangeTimestamp(
+            getChangedTableNames());
 
         HsqlName sessionSchema = session.currentSchema;
 
@@ -312,6 +313,49 @@ public class StatementSchema extends Statement {
         return result;
     }
 
+    /**
+     * Returns the names of the tables or views whose metadata alone is
+     * changed by this statement, or null if other objects may be affected.
+     */
+    HsqlName[] getChangedTableNames() {
+
+        switch (type) {
+
+            case StatementTypes.CREATE_TABLE :
+
+                // data change statements on the base tables lock the view
+                if (arguments[0] instanceof MaterializedView) {
+                    return null;
+                }
+
+                return new HsqlName[]{ ((Table) arguments[0]).getName() };
+
+            case StatementTypes.CREATE_INDEX :
+                return new HsqlName[]{ ((Table) arguments[0]).getName() };
+
+            case StatementTypes.CREATE_VIEW :
+                return new HsqlName[]{ ((View) arguments[0]).getName() };
+
+            case StatementTypes.COMMENT : {
+                HsqlName name = (HsqlName) arguments[0];
+
+                switch (name.type) {
+
+                    case SchemaObject.COLUMN :
+                        return new HsqlName[]{ name.parent };
+
+                    case SchemaObject.TABLE :
+                        return new HsqlName[]{ name };
+
+                    default :
+                        return null;
+                }
+            }
+            default :
+                return null;
+        }
+    }
+
     Result getResult(Session session) {
 
         SchemaManager schemaManager = session.database.schemaManager;
@@ -35,7 +35,7 @@ package org.hsqldb;
  * Codes based on SQL Standards for different types of statement.
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.9.0
  */
 public interface StatementTypes {
@@ -175,12 +175,15 @@ public interface StatementTypes {
     int CREATE_USER_MAPPING         = 134;
 
     // hsqldb database
-    int DATABASE_BACKUP     = 1001;
-    int DATABASE_CHECKPOINT = 1002;
-    int DATABASE_SHUTDOWN   = 1003;
-    int DATABASE_SCRIPT     = 1004;
-    int LOAD_SCRIPT         = 1005;
-    int CHECK_INDEX         = 1006;
+    int DATABASE_BACKUP           = 1001;
+    int DATABASE_CHECKPOINT       = 1002;
+    int DATABASE_SHUTDOWN         = 1003;
+    int DATABASE_SCRIPT           = 1004;
+    int LOAD_SCRIPT               = 1005;
+    int CHECK_INDEX               = 1006;
+    int EXPORT_TABLE              = 1007;
+    int IMPORT_TABLE              = 1008;
+    int REFRESH_MATERIALIZED_VIEW = 1009;
 
     // hsqldb database settings
     int SET_DATABASE_FILES_BACKUP_INCREMENT    = 1011;
@@ -199,6 +202,8 @@ public interface StatementTypes {
     int SET_DATABASE_FILES_READ_ONLY_FILES     = 1024;
     int SET_DATABASE_FILES_SCALE               = 1025;
     int SET_DATABASE_FILES_SCRIPT_FORMAT       = 1026;
+    int SET_DATABASE_FILES_COMPRESSED          = 1027;
+    int SET_DATABASE_FILES_LOBS_INLINE         = 1028;
     int SET_DATABASE_FILES_SPACE               = 1031;
     int SET_DATABASE_FILES_TEMP_PATH           = 1032;
     int SET_DATABASE_FILES_WRITE_DELAY         = 1033;
@@ -210,6 +215,7 @@ public interface StatementTypes {
     int SET_DATABASE_PASSWORD_CHECK            = 1040;
     int SET_DATABASE_READ_ONLY                 = 1041;
     int SET_DATABASE_READ_ONLY_FILES           = 1042;
+    int SET_DATABASE_RESULT_CACHE_SIZE         = 1043;
     int SET_DATABASE_RESULT_MEMORY_ROWS        = 1046;
     int SET_DATABASE_SQL_COLLATION             = 1047;
     int SET_SESSION_SQL_IGNORECASE             = 1048;
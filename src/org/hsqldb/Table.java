@@ -240,10 +240,12 @@ public class Table extends TableBase implements SchemaObject {
     public Table(Table table, HsqlName name) {
 
         persistenceScope    = SCOPE_STATEMENT;
+        isSessionBased      = true;
         name.schema         = SqlInvariants.SYSTEM_SCHEMA_HSQLNAME;
         this.tableName      = name;
         this.database       = table.database;
-        this.tableType      = RESULT_TABLE;
+        this.persistenceId  = database.persistentStoreCollection.getNextId();
+        this.tableType      = TRANSITION_TABLE;
         this.columnList     = table.columnList;
         this.columnCount    = table.columnCount;
         this.indexList      = Index.emptyArray;
@@ -1123,6 +1125,22 @@ public class Table extends TableBase implements SchemaObject {
         }
     }
 
+    /**
+     * Adds the names of the materialized views that apply the changes to
+     * this table on commit.
+     */
+    void collectMaterializedViewWriteLocks(OrderedHashSet set) {
+
+        MaterializedView[] views =
+            database.schemaManager.getRefreshOnCommitViews();
+
+        for (int i = 0; i < views.length; i++) {
+            if (views[i].isSourceTable(this)) {
+                set.add(views[i].getName());
+            }
+        }
+    }
+
     Constraint getNotNullConstraintForColumn(int colIndex) {
 
         for (int i = 0, size = constraintList.length; i < size; i++) {
@@ -1248,10 +1266,6 @@ public class Table extends TableBase implements SchemaObject {
         return hasUpdatedValues;
     }
 
-    public boolean hasLobColumn() {
-        return hasLobColumn;
-    }
-
     public boolean hasIdentityColumn() {
         return identityColumn != -1;
     }
@@ -1320,6 +1334,8 @@ public class Table extends TableBase implements SchemaObject {
             ((TextTable) tn).dataSource  = ((TextTable) this).dataSource;
             ((TextTable) tn).isReversed  = ((TextTable) this).isReversed;
             ((TextTable) tn).isConnected = ((TextTable) this).isConnected;
+        } else if (this instanceof MaterializedView) {
+            tn = ((MaterializedView) this).duplicate(newType);
         } else {
             tn = new Table(database, tableName, newType);
         }
@@ -1722,6 +1738,7 @@ public class Table extends TableBase implements SchemaObject {
             case TableBase.INFO_SCHEMA_TABLE :
             case TableBase.MODULE_TABLE :
             case TableBase.FUNCTION_TABLE :
+            case TableBase.TRANSITION_TABLE :
             case TableBase.SYSTEM_SUBQUERY :
             case TableBase.VIEW_TABLE : {
                 Index index = createIndexForColumns(session, new int[]{ col });
@@ -2373,6 +2390,11 @@ public class Table extends TableBase implements SchemaObject {
         return index;
     }
 
+    /**
+     *  Fires all statement-level UPDATE or DELETE triggers of the given set.
+     *  The rows of this table that were changed by the statement are
+     *  collected once and passed to the triggers that use them.
+     */
     void fireTriggers(Session session, int trigVecIndex,
                       RowSetNavigatorDataChange rowSet) {
 
@@ -2380,21 +2402,35 @@ public class Table extends TableBase implements SchemaObject {
             return;
         }
 
-        TriggerDef[] trigVec = triggerLists[trigVecIndex];
+        TriggerDef[]  trigVec = triggerLists[trigVecIndex];
+        HsqlArrayList oldRows = null;
+        HsqlArrayList newRows = null;
 
         for (int i = 0, size = trigVec.length; i < size; i++) {
-            TriggerDef td         = trigVec[i];
-            boolean    sqlTrigger = td instanceof TriggerDefSQL;
+            TriggerDef td = trigVec[i];
 
-            if (td.hasOldTable()) {
+            if (td.hasStatementRows()) {
+                if (oldRows == null) {
+                    oldRows = new HsqlArrayList();
 
-                //
-            }
+                    if (trigVecIndex == Trigger.UPDATE_AFTER) {
+                        newRows = new HsqlArrayList();
+                    }
 
-            td.pushPair(session, null, null);
+                    getChangedRows(rowSet, oldRows, newRows);
+                }
+
+                td.pushRows(session, oldRows, newRows);
+            } else {
+                td.pushPair(session, null, null);
+            }
         }
     }
 
+    /**
+     *  Fires all statement-level INSERT triggers of the given set. The
+     *  rowSet contains the data of the inserted rows.
+     */
     void fireTriggers(Session session, int trigVecIndex,
                       RowSetNavigator rowSet) {
 
@@ -2402,19 +2438,64 @@ public class Table extends TableBase implements SchemaObject {
             return;
         }
 
-        TriggerDef[] trigVec = triggerLists[trigVecIndex];
+        TriggerDef[]  trigVec = triggerLists[trigVecIndex];
+        HsqlArrayList newRows = null;
 
         for (int i = 0, size = trigVec.length; i < size; i++) {
-            TriggerDef td         = trigVec[i];
-            boolean    sqlTrigger = td instanceof TriggerDefSQL;
+            TriggerDef td = trigVec[i];
 
-            if (td.hasOldTable()) {
+            if (td.hasStatementRows()) {
+                if (newRows == null) {
+                    newRows = new HsqlArrayList();
 
-                //
+                    if (rowSet != null) {
+                        rowSet.beforeFirst();
+
+                        while (rowSet.next()) {
+                            newRows.add(rowSet.getCurrent());
+                        }
+
+                        rowSet.beforeFirst();
+                    }
+                }
+
+                td.pushRows(session, null, newRows);
+            } else {
+                td.pushPair(session, null, null);
             }
+        }
+    }
+
+    /**
+     *  Adds the rows of this table in the rowSet to the lists. When newRows
+     *  is null, the deleted rows are added to oldRows. Otherwise the old and
+     *  new data of the updated rows are added to the two lists.
+     */
+    private void getChangedRows(RowSetNavigatorDataChange rowSet,
+                                HsqlArrayList oldRows,
+                                HsqlArrayList newRows) {
 
-            td.pushPair(session, null, null);
+        rowSet.beforeFirst();
+
+        while (rowSet.next()) {
+            Row      row         = rowSet.getCurrentRow();
+            Object[] changedData = rowSet.getCurrentChangedData();
+
+            if (row.getTable() != this) {
+                continue;
+            }
+
+            if (newRows == null) {
+                if (changedData == null) {
+                    oldRows.add(row.getData());
+                }
+            } else if (changedData != null) {
+                oldRows.add(row.getData());
+                newRows.add(changedData);
+            }
         }
+
+        rowSet.beforeFirst();
     }
 
     /**
@@ -2568,6 +2649,7 @@ public class Table extends TableBase implements SchemaObject {
             case TableBase.INFO_SCHEMA_TABLE :
             case TableBase.MODULE_TABLE :
             case TableBase.FUNCTION_TABLE :
+            case TableBase.TRANSITION_TABLE :
             case TableBase.SYSTEM_SUBQUERY :
             case TableBase.VIEW_TABLE : {
                 return Index.INDEX_NON_UNIQUE;
@@ -2647,6 +2729,7 @@ public class Table extends TableBase implements SchemaObject {
                 case TableBase.INFO_SCHEMA_TABLE :
                 case TableBase.MODULE_TABLE :
                 case TableBase.FUNCTION_TABLE :
+                case TableBase.TRANSITION_TABLE :
                 case TableBase.SYSTEM_SUBQUERY :
                 case TableBase.VIEW_TABLE : {
                     selected = createIndexForColumns(session, set.toArray());
@@ -2960,6 +3043,43 @@ public class Table extends TableBase implements SchemaObject {
         }
     }
 
+    /**
+     * Used by PERFORM IMPORT TABLE to insert a row outside transaction
+     * control, after the checks performed for an INSERT statement. Triggers
+     * are not fired. When checkOnly is true, the row is checked but not
+     * inserted, and the caller checks the UNIQUE and PRIMARY KEY constraints.
+     */
+    public void insertFromImport(Session session, PersistentStore store,
+                                 Object[] data, boolean checkOnly) {
+
+        session.sessionData.startRowProcessing();
+        setIdentityColumn(session, data);
+        generateAndCheckData(session, data);
+
+        if (checkOnly) {
+            StatementDML.performIntegrityChecks(session, this, null, data,
+                                                null);
+
+            return;
+        }
+
+        Row row = (Row) store.getNewCachedObject(session, data, false);
+
+        store.indexRow(session, row);
+
+        try {
+            StatementDML.performIntegrityChecks(session, this, null, data,
+                                                null);
+        } catch (HsqlException e) {
+            store.delete(session, row);
+            store.remove(row);
+
+            throw e;
+        }
+
+        session.sessionData.adjustLobUsageCount(this, data, 1);
+    }
+
     /**
      * Not for general use.
      * Used by ScriptReader to unconditionally insert a row into
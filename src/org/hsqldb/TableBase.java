@@ -45,7 +45,7 @@ import org.hsqldb.types.Type;
  * The  base of all HSQLDB table implementations.
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.7.2
  */
 public class TableBase implements Cloneable {
@@ -239,6 +239,10 @@ public class TableBase implements Cloneable {
         return colTypes.length;
     }
 
+    public final boolean hasLobColumn() {
+        return hasLobColumn;
+    }
+
     public boolean isSystemVersioned() {
         return isSystemVersioned;
     }
@@ -37,6 +37,8 @@ import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
 import org.hsqldb.lib.ArrayUtil;
 import org.hsqldb.lib.HashMappedList;
+import org.hsqldb.lib.OrderedHashSet;
+import org.hsqldb.lib.OrderedIntHashSet;
 import org.hsqldb.navigator.RowIterator;
 import org.hsqldb.navigator.RowSetNavigatorData;
 import org.hsqldb.navigator.RowSetNavigatorDataTable;
@@ -66,6 +68,19 @@ public class TableDerived extends Table {
     int             depth;
     boolean         canRecompile = false;
 
+    // outer column references of a correlated subquery with cached results
+    private Expression[]     correlatedColumns;
+    private volatile boolean correlatedColumnsChecked;
+
+    //
+    private static final OrderedIntHashSet uncachedExpressionSet =
+        new OrderedIntHashSet(new int[] {
+        OpTypes.ROW_SUBQUERY, OpTypes.TABLE_SUBQUERY, OpTypes.ARRAY_SUBQUERY,
+        OpTypes.VARIABLE, OpTypes.PARAMETER, OpTypes.TRANSITION_VARIABLE,
+        OpTypes.DIAGNOSTICS_VARIABLE, OpTypes.ROWNUM, OpTypes.SEQUENCE,
+        OpTypes.SEQUENCE_CURRENT, OpTypes.USER_AGGREGATE
+    });
+
     public TableDerived(Database database, HsqlName name, int type) {
 
         super(database, name, type);
@@ -421,6 +436,117 @@ public class TableDerived extends Table {
         }
     }
 
+    /**
+     * Returns the values of the outer column references of a correlated
+     * subquery, followed by the given values, or null if the results of the
+     * subquery cannot be cached for these values.
+     */
+    Object[] getCorrelatedValues(Session session, Object[] values) {
+
+        if (!isCorrelated()) {
+            return null;
+        }
+
+        if (!correlatedColumnsChecked) {
+            synchronized (this) {
+                if (!correlatedColumnsChecked) {
+                    correlatedColumns        = getCorrelatedColumns();
+                    correlatedColumnsChecked = true;
+                }
+            }
+        }
+
+        Expression[] columns = correlatedColumns;
+
+        if (columns == null) {
+            return null;
+        }
+
+        int      extra = values == null ? 0
+                                        : values.length;
+        Object[] data  = new Object[columns.length + extra];
+
+        for (int i = 0; i < columns.length; i++) {
+            data[i] = columns[i].getValue(session);
+        }
+
+        if (extra > 0) {
+            System.arraycopy(values, 0, data, columns.length, extra);
+        }
+
+        return data;
+    }
+
+    /**
+     * The result of a single query specification over base tables, with no
+     * nested subqueries, routine variables, sequences or non-deterministic
+     * functions, depends only on the values of its outer column references
+     * and the data in the tables.
+     */
+    private Expression[] getCorrelatedColumns() {
+
+        if (dataExpression != null
+                || !(queryExpression instanceof QuerySpecification)) {
+            return null;
+        }
+
+        QuerySpecification qs = (QuerySpecification) queryExpression;
+
+        for (int i = 0; i < qs.rangeVariables.length; i++) {
+            if (qs.rangeVariables[i].rangeTable instanceof TableDerived) {
+                return null;
+            }
+        }
+
+        OrderedHashSet set = new OrderedHashSet();
+
+        qs.collectAllExpressions(set, uncachedExpressionSet,
+                                 OpTypes.emptyExpressionSet);
+
+        if (qs.sortAndSlice.limitCondition != null) {
+            qs.sortAndSlice.limitCondition.collectAllExpressions(set,
+                    uncachedExpressionSet, OpTypes.emptyExpressionSet);
+        }
+
+        if (!set.isEmpty()) {
+            return null;
+        }
+
+        qs.collectAllExpressions(set, OpTypes.functionExpressionSet,
+                                 OpTypes.emptyExpressionSet);
+
+        for (int i = 0; i < set.size(); i++) {
+            Expression e = (Expression) set.get(i);
+
+            if (e.opType == OpTypes.FUNCTION) {
+                if (!((FunctionSQLInvoked) e).isDeterministic()) {
+                    return null;
+                }
+            } else if (!((FunctionSQL) e).isDeterministic()) {
+                return null;
+            }
+        }
+
+        set.clear();
+        qs.collectAllExpressions(set, OpTypes.columnExpressionSet,
+                                 OpTypes.emptyExpressionSet);
+
+        for (int i = set.size() - 1; i >= 0; i--) {
+            Expression e = (Expression) set.get(i);
+
+            if (ArrayUtil.find(qs.rangeVariables, e.getRangeVariable())
+                    >= 0) {
+                set.remove(i);
+            }
+        }
+
+        Expression[] columns = new Expression[set.size()];
+
+        set.toArray(columns);
+
+        return columns;
+    }
+
     public boolean isRecompiled() {
 
         if (canRecompile && queryExpression instanceof QuerySpecification) {
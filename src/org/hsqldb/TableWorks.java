@@ -193,7 +193,7 @@ public class TableWorks {
      */
     void addForeignKey(Constraint c) {
 
-        checkModifyTable(false);
+        checkModifyTable(true);
         checkCreateForeignKey(table, c);
 
         Constraint uniqueConstraint =
@@ -1517,6 +1517,11 @@ public class TableWorks {
             return;
         }
 
+        // the columns and rows are determined by the query
+        if (withContents && table instanceof MaterializedView) {
+            throw Error.error(ErrorCode.X_0A501);
+        }
+
         if (database.isFilesReadOnly() || table.isReadOnly()) {
             throw Error.error(ErrorCode.DATA_IS_READONLY);
         }
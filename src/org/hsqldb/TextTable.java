@@ -35,7 +35,9 @@ import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
 import org.hsqldb.lib.StringConverter;
 import org.hsqldb.persist.PersistentStore;
+import org.hsqldb.persist.RowStoreAVLDiskData;
 import org.hsqldb.persist.TextCache;
+import org.hsqldb.persist.TextFileLoader;
 import org.hsqldb.persist.TextFileReader;
 import org.hsqldb.rowio.RowInputInterface;
 
@@ -47,7 +49,7 @@ import org.hsqldb.rowio.RowInputInterface;
  *
  * @author Bob Preston (sqlbob@users dot sourceforge.net)
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.4.1
+ * @version 2.5.1
  */
 public class TextTable extends Table {
 
@@ -98,6 +100,7 @@ public class TextTable extends Table {
 
         TextCache      cache    = null;
         TextFileReader reader   = null;
+        TextFileLoader loader   = null;
         boolean        readOnly = isReadOnly || database.isReadOnly();
         String securePath = database.logger.getSecurePath(dataSource, false,
             true);
@@ -122,10 +125,26 @@ public class TextTable extends Table {
                 cache.setHeaderInitialise(reader.getHeaderLine());
             }
 
-            readDataIntoTable(session, store, reader);
+            int threads = TextFileLoader.getThreadCount(cache);
+
+            if (threads > 1) {
+                loader = new TextFileLoader((RowStoreAVLDiskData) store,
+                                            cache, reader, threads);
+
+                readDataIntoTable(session, store, loader);
+                loader.close();
+            } else {
+                readDataIntoTable(session, store, reader);
+            }
         } catch (Throwable t) {
-            long linenumber = reader == null ? 0
-                                             : reader.getLineNumber();
+            long linenumber = loader != null ? loader.getLineNumber()
+                                             : reader == null ? 0
+                                                              : reader
+                                                              .getLineNumber();
+
+            if (loader != null) {
+                loader.close();
+            }
 
             store.removeAll();
 
@@ -174,6 +193,27 @@ public class TextTable extends Table {
         }
     }
 
+    /**
+     * Same as above, with the rows converted by the threads of the loader.
+     */
+    private void readDataIntoTable(Session session, PersistentStore store,
+                                   TextFileLoader loader) {
+
+        while (true) {
+            Row row = loader.getNextRow();
+
+            if (row == null) {
+                break;
+            }
+
+            Object[] data = row.getData();
+
+            systemUpdateIdentityValue(data);
+            enforceRowConstraints(session, data);
+            store.indexRow(session, row);
+        }
+    }
+
     /**
      * disconnects from the data source
      */
@@ -220,7 +220,7 @@ public class Tokens {
     public static final String T_LOOP              = "LOOP";
     static final String        T_LOWER             = "LOWER";
     static final String        T_MATCH             = "MATCH";
-    static final String        T_MAX               = "MAX";
+    public static final String T_MAX               = "MAX";
     static final String        T_MAX_CARDINALITY   = "MAX_CARDINALITY";
     static final String        T_MEMBER            = "MEMBER";
     static final String        T_MERGE             = "MERGE";
@@ -281,7 +281,7 @@ public class Tokens {
     static final String        T_RANK              = "RANK";
     static final String        T_READS             = "READS";
     public static final String T_REAL              = "REAL";
-    static final String        T_RECURSIVE         = "RECURSIVE";
+    public static final String T_RECURSIVE         = "RECURSIVE";
     static final String        T_REF               = "REF";
     public static final String T_REFERENCES        = "REFERENCES";
     static final String        T_REFERENCING       = "REFERENCING";
@@ -689,6 +689,7 @@ public class Tokens {
     public static final String T_DEADLOCK             = "DEADLOCK";
     public static final String T_DEFRAG               = "DEFRAG";
     public static final String T_DELAY                = "DELAY";
+    static final String        T_DEMAND               = "DEMAND";
     public static final String T_DIGEST               = "DIGEST";
     static final String        T_DUAL                 = "DUAL";
     static final String        T_DUPLICATE            = "DUPLICATE";
@@ -709,6 +710,7 @@ public class Tokens {
     public static final String T_INDEX                = "INDEX";
     public static final String T_INDEXER              = "INDEXER";
     public static final String T_INITIAL              = "INITIAL";
+    public static final String T_INLINE               = "INLINE";
     public static final String T_INTEGRITY            = "INTEGRITY";
     public static final String T_INTERRUPT            = "INTERRUPT";
     static final String        T_IS_AUTOCOMMIT        = "IS_AUTOCOMMIT";
@@ -729,6 +731,7 @@ public class Tokens {
     public static final String T_LONGVAR              = "LONGVAR";
     public static final String T_LONGVARBINARY        = "LONGVARBINARY";
     public static final String T_LONGVARCHAR          = "LONGVARCHAR";
+    static final String        T_MATERIALIZED         = "MATERIALIZED";
     static final String        T_MAXROWS              = "MAXROWS";
     static final String        T_MEDIAN               = "MEDIAN";
     static final String        T_MEDIUMBLOB           = "MEDIUMBLOB";
@@ -762,6 +765,7 @@ public class Tokens {
     static final String        T_RAW                  = "RAW";
     static final String        T_READONLY             = "READONLY";
     static final String        T_REFERENTIAL          = "REFERENTIAL";
+    static final String        T_REFRESH              = "REFRESH";
     public static final String T_REGULAR              = "REGULAR";
     static final String        T_RENAME               = "RENAME";
     static final String        T_ROWNUM               = "ROWNUM";
@@ -1647,6 +1651,10 @@ public class Tokens {
     static final int        UNLOAD         = 674;
     static final int        VARCHAR2       = 675;
     static final int        WRITE_DELAY    = 676;
+    static final int        DEMAND         = 677;
+    static final int        MATERIALIZED   = 678;
+    static final int        REFRESH        = 679;
+    static final int        INLINE         = 680;
 
     //
     static final int        ACOS                       = 701;
@@ -2307,6 +2315,7 @@ public class Tokens {
         commandSet.put(T_DEFINER, DEFINER);
         commandSet.put(T_DEFRAG, DEFRAG);
         commandSet.put(T_DELAY, DELAY);
+        commandSet.put(T_DEMAND, DEMAND);
         commandSet.put(T_DESC, DESC);
         commandSet.put(T_DIAGNOSTICS, DIAGNOSTICS);
         commandSet.put(T_DIGEST, DIGEST);
@@ -2341,6 +2350,7 @@ public class Tokens {
         commandSet.put(T_INCREMENT, INCREMENT);
         commandSet.put(T_INDEX, INDEX);
         commandSet.put(T_INDEXER, INDEXER);
+        commandSet.put(T_INLINE, INLINE);
         commandSet.put(T_INITIAL, INITIAL);
         commandSet.put(T_INPUT, INPUT);
         commandSet.put(T_INSTEAD, INSTEAD);
@@ -2370,6 +2380,7 @@ public class Tokens {
         commandSet.put(T_LONGVAR, LONGVAR);
         commandSet.put(T_M_FACTOR, M);
         commandSet.put(T_MATCHED, MATCHED);
+        commandSet.put(T_MATERIALIZED, MATERIALIZED);
         commandSet.put(T_MAXROWS, MAXROWS);
         commandSet.put(T_MAXVALUE, MAXVALUE);
         commandSet.put(T_MEDIAN, MEDIAN);
@@ -2419,6 +2430,7 @@ public class Tokens {
         commandSet.put(T_READ, READ);
         commandSet.put(T_READONLY, READONLY);
         commandSet.put(T_REFERENTIAL, REFERENTIAL);
+        commandSet.put(T_REFRESH, REFRESH);
         commandSet.put(T_REGULAR, REGULAR);
         commandSet.put(T_RENAME, RENAME);
         commandSet.put(T_REPEATABLE, REPEATABLE);
@@ -253,6 +253,54 @@ class TransactionManagerCommon {
         return cs;
     }
 
+    /**
+     * Applies the changes made by the session to the base tables of
+     * REFRESH ON COMMIT materialized views. The new row actions are added
+     * to the session and are committed with the rest of the transaction.
+     */
+    void refreshMaterializedViews(Session session) {
+
+        int limit = session.rowActionList.size();
+
+        if (limit == 0 || session.isProcessingLog()
+                || session.isProcessingScript()) {
+            return;
+        }
+
+        MaterializedView[] views =
+            database.schemaManager.getRefreshOnCommitViews();
+
+        if (views.length == 0) {
+            return;
+        }
+
+        int isolationLevel = session.isolationLevel;
+
+        // changes committed by other sessions must be seen
+        session.actionIndex          = limit;
+        session.actionTimestamp      = getNextGlobalChangeTimestamp();
+        session.actionStartTimestamp = session.actionTimestamp;
+        session.isolationLevel       = SessionInterface.TX_READ_COMMITTED;
+
+        try {
+            for (int i = 0; i < views.length; i++) {
+                views[i].applyRowChanges(session, limit);
+            }
+        } catch (HsqlException e) {
+            database.txManager.rollbackPartial(session, limit,
+                                               session.actionStartTimestamp);
+
+            session.redoAction = false;
+
+            prepareReset(session);
+            session.latch.setCount(0);
+
+            throw e;
+        } finally {
+            session.isolationLevel = isolationLevel;
+        }
+    }
+
     void persistCommit(Session session) {
 
         int     limit       = session.rowActionList.size();
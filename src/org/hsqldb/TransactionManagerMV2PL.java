@@ -121,6 +121,8 @@ implements TransactionManager {
         writeLock.lock();
 
         try {
+            refreshMaterializedViews(session);
+
             int limit = session.rowActionList.size();
 
             // new actionTimestamp used for commitTimestamp
@@ -169,6 +169,10 @@ implements TransactionManager {
                 }
             }
 
+            refreshMaterializedViews(session);
+
+            limit = session.rowActionList.size();
+
             // new actionTimestamp used for commitTimestamp
             session.actionTimestamp         = getNextGlobalChangeTimestamp();
             session.transactionEndTimestamp = session.actionTimestamp;
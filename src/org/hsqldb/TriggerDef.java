@@ -34,11 +34,14 @@ package org.hsqldb;
 import org.hsqldb.HsqlNameManager.HsqlName;
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
+import org.hsqldb.lib.ArrayUtil;
+import org.hsqldb.lib.HsqlArrayList;
 import org.hsqldb.lib.HsqlDeque;
 import org.hsqldb.lib.OrderedHashSet;
 import org.hsqldb.lib.StringConverter;
 import org.hsqldb.rights.Grantee;
 import org.hsqldb.trigger.Trigger;
+import org.hsqldb.trigger.TriggerBatch;
 
 // peterhudson@users 20020130 - patch 478657 by peterhudson - triggers support
 // fredt@users 20020130 - patch 1.7.0 by fredt
@@ -57,7 +60,7 @@ import org.hsqldb.trigger.Trigger;
  *  Realisations Ltd
  *
  * @author Peter Hudson (peterhudson@users dot sourceforge.net)
- * @version  2.0.1
+ * @version  2.5.1
  * @since hsqldb 1.61
  */
 public class TriggerDef implements Runnable, SchemaObject {
@@ -74,6 +77,7 @@ public class TriggerDef implements Runnable, SchemaObject {
     //
     static final int NUM_TRIGGER_OPS = 3;                      // {ins,del,upd}
     static final int NUM_TRIGS       = NUM_TRIGGER_OPS * 3;    // {b}{fer}, {a},{fer, fes}
+    static final int BATCH_SIZE      = 1024;                   // max rows per TriggerBatch call
 
     //
     static final TriggerDef[] emptyArray = new TriggerDef[]{};
@@ -324,7 +328,7 @@ public class TriggerDef implements Runnable, SchemaObject {
             }
 
             if (transitions[NEW_TABLE] != null) {
-                sb.append(Tokens.T_OLD).append(' ').append(Tokens.T_TABLE);
+                sb.append(Tokens.T_NEW).append(' ').append(Tokens.T_TABLE);
                 sb.append(' ').append(Tokens.T_AS).append(' ');
                 sb.append(transitions[NEW_TABLE].getName().statementName);
                 sb.append(' ');
@@ -415,6 +419,14 @@ public class TriggerDef implements Runnable, SchemaObject {
         return false;
     }
 
+    /**
+     *  Returns true if the trigger is a statement-level trigger that is fired
+     *  with the rows changed by the statement.
+     */
+    boolean hasStatementRows() {
+        return !forEachRow && trigger instanceof TriggerBatch;
+    }
+
     public boolean hasOldRow() {
         return rangeVars[OLD_ROW] != null;
     }
@@ -544,9 +556,17 @@ public class TriggerDef implements Runnable, SchemaObject {
 
             if (triggerData != null) {
                 if (triggerData.username != null) {
-                    trigger.fire(this.triggerType, name.name,
-                                 table.getName().name, triggerData.oldRow,
-                                 triggerData.newRow);
+                    if (triggerData.isBatch) {
+                        ((TriggerBatch) trigger).fireBatch(this.triggerType,
+                                                           name.name,
+                                                           table.getName().name,
+                                                           triggerData.oldRows,
+                                                           triggerData.newRows);
+                    } else {
+                        trigger.fire(this.triggerType, name.name,
+                                     table.getName().name, triggerData.oldRow,
+                                     triggerData.newRow);
+                    }
                 }
             }
         }
@@ -645,6 +665,89 @@ public class TriggerDef implements Runnable, SchemaObject {
             return;
         }
 
+        queueData(new TriggerData(session, oldData, newData));
+    }
+
+    /**
+     *  The main thread passes the rows changed by a statement to a
+     *  statement-level TriggerBatch trigger. The rows are passed in batches
+     *  of up to BATCH_SIZE rows, either directly or through the queue of a
+     *  threaded trigger. oldRows is null for INSERT and newRows is null for
+     *  DELETE.
+     */
+    synchronized void pushRows(Session session, HsqlArrayList oldRows,
+                               HsqlArrayList newRows) {
+
+        int rowCount = oldRows == null ? newRows.size()
+                                       : oldRows.size();
+        int position = 0;
+
+        if (maxRowsQueued == 0) {
+            if (condition != Expression.EXPR_TRUE) {
+                session.sessionContext.triggerArguments = new Object[][] {
+                    null, null
+                };
+
+                if (!condition.testCondition(session)) {
+                    return;
+                }
+            }
+
+            session.getInternalConnection();
+
+            try {
+                do {
+                    int count = Math.min(rowCount - position, BATCH_SIZE);
+
+                    ((TriggerBatch) trigger).fireBatch(triggerType, name.name,
+                                                       table.getName().name,
+                                                       getBatch(oldRows,
+                                                           position, count),
+                                                       getBatch(newRows,
+                                                           position, count));
+
+                    position += count;
+                } while (position < rowCount);
+            } finally {
+                session.releaseInternalConnection();
+            }
+
+            return;
+        }
+
+        do {
+            int count = Math.min(rowCount - position, BATCH_SIZE);
+
+            queueData(new TriggerData(session,
+                                      getBatch(oldRows, position, count),
+                                      getBatch(newRows, position, count)));
+
+            position += count;
+        } while (position < rowCount);
+    }
+
+    /**
+     *  Returns copies of count rows of the list, starting at position.
+     */
+    private static Object[][] getBatch(HsqlArrayList rows, int position,
+                                       int count) {
+
+        if (rows == null) {
+            return null;
+        }
+
+        Object[][] batch = new Object[count][];
+
+        for (int i = 0; i < count; i++) {
+            batch[i] =
+                (Object[]) ArrayUtil.duplicateArray(rows.get(position + i));
+        }
+
+        return batch;
+    }
+
+    private void queueData(TriggerData triggerData) {
+
         if (rowsQueued >= maxRowsQueued) {
             if (nowait) {
                 pendingQueue.removeLast();    // overwrite last
@@ -662,7 +765,7 @@ public class TriggerDef implements Runnable, SchemaObject {
             rowsQueued++;
         }
 
-        pendingQueue.add(new TriggerData(session, oldData, newData));
+        pendingQueue.add(triggerData);
         notify();    // notify pop's wait
     }
 
@@ -686,9 +789,12 @@ public class TriggerDef implements Runnable, SchemaObject {
      */
     static class TriggerData {
 
-        public Object[] oldRow;
-        public Object[] newRow;
-        public String   username;
+        public Object[]   oldRow;
+        public Object[]   newRow;
+        public Object[][] oldRows;
+        public Object[][] newRows;
+        public boolean    isBatch;
+        public String     username;
 
         public TriggerData(Session session, Object[] oldRow, Object[] newRow) {
 
@@ -696,6 +802,15 @@ public class TriggerDef implements Runnable, SchemaObject {
             this.newRow   = newRow;
             this.username = session.getUsername();
         }
+
+        public TriggerData(Session session, Object[][] oldRows,
+                           Object[][] newRows) {
+
+            this.oldRows  = oldRows;
+            this.newRows  = newRows;
+            this.isBatch  = true;
+            this.username = session.getUsername();
+        }
     }
 
     static class DefaultTrigger implements Trigger {
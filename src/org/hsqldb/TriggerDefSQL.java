@@ -31,14 +31,16 @@
 
 package org.hsqldb;
 
+import org.hsqldb.lib.HsqlArrayList;
 import org.hsqldb.lib.OrderedHashSet;
+import org.hsqldb.persist.PersistentStore;
 import org.hsqldb.result.Result;
 
 /**
  * Implementation of SQL TRIGGER objects.<p>
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.3.2
+ * @version 2.5.1
  * @since 1.9.0
  */
 public class TriggerDefSQL extends TriggerDef {
@@ -82,11 +84,13 @@ public class TriggerDefSQL extends TriggerDef {
         return transitions[NEW_TABLE] != null;
     }
 
+    boolean hasStatementRows() {
+        return hasTransitionTables;
+    }
+
     synchronized void pushPair(Session session, Object[] oldData,
                                Object[] newData) {
 
-        Result result = Result.updateZeroResult;
-
         session.sessionContext.push();
 
         if (rangeVars[OLD_ROW] != null || rangeVars[NEW_ROW] != null) {
@@ -95,14 +99,36 @@ public class TriggerDefSQL extends TriggerDef {
             };
         }
 
-        if (condition.testCondition(session)) {
-            int variableCount = routine.getVariableCount();
+        Result result = execute(session);
 
-            session.sessionContext.routineVariables =
-                new Object[variableCount];
-            result = routine.statement.execute(session);
+        session.sessionContext.pop();
+
+        if (result.isError()) {
+            throw result.getException();
+        }
+    }
+
+    /**
+     * Fills the OLD TABLE and NEW TABLE transition tables with the rows
+     * changed by the statement and executes the trigger once. The stores
+     * of the transition tables have statement scope and are released when
+     * the context is popped.
+     */
+    synchronized void pushRows(Session session, HsqlArrayList oldRows,
+                               HsqlArrayList newRows) {
+
+        session.sessionContext.push();
+
+        if (transitions[OLD_TABLE] != null) {
+            insertRows(session, transitions[OLD_TABLE], oldRows);
+        }
+
+        if (transitions[NEW_TABLE] != null) {
+            insertRows(session, transitions[NEW_TABLE], newRows);
         }
 
+        Result result = execute(session);
+
         session.sessionContext.pop();
 
         if (result.isError()) {
@@ -110,6 +136,31 @@ public class TriggerDefSQL extends TriggerDef {
         }
     }
 
+    private static void insertRows(Session session, Table transition,
+                                   HsqlArrayList rows) {
+
+        PersistentStore store = transition.getRowStore(session);
+
+        for (int i = 0, size = rows.size(); i < size; i++) {
+            transition.insertData(session, store, (Object[]) rows.get(i),
+                                  false);
+        }
+    }
+
+    private Result execute(Session session) {
+
+        if (condition.testCondition(session)) {
+            int variableCount = routine.getVariableCount();
+
+            session.sessionContext.routineVariables =
+                new Object[variableCount];
+
+            return routine.statement.execute(session);
+        }
+
+        return Result.updateZeroResult;
+    }
+
     public String getSQL() {
 
         StringBuilder sb = getSQLMain();
@@ -384,6 +384,31 @@ public class DatabaseInformation {
     public void setStore(Session session, Table table,
                          PersistentStore store) {}
 
+    /**
+     * Returns true if the contents of the table are kept for the duration of
+     * the session and updated when the schema changes.
+     */
+    public boolean isSessionCachedTable(Table table) {
+        return false;
+    }
+
+    /**
+     * Returns the TABLE_SCHEM and TABLE_NAME columns of a table that can be
+     * generated for a single named table, or null.
+     */
+    public int[] getTableNameColumns(Table table) {
+        return null;
+    }
+
+    /**
+     * Returns a new store populated only with the rows for the named table,
+     * or null if the table cannot be generated this way.
+     */
+    public PersistentStore getTableNameFilteredStore(Session session,
+            Table table, String schemaName, String tableName) {
+        return null;
+    }
+
     /**
      * Switches this table producer between producing empty (surrogate)
      * or tables with (row) content. <p>
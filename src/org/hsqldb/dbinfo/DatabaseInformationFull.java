@@ -425,6 +425,9 @@ extends org.hsqldb.dbinfo.DatabaseInformationMain {
      * FREE_BYTES          BIGINT   total bytes in available file allocation units
      * FREE_COUNT          BIGINT   total # of allocation units available
      * FREE_POS            BIGINT   largest file position allocated + 1
+     * COMPRESSED          BOOLEAN  row images are compressed
+     * COMPRESSION_RATIO   BIGINT   size of row data written since the cache
+     *                              was opened, as percentage of original size
      * </pre> <p>
      *
      * <b>Notes:</b> <p>
@@ -459,6 +462,8 @@ extends org.hsqldb.dbinfo.DatabaseInformationMain {
             addColumn(t, "CACHE_BYTES", CARDINAL_NUMBER);        // not null
             addColumn(t, "FILE_LOST_BYTES", CARDINAL_NUMBER);    // not null
             addColumn(t, "FILE_FREE_POS", CARDINAL_NUMBER);      // not null
+            addColumn(t, "COMPRESSED", Type.SQL_BOOLEAN);        // not null
+            addColumn(t, "COMPRESSION_RATIO", CARDINAL_NUMBER);  // not null
 
             HsqlName name = HsqlNameManager.newInfoSchemaObjectName(
                 sysTableHsqlNames[SYSTEM_CACHEINFO].name, false,
@@ -477,6 +482,8 @@ extends org.hsqldb.dbinfo.DatabaseInformationMain {
         final int icache_length    = 4;
         final int ilost_bytes      = 5;
         final int ifree_pos        = 6;
+        final int icompressed      = 7;
+        final int icompress_ratio  = 8;
 
         //
         DataFileCache cache = null;
@@ -538,6 +545,10 @@ extends org.hsqldb.dbinfo.DatabaseInformationMain {
                 ValuePool.getLong(cache.getTotalCachedBlockSize());
             row[ilost_bytes] = ValuePool.getLong(cache.getLostBlockSize());
             row[ifree_pos]   = ValuePool.getLong(cache.getFileFreePos());
+            row[icompressed] = cache.isDataCompressed() ? Boolean.TRUE
+                                                        : Boolean.FALSE;
+            row[icompress_ratio] =
+                ValuePool.getLong(cache.getCompressionRatio());
 
             t.insertSys(session, store, row);
         }
@@ -38,6 +38,7 @@ import org.hsqldb.HsqlException;
 import org.hsqldb.HsqlNameManager;
 import org.hsqldb.HsqlNameManager.HsqlName;
 import org.hsqldb.NumberSequence;
+import org.hsqldb.Row;
 import org.hsqldb.Routine;
 import org.hsqldb.RoutineSchema;
 import org.hsqldb.SchemaObject;
@@ -47,6 +48,8 @@ import org.hsqldb.Table;
 import org.hsqldb.TableBase;
 import org.hsqldb.Tokens;
 import org.hsqldb.TypeInvariants;
+import org.hsqldb.error.Error;
+import org.hsqldb.error.ErrorCode;
 import org.hsqldb.index.Index;
 import org.hsqldb.lib.HashSet;
 import org.hsqldb.lib.HsqlArrayList;
@@ -54,6 +57,7 @@ import org.hsqldb.lib.Iterator;
 import org.hsqldb.lib.OrderedHashSet;
 import org.hsqldb.lib.WrapperIterator;
 import org.hsqldb.map.ValuePool;
+import org.hsqldb.navigator.RowIterator;
 import org.hsqldb.persist.HsqlDatabaseProperties;
 import org.hsqldb.persist.HsqlProperties;
 import org.hsqldb.persist.PersistentStore;
@@ -140,10 +144,17 @@ import org.hsqldb.types.Types;
  * For the rest of the tables, if the table has not been built for the Session
  * object or it is out of date, the table contents are cleared and rebuilt. <p>
  *
+ * The tables used for JDBC table and column metadata are kept by the Session
+ * across transactions. When only some tables or views have been created or
+ * commented on since they were built, just the rows for those are replaced.
+ * When a query on one of these tables has equality conditions on TABLE_SCHEM
+ * and TABLE_NAME, a store with the rows for the single named table is
+ * generated instead. <p>
+ *
  * (fredt@users) <p>
  * @author Campbell Burnet (campbell-burnet@users dot sourceforge.net)
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.7.2
  */
 class DatabaseInformationMain extends DatabaseInformation {
@@ -164,6 +175,18 @@ class DatabaseInformationMain extends DatabaseInformation {
     /** Set: { names of system tables that are not to be cached } */
     protected static final HashSet nonCachedTablesSet;
 
+    /**
+     * true if the rows of a system table are keyed on the TABLE_SCHEM and
+     * TABLE_NAME of the table they describe
+     */
+    protected static final boolean[] sysTableTableKeyed =
+        new boolean[sysTableNames.length];
+
+    /** TABLE_SCHEM and TABLE_NAME columns of table keyed system tables */
+    protected static final int[] tableNameColumns = new int[] {
+        1, 2
+    };
+
     /** The table types HSQLDB supports. */
     protected static final String[] tableTypes = new String[] {
         "GLOBAL TEMPORARY", "SYSTEM TABLE", "TABLE", "VIEW"
@@ -191,6 +214,12 @@ class DatabaseInformationMain extends DatabaseInformation {
             nonCachedTablesSet.add("SYSTEM_SEQUENCES");
             nonCachedTablesSet.add("SYSTEM_INDEXSTATS");
             nonCachedTablesSet.add("SYSTEM_TABLESTATS");
+
+            // build the list of tables that are updated for each table
+            sysTableTableKeyed[SYSTEM_COLUMNS]     = true;
+            sysTableTableKeyed[SYSTEM_INDEXINFO]   = true;
+            sysTableTableKeyed[SYSTEM_PRIMARYKEYS] = true;
+            sysTableTableKeyed[SYSTEM_TABLES]      = true;
         }
     }
 
@@ -482,13 +511,165 @@ class DatabaseInformationMain extends DatabaseInformation {
             return;
         }
 
+        int tableIndex = getSysTableID(table.getName().name);
+
+        if (sysTableTableKeyed[tableIndex]) {
+            OrderedHashSet names =
+                database.schemaManager.getChangedTableNames(
+                    store.getTimestamp());
+
+            if (names != null) {
+                store.setTimestamp(dbscts);
+                updateTableRows(session, store, tableIndex, names);
+
+                return;
+            }
+        }
+
         // fredt - clear the contents of table and generate
         store.removeAll();
         store.setTimestamp(dbscts);
+        generateTable(session, store, tableIndex);
+    }
+
+    public boolean isSessionCachedTable(Table table) {
 
         int tableIndex = getSysTableID(table.getName().name);
 
-        generateTable(session, store, tableIndex);
+        return tableIndex >= 0 && sysTableTableKeyed[tableIndex];
+    }
+
+    public int[] getTableNameColumns(Table table) {
+        return isSessionCachedTable(table) ? tableNameColumns
+                                           : null;
+    }
+
+    public PersistentStore getTableNameFilteredStore(Session session,
+            Table table, String schemaName, String tableName) {
+
+        int             tableIndex = getSysTableID(table.getName().name);
+        Table           object = findTable(tableIndex, schemaName, tableName);
+        PersistentStore store      = database.logger.newStore(session,
+            session.sessionData.persistentStoreCollection, table);
+
+        if (object != null) {
+            generateTableRows(session, store, tableIndex,
+                              new WrapperIterator(object));
+        }
+
+        return store;
+    }
+
+    /**
+     * Removes the rows for the named tables from the store and generates
+     * the rows for those that still exist.
+     */
+    private void updateTableRows(Session session, PersistentStore store,
+                                 int tableIndex, OrderedHashSet names) {
+
+        HashSet       nameSet = new HashSet();
+        HsqlArrayList rows    = new HsqlArrayList();
+        HsqlArrayList tables  = new HsqlArrayList();
+
+        for (int i = 0; i < names.size(); i++) {
+            HsqlName name = (HsqlName) names.get(i);
+
+            nameSet.add(name.name);
+        }
+
+        RowIterator it = store.rowIterator();
+
+        while (it.next()) {
+            Row      row  = it.getCurrentRow();
+            Object[] data = row.getData();
+
+            if (!nameSet.contains(data[tableNameColumns[1]])) {
+                continue;
+            }
+
+            for (int i = 0; i < names.size(); i++) {
+                HsqlName name = (HsqlName) names.get(i);
+
+                if (name.name.equals(data[tableNameColumns[1]])
+                        && name.schema.name.equals(
+                            data[tableNameColumns[0]])) {
+                    rows.add(row);
+
+                    break;
+                }
+            }
+        }
+
+        it.release();
+
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = (Row) rows.get(i);
+
+            store.delete(session, row);
+            store.remove(row);
+        }
+
+        for (int i = 0; i < names.size(); i++) {
+            HsqlName name = (HsqlName) names.get(i);
+            Table table = findTable(tableIndex, name.schema.name, name.name);
+
+            if (table != null && !tables.contains(table)) {
+                tables.add(table);
+            }
+        }
+
+        generateTableRows(session, store, tableIndex, tables.iterator());
+    }
+
+    /**
+     * Returns the table or view described by the rows of the system table
+     * with the given schema and name.
+     */
+    private Table findTable(int tableIndex, String schemaName,
+                            String tableName) {
+
+        Table table = database.schemaManager.findUserTable(tableName,
+            schemaName);
+
+        // system tables are reported only in SYSTEM_COLUMNS and SYSTEM_TABLES
+        if (table == null
+                && (tableIndex == SYSTEM_COLUMNS || tableIndex == SYSTEM_TABLES)
+                && SqlInvariants.INFORMATION_SCHEMA.equals(schemaName)) {
+            int index = getSysTableID(tableName);
+
+            if (index >= 0) {
+                table = sysTables[index];
+            }
+        }
+
+        return table;
+    }
+
+    private void generateTableRows(Session session, PersistentStore store,
+                                   int tableIndex, Iterator tables) {
+
+        switch (tableIndex) {
+
+            case SYSTEM_COLUMNS :
+                SYSTEM_COLUMNS(session, store, tables);
+                break;
+
+            case SYSTEM_INDEXINFO :
+                SYSTEM_INDEXINFO(session, store, tables);
+                break;
+
+            case SYSTEM_PRIMARYKEYS :
+                SYSTEM_PRIMARYKEYS(session, store, tables);
+                break;
+
+            case SYSTEM_TABLES :
+                SYSTEM_TABLES(session, store, tables);
+                break;
+
+            default :
+                throw Error.runtimeError(ErrorCode.U_S0500,
+                                         "DatabaseInformationMain");
+        }
     }
 
     /**
@@ -807,6 +988,15 @@ class DatabaseInformationMain extends DatabaseInformation {
      *        tables defined within this database.<p>
      */
     final Table SYSTEM_COLUMNS(Session session, PersistentStore store) {
+        return SYSTEM_COLUMNS(session, store, null);
+    }
+
+    /**
+     * Generates the rows for the given tables, or for all the tables when
+     * tables is null.
+     */
+    final Table SYSTEM_COLUMNS(Session session, PersistentStore store,
+                               Iterator tables) {
 
         Table t = sysTables[SYSTEM_COLUMNS];
 
@@ -867,7 +1057,6 @@ class DatabaseInformationMain extends DatabaseInformation {
 
         // intermediate holders
         int         columnCount;
-        Iterator    tables;
         Table       table;
         Object[]    row;
         DITableInfo ti;
@@ -903,8 +1092,11 @@ class DatabaseInformationMain extends DatabaseInformation {
         final int iis_generated = 23;
 
         // Initialization
-        tables = allTables();
-        ti     = new DITableInfo();
+        if (tables == null) {
+            tables = allTables();
+        }
+
+        ti = new DITableInfo();
 
         boolean translateTTI = database.sqlTranslateTTI;
 
@@ -1247,6 +1439,15 @@ class DatabaseInformationMain extends DatabaseInformation {
      *        table defined within this database.
      */
     final Table SYSTEM_INDEXINFO(Session session, PersistentStore store) {
+        return SYSTEM_INDEXINFO(session, store, null);
+    }
+
+    /**
+     * Generates the rows for the given tables, or for all the tables when
+     * tables is null.
+     */
+    final Table SYSTEM_INDEXINFO(Session session, PersistentStore store,
+                                 Iterator tables) {
 
         Table t = sysTables[SYSTEM_INDEXINFO];
 
@@ -1303,7 +1504,6 @@ class DatabaseInformationMain extends DatabaseInformation {
         Integer rowCardinality;
 
         // Intermediate holders
-        Iterator tables;
         Table    table;
         int      indexCount;
         int[]    cols;
@@ -1328,8 +1528,10 @@ class DatabaseInformationMain extends DatabaseInformation {
         final int irow_cardinality  = 13;
 
         // Initialization
-        tables =
-            database.schemaManager.databaseObjectIterator(SchemaObject.TABLE);
+        if (tables == null) {
+            tables = database.schemaManager.databaseObjectIterator(
+                SchemaObject.TABLE);
+        }
 
         // Do it.
         while (tables.hasNext()) {
@@ -1427,6 +1629,15 @@ class DatabaseInformationMain extends DatabaseInformation {
      *        defined within this database.
      */
     final Table SYSTEM_PRIMARYKEYS(Session session, PersistentStore store) {
+        return SYSTEM_PRIMARYKEYS(session, store, null);
+    }
+
+    /**
+     * Generates the rows for the given tables, or for all the tables when
+     * tables is null.
+     */
+    final Table SYSTEM_PRIMARYKEYS(Session session, PersistentStore store,
+                                   Iterator tables) {
 
         Table t = sysTables[SYSTEM_PRIMARYKEYS];
 
@@ -1464,7 +1675,6 @@ class DatabaseInformationMain extends DatabaseInformation {
         String primaryKeyName;
 
         // Intermediate holders
-        Iterator   tables;
         Table      table;
         Object[]   row;
         Constraint constraint;
@@ -1480,8 +1690,10 @@ class DatabaseInformationMain extends DatabaseInformation {
         final int ipk_name     = 5;
 
         // Initialization
-        tables =
-            database.schemaManager.databaseObjectIterator(SchemaObject.TABLE);
+        if (tables == null) {
+            tables = database.schemaManager.databaseObjectIterator(
+                SchemaObject.TABLE);
+        }
 
         while (tables.hasNext()) {
             table = (Table) tables.next();
@@ -2251,6 +2463,15 @@ class DatabaseInformationMain extends DatabaseInformation {
      *      tables defined within this database
      */
     final Table SYSTEM_TABLES(Session session, PersistentStore store) {
+        return SYSTEM_TABLES(session, store, null);
+    }
+
+    /**
+     * Generates the rows for the given tables, or for all the tables when
+     * tables is null.
+     */
+    final Table SYSTEM_TABLES(Session session, PersistentStore store,
+                              Iterator tables) {
 
         Table t = sysTables[SYSTEM_TABLES];
 
@@ -2298,7 +2519,6 @@ class DatabaseInformationMain extends DatabaseInformation {
         }
 
         // intermediate holders
-        Iterator    tables;
         Table       table;
         Object[]    row;
         HsqlName    accessKey;
@@ -2325,8 +2545,11 @@ class DatabaseInformationMain extends DatabaseInformation {
         final int icommit_action = 12;
 
         // Initialization
-        tables = allTables();
-        ti     = new DITableInfo();
+        if (tables == null) {
+            tables = allTables();
+        }
+
+        ti = new DITableInfo();
 
         // Do it.
         while (tables.hasNext()) {
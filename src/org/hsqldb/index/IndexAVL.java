@@ -70,6 +70,8 @@
 
 package org.hsqldb.index;
 
+import java.text.CollationKey;
+
 import org.hsqldb.Constraint;
 import org.hsqldb.HsqlNameManager.HsqlName;
 import org.hsqldb.OpTypes;
@@ -90,6 +92,7 @@ import org.hsqldb.navigator.RangeIterator;
 import org.hsqldb.navigator.RowIterator;
 import org.hsqldb.persist.PersistentStore;
 import org.hsqldb.rights.Grantee;
+import org.hsqldb.types.Collation;
 import org.hsqldb.types.DateTimeType;
 import org.hsqldb.types.TimestampData;
 import org.hsqldb.types.Type;
@@ -112,7 +115,7 @@ import org.hsqldb.types.Type;
  *
  * @author Thomas Mueller (Hypersonic SQL Group)
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since Hypersonic SQL
  */
 public class IndexAVL implements Index {
@@ -137,6 +140,9 @@ public class IndexAVL implements Index {
     int                      position;
     private IndexUse[]       asArray;
 
+    // language collation of the first column, compared with sort keys
+    private final Collation  sortKeyCollation;
+
     //
     Object[] nullData;
 
@@ -194,6 +200,24 @@ public class IndexAVL implements Index {
         isSimpleOrder = simpleOrder;
         isSimple      = isSimpleOrder && colIndex.length == 1;
         nullData      = new Object[colIndex.length];
+
+        Collation collation = null;
+
+        if (colIndex.length > 0 && colTypes[0].isCharacterType()
+                && !colTypes[0].isLobType()
+                && colTypes[0].getCollation().hasSortKey()) {
+            collation = colTypes[0].getCollation();
+        }
+
+        sortKeyCollation = collation;
+    }
+
+    /**
+     * Returns true if the first column has a language collation and the
+     * nodes of the index keep the sort keys of the values.
+     */
+    boolean hasSortKeys() {
+        return sortKeyCollation != null;
     }
 
     // SchemaObject implementation
@@ -701,13 +725,34 @@ public class IndexAVL implements Index {
     int compareRowForInsertOrDelete(Session session, Row newRow,
                                     Row existingRow, boolean useRowId,
                                     int start) {
+        return compareRowForInsertOrDelete(session, newRow, null,
+                                           existingRow, null, useRowId,
+                                           start);
+    }
+
+    /**
+     * As above, with the sort key of the first column of the new row and
+     * the node of the existing row used for comparison when the key is not
+     * null.
+     */
+    int compareRowForInsertOrDelete(Session session, Row newRow,
+                                    CollationKey newKey, Row existingRow,
+                                    NodeAVL existingNode, boolean useRowId,
+                                    int start) {
 
         Object[] a = newRow.getData();
         Object[] b = existingRow.getData();
 
         for (int j = start; j < colIndex.length; j++) {
-            int i = colTypes[j].compare(session, a[colIndex[j]],
+            int i;
+
+            if (j == 0 && newKey != null) {
+                i = -compareSortKey(session, existingNode, b[colIndex[0]],
+                                    newKey, (String) a[colIndex[0]]);
+            } else {
+                i = colTypes[j].compare(session, a[colIndex[j]],
                                         b[colIndex[j]]);
+            }
 
             if (i != 0) {
                 if (isSimpleOrder) {
@@ -763,6 +808,93 @@ public class IndexAVL implements Index {
                                           b[rowColMap[position]], opType);
     }
 
+    /**
+     * As above, with the sort key of the node and the key of the search
+     * value compared when the column is the first column.
+     */
+    private int compareObject(Session session, NodeAVL node, Object[] a,
+                              Object[] b, int[] rowColMap, int position,
+                              int opType, CollationKey key) {
+
+        if (position == 0 && key != null
+                && opType != OpTypes.GREATER_EQUAL_PRE) {
+            return compareSortKey(session, node, a[colIndex[0]], key,
+                                  (String) b[rowColMap[0]]);
+        }
+
+        return compareObject(session, a, b, rowColMap, position, opType);
+    }
+
+    /**
+     * As compareRowNonUnique, with the sort key of the node and the key of
+     * the search value compared for the first column.
+     */
+    private int compareRowNonUnique(Session session, NodeAVL node,
+                                    Object[] a, Object[] b, int[] rowColMap,
+                                    int fieldCount, CollationKey key) {
+
+        if (key == null) {
+            return compareRowNonUnique(session, a, b, rowColMap, fieldCount);
+        }
+
+        int i = compareSortKey(session, node, a[colIndex[0]], key,
+                               (String) b[rowColMap[0]]);
+
+        if (i != 0) {
+            return i;
+        }
+
+        for (int j = 1; j < fieldCount; j++) {
+            i = colTypes[j].compare(session, a[colIndex[j]],
+                                    b[rowColMap[j]]);
+
+            if (i != 0) {
+                return i;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Compares the value of the first column of the row of a node with a
+     * value and its sort key. When the node keeps sort keys and the
+     * collation allows, a difference in the sort keys is returned, otherwise
+     * the values are compared. Nodes of CACHED tables do not keep sort keys.
+     */
+    private int compareSortKey(Session session, NodeAVL node, Object a,
+                               CollationKey key, String b) {
+
+        if (a instanceof String && node instanceof NodeAVLCollated
+                && sortKeyCollation.isSortKeyComparable((String) a, b)) {
+            int i = getSortKey((NodeAVLCollated) node,
+                               (String) a).compareTo(key);
+
+            if (i != 0) {
+                return i < 0 ? -1
+                             : 1;
+            }
+        }
+
+        return colTypes[0].compare(session, a, b);
+    }
+
+    /**
+     * The sort key is kept in the node when first used. Concurrent readers
+     * may compute the same key, which is harmless.
+     */
+    private CollationKey getSortKey(NodeAVLCollated node, String value) {
+
+        CollationKey key = node.sortKey;
+
+        if (key == null) {
+            key          = sortKeyCollation.getSortKey(value);
+            node.sortKey = key;
+        }
+
+        return key;
+    }
+
     boolean hasNulls(Session session, Object[] rowData) {
 
         boolean uniqueNulls = session == null
@@ -793,6 +925,8 @@ public class IndexAVL implements Index {
 
         NodeAVL n;
         NodeAVL x;
+        NodeAVL      newNode = ((RowAVL) row).getNode(position);
+        CollationKey newKey  = null;
         boolean isleft       = true;
         int     compare      = -1;
         boolean compareRowId = !isUnique || hasNulls(session, row.getData());
@@ -801,15 +935,22 @@ public class IndexAVL implements Index {
         x = n;
 
         if (n == null) {
-            store.setAccessor(this, ((RowAVL) row).getNode(position));
+            store.setAccessor(this, newNode);
 
             return;
         }
 
+        if (newNode instanceof NodeAVLCollated
+                && row.getData()[colIndex[0]] instanceof String) {
+            newKey = getSortKey((NodeAVLCollated) newNode,
+                                (String) row.getData()[colIndex[0]]);
+        }
+
         while (true) {
             Row currentRow = n.getRow(store);
 
-            compare = compareRowForInsertOrDelete(session, row, currentRow,
+            compare = compareRowForInsertOrDelete(session, row, newKey,
+                                                  currentRow, n,
                                                   compareRowId, 0);
 
             // after the first match and check, all compares are with row id
@@ -847,7 +988,7 @@ public class IndexAVL implements Index {
             }
         }
 
-        x = x.set(store, isleft, ((RowAVL) row).getNode(position));
+        x = x.set(store, isleft, newNode);
 
         balance(store, x, isleft);
     }
@@ -1530,14 +1671,26 @@ public class IndexAVL implements Index {
                 }
             }
 
+            CollationKey key = null;
+
+            if (x instanceof NodeAVLCollated && rowColMap != null
+                    && rowColMap.length > 0
+                    && rowdata[rowColMap[0]] instanceof String
+                    && (fieldCount > 0
+                        || compareType != OpTypes.GREATER_EQUAL_PRE)) {
+                key = sortKeyCollation.getSortKey(
+                    (String) rowdata[rowColMap[0]]);
+            }
+
             while (x != null) {
                 currentRow = x.getRow(store);
 
                 int i = 0;
 
                 if (fieldCount > 0) {
-                    i = compareRowNonUnique(session, currentRow.getData(),
-                                            rowdata, rowColMap, fieldCount);
+                    i = compareRowNonUnique(session, x, currentRow.getData(),
+                                            rowdata, rowColMap, fieldCount,
+                                            key);
                 }
 
                 if (i == 0) {
@@ -1558,9 +1711,10 @@ public class IndexAVL implements Index {
                         }
                         case OpTypes.NOT :
                         case OpTypes.GREATER : {
-                            i = compareObject(session, currentRow.getData(),
-                                              rowdata, rowColMap, fieldCount,
-                                              compareType);
+                            i = compareObject(session, x,
+                                              currentRow.getData(), rowdata,
+                                              rowColMap, fieldCount,
+                                              compareType, key);
 
                             if (i <= 0) {
                                 n = x.getRight(store);
@@ -1573,9 +1727,10 @@ public class IndexAVL implements Index {
                         }
                         case OpTypes.GREATER_EQUAL_PRE :
                         case OpTypes.GREATER_EQUAL : {
-                            i = compareObject(session, currentRow.getData(),
-                                              rowdata, rowColMap, fieldCount,
-                                              compareType);
+                            i = compareObject(session, x,
+                                              currentRow.getData(), rowdata,
+                                              rowColMap, fieldCount,
+                                              compareType, key);
 
                             if (i < 0) {
                                 n = x.getRight(store);
@@ -1587,9 +1742,10 @@ public class IndexAVL implements Index {
                             break;
                         }
                         case OpTypes.SMALLER : {
-                            i = compareObject(session, currentRow.getData(),
-                                              rowdata, rowColMap, fieldCount,
-                                              compareType);
+                            i = compareObject(session, x,
+                                              currentRow.getData(), rowdata,
+                                              rowColMap, fieldCount,
+                                              compareType, key);
 
                             if (i < 0) {
                                 result = x;
@@ -1601,9 +1757,10 @@ public class IndexAVL implements Index {
                             break;
                         }
                         case OpTypes.SMALLER_EQUAL : {
-                            i = compareObject(session, currentRow.getData(),
-                                              rowdata, rowColMap, fieldCount,
-                                              compareType);
+                            i = compareObject(session, x,
+                                              currentRow.getData(), rowdata,
+                                              rowColMap, fieldCount,
+                                              compareType, key);
 
                             if (i <= 0) {
                                 result = x;
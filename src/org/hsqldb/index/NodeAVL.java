@@ -97,7 +97,7 @@ import org.hsqldb.rowio.RowInputInterface;
  *
  * @author Fred Toussi (fredt@users dot sourceforge dot net)
  * @author Thomas Mueller (Hypersonic SQL Group)
- * @version 2.3.3
+ * @version 2.5.1
  * @since Hypersonic SQL
  */
 public class NodeAVL implements CachedObject {
@@ -120,6 +120,20 @@ public class NodeAVL implements CachedObject {
         row = r;
     }
 
+    /**
+     * Returns a new node for the row in the index. The nodes of an index on
+     * a first column with a language collation keep the sort key of the
+     * value.
+     */
+    public static NodeAVL newNode(Row r, Index index) {
+
+        if (index instanceof IndexAVL && ((IndexAVL) index).hasSortKeys()) {
+            return new NodeAVLCollated(r);
+        }
+
+        return new NodeAVL(r);
+    }
+
     public void delete() {
         iBalance = 0;
         nLeft    = nRight = nParent = null;
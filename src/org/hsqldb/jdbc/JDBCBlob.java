@@ -119,7 +119,7 @@ import org.hsqldb.lib.java.JavaSystem;
  *
  * @author james house (jhouse@part.net)
  * @author Campbell Burnet (campbell-burnet@users dot sourceforge.net)
- * @version 2.4.0
+ * @version 2.5.1
  * @since JDK 1.2, HSQLDB 1.7.2
  */
 public class JDBCBlob implements Blob {
@@ -248,8 +248,8 @@ public class JDBCBlob implements Blob {
             return -1L;
         }
 
-        final int result = KMPSearchAlgorithm.search(data, pattern,
-            KMPSearchAlgorithm.computeTable(pattern), startIndex);
+        final int result = KMPSearchAlgorithm.search(data, pattern, null,
+            startIndex);
 
         return (result == -1) ? -1
                               : result + 1;
@@ -301,8 +301,8 @@ public class JDBCBlob implements Blob {
             bytePattern = pattern.getBytes(1L, iplen);
         }
 
-        final int result = KMPSearchAlgorithm.search(data, bytePattern,
-            KMPSearchAlgorithm.computeTable(bytePattern), startIndex);
+        final int result = KMPSearchAlgorithm.search(data, bytePattern, null,
+            startIndex);
 
         return (result == -1) ? -1
                               : result + 1;
@@ -76,7 +76,7 @@ import org.hsqldb.lib.KMPSearchAlgorithm;
  * </div>
  * <!-- end release-specific documentation -->
  * @author Campbell Burnet (campbell-burnet@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since HSQLDB 2.1
  */
 public class JDBCBlobFile implements java.sql.Blob {
@@ -213,7 +213,7 @@ public class JDBCBlobFile implements java.sql.Blob {
             //      Need to do comparative benchmark and unit
             //      tests first.
             final long matchOffset = KMPSearchAlgorithm.search(is, pattern,
-                    KMPSearchAlgorithm.computeTable(pattern));
+                    null);
 
             return (matchOffset == -1) ? -1
                     : start + matchOffset;
@@ -3524,7 +3524,14 @@ public class JDBCPreparedStatement extends JDBCStatementBase implements Prepared
      * <h3>HSQLDB-Specific Information:</h3> <p>
      *
      * HSQLDB uses the specified value as a hint, but may process more or fewer
-     * rows than specified.
+     * rows than specified. <p>
+     *
+     * With MVCC, a non-zero value allows the rows of a simple query with a
+     * forward-only, read-only <code>ResultSet</code> to be read from the
+     * tables as they are fetched. In auto-commit mode, the transaction of
+     * such a query is committed when its last row is read, the
+     * <code>ResultSet</code> is closed, or another statement is executed on
+     * the connection.
      * </div>
      * <!-- end release-specific documentation -->
      *
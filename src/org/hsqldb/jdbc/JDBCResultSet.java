@@ -331,7 +331,11 @@ public class JDBCResultSet implements ResultSet {
 
         rootWarning = null;
 
-        return navigator.next();
+        try {
+            return navigator.next();
+        } catch (HsqlException e) {
+            throw JDBCUtil.sqlException(e);
+        }
     }
 
     /**
@@ -2146,7 +2150,11 @@ public class JDBCResultSet implements ResultSet {
             return false;
         }
 
-        return navigator.isLast();
+        try {
+            return navigator.isLast();
+        } catch (HsqlException e) {
+            throw JDBCUtil.sqlException(e);
+        }
     }
 
     /**
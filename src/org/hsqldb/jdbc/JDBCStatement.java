@@ -103,7 +103,7 @@ import org.hsqldb.result.ResultProperties;
  *
  * @author Campbell Burnet (campbell-burnet@users dot sourceforge.net)
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.4.0
+ * @version 2.5.1
  * @since HSQLDB 1.9.0
  * @see JDBCConnection#createStatement
  * @see JDBCResultSet
@@ -774,7 +774,14 @@ public class JDBCStatement extends JDBCStatementBase implements Statement,
      * <h3>HSQLDB-Specific Information:</h3> <p>
      *
      * HSQLDB uses the specified value as a hint, but may process more or fewer
-     * rows than specified.
+     * rows than specified. <p>
+     *
+     * With MVCC, a non-zero value allows the rows of a simple query with a
+     * forward-only, read-only <code>ResultSet</code> to be read from the
+     * tables as they are fetched. In auto-commit mode, the transaction of
+     * such a query is committed when its last row is read, the
+     * <code>ResultSet</code> is closed, or another statement is executed on
+     * the connection.
      * </div>
      * <!-- end release-specific documentation -->
      *
@@ -39,7 +39,7 @@ import org.hsqldb.map.BaseHashMap;
  * This class does not store null keys.
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 1.9.0
+ * @version 2.5.1
  * @since 1.7.2
  */
 public class IntValueHashMap extends BaseHashMap {
@@ -57,13 +57,18 @@ public class IntValueHashMap extends BaseHashMap {
               BaseHashMap.intKeyOrValue, false);
     }
 
+    public void setComparator(ObjectComparator comparator) {
+        super.setComparator(comparator);
+    }
+
     public int get(Object key) throws NoSuchElementException {
 
         if (key == null) {
             throw new NoSuchElementException();
         }
 
-        int hash   = key.hashCode();
+        int hash   = comparator == null ? key.hashCode()
+                                        : comparator.hashCode(key);
         int lookup = getLookup(key, hash);
 
         if (lookup != -1) {
@@ -79,7 +84,8 @@ public class IntValueHashMap extends BaseHashMap {
             throw new NoSuchElementException();
         }
 
-        int hash   = key.hashCode();
+        int hash   = comparator == null ? key.hashCode()
+                                        : comparator.hashCode(key);
         int lookup = getLookup(key, hash);
 
         if (lookup != -1) {
@@ -95,7 +101,8 @@ public class IntValueHashMap extends BaseHashMap {
             throw new NoSuchElementException();
         }
 
-        int hash   = key.hashCode();
+        int hash   = comparator == null ? key.hashCode()
+                                        : comparator.hashCode(key);
         int lookup = getLookup(key, hash);
 
         if (lookup != -1) {
@@ -84,7 +84,7 @@ import java.io.Reader;
  * outperforms Knuth-Morris-Pratt.
  *
  * @author Campbell Burnet (campbell-burnet@users dot sourceforge.net)
- * @version 2.1
+ * @version 2.5.1
  * @since 2.1
  * @see <a href="http://en.wikipedia.org/wiki/Knuth%E2%80%93Morris%E2%80%93Pratt_algorithm">Knuth-Morris-Pratt algorithm</a>
  */
@@ -144,11 +144,11 @@ public class KMPSearchAlgorithm {
         while (-1 != (currentByte = inputStream.read())) {
             streamIndex++;
 
-            if (currentByte == pattern[patternIndex]) {
-                patternIndex++;
-            } else if (patternIndex > 0) {
+            while (patternIndex > 0 && currentByte != pattern[patternIndex]) {
                 patternIndex = table[patternIndex];
+            }
 
+            if (currentByte == pattern[patternIndex]) {
                 patternIndex++;
             }
 
@@ -213,11 +213,11 @@ public class KMPSearchAlgorithm {
         while (-1 != (currentCharacter = reader.read())) {
             streamIndex++;
 
-            if (currentCharacter == pattern[patternIndex]) {
-                patternIndex++;
-            } else if (patternIndex > 0) {
+            while (patternIndex > 0 && currentCharacter != pattern[patternIndex]) {
                 patternIndex = table[patternIndex];
+            }
 
+            if (currentCharacter == pattern[patternIndex]) {
                 patternIndex++;
             }
 
@@ -292,8 +292,6 @@ public class KMPSearchAlgorithm {
                 if (patternIndex > 0) {
                     patternIndex = tableValue;
                 }
-
-                patternIndex++;
             }
 
             sourceIndex = (matchStart + patternIndex);
@@ -362,8 +360,6 @@ public class KMPSearchAlgorithm {
                 if (patternIndex > 0) {
                     patternIndex = tableValue;
                 }
-
-                patternIndex++;
             }
 
             sourceIndex = (matchStart + patternIndex);
@@ -426,8 +422,6 @@ public class KMPSearchAlgorithm {
                 if (patternIndex > 0) {
                     patternIndex = tableValue;
                 }
-
-                patternIndex++;
             }
 
             sourceIndex = matchStart + patternIndex;
@@ -803,7 +803,8 @@ public class BaseHashMap {
             return null;
         }
 
-        int    hash        = objectKey.hashCode();
+        int hash = comparator == null ? objectKey.hashCode()
+                                      : comparator.hashCode(objectKey);
         int    index       = hashIndex.getHashIndex(hash);
         int    lookup      = hashIndex.hashTable[index];
         int    lastLookup  = -1;
@@ -812,7 +813,12 @@ public class BaseHashMap {
         for (; lookup >= 0;
                 lastLookup = lookup,
                 lookup = hashIndex.getNextLookup(lookup)) {
-            if (objectKeyTable[lookup].equals(objectKey)) {
+            boolean found = comparator == null
+                            ? objectKeyTable[lookup].equals(objectKey)
+                            : comparator.compare(objectKeyTable[lookup],
+                                                 objectKey) == 0;
+
+            if (found) {
                 returnValue            = objectKeyTable[lookup];
                 objectKeyTable[lookup] = null;
 
@@ -1379,7 +1385,9 @@ public class BaseHashMap {
             return false;
         }
 
-        int lookup = getLookup(key, key.hashCode());
+        int hash   = comparator == null ? key.hashCode()
+                                        : comparator.hashCode(key);
+        int lookup = getLookup(key, hash);
 
         return lookup == -1 ? false
                             : true;
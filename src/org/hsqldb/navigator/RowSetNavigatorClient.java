@@ -45,7 +45,7 @@ import org.hsqldb.rowio.RowOutputInterface;
  * a server-side row set.
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.3.5
+ * @version 2.5.1
  * @since 1.9.0
  */
 public class RowSetNavigatorClient extends RowSetNavigator {
@@ -71,7 +71,6 @@ public class RowSetNavigatorClient extends RowSetNavigator {
     public RowSetNavigatorClient(RowSetNavigator source, int offset,
                                  int blockSize) {
 
-        this.size          = source.size;
         this.baseBlockSize = blockSize;
         this.currentOffset = offset;
         table              = new Object[blockSize][];
@@ -84,6 +83,9 @@ public class RowSetNavigatorClient extends RowSetNavigator {
             source.next();
         }
 
+        // the size of a lazy source is known only after its last row is read
+        this.size = source.size;
+
         source.beforeFirst();
     }
 
@@ -112,8 +114,9 @@ public class RowSetNavigatorClient extends RowSetNavigator {
             return null;
         }
 
-        if (currentPos >= currentOffset + table.length) {
-            getBlock(currentOffset + table.length);
+        if (currentPos < currentOffset
+                || currentPos >= currentOffset + table.length) {
+            getBlock(currentPos);
         }
 
         return table[currentPos - currentOffset];
@@ -123,6 +126,19 @@ public class RowSetNavigatorClient extends RowSetNavigator {
         throw Error.runtimeError(ErrorCode.U_S0500, "RowSetNavigatorClient");
     }
 
+    /**
+     * Fetches the next block before moving past the current one, so that
+     * the size is updated when the rows of a lazy result end in the block.
+     */
+    public boolean next() {
+
+        if (hasNext() && currentPos + 1 >= currentOffset + table.length) {
+            getBlock(currentPos + 1);
+        }
+
+        return super.next();
+    }
+
     /**
      * Only for navigators for INSERT
      */
@@ -267,6 +283,7 @@ public class RowSetNavigatorClient extends RowSetNavigator {
 
             table         = source.table;
             currentOffset = source.currentOffset;
+            size          = source.size;
         } catch (HsqlException e) {}
     }
 
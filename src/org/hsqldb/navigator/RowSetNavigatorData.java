@@ -44,10 +44,13 @@ import org.hsqldb.error.ErrorCode;
 import org.hsqldb.index.Index;
 import org.hsqldb.lib.ArraySort;
 import org.hsqldb.lib.ArrayUtil;
+import org.hsqldb.lib.IntValueHashMap;
 import org.hsqldb.lib.LongKeyHashMap;
+import org.hsqldb.lib.ObjectComparator;
 import org.hsqldb.result.ResultMetaData;
 import org.hsqldb.rowio.RowInputInterface;
 import org.hsqldb.rowio.RowOutputInterface;
+import org.hsqldb.types.Type;
 
 /**
  * Implementation of RowSetNavigator for result sets.
@@ -82,6 +85,7 @@ implements Comparator<Object[]> {
 
     //
     TreeMap<Object[], Integer> rowMap;
+    IntValueHashMap            groupMap;
     LongKeyHashMap             idMap;
 
     RowSetNavigatorData(Session session) {
@@ -99,8 +103,10 @@ implements Comparator<Object[]> {
         orderIndex         = select.orderIndex;
 
         if (select.isGrouped) {
-            mainIndex = select.groupIndex;
-            rowMap    = new TreeMap<Object[], Integer>(this);
+            mainIndex  = select.groupIndex;
+            groupIndex = select.groupIndex;
+
+            resetRowMap();
         }
 
         if (select.idIndex != null) {
@@ -164,7 +170,9 @@ implements Comparator<Object[]> {
 
         dataTable[size] = data;
 
-        if (rowMap != null) {
+        if (groupMap != null) {
+            groupMap.put(data, size);
+        } else if (rowMap != null) {
             rowMap.put(data, size);
         }
 
@@ -179,14 +187,12 @@ implements Comparator<Object[]> {
 
     public void setPosition(Object[] data) {
 
-        Integer mapPos = rowMap.get(data);
+        int pos = getGroupPosition(data);
 
-        if (mapPos == null) {
+        if (pos < 0) {
             return;
         }
 
-        int pos = mapPos.intValue();
-
         currentPos = pos;
     }
 
@@ -263,8 +269,45 @@ implements Comparator<Object[]> {
         reset();
     }
 
+    /**
+     * Groups are located with a hash map when the hash codes of the values
+     * of all the group columns are consistent with comparison, otherwise
+     * with a tree map.
+     */
     public void resetRowMap() {
-        rowMap = new TreeMap(this);
+
+        if (isHashCompatible(groupIndex)) {
+            groupMap = new IntValueHashMap();
+
+            groupMap.setComparator(new GroupComparator(groupIndex));
+        } else {
+            rowMap = new TreeMap<Object[], Integer>(this);
+        }
+    }
+
+    private static boolean isHashCompatible(Index index) {
+
+        Type[] types = index.getColumnTypes();
+
+        for (int i = 0; i < types.length; i++) {
+            if (!types[i].isHashCompatible()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private int getGroupPosition(Object[] data) {
+
+        if (groupMap != null) {
+            return groupMap.get(data, -1);
+        }
+
+        Integer position = rowMap.get(data);
+
+        return position == null ? -1
+                                : position.intValue();
     }
 
     public boolean absolute(int position) {
@@ -386,6 +429,39 @@ implements Comparator<Object[]> {
         reset();
     }
 
+    /**
+     * Adds the row unless an equal row has already been added. The rows are
+     * located with a hash map on all the columns. Used for each round of a
+     * recursive UNION.
+     *
+     * @return true if the row was added
+     */
+    public boolean addDistinct(Object[] data) {
+
+        if (groupIndex != fullIndex) {
+            groupIndex = fullIndex;
+            mainIndex  = fullIndex;
+
+            resetRowMap();
+
+            for (int i = 0; i < size; i++) {
+                if (groupMap != null) {
+                    groupMap.put(dataTable[i], i);
+                } else {
+                    rowMap.put(dataTable[i], i);
+                }
+            }
+        }
+
+        if (getGroupPosition(data) >= 0) {
+            return false;
+        }
+
+        add(data);
+
+        return true;
+    }
+
     public void intersect(RowSetNavigatorData other) {
 
         removeDuplicates();
@@ -624,14 +700,12 @@ implements Comparator<Object[]> {
             return simpleAggregateData;
         }
 
-        Integer position = rowMap.get(data);
+        int pos = getGroupPosition(data);
 
-        if (position == null) {
+        if (pos < 0) {
             return null;
         }
 
-        int pos = position.intValue();
-
         return dataTable[pos];
     }
 
@@ -640,14 +714,12 @@ implements Comparator<Object[]> {
      */
     public Object[] getGroupDataAndPosition(Object[] data) {
 
-        Integer mapPos = rowMap.get(data);
+        int pos = getGroupPosition(data);
 
-        if (mapPos == null) {
+        if (pos < 0) {
             return null;
         }
 
-        int pos = mapPos.intValue();
-
         currentPos = pos;
 
         return dataTable[pos];
@@ -754,4 +826,42 @@ implements Comparator<Object[]> {
     public int compare(Object[] a, Object[] b) {
         return mainIndex.compareRow((Session) session, a, b);
     }
+
+    /**
+     * Hashes and compares rows on the group columns.
+     */
+    class GroupComparator implements ObjectComparator {
+
+        final Index  index;
+        final int[]  columns;
+        final Type[] types;
+
+        GroupComparator(Index index) {
+
+            this.index = index;
+            columns    = index.getColumns();
+            types      = index.getColumnTypes();
+        }
+
+        public int compare(Object a, Object b) {
+            return index.compareRow((Session) session, (Object[]) a,
+                                    (Object[]) b);
+        }
+
+        public int hashCode(Object a) {
+
+            Object[] data = (Object[]) a;
+            int      hash = 0;
+
+            for (int i = 0; i < columns.length; i++) {
+                hash = 31 * hash + types[i].hashCode(data[columns[i]]);
+            }
+
+            return hash;
+        }
+
+        public long longKey(Object a) {
+            return 0;
+        }
+    }
 }
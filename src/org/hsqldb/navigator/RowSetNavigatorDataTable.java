@@ -108,6 +108,19 @@ public class RowSetNavigatorDataTable extends RowSetNavigatorData {
         fullIndex          = queryExpression.fullIndex;
     }
 
+    public RowSetNavigatorDataTable(Session session,
+                                    QueryExpression queryExpression,
+                                    RowSetNavigatorData navigator) {
+
+        this(session, queryExpression);
+
+        navigator.reset();
+
+        while (navigator.next()) {
+            add(navigator.getCurrent());
+        }
+    }
+
     public RowSetNavigatorDataTable(Session session, Table table) {
 
         super(session);
@@ -189,6 +202,19 @@ public class RowSetNavigatorDataTable extends RowSetNavigatorData {
         } catch (HsqlException e) {}
     }
 
+    public boolean addDistinct(Object[] data) {
+
+        mainIndex = fullIndex;
+
+        if (containsRow(data)) {
+            return false;
+        }
+
+        add(data);
+
+        return true;
+    }
+
     public void update(Object[] oldData, Object[] newData) {
 
         if (isSimpleAggregate) {
@@ -0,0 +1,325 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+package org.hsqldb.navigator;
+
+import org.hsqldb.Row;
+import org.hsqldb.Session;
+import org.hsqldb.error.Error;
+import org.hsqldb.error.ErrorCode;
+import org.hsqldb.lib.HsqlArrayList;
+import org.hsqldb.result.ResultMetaData;
+import org.hsqldb.rowio.RowInputInterface;
+import org.hsqldb.rowio.RowOutputInterface;
+
+/**
+ * Forward-only implementation of RowSetNavigator for result sets whose rows
+ * are produced on demand by a RowIterator over the tables of the query.<p>
+ *
+ * The size is Integer.MAX_VALUE until the source is exhausted. The session
+ * calls drain() to read the remaining rows into memory before it executes
+ * another statement or ends the transaction, so the rows are always those
+ * visible to the statement that created the result.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class RowSetNavigatorLazy extends RowSetNavigator {
+
+    RowIterator source;
+    Object[]    currentData;
+    Object[]    nextData;
+
+    // rows read by drain()
+    Object[][] table;
+    int        tableOffset;
+
+    public RowSetNavigatorLazy(Session session, RowIterator source) {
+
+        this.session = session;
+        this.source  = source;
+        this.size    = Integer.MAX_VALUE;
+    }
+
+    public Object[] getCurrent() {
+        return currentData;
+    }
+
+    public Row getCurrentRow() {
+        throw Error.runtimeError(ErrorCode.U_S0500, "RowSetNavigatorLazy");
+    }
+
+    public boolean next() {
+
+        if (hasNext()) {
+            Object[] data = readRow();
+
+            if (data != null) {
+                currentData = data;
+
+                currentPos++;
+
+                hadNext = true;
+
+                return true;
+            }
+        }
+
+        currentData = null;
+
+        if (size != 0) {
+            currentPos = size;
+        }
+
+        hadNext = false;
+
+        return false;
+    }
+
+    /**
+     * Positions are forward-only; a position before the current row is not
+     * supported.
+     */
+    public boolean absolute(int position) {
+
+        if (position < currentPos) {
+            throw Error.runtimeError(ErrorCode.U_S0500,
+                                     "RowSetNavigatorLazy");
+        }
+
+        while (position > currentPos) {
+            if (!next()) {
+                return false;
+            }
+        }
+
+        return currentPos >= 0 && currentPos < size;
+    }
+
+    /**
+     * Keeps the position, as the rows already read are not available again.
+     * Called by RowSetNavigatorClient after copying a block of rows.
+     */
+    public boolean beforeFirst() {
+        return currentPos == -1;
+    }
+
+    public void reset() {}
+
+    public boolean isEmpty() {
+
+        if (currentPos == -1) {
+            readAhead();
+        }
+
+        return size == 0;
+    }
+
+    public boolean isBeforeFirst() {
+
+        if (currentPos == -1) {
+            readAhead();
+        }
+
+        return super.isBeforeFirst();
+    }
+
+    public boolean isLast() {
+
+        if (currentPos >= 0) {
+            readAhead();
+        }
+
+        return super.isLast();
+    }
+
+    public boolean isMemory() {
+        return false;
+    }
+
+    public void add(Object[] data) {
+        throw Error.runtimeError(ErrorCode.U_S0500, "RowSetNavigatorLazy");
+    }
+
+    public boolean addRow(Row row) {
+        throw Error.runtimeError(ErrorCode.U_S0500, "RowSetNavigatorLazy");
+    }
+
+    public void removeCurrent() {
+        throw Error.runtimeError(ErrorCode.U_S0500, "RowSetNavigatorLazy");
+    }
+
+    public void clear() {
+        throw Error.runtimeError(ErrorCode.U_S0500, "RowSetNavigatorLazy");
+    }
+
+    public void release() {
+
+        releaseSource();
+
+        currentData = null;
+        nextData    = null;
+        table       = null;
+        isClosed    = true;
+    }
+
+    /**
+     * Reads all the remaining rows from the source into memory.
+     */
+    public void drain() {
+
+        if (source == null) {
+            return;
+        }
+
+        HsqlArrayList list = new HsqlArrayList();
+
+        if (nextData != null) {
+            list.add(nextData);
+
+            nextData = null;
+        }
+
+        while (true) {
+            Object[] data = readSource();
+
+            if (data == null) {
+                break;
+            }
+
+            list.add(data);
+        }
+
+        table       = new Object[list.size()][];
+        tableOffset = currentPos + 1;
+        size        = tableOffset + table.length;
+
+        list.toArray(table);
+        releaseSource();
+    }
+
+    public void read(RowInputInterface in, ResultMetaData meta) {}
+
+    /**
+     * Writes the remaining rows as a complete result.
+     */
+    public void write(RowOutputInterface out, ResultMetaData meta) {
+
+        drain();
+
+        int start = currentPos + 1;
+        int count = size - start;
+
+        out.writeLong(id);
+        out.writeInt(count);
+        out.writeInt(0);    // offset
+        out.writeInt(count);
+
+        for (int i = start; i < size; i++) {
+            Object[] data = table[i - tableOffset];
+
+            out.writeData(meta.getExtendedColumnCount(), meta.columnTypes,
+                          data, null, null);
+        }
+    }
+
+    private void readAhead() {
+
+        if (nextData == null && hasNext()) {
+            nextData = readRow();
+        }
+    }
+
+    /**
+     * Returns the row after the current row, or null when there are no more
+     * rows, in which case the size is set.
+     */
+    private Object[] readRow() {
+
+        Object[] data;
+
+        if (nextData != null) {
+            data     = nextData;
+            nextData = null;
+
+            return data;
+        }
+
+        if (table != null) {
+            int index = currentPos + 1 - tableOffset;
+
+            return index < table.length ? table[index]
+                                        : null;
+        }
+
+        data = readSource();
+
+        if (data == null) {
+            size = currentPos + 1;
+
+            releaseSource();
+        }
+
+        return data;
+    }
+
+    private Object[] readSource() {
+
+        if (source == null) {
+            return null;
+        }
+
+        synchronized (session) {
+            if (source.next()) {
+                return source.getCurrent();
+            }
+        }
+
+        return null;
+    }
+
+    private void releaseSource() {
+
+        if (source == null) {
+            return;
+        }
+
+        RowIterator it = source;
+
+        source = null;
+
+        synchronized (session) {
+            it.release();
+            ((Session) session).endLazyResult(this);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.persist;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.hsqldb.HsqlException;
+import org.hsqldb.error.Error;
+import org.hsqldb.error.ErrorCode;
+import org.hsqldb.lib.HsqlDeque;
+
+/**
+ * Runs batches of work with a pool of worker threads and returns them to
+ * the calling thread in the order they were submitted. Each worker thread
+ * has its own state, created by newThreadState() for the first batch run by
+ * the thread. With one thread, each batch is run by the calling thread when
+ * it is submitted.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+abstract class BatchExecutor {
+
+    private final ExecutorService     executor;
+    private final int                 maxPendingBatches;
+    private final int                 errorCode;
+    private final HsqlDeque           pendingBatches = new HsqlDeque();
+    private final ThreadLocal<Object> threadState    =
+        new ThreadLocal<Object>();
+    private Object                    callerState;
+
+    /**
+     * The errorCode is used for exceptions thrown by a batch that are not
+     * an HsqlException.
+     */
+    BatchExecutor(final String threadName, int threadCount, int errorCode) {
+
+        this.errorCode         = errorCode;
+        this.maxPendingBatches = threadCount * 2;
+
+        if (threadCount > 1) {
+            executor = Executors.newFixedThreadPool(threadCount,
+                    new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, threadName);
+
+                    thread.setDaemon(true);
+
+                    return thread;
+                }
+            });
+        } else {
+            executor = null;
+        }
+    }
+
+    /**
+     * Returns a new object used by all the batches run by one thread.
+     */
+    abstract Object newThreadState();
+
+    void submit(Batch batch) {
+
+        batch.executor = this;
+
+        if (executor == null) {
+            try {
+                batch.run(getCallerState());
+            } catch (Throwable t) {
+                batch.failure = t;
+            }
+        } else {
+            batch.future = executor.submit(batch);
+        }
+
+        pendingBatches.add(batch);
+    }
+
+    /**
+     * Returns true if no more batches should be submitted before the first
+     * one is removed.
+     */
+    boolean isFull() {
+        return pendingBatches.size() >= maxPendingBatches;
+    }
+
+    boolean isEmpty() {
+        return pendingBatches.isEmpty();
+    }
+
+    /**
+     * Removes the first batch and waits until it has been run. Throws the
+     * exception thrown by the batch.
+     */
+    Batch removeFirst() {
+
+        Batch batch = (Batch) pendingBatches.removeFirst();
+
+        try {
+            if (batch.future != null) {
+                batch.future.get();
+            }
+        } catch (ExecutionException e) {
+            batch.failure = e.getCause();
+        } catch (InterruptedException e) {
+            throw Error.error(ErrorCode.GENERAL_ERROR, e);
+        }
+
+        if (batch.failure != null) {
+            batch.onFailure();
+
+            if (batch.failure instanceof HsqlException) {
+                throw (HsqlException) batch.failure;
+            }
+
+            throw Error.error(errorCode, batch.failure);
+        }
+
+        return batch;
+    }
+
+    void close() {
+
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private Object getCallerState() {
+
+        if (callerState == null) {
+            callerState = newThreadState();
+        }
+
+        return callerState;
+    }
+
+    private Object getThreadState() {
+
+        Object state = threadState.get();
+
+        if (state == null) {
+            state = newThreadState();
+
+            threadState.set(state);
+        }
+
+        return state;
+    }
+
+    /**
+     * A unit of work. The run() method is given the state of the thread
+     * that runs the batch.
+     */
+    abstract static class Batch implements Callable<Object> {
+
+        private BatchExecutor  executor;
+        private Future<Object> future;
+        private Throwable      failure;
+
+        abstract void run(Object state) throws Exception;
+
+        /**
+         * Called by the calling thread when the batch has failed, before the
+         * exception is thrown.
+         */
+        void onFailure() {}
+
+        public final Object call() throws Exception {
+
+            run(executor.getThreadState());
+
+            return null;
+        }
+    }
+}
@@ -55,22 +55,39 @@ import org.hsqldb.error.ErrorCode;
 import org.hsqldb.lib.StringConverter;
 
 /**
+ * Encryption and decryption of database files.<p>
+ *
+ * Row and lob data is encoded and decoded with Cipher instances taken from
+ * a pool, so that reads and writes by different threads are not serialized
+ * on a single Cipher. Each pooled Cipher is initialised once and reused, as
+ * doFinal() resets it to its initialised state. A Cipher that throws is not
+ * returned to the pool. Stream ciphers for the .script and .log files are
+ * used by one thread at a time and are not pooled.
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.4.1
+ * @version 2.5.1
  * @since 1.9.0
  */
 
 // support for IV parameters added by Shaun Murphy (shaunmurphy@users dot sourcedorge.net)
 public class Crypto {
 
+    static final int cipherPoolSize = 16;
+
+    //
+    final String          cipherName;
+    final String          provider;
     final SecretKeySpec   key;
-    final Cipher          outCipher;
-    final Cipher          inCipher;
     final Cipher          inStreamCipher;
     final Cipher          outStreamCipher;
     final IvParameterSpec ivSpec;
 
+    //
+    private final Cipher[] outCiphers = new Cipher[cipherPoolSize];
+    private final Cipher[] inCiphers  = new Cipher[cipherPoolSize];
+    private int            outCipherCount;
+    private int            inCipherCount;
+
     public Crypto(String keyString, String ivString, String cipherName,
                   String provider) {
 
@@ -79,6 +96,9 @@ public class Crypto {
                                         cipherName.indexOf("/"))
                                     : cipherName;
 
+        this.cipherName = cipherName;
+        this.provider   = provider;
+
         try {
             byte[] encodedKey =
                 StringConverter.hexStringToByteArray(keyString);
@@ -92,17 +112,9 @@ public class Crypto {
                 ivSpec = null;
             }
 
-            key       = new SecretKeySpec(encodedKey, keyAlgorithm);
-            outCipher = provider == null ? Cipher.getInstance(cipherName)
-                                         : Cipher.getInstance(cipherName,
-                                         provider);
-
-            if (ivSpec == null) {
-                outCipher.init(Cipher.ENCRYPT_MODE, key);
-            } else {
-                outCipher.init(Cipher.ENCRYPT_MODE, key, ivSpec);
-            }
-
+            key = new SecretKeySpec(encodedKey, keyAlgorithm);
+            outCiphers[outCipherCount++] = newCipher(Cipher.ENCRYPT_MODE);
+            inCiphers[inCipherCount++]   = newCipher(Cipher.DECRYPT_MODE);
             outStreamCipher = provider == null ? Cipher.getInstance(cipherName)
                                                : Cipher.getInstance(cipherName,
                                                provider);
@@ -113,16 +125,6 @@ public class Crypto {
                 outStreamCipher.init(Cipher.ENCRYPT_MODE, key, ivSpec);
             }
 
-            inCipher = provider == null ? Cipher.getInstance(cipherName)
-                                        : Cipher.getInstance(cipherName,
-                                        provider);
-
-            if (ivSpec == null) {
-                inCipher.init(Cipher.DECRYPT_MODE, key);
-            } else {
-                inCipher.init(Cipher.DECRYPT_MODE, key, ivSpec);
-            }
-
             inStreamCipher = provider == null ? Cipher.getInstance(cipherName)
                                               : Cipher.getInstance(cipherName,
                                               provider);
@@ -147,12 +149,80 @@ public class Crypto {
         }
     }
 
-    public synchronized InputStream getInputStream(InputStream in) {
+    private Cipher newCipher(int mode)
+    throws NoSuchPaddingException, NoSuchAlgorithmException,
+           NoSuchProviderException, InvalidKeyException,
+           InvalidAlgorithmParameterException {
+
+        Cipher cipher = provider == null ? Cipher.getInstance(cipherName)
+                                         : Cipher.getInstance(cipherName,
+                                             provider);
 
-        if (inCipher == null) {
-            return in;
+        if (ivSpec == null) {
+            cipher.init(mode, key);
+        } else {
+            cipher.init(mode, key, ivSpec);
+        }
+
+        return cipher;
+    }
+
+    private Cipher getCipher(int mode) {
+
+        synchronized (this) {
+            if (mode == Cipher.ENCRYPT_MODE) {
+                if (outCipherCount > 0) {
+                    outCipherCount--;
+
+                    Cipher cipher = outCiphers[outCipherCount];
+
+                    outCiphers[outCipherCount] = null;
+
+                    return cipher;
+                }
+            } else {
+                if (inCipherCount > 0) {
+                    inCipherCount--;
+
+                    Cipher cipher = inCiphers[inCipherCount];
+
+                    inCiphers[inCipherCount] = null;
+
+                    return cipher;
+                }
+            }
         }
 
+        try {
+            return newCipher(mode);
+        } catch (NoSuchPaddingException e) {
+            throw Error.error(ErrorCode.X_S0531, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw Error.error(ErrorCode.X_S0531, e);
+        } catch (InvalidKeyException e) {
+            throw Error.error(ErrorCode.X_S0531, e);
+        } catch (NoSuchProviderException e) {
+            throw Error.error(ErrorCode.X_S0531, e);
+        } catch (InvalidAlgorithmParameterException e) {
+            throw Error.error(ErrorCode.X_S0531, e);
+        }
+    }
+
+    private synchronized void releaseCipher(Cipher cipher, int mode) {
+
+        if (mode == Cipher.ENCRYPT_MODE) {
+            if (outCipherCount < cipherPoolSize) {
+                outCiphers[outCipherCount++] = cipher;
+            }
+        } else {
+            if (inCipherCount < cipherPoolSize) {
+                inCiphers[inCipherCount++] = cipher;
+            }
+        }
+    }
+
+    public synchronized InputStream getInputStream(InputStream in) {
+
         try {
             if (ivSpec == null) {
                 inStreamCipher.init(Cipher.DECRYPT_MODE, key);
@@ -170,10 +240,6 @@ public class Crypto {
 
     public synchronized OutputStream getOutputStream(OutputStream out) {
 
-        if (outCipher == null) {
-            return out;
-        }
-
         try {
             if (ivSpec == null) {
                 outStreamCipher.init(Cipher.ENCRYPT_MODE, key);
@@ -189,61 +255,45 @@ public class Crypto {
         }
     }
 
-    public synchronized int decode(byte[] source, int sourceOffset,
-                                   int length, byte[] dest, int destOffset) {
+    public int decode(byte[] source, int sourceOffset, int length,
+                      byte[] dest, int destOffset) {
 
-        if (inCipher == null) {
-            return length;
-        }
+        Cipher cipher = getCipher(Cipher.DECRYPT_MODE);
 
         try {
-            if (ivSpec == null) {
-                inCipher.init(Cipher.DECRYPT_MODE, key);
-            } else {
-                inCipher.init(Cipher.DECRYPT_MODE, key, ivSpec);
-            }
+            int result = cipher.doFinal(source, sourceOffset, length, dest,
+                                        destOffset);
 
-            return inCipher.doFinal(source, sourceOffset, length, dest,
-                                    destOffset);
-        } catch (java.security.InvalidKeyException e) {
-            throw Error.error(ErrorCode.X_S0531, e);
+            releaseCipher(cipher, Cipher.DECRYPT_MODE);
+
+            return result;
         } catch (BadPaddingException e) {
             throw Error.error(ErrorCode.X_S0531, e);
         } catch (IllegalBlockSizeException e) {
             throw Error.error(ErrorCode.X_S0531, e);
         } catch (ShortBufferException e) {
             throw Error.error(ErrorCode.X_S0531, e);
-        } catch (InvalidAlgorithmParameterException e) {
-            throw Error.error(ErrorCode.X_S0531, e);
         }
     }
 
-    public synchronized int encode(byte[] source, int sourceOffset,
-                                   int length, byte[] dest, int destOffset) {
+    public int encode(byte[] source, int sourceOffset, int length,
+                      byte[] dest, int destOffset) {
 
-        if (outCipher == null) {
-            return length;
-        }
+        Cipher cipher = getCipher(Cipher.ENCRYPT_MODE);
 
         try {
-            if (ivSpec == null) {
-                outCipher.init(Cipher.ENCRYPT_MODE, key);
-            } else {
-                outCipher.init(Cipher.ENCRYPT_MODE, key, ivSpec);
-            }
+            int result = cipher.doFinal(source, sourceOffset, length, dest,
+                                        destOffset);
 
-            return outCipher.doFinal(source, sourceOffset, length, dest,
-                                     destOffset);
-        } catch (java.security.InvalidKeyException e) {
-            throw Error.error(ErrorCode.X_S0531, e);
+            releaseCipher(cipher, Cipher.ENCRYPT_MODE);
+
+            return result;
         } catch (BadPaddingException e) {
             throw Error.error(ErrorCode.X_S0531, e);
         } catch (IllegalBlockSizeException e) {
             throw Error.error(ErrorCode.X_S0531, e);
         } catch (ShortBufferException e) {
             throw Error.error(ErrorCode.X_S0531, e);
-        } catch (InvalidAlgorithmParameterException e) {
-            throw Error.error(ErrorCode.X_S0531, e);
         }
     }
 
@@ -265,24 +315,13 @@ public class Crypto {
         }
     }
 
-    public synchronized int getEncodedSize(int size) {
+    public int getEncodedSize(int size) {
 
-        try {
-            return outCipher.getOutputSize(size);
-        } catch (IllegalStateException ex) {
-            try {
-                if (ivSpec == null) {
-                    outCipher.init(Cipher.ENCRYPT_MODE, key);
-                } else {
-                    outCipher.init(Cipher.ENCRYPT_MODE, key, ivSpec);
-                }
+        Cipher cipher = getCipher(Cipher.ENCRYPT_MODE);
+        int    result = cipher.getOutputSize(size);
 
-                return outCipher.getOutputSize(size);
-            } catch (java.security.InvalidKeyException e) {
-                throw Error.error(ErrorCode.X_S0531, e);
-            } catch (InvalidAlgorithmParameterException e) {
-                throw Error.error(ErrorCode.X_S0531, e);
-            }
-        }
+        releaseCipher(cipher, Cipher.ENCRYPT_MODE);
+
+        return result;
     }
 }
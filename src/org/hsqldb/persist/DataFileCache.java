@@ -74,6 +74,7 @@ public class DataFileCache {
     public static final int FLAG_ROWINFO    = 3;
     public static final int FLAG_190        = 4;
     public static final int FLAG_HX         = 5;
+    public static final int FLAG_COMPRESSED = 6;
 
     // file format fields
     static final int LONG_EMPTY_SIZE      = 4;        // empty space size
@@ -124,6 +125,7 @@ public class DataFileCache {
 
     //
     boolean is180;
+    boolean isCompressed;
 
     //
     protected RandomAccessInterface dataFile;
@@ -237,7 +239,8 @@ public class DataFileCache {
 
                 int flags = getFlags();
 
-                is180 = !BitMap.isSet(flags, FLAG_190);
+                is180        = !BitMap.isSet(flags, FLAG_190);
+                isCompressed = BitMap.isSet(flags, FLAG_COMPRESSED);
 
                 if (BitMap.isSet(flags, FLAG_HX)) {
                     throw Error.error(ErrorCode.WRONG_DATABASE_FILE_VERSION);
@@ -276,6 +279,7 @@ public class DataFileCache {
                     isSaved       = BitMap.isSet(flags, FLAG_ISSAVED);
                     isIncremental = BitMap.isSet(flags, FLAG_ISSHADOWED);
                     is180         = !BitMap.isSet(flags, FLAG_190);
+                    isCompressed  = BitMap.isSet(flags, FLAG_COMPRESSED);
 
                     if (BitMap.isSet(flags, FLAG_HX)) {
                         wrongVersion = true;
@@ -347,7 +351,8 @@ public class DataFileCache {
             if (preexists) {
                 int flags = getFlags();
 
-                is180 = !BitMap.isSet(flags, FLAG_190);
+                is180        = !BitMap.isSet(flags, FLAG_190);
+                isCompressed = BitMap.isSet(flags, FLAG_COMPRESSED);
 
                 dataFile.seek(LONG_EMPTY_SIZE);
 
@@ -439,7 +444,8 @@ public class DataFileCache {
 
                 int flags = dataFile.readInt();
 
-                is180 = !BitMap.isSet(flags, FLAG_190);
+                is180        = !BitMap.isSet(flags, FLAG_190);
+                isCompressed = BitMap.isSet(flags, FLAG_COMPRESSED);
 
                 dataFile.seek(LONG_FREE_POS_POS);
 
@@ -480,7 +486,8 @@ public class DataFileCache {
 
                 int flags = dataFile.readInt();
 
-                is180 = !BitMap.isSet(flags, FLAG_190);
+                is180        = !BitMap.isSet(flags, FLAG_190);
+                isCompressed = BitMap.isSet(flags, FLAG_COMPRESSED);
 
                 openShadowFile();
             } else {
@@ -531,9 +538,14 @@ public class DataFileCache {
             flags = BitMap.set(flags, FLAG_ISSAVED);
             flags = BitMap.set(flags, FLAG_190);
 
+            if (database.logger.propCompressData) {
+                flags = BitMap.set(flags, FLAG_COMPRESSED);
+            }
+
             setFlags(flags);
 
-            is180 = false;
+            is180        = false;
+            isCompressed = database.logger.propCompressData;
         } catch (Throwable t) {
             throw Error.error(ErrorCode.FILE_IO_ERROR, t);
         }
@@ -643,6 +655,8 @@ public class DataFileCache {
             logDetailEvent("dataFileCache file closed");
 
             dataFile = null;
+
+            closeBuffers();
         } catch (Throwable t) {
             logSevereEvent("DataFileCache.release", t);
         } finally {
@@ -669,6 +683,8 @@ public class DataFileCache {
 
             dataFile = null;
 
+            closeBuffers();
+
             boolean empty = fileFreePosition == initialFreePos;
 
             if (empty) {
@@ -689,6 +705,20 @@ public class DataFileCache {
         }
     }
 
+    /**
+     * Releases the zlib objects used for compressed row images.
+     */
+    private void closeBuffers() {
+
+        if (rowOut instanceof RowOutputBinaryEncode) {
+            ((RowOutputBinaryEncode) rowOut).close();
+        }
+
+        if (rowIn instanceof RowInputBinaryDecode) {
+            ((RowInputBinaryDecode) rowIn).close();
+        }
+    }
+
     protected void clear() {
 
         writeLock.lock();
@@ -799,6 +829,7 @@ public class DataFileCache {
                                                 cachedRowPadding);
             } else {
                 rowOut = new RowOutputBinaryEncode(database.logger.getCrypto(),
+                                                   isCompressed,
                                                    initIOBufferSize,
                                                    cachedRowPadding);
             }
@@ -809,6 +840,7 @@ public class DataFileCache {
                 rowIn = new RowInputBinary180(new byte[initIOBufferSize]);
             } else {
                 rowIn = new RowInputBinaryDecode(database.logger.getCrypto(),
+                                                 isCompressed,
                                                  new byte[initIOBufferSize]);
             }
         }
@@ -1538,6 +1570,23 @@ public class DataFileCache {
         return fileFreePosition;
     }
 
+    public boolean isDataCompressed() {
+        return isCompressed;
+    }
+
+    /**
+     * Percentage of row data size actually written to file since the cache
+     * was opened, or 100 when rows are not compressed.
+     */
+    public int getCompressionRatio() {
+
+        if (isCompressed && rowOut instanceof RowOutputBinaryEncode) {
+            return ((RowOutputBinaryEncode) rowOut).getCompressionRatio();
+        }
+
+        return 100;
+    }
+
     public int getCachedObjectCount() {
         return cache.size();
     }
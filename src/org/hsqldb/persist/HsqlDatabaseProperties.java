@@ -228,8 +228,12 @@ public class HsqlDatabaseProperties extends HsqlProperties {
     public static final String hsqldb_lob_file_scale = "hsqldb.lob_file_scale";
     public static final String hsqldb_lob_file_compressed =
         "hsqldb.lob_compressed";
+    public static final String hsqldb_lob_inline_size =
+        "hsqldb.lob_inline_size";
     public static final String hsqldb_cache_file_scale =
         "hsqldb.cache_file_scale";
+    public static final String hsqldb_cache_file_compressed =
+        "hsqldb.cache_file_compressed";
     public static final String hsqldb_cache_free_count =
         "hsqldb.cache_free_count";
     public static final String hsqldb_cache_rows = "hsqldb.cache_rows";
@@ -243,10 +247,13 @@ public class HsqlDatabaseProperties extends HsqlProperties {
     public static final String hsqldb_log_size       = "hsqldb.log_size";
     public static final String hsqldb_nio_data_file  = "hsqldb.nio_data_file";
     public static final String hsqldb_nio_max_size   = "hsqldb.nio_max_size";
+    public static final String hsqldb_nio_lobs_file  = "hsqldb.nio_lobs_file";
     public static final String hsqldb_script_format  = "hsqldb.script_format";
     public static final String hsqldb_temp_directory = "hsqldb.temp_directory";
     public static final String hsqldb_result_max_memory_rows =
         "hsqldb.result_max_memory_rows";
+    public static final String hsqldb_result_cache_size =
+        "hsqldb.result_cache_size";
     public static final String hsqldb_write_delay = "hsqldb.write_delay";
     public static final String hsqldb_write_delay_millis =
         "hsqldb.write_delay_millis";
@@ -280,6 +287,7 @@ public class HsqlDatabaseProperties extends HsqlProperties {
     public static final String sql_unique_nulls    = "sql.unique_nulls";
     public static final String sql_convert_trunc   = "sql.convert_trunc";
     public static final String sql_avg_scale       = "sql.avg_scale";
+    public static final String sql_max_recursive   = "sql.max_recursive";
     public static final String sql_double_nan      = "sql.double_nan";
     public static final String sql_syntax_db2      = "sql.syntax_db2";
     public static final String sql_syntax_mss      = "sql.syntax_mss";
@@ -306,6 +314,7 @@ public class HsqlDatabaseProperties extends HsqlProperties {
     public static final String textdb_vs           = "textdb.vs";
     public static final String textdb_lvs          = "textdb.lvs";
     public static final String textdb_qc           = "textdb.qc";
+    public static final String textdb_load_threads = "textdb.load_threads";
 
     //
     public static final String hsqldb_min_reuse = "hsqldb.min_reuse";
@@ -348,6 +357,9 @@ public class HsqlDatabaseProperties extends HsqlProperties {
         textMeta.put(textdb_cache_size,
                      HsqlProperties.getMeta(textdb_cache_size, SQL_PROPERTY,
                                             100, 10, 1000000));
+        textMeta.put(textdb_load_threads,
+                     HsqlProperties.getMeta(textdb_load_threads,
+                                            SQL_PROPERTY, 0, 0, 64));
         dbMeta.putAll(textMeta);
 
         // string defaults for protected props
@@ -411,6 +423,9 @@ public class HsqlDatabaseProperties extends HsqlProperties {
         dbMeta.put(hsqldb_nio_data_file,
                    HsqlProperties.getMeta(hsqldb_nio_data_file, SQL_PROPERTY,
                                           true));
+        dbMeta.put(hsqldb_nio_lobs_file,
+                   HsqlProperties.getMeta(hsqldb_nio_lobs_file, SQL_PROPERTY,
+                                          false));
         dbMeta.put(hsqldb_full_log_replay,
                    HsqlProperties.getMeta(hsqldb_full_log_replay,
                                           SQL_PROPERTY, false));
@@ -472,6 +487,9 @@ public class HsqlDatabaseProperties extends HsqlProperties {
         dbMeta.put(sql_avg_scale,
                    HsqlProperties.getMeta(sql_avg_scale, SQL_PROPERTY, 0, 0,
                                           10));
+        dbMeta.put(sql_max_recursive,
+                   HsqlProperties.getMeta(sql_max_recursive, SQL_PROPERTY,
+                                          256, 1, Integer.MAX_VALUE));
         dbMeta.put(sql_double_nan,
                    HsqlProperties.getMeta(sql_double_nan, SQL_PROPERTY, true));
         dbMeta.put(sql_syntax_db2,
@@ -532,6 +550,12 @@ public class HsqlDatabaseProperties extends HsqlProperties {
         dbMeta.put(hsqldb_lob_file_compressed,
                    HsqlProperties.getMeta(hsqldb_lob_file_compressed,
                                           SQL_PROPERTY, false));
+        dbMeta.put(hsqldb_lob_inline_size,
+                   HsqlProperties.getMeta(hsqldb_lob_inline_size,
+                                          SQL_PROPERTY, 0, 0, 16 * 1024));
+        dbMeta.put(hsqldb_cache_file_compressed,
+                   HsqlProperties.getMeta(hsqldb_cache_file_compressed,
+                                          SQL_PROPERTY, false));
 
         // this property is normally 8 - or 1 for old databases from early versions
         dbMeta.put(hsqldb_cache_file_scale,
@@ -563,6 +587,10 @@ public class HsqlDatabaseProperties extends HsqlProperties {
                    HsqlProperties.getMeta(hsqldb_result_max_memory_rows,
                                           SQL_PROPERTY, 0, 0,
                                           4 * 1024 * 1024));
+        dbMeta.put(hsqldb_result_cache_size,
+                   HsqlProperties.getMeta(hsqldb_result_cache_size,
+                                          SQL_PROPERTY, 0, 0,
+                                          4 * 1024 * 1024));
         dbMeta.put(hsqldb_nio_max_size,
                    HsqlProperties.getMeta(hsqldb_nio_max_size, SQL_PROPERTY,
                                           256, 64, 262144));
@@ -45,17 +45,26 @@ import org.hsqldb.Database;
 import org.hsqldb.DatabaseType;
 import org.hsqldb.HsqlException;
 import org.hsqldb.HsqlNameManager.HsqlName;
+import org.hsqldb.NumberSequence;
+import org.hsqldb.OpTypes;
+import org.hsqldb.Row;
 import org.hsqldb.Session;
 import org.hsqldb.SessionInterface;
+import org.hsqldb.SqlInvariants;
 import org.hsqldb.Statement;
+import org.hsqldb.StatementDML;
+import org.hsqldb.StatementTypes;
 import org.hsqldb.Table;
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
+import org.hsqldb.index.Index;
 import org.hsqldb.lib.ArrayUtil;
 import org.hsqldb.lib.HashMappedList;
 import org.hsqldb.lib.HsqlByteArrayInputStream;
 import org.hsqldb.lib.LineGroupReader;
+import org.hsqldb.lib.LongKeyHashMap;
 import org.hsqldb.map.ValuePool;
+import org.hsqldb.navigator.RowIterator;
 import org.hsqldb.navigator.RowSetNavigator;
 import org.hsqldb.result.Result;
 import org.hsqldb.result.ResultLob;
@@ -66,6 +75,7 @@ import org.hsqldb.types.BlobDataID;
 import org.hsqldb.types.ClobData;
 import org.hsqldb.types.ClobDataID;
 import org.hsqldb.types.Collation;
+import org.hsqldb.types.Type;
 import org.hsqldb.types.Types;
 
 /**
@@ -94,6 +104,7 @@ public class LobManager {
     boolean cryptLobs;
     boolean compressLobs;
     int     lobBlockSize;
+    int     lobInlineSize;
     int     largeLobBlockSize    = SessionInterface.lobStreamBlockSize;
     int     totalBlockLimitCount = Integer.MAX_VALUE;
 
@@ -120,6 +131,21 @@ public class LobManager {
     //
     boolean usageChanged;
 
+    // lob directory - lob header and block addresses by lob id
+    LongKeyHashMap    lobDirectory   = new LongKeyHashMap();
+    DirectoryEntry    directoryFirst;
+    DirectoryEntry    directoryLast;
+    int               directoryLimit = 4096;
+    long              directoryHitCount;
+
+    // SYSTEM_LOBS objects changed directly when new lobs are created
+    Table          lobIdsTable;
+    Table          lobsTable;
+    Table          blocksTable;
+    Index          blocksCountIndex;
+    NumberSequence lobIdSequence;
+    Statement      directAction;
+
     //
     ReadWriteLock lock      = new ReentrantReadWriteLock();
     Lock          writeLock = lock.writeLock();
@@ -133,6 +159,13 @@ public class LobManager {
         int LOB_ID       = 3;
     }
 
+    private interface BLOCKS {
+
+        int BLOCK_ADDR  = 0;
+        int BLOCK_COUNT = 1;
+        int TX_ID       = 2;
+    }
+
     private interface LOB_IDS {
 
         int LOB_ID          = 0;
@@ -298,6 +331,32 @@ public class LobManager {
             getSpanningParts = sysLobSession.compileStatement(getPartsSQL);
             getLastPart      = sysLobSession.compileStatement(getLastPartSQL);
             createPart       = sysLobSession.compileStatement(createPartSQL);
+
+            //
+            lobIdsTable = database.schemaManager.getUserTable("LOB_IDS",
+                    SqlInvariants.LOBS_SCHEMA);
+            lobsTable = database.schemaManager.getUserTable("LOBS",
+                    SqlInvariants.LOBS_SCHEMA);
+            blocksTable = database.schemaManager.getUserTable("BLOCKS",
+                    SqlInvariants.LOBS_SCHEMA);
+            lobIdSequence = database.schemaManager.getSequence("LOB_ID",
+                    SqlInvariants.LOBS_SCHEMA, true);
+            blocksCountIndex = null;
+
+            Index[] indexes = blocksTable.getIndexList();
+
+            for (int i = 0; i < indexes.length; i++) {
+                if (indexes[i].getName().name.equals("BLOCKS_IDX1")) {
+                    blocksCountIndex = indexes[i];
+                }
+            }
+
+            directAction = new StatementDML(StatementTypes.UPDATE_CURSOR,
+                                            StatementTypes.X_SQL_DATA_CHANGE,
+                                            null);
+
+            directAction.setCompileTimestamp(Long.MAX_VALUE);
+            clearDirectory();
         } finally {
             writeLock.unlock();
         }
@@ -333,8 +392,9 @@ public class LobManager {
     public void open() {
 
         lobBlockSize = database.logger.getLobBlockSize();
-        cryptLobs    = database.logger.cryptLobs;
-        compressLobs = database.logger.propCompressLobs;
+        cryptLobs     = database.logger.cryptLobs;
+        compressLobs  = database.logger.propCompressLobs;
+        lobInlineSize = database.logger.getLobInlineSize();
 
         if (compressLobs || cryptLobs) {
             int largeBufferBlockSize = largeLobBlockSize + 4 * 1024;
@@ -376,6 +436,8 @@ public class LobManager {
         }
 
         lobStore = null;
+
+        clearDirectory();
     }
 
     public LobStore getLobStore() {
@@ -388,31 +450,43 @@ public class LobManager {
     }
 
     //
+    /**
+     * Returns the next lob id. The sequence update is logged when the
+     * sysLobSession next commits.
+     */
     private Long getNewLobID() {
 
-        Result result = getNextLobId.execute(sysLobSession);
+        sysLobSession.sessionData.startRowProcessing();
 
-        if (result.isError()) {
-            return Long.valueOf(0);
-        }
+        return (Long) sysLobSession.sessionData.getSequenceValue(
+            lobIdSequence);
+    }
 
-        RowSetNavigator navigator = result.getNavigator();
-        boolean         next      = navigator.next();
+    /**
+     * Returns the LOB_IDS row for the lob. The row is kept in the lob
+     * directory once read. The LOB_USAGE_COUNT in the returned row is not
+     * maintained and must not be used.
+     */
+    private Object[] getLobHeader(long lobID) {
 
-        if (!next) {
-            navigator.release();
+        DirectoryEntry entry = getDirectoryEntry(lobID);
 
-            return Long.valueOf(0);
+        if (entry != null && entry.header != null) {
+            directoryHitCount++;
+
+            return entry.header;
         }
 
-        Object[] data = navigator.getCurrent();
+        Object[] data = getLobHeaderFromTable(lobID);
 
-        navigator.release();
+        if (data != null) {
+            putDirectoryEntry(lobID, data, null);
+        }
 
-        return (Long) data[0];
+        return data;
     }
 
-    private Object[] getLobHeader(long lobID) {
+    private Object[] getLobHeaderFromTable(long lobID) {
 
         ResultMetaData meta   = getLob.getParametersMetaData();
         Object[]       params = new Object[meta.getColumnCount()];
@@ -485,19 +559,7 @@ public class LobManager {
         writeLock.lock();
 
         try {
-            Long           lobID  = getNewLobID();
-            ResultMetaData meta   = createLob.getParametersMetaData();
-            Object[]       params = new Object[meta.getColumnCount()];
-
-            params[LOB_IDS.LOB_ID]          = lobID;
-            params[LOB_IDS.LOB_LENGTH]      = ValuePool.getLong(length);
-            params[LOB_IDS.LOB_USAGE_COUNT] = ValuePool.INTEGER_0;
-            params[LOB_IDS.LOB_TYPE]        = ValuePool.getInt(Types.SQL_BLOB);
-
-            Result result = sysLobSession.executeCompiledStatement(createLob,
-                params, 0);
-
-            return lobID.longValue();
+            return createLobDirect(length, Types.SQL_BLOB);
         } finally {
             writeLock.unlock();
         }
@@ -508,22 +570,40 @@ public class LobManager {
         writeLock.lock();
 
         try {
-            Long           lobID  = getNewLobID();
-            ResultMetaData meta   = createLob.getParametersMetaData();
-            Object[]       params = new Object[meta.getColumnCount()];
+            return createLobDirect(length, Types.SQL_CLOB);
+        } finally {
+            writeLock.unlock();
+        }
+    }
 
-            params[LOB_IDS.LOB_ID]          = lobID;
-            params[LOB_IDS.LOB_LENGTH]      = ValuePool.getLong(length);
-            params[LOB_IDS.LOB_USAGE_COUNT] = ValuePool.INTEGER_0;
-            params[LOB_IDS.LOB_TYPE]        = ValuePool.getInt(Types.SQL_CLOB);
+    /**
+     * Inserts the LOB_IDS row of a new lob directly, without executing the
+     * createLob statement, and commits it in the sysLobSession.
+     */
+    private long createLobDirect(long length, int type) {
 
-            Result result = sysLobSession.executeCompiledStatement(createLob,
-                params, 0);
+        Long     lobID = getNewLobID();
+        Object[] data  = new Object[lobIdsTable.getColumnCount()];
 
-            return lobID.longValue();
-        } finally {
-            writeLock.unlock();
+        data[LOB_IDS.LOB_ID]          = lobID;
+        data[LOB_IDS.LOB_LENGTH]      = ValuePool.getLong(length);
+        data[LOB_IDS.LOB_USAGE_COUNT] = ValuePool.INTEGER_0;
+        data[LOB_IDS.LOB_TYPE]        = ValuePool.getInt(type);
+
+        beginDirectAction();
+
+        try {
+            insertDirect(lobIdsTable, data);
+        } catch (HsqlException e) {
+            endDirectAction(false);
+
+            throw e;
         }
+
+        endDirectAction(true);
+        putNewLobDirectory(lobID.longValue(), data);
+
+        return lobID.longValue();
     }
 
     public Result deleteLob(long lobID) {
@@ -541,6 +621,8 @@ public class LobManager {
                 sysLobSession.executeCompiledStatement(deleteLobCall, params,
                     0);
 
+            removeDirectoryEntry(lobID);
+
             usageChanged = true;
 
             return result;
@@ -572,6 +654,8 @@ public class LobManager {
                 sysLobSession.executeCompiledStatement(deleteUnusedLobs,
                     params, 0);
 
+            clearDirectory();
+
             if (result.isError()) {
                 return result;
             }
@@ -638,6 +722,131 @@ public class LobManager {
         }
     }
 
+    /**
+     * Replaces each lob locator in the data of a new row with a locator that
+     * holds the lob contents, when the lob is not larger than the inline size
+     * in bytes. The row no longer references the lob, which is deleted with
+     * other unused lobs at the next checkpoint. Locators that already hold
+     * their contents are left as they are.
+     */
+    public void setInlineLobs(Type[] types, Object[] data) {
+
+        if (lobInlineSize == 0
+                || database.getState() != Database.DATABASE_ONLINE) {
+            return;
+        }
+
+        for (int i = 0; i < types.length; i++) {
+            if (!types[i].isLobType() || data[i] == null) {
+                continue;
+            }
+
+            if (data[i] instanceof BlobDataID) {
+                BlobDataID blob = (BlobDataID) data[i];
+
+                if (!blob.isInline()) {
+                    byte[] bytes = readInlineBytes(blob.getId(), false);
+
+                    if (bytes != null) {
+                        data[i] = new BlobDataID(bytes);
+                    }
+                }
+            } else if (data[i] instanceof ClobDataID) {
+                ClobDataID clob = (ClobDataID) data[i];
+
+                if (!clob.isInline()) {
+                    byte[] bytes = readInlineBytes(clob.getId(), true);
+
+                    if (bytes != null) {
+                        data[i] = new ClobDataID(
+                            ArrayUtil.byteArrayToChars(bytes));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces each locator that holds its lob contents in the data of a new
+     * row with a locator for a new lob with the same contents. Used for TEXT
+     * tables, which store only the lob id in the row.
+     */
+    public void setStoredLobs(Session session, Type[] types, Object[] data) {
+
+        for (int i = 0; i < types.length; i++) {
+            if (!types[i].isLobType() || data[i] == null) {
+                continue;
+            }
+
+            if (data[i] instanceof BlobDataID) {
+                BlobDataID blob = (BlobDataID) data[i];
+
+                if (blob.isInline()) {
+                    byte[] bytes = blob.getBytes(session, 0,
+                                                 (int) blob.length(session));
+                    BlobData lob = session.createBlob(bytes.length);
+
+                    lob.setBytes(session, 0, bytes);
+
+                    data[i] = lob;
+                }
+            } else if (data[i] instanceof ClobDataID) {
+                ClobDataID clob = (ClobDataID) data[i];
+
+                if (clob.isInline()) {
+                    char[]   chars = clob.getChars(session, 0,
+                                                   (int) clob.length(session));
+                    ClobData lob   = session.createClob(chars.length);
+
+                    lob.setChars(session, 0, chars, 0, chars.length);
+
+                    data[i] = lob;
+                }
+            }
+        }
+    }
+
+    private byte[] readInlineBytes(long lobID, boolean isClob) {
+
+        writeLock.lock();
+
+        try {
+            Object[] data = getLobHeader(lobID);
+
+            if (data == null) {
+                return null;
+            }
+
+            long length = ((Long) data[LOB_IDS.LOB_LENGTH]).longValue();
+
+            if (isClob) {
+                length *= 2;
+            }
+
+            if (length > lobInlineSize) {
+                return null;
+            }
+
+            Result result;
+
+            if (compressLobs || cryptLobs) {
+                result = getBytesCompressed(lobID, 0, (int) length, isClob);
+            } else {
+                result = getBytesNormal(lobID, 0, (int) length);
+            }
+
+            if (result.isError()) {
+                return null;
+            }
+
+            usageChanged = true;
+
+            return ((ResultLob) result).getByteArray();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
     public Result getLength(long lobID) {
 
         writeLock.lock();
@@ -660,7 +869,18 @@ public class LobManager {
         }
     }
 
-    public int compare(long lobId, byte[] b) {
+    public int compare(BlobData a, byte[] b) {
+
+        byte[] aBytes = getInlineBytes(a);
+
+        if (aBytes != null) {
+            return ArrayUtil.compare(aBytes, b);
+        }
+
+        return compare(a.getId(), b);
+    }
+
+    private int compare(long lobId, byte[] b) {
 
         writeLock.lock();
 
@@ -737,6 +957,18 @@ public class LobManager {
 
     public int compare(BlobData a, BlobData b) {
 
+        byte[] aBytes = getInlineBytes(a);
+        byte[] bBytes = getInlineBytes(b);
+
+        if (aBytes != null) {
+            return bBytes == null ? -compare(b.getId(), aBytes)
+                                  : ArrayUtil.compare(aBytes, bBytes);
+        }
+
+        if (bBytes != null) {
+            return compare(a.getId(), bBytes);
+        }
+
         if (a.getId() == b.getId()) {
             return 0;
         }
@@ -754,8 +986,19 @@ public class LobManager {
         }
     }
 
+    public int compare(Collation collation, ClobData a, String b) {
+
+        char[] aChars = getInlineChars(a);
+
+        if (aChars != null) {
+            return collation.compare(new String(aChars), b);
+        }
+
+        return compare(collation, a.getId(), b);
+    }
+
     /** @todo - implement as compareText() */
-    public int compare(Collation collation, long lobId, String b) {
+    private int compare(Collation collation, long lobId, String b) {
 
         writeLock.lock();
 
@@ -837,6 +1080,19 @@ public class LobManager {
 
     public int compare(Collation collation, ClobData a, ClobData b) {
 
+        char[] aChars = getInlineChars(a);
+        char[] bChars = getInlineChars(b);
+
+        if (aChars != null) {
+            return bChars == null
+                   ? -compare(collation, b.getId(), new String(aChars))
+                   : collation.compare(new String(aChars), new String(bChars));
+        }
+
+        if (bChars != null) {
+            return compare(collation, a.getId(), new String(bChars));
+        }
+
         if (a.getId() == b.getId()) {
             return 0;
         }
@@ -854,6 +1110,24 @@ public class LobManager {
         }
     }
 
+    private static byte[] getInlineBytes(BlobData blob) {
+
+        if (blob instanceof BlobDataID) {
+            return ((BlobDataID) blob).getInlineBytes();
+        }
+
+        return null;
+    }
+
+    private static char[] getInlineChars(ClobData clob) {
+
+        if (clob instanceof ClobDataID) {
+            return ((ClobDataID) clob).getInlineChars();
+        }
+
+        return null;
+    }
+
     private int compareBytesNormal(long aID, long bID) {
 
         Object[] data    = getLobHeader(aID);
@@ -1065,6 +1339,8 @@ public class LobManager {
                 return result;
             }
 
+            putNewLobDirectory(newLobID.longValue(), params);
+
             if (newLength == 0) {
                 return ResultLob.newLobSetResponse(newLobID.longValue(),
                                                    newLength);
@@ -1231,16 +1507,17 @@ public class LobManager {
         }
     }
 
+    /**
+     * Reads the bytes of each part directly from the LobStore into the
+     * response array, without allocating a byte[] per part.
+     */
     private Result getBytesNormal(long lobID, long offset, int length) {
 
         int blockOffset     = (int) (offset / lobBlockSize);
-        int byteBlockOffset = (int) (offset % lobBlockSize);
         int blockLimit      = (int) ((offset + length) / lobBlockSize);
         int byteLimitOffset = (int) ((offset + length) % lobBlockSize);
 
-        if (byteLimitOffset == 0) {
-            byteLimitOffset = lobBlockSize;
-        } else {
+        if (byteLimitOffset != 0) {
             blockLimit++;
         }
 
@@ -1258,68 +1535,40 @@ public class LobManager {
             return Result.newErrorResult(Error.error(ErrorCode.X_0F502));
         }
 
-        //
-        int i = 0;
-        int blockCount = blockAddresses[i][LOBS.BLOCK_COUNT]
-                         + blockAddresses[i][LOBS.BLOCK_OFFSET] - blockOffset;
-
-        if (blockAddresses[i][LOBS.BLOCK_COUNT]
-                + blockAddresses[i][LOBS.BLOCK_OFFSET] > blockLimit) {
-            blockCount -= (blockAddresses[i][LOBS.BLOCK_COUNT]
-                           + blockAddresses[i][LOBS.BLOCK_OFFSET]
-                           - blockLimit);
-        }
-
-        byte[] bytes;
-
-        try {
-            bytes = getLobStore().getBlockBytes(
-                blockAddresses[i][LOBS.BLOCK_ADDR]
-                - blockAddresses[i][LOBS.BLOCK_OFFSET]
-                + blockOffset, blockCount);
-        } catch (HsqlException e) {
-            return Result.newErrorResult(e);
-        }
-
-        int subLength = lobBlockSize * blockCount - byteBlockOffset;
-
-        if (subLength > length) {
-            subLength = length;
-        }
-
-        System.arraycopy(bytes, byteBlockOffset, dataBytes, dataBytesPosition,
-                         subLength);
+        long limit = offset + length;
 
-        dataBytesPosition += subLength;
+        for (int i = 0; i < blockAddresses.length && dataBytesPosition < length;
+                i++) {
+            long partStart = (long) blockAddresses[i][LOBS.BLOCK_OFFSET]
+                             * lobBlockSize;
+            long partLimit = partStart
+                             + (long) blockAddresses[i][LOBS.BLOCK_COUNT]
+                               * lobBlockSize;
+            long readStart = offset + dataBytesPosition;
 
-        i++;
+            if (readStart < partStart) {
+                break;
+            }
 
-        for (; i < blockAddresses.length && dataBytesPosition < length; i++) {
-            blockCount = blockAddresses[i][LOBS.BLOCK_COUNT];
+            if (partLimit > limit) {
+                partLimit = limit;
+            }
 
-            if (blockAddresses[i][LOBS.BLOCK_COUNT]
-                    + blockAddresses[i][LOBS.BLOCK_OFFSET] > blockLimit) {
-                blockCount -= (blockAddresses[i][LOBS.BLOCK_COUNT]
-                               + blockAddresses[i][LOBS.BLOCK_OFFSET]
-                               - blockLimit);
+            if (readStart >= partLimit) {
+                continue;
             }
 
+            long position = (long) blockAddresses[i][LOBS.BLOCK_ADDR]
+                            * lobBlockSize + readStart - partStart;
+            int subLength = (int) (partLimit - readStart);
+
             try {
-                bytes = getLobStore().getBlockBytes(
-                    blockAddresses[i][LOBS.BLOCK_ADDR], blockCount);
+                getLobStore().getBlockBytes(dataBytes, position,
+                                            dataBytesPosition, subLength);
             } catch (HsqlException e) {
                 return Result.newErrorResult(e);
             }
 
-            subLength = lobBlockSize * blockCount;
-
-            if (subLength > length - dataBytesPosition) {
-                subLength = length - dataBytesPosition;
-            }
-
-            System.arraycopy(bytes, 0, dataBytes, dataBytesPosition,
-                             subLength);
-
             dataBytesPosition += subLength;
         }
 
@@ -1715,6 +1964,7 @@ public class LobManager {
                 sysLobSession.executeCompiledStatement(deleteLobPartCall,
                     params, 0);
 
+            removeDirectoryBlocks(lobID);
             setLength(lobID, offset);
 
             return ResultLob.newLobTruncateResponse(lobID, offset);
@@ -1734,6 +1984,8 @@ public class LobManager {
         Result result = sysLobSession.executeCompiledStatement(updateLobLength,
             params, 0);
 
+        removeDirectoryHeader(lobID);
+
         return result;
     }
 
@@ -1762,8 +2014,58 @@ public class LobManager {
         return result;
     }
 
+    /**
+     * Returns the blocks of the lob that overlap the block range. The full
+     * list of blocks for the lob is kept in the lob directory once read.
+     */
     private int[][] getBlockAddresses(long lobID, int offset, int limit) {
 
+        DirectoryEntry entry  = getDirectoryEntry(lobID);
+        int[][]        blocks = null;
+
+        if (entry != null) {
+            blocks = entry.blocks;
+        }
+
+        if (blocks == null) {
+            blocks = getBlockAddressesFromTable(lobID, 0, Integer.MAX_VALUE);
+
+            putDirectoryEntry(lobID, null, blocks);
+        } else {
+            directoryHitCount++;
+        }
+
+        if (offset == 0 && limit == Integer.MAX_VALUE) {
+            return blocks;
+        }
+
+        int first = 0;
+        int last  = blocks.length;
+
+        while (first < last
+                && blocks[first][LOBS.BLOCK_OFFSET]
+                   + blocks[first][LOBS.BLOCK_COUNT] <= offset) {
+            first++;
+        }
+
+        while (last > first && blocks[last - 1][LOBS.BLOCK_OFFSET] >= limit) {
+            last--;
+        }
+
+        if (first == 0 && last == blocks.length) {
+            return blocks;
+        }
+
+        int[][] subset = new int[last - first][];
+
+        System.arraycopy(blocks, first, subset, 0, last - first);
+
+        return subset;
+    }
+
+    private int[][] getBlockAddressesFromTable(long lobID, int offset,
+            int limit) {
+
         ResultMetaData meta   = getSpanningBlocks.getParametersMetaData();
         Object[]       params = new Object[meta.getColumnCount()];
 
@@ -1813,6 +2115,8 @@ public class LobManager {
         Result result =
             sysLobSession.executeCompiledStatement(deleteLobPartCall, params,
                 0);
+
+        removeDirectoryBlocks(lobID);
     }
 
     private void divideBlockAddresses(long lobID, int offset) {
@@ -1826,10 +2130,16 @@ public class LobManager {
         Result result =
             sysLobSession.executeCompiledStatement(divideLobPartCall, params,
                 0);
+
+        removeDirectoryBlocks(lobID);
     }
 
     private Result createBlockAddresses(long lobID, int offset, int count) {
 
+        if (createBlockAddressesDirect(lobID, offset, count)) {
+            return Result.updateOneResult;
+        }
+
         ResultMetaData meta   = createLobPartCall.getParametersMetaData();
         Object[]       params = new Object[meta.getColumnCount()];
 
@@ -1841,6 +2151,8 @@ public class LobManager {
             sysLobSession.executeCompiledStatement(createLobPartCall, params,
                 0);
 
+        removeDirectoryBlocks(lobID);
+
         return result;
     }
 
@@ -1858,6 +2170,8 @@ public class LobManager {
             sysLobSession.executeCompiledStatement(createSingleLobPartCall,
                 params, 0);
 
+        removeDirectoryBlocks(lobID);
+
         return result;
     }
 
@@ -1881,6 +2195,283 @@ public class LobManager {
         return result;
     }
 
+    /**
+     * Allocates a single range of free blocks to a new lob by changing the
+     * BLOCKS and LOBS rows directly, without executing the ALLOC_BLOCKS
+     * procedure. Returns false if the block list of the lob is not in the
+     * directory or no free range is large enough, in which case the
+     * procedure is used.
+     */
+    private boolean createBlockAddressesDirect(long lobID, int offset,
+            int count) {
+
+        DirectoryEntry entry = getDirectoryEntry(lobID);
+
+        if (entry == null || entry.blocks == null
+                || blocksCountIndex == null) {
+            return false;
+        }
+
+        PersistentStore store = blocksTable.getRowStore(sysLobSession);
+        Object[]        key   = new Object[]{ ValuePool.getInt(count) };
+        RowIterator it = blocksCountIndex.findFirstRow(sysLobSession, store,
+            key, 1, 0, OpTypes.GREATER_EQUAL, false, null);
+        Row row = null;
+
+        while (it.next()) {
+            Object[] data = it.getCurrent();
+
+            if (((Long) data[BLOCKS.TX_ID]).longValue() == 0) {
+                row = it.getCurrentRow();
+
+                break;
+            }
+        }
+
+        it.release();
+
+        if (row == null) {
+            return false;
+        }
+
+        Object[] data = row.getData();
+        int      addr = ((Integer) data[BLOCKS.BLOCK_ADDR]).intValue();
+        int      free = ((Integer) data[BLOCKS.BLOCK_COUNT]).intValue();
+
+        beginDirectAction();
+
+        try {
+            sysLobSession.addDeleteAction(blocksTable, store, row, null);
+
+            if (free > count) {
+                insertDirect(blocksTable, new Object[] {
+                    ValuePool.getInt(addr + count),
+                    ValuePool.getInt(free - count), ValuePool.getLong(0)
+                });
+            }
+
+            insertDirect(lobsTable, new Object[] {
+                ValuePool.getInt(addr), ValuePool.getInt(count),
+                ValuePool.getInt(offset), ValuePool.getLong(lobID)
+            });
+        } catch (HsqlException e) {
+            endDirectAction(false);
+            removeDirectoryBlocks(lobID);
+
+            return false;
+        }
+
+        endDirectAction(true);
+
+        int[][] blocks = (int[][]) ArrayUtil.resizeArray(entry.blocks,
+            entry.blocks.length + 1);
+
+        blocks[blocks.length - 1] = new int[] {
+            addr, count, offset
+        };
+        entry.blocks = blocks;
+
+        return true;
+    }
+
+    private void beginDirectAction() {
+        sysLobSession.sessionContext.currentStatement = directAction;
+
+        sysLobSession.beginAction(directAction);
+    }
+
+    private void endDirectAction(boolean success) {
+
+        if (success) {
+            sysLobSession.endAction(Result.updateOneResult);
+            sysLobSession.commit(false);
+        } else {
+            sysLobSession.endAction(
+                Result.newErrorResult(Error.error(ErrorCode.GENERAL_ERROR)));
+            sysLobSession.rollback(false);
+        }
+
+        sysLobSession.sessionContext.currentStatement = null;
+    }
+
+    private void insertDirect(Table table, Object[] data) {
+
+        PersistentStore store = table.getRowStore(sysLobSession);
+        Row row = (Row) store.getNewCachedObject(sysLobSession, data, true);
+
+        database.txManager.addInsertAction(sysLobSession, table, store, row,
+                                           null);
+    }
+
+    /**
+     * The lob directory holds the LOB_IDS rows and LOBS block lists for
+     * recently used lobs, so that reads and small writes avoid executing the
+     * SYSTEM_LOBS lookup statements. The SYSTEM_LOBS tables remain the
+     * logged, persistent record; each change made through this class
+     * updates or removes the affected entries. The least recently used
+     * entry is removed when the directory is full. The directory is not used
+     * while the database is opening, as the log replay changes the tables
+     * directly.
+     */
+    private DirectoryEntry getDirectoryEntry(long lobID) {
+
+        DirectoryEntry entry = (DirectoryEntry) lobDirectory.get(lobID);
+
+        if (entry != null && entry != directoryFirst) {
+            unlinkDirectoryEntry(entry);
+            linkDirectoryEntry(entry);
+        }
+
+        return entry;
+    }
+
+    private void putDirectoryEntry(long lobID, Object[] header,
+                                   int[][] blocks) {
+
+        if (database.getState() != Database.DATABASE_ONLINE) {
+            return;
+        }
+
+        DirectoryEntry entry = getDirectoryEntry(lobID);
+
+        if (entry == null) {
+            entry = new DirectoryEntry(lobID);
+
+            lobDirectory.put(lobID, entry);
+            linkDirectoryEntry(entry);
+
+            while (lobDirectory.size() > directoryLimit) {
+                removeDirectoryEntry(directoryLast.lobID);
+            }
+        }
+
+        if (header != null) {
+            entry.header = header;
+        }
+
+        if (blocks != null) {
+            entry.blocks = blocks;
+        }
+    }
+
+    private void putNewLobDirectory(long lobID, Object[] header) {
+        putDirectoryEntry(lobID, header, new int[0][]);
+    }
+
+    private void removeDirectoryHeader(long lobID) {
+
+        DirectoryEntry entry = (DirectoryEntry) lobDirectory.get(lobID);
+
+        if (entry != null) {
+            entry.header = null;
+        }
+    }
+
+    private void removeDirectoryBlocks(long lobID) {
+
+        DirectoryEntry entry = (DirectoryEntry) lobDirectory.get(lobID);
+
+        if (entry != null) {
+            entry.blocks = null;
+        }
+    }
+
+    private void removeDirectoryEntry(long lobID) {
+
+        DirectoryEntry entry = (DirectoryEntry) lobDirectory.remove(lobID);
+
+        if (entry != null) {
+            unlinkDirectoryEntry(entry);
+        }
+    }
+
+    private void clearDirectory() {
+
+        lobDirectory.clear();
+
+        directoryFirst = null;
+        directoryLast  = null;
+    }
+
+    private void linkDirectoryEntry(DirectoryEntry entry) {
+
+        entry.previous = null;
+        entry.next     = directoryFirst;
+
+        if (directoryFirst == null) {
+            directoryLast = entry;
+        } else {
+            directoryFirst.previous = entry;
+        }
+
+        directoryFirst = entry;
+    }
+
+    private void unlinkDirectoryEntry(DirectoryEntry entry) {
+
+        if (entry.previous == null) {
+            directoryFirst = entry.next;
+        } else {
+            entry.previous.next = entry.next;
+        }
+
+        if (entry.next == null) {
+            directoryLast = entry.previous;
+        } else {
+            entry.next.previous = entry.previous;
+        }
+
+        entry.previous = null;
+        entry.next     = null;
+    }
+
+    /**
+     * Returns the number of lobs in the directory.
+     */
+    public int getDirectorySize() {
+
+        writeLock.lock();
+
+        try {
+            return lobDirectory.size();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of lob header and block list lookups answered by
+     * the directory.
+     */
+    public long getDirectoryHitCount() {
+
+        writeLock.lock();
+
+        try {
+            return directoryHitCount;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Sets the maximum number of lobs in the directory.
+     */
+    public void setDirectoryLimit(int limit) {
+
+        writeLock.lock();
+
+        try {
+            directoryLimit = limit;
+
+            while (lobDirectory.size() > directoryLimit) {
+                removeDirectoryEntry(directoryLast.lobID);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
     private int getBlockAddress(int[][] blockAddresses, int blockOffset) {
 
         for (int i = 0; i < blockAddresses.length; i++) {
@@ -2298,4 +2889,17 @@ public class LobManager {
 
         return blocks;
     }
+
+    private static final class DirectoryEntry {
+
+        final long     lobID;
+        Object[]       header;
+        int[][]        blocks;
+        DirectoryEntry previous;
+        DirectoryEntry next;
+
+        DirectoryEntry(long lobID) {
+            this.lobID = lobID;
+        }
+    }
 }
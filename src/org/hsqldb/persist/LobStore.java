@@ -33,13 +33,20 @@ package org.hsqldb.persist;
 
 /**
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.3.0
+ * @version 2.5.1
  * @since 1.9.0
  */
 public interface LobStore {
 
     byte[] getBlockBytes(int blockAddress, int blockCount);
 
+    /**
+     * Reads length bytes starting at byte position of the store directly
+     * into dataBytes, without an intermediate block array.
+     */
+    void getBlockBytes(byte[] dataBytes, long position, int offset,
+                       int length);
+
     void setBlockBytes(byte[] dataBytes, int blockAddress, int blockCount);
 
     void setBlockBytes(byte[] dataBytes, long position, int offset,
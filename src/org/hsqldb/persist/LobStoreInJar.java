@@ -42,7 +42,7 @@ import org.hsqldb.error.ErrorCode;
 
 /**
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.3.0
+ * @version 2.5.1
  * @since 1.9.0
  */
 public class LobStoreInJar implements LobStore {
@@ -85,6 +85,19 @@ public class LobStoreInJar implements LobStore {
         }
     }
 
+    public void getBlockBytes(byte[] dataBytes, long position, int offset,
+                              int length) {
+
+        try {
+            fileSeek(position);
+            dataInput.readFully(dataBytes, offset, length);
+
+            realPosition = position + length;
+        } catch (Throwable t) {
+            throw Error.error(ErrorCode.DATA_FILE_ERROR, t);
+        }
+    }
+
     public void setBlockBytes(byte[] dataBytes, int blockAddress,
                               int blockCount) {}
 
@@ -36,8 +36,12 @@ import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
 
 /**
+ * File based LobStore. When the hsqldb.nio_lobs_file property is true, the
+ * .lobs file is accessed via an RAFileHybrid, which maps the file into
+ * memory up to the NIO size limit, in the same way as the .data file.
+ *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.3.3
+ * @version 2.5.1
  * @since 1.9.0
  */
 public class LobStoreRAFile implements LobStore {
@@ -46,6 +50,7 @@ public class LobStoreRAFile implements LobStore {
     String                fileName;
     RandomAccessInterface file;
     Database              database;
+    boolean               isNio;
 
     public LobStoreRAFile(Database database, int lobBlockSize) {
 
@@ -70,8 +75,14 @@ public class LobStoreRAFile implements LobStore {
         try {
             boolean readonly = database.isFilesReadOnly();
 
-            file = new RAFileSimple(database.logger, fileName, readonly ? "r"
-                                                                        : "rws");
+            if (database.logger.propNioLobsFile) {
+                file  = new RAFileHybrid(database, fileName, readonly);
+                isNio = true;
+            } else {
+                file = new RAFileSimple(database.logger, fileName,
+                                        readonly ? "r"
+                                                 : "rws");
+            }
         } catch (Throwable t) {
             throw Error.error(ErrorCode.DATA_FILE_ERROR, t);
         }
@@ -97,6 +108,21 @@ public class LobStoreRAFile implements LobStore {
         }
     }
 
+    public void getBlockBytes(byte[] dataBytes, long position, int offset,
+                              int length) {
+
+        if (file == null) {
+            throw Error.error(ErrorCode.FILE_IO_ERROR);
+        }
+
+        try {
+            file.seek(position);
+            file.read(dataBytes, offset, length);
+        } catch (Throwable t) {
+            throw Error.error(ErrorCode.DATA_FILE_ERROR, t);
+        }
+    }
+
     public void setBlockBytes(byte[] dataBytes, int blockAddress,
                               int blockCount) {
 
@@ -108,6 +134,7 @@ public class LobStoreRAFile implements LobStore {
             long address = (long) blockAddress * lobBlockSize;
             int  count   = blockCount * lobBlockSize;
 
+            ensureLength(address + count);
             file.seek(address);
             file.write(dataBytes, 0, count);
         } catch (Throwable t) {
@@ -127,6 +154,7 @@ public class LobStoreRAFile implements LobStore {
         }
 
         try {
+            ensureLength(position + length);
             file.seek(position);
             file.write(dataBytes, offset, length);
         } catch (Throwable t) {
@@ -134,6 +162,19 @@ public class LobStoreRAFile implements LobStore {
         }
     }
 
+    /**
+     * Mapped files must be enlarged before writing beyond the current
+     * length.
+     */
+    private void ensureLength(long length) {
+
+        if (isNio) {
+            if (!file.ensureLength(length)) {
+                throw Error.error(ErrorCode.DATA_FILE_IS_FULL);
+            }
+        }
+    }
+
     public int getBlockSize() {
         return lobBlockSize;
     }
@@ -86,7 +86,7 @@ import org.hsqldb.types.Type;
  *  storage.<p>
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.7.0
  */
 public class Logger implements EventLogInterface {
@@ -107,6 +107,7 @@ public class Logger implements EventLogInterface {
     private boolean propIsFileDatabase;
     boolean         propIncrementBackup;
     boolean         propNioDataFile;
+    boolean         propNioLobsFile;
     long            propNioMaxSize    = 256 * 1024 * 1024L;
     int             propMaxFreeBlocks = 512;
     int             propMinReuse      = 0;
@@ -114,6 +115,7 @@ public class Logger implements EventLogInterface {
     private long    propCacheMaxSize;
     int             propCacheDefragLimit;
     private int     propDataFileScale;
+    boolean         propCompressData;
     String          propTextSourceDefault = "";
     boolean         propTextAllowFullPath;
     private int     propWriteDelay;
@@ -126,6 +128,7 @@ public class Logger implements EventLogInterface {
     boolean         propRefIntegrity = true;
     int             propLobBlockSize = 32 * 1024;
     boolean         propCompressLobs;
+    int             propLobInlineSize;
     int             propScriptFormat = 0;
     boolean         propLargeData;
     int             propFileSpaceValue;
@@ -441,6 +444,10 @@ public class Logger implements EventLogInterface {
             database.setResultMaxMemoryRows(rows);
         }
 
+        database.setResultCacheSize(
+            database.databaseProperties.getIntegerProperty(
+                HsqlDatabaseProperties.hsqldb_result_cache_size));
+
         String tableType = database.databaseProperties.getStringProperty(
             HsqlDatabaseProperties.hsqldb_default_table_type);
 
@@ -524,6 +531,9 @@ public class Logger implements EventLogInterface {
                 HsqlDatabaseProperties.sql_convert_trunc);
         database.sqlAvgScale = database.databaseProperties.getIntegerProperty(
             HsqlDatabaseProperties.sql_avg_scale);
+        database.sqlMaxRecursive =
+            database.databaseProperties.getIntegerProperty(
+                HsqlDatabaseProperties.sql_max_recursive);
         database.sqlDoubleNaN = database.databaseProperties.isPropertyTrue(
             HsqlDatabaseProperties.sql_double_nan);
         database.sqlLongvarIsLob = database.databaseProperties.isPropertyTrue(
@@ -570,6 +580,8 @@ public class Logger implements EventLogInterface {
         propNioMaxSize =
             database.databaseProperties.getIntegerProperty(
                 HsqlDatabaseProperties.hsqldb_nio_max_size) * 1024L * 1024L;
+        propNioLobsFile = database.databaseProperties.isPropertyTrue(
+            HsqlDatabaseProperties.hsqldb_nio_lobs_file);
         propCacheMaxRows = database.databaseProperties.getIntegerProperty(
             HsqlDatabaseProperties.hsqldb_cache_rows);
         propCacheMaxSize =
@@ -582,10 +594,16 @@ public class Logger implements EventLogInterface {
         this.setLobFileCompressedNoCheck(
             database.databaseProperties.isPropertyTrue(
                 HsqlDatabaseProperties.hsqldb_lob_file_compressed));
+
+        propLobInlineSize = database.databaseProperties.getIntegerProperty(
+            HsqlDatabaseProperties.hsqldb_lob_inline_size);
         setDataFileScaleNoCheck(
             database.databaseProperties.getIntegerProperty(
                 HsqlDatabaseProperties.hsqldb_cache_file_scale));
 
+        propCompressData = database.databaseProperties.isPropertyTrue(
+            HsqlDatabaseProperties.hsqldb_cache_file_compressed);
+
         // linked with FILES SCALE
         int fileSpace = database.databaseProperties.getIntegerProperty(
             HsqlDatabaseProperties.hsqldb_files_space, 0);
@@ -1100,6 +1118,25 @@ public class Logger implements EventLogInterface {
         return propLobBlockSize;
     }
 
+    public int getLobInlineSize() {
+        return propLobInlineSize;
+    }
+
+    /**
+     * Sets the size in bytes up to which new lobs are held inline in rows.
+     * Existing lobs are not affected.
+     */
+    public void setLobInlineSize(int value) {
+
+        if (value < 0 || value > 16 * 1024) {
+            throw Error.error(ErrorCode.X_42556);
+        }
+
+        propLobInlineSize = value;
+
+        database.lobManager.lobInlineSize = value;
+    }
+
     public synchronized void setIncrementBackup(boolean val) {
 
         if (val == propIncrementBackup) {
@@ -1172,6 +1209,27 @@ public class Logger implements EventLogInterface {
         return propDataFileScale;
     }
 
+    public void setDataFileCompressed(boolean value) {
+
+        if (propCompressData == value) {
+            return;
+        }
+
+        if (hasCache()) {
+            throw Error.error(ErrorCode.DATA_FILE_IN_USE);
+        }
+
+        propCompressData = value;
+    }
+
+    public void setDataFileCompressedNoCheck(boolean value) {
+        propCompressData = value;
+    }
+
+    public boolean isDataFileCompressed() {
+        return propCompressData;
+    }
+
     public int getDataFileFactor() {
         return propLargeData ? largeDataFactor
                              : 1;
@@ -1498,10 +1556,19 @@ public class Logger implements EventLogInterface {
             return String.valueOf(propCompressLobs);
         }
 
+        if (HsqlDatabaseProperties.hsqldb_lob_inline_size.equals(name)) {
+            return String.valueOf(propLobInlineSize);
+        }
+
         if (HsqlDatabaseProperties.hsqldb_cache_file_scale.equals(name)) {
             return String.valueOf(propDataFileScale);
         }
 
+        if (HsqlDatabaseProperties.hsqldb_cache_file_compressed.equals(
+                name)) {
+            return String.valueOf(propCompressData);
+        }
+
         if (HsqlDatabaseProperties.hsqldb_cache_free_count.equals(name)) {
             return String.valueOf(propMaxFreeBlocks);
         }
@@ -1562,6 +1629,10 @@ public class Logger implements EventLogInterface {
             return String.valueOf(propNioMaxSize / (1024 * 1024));
         }
 
+        if (HsqlDatabaseProperties.hsqldb_nio_lobs_file.equals(name)) {
+            return String.valueOf(propNioLobsFile);
+        }
+
         if (HsqlDatabaseProperties.hsqldb_script_format.equals(name)) {
             return ScriptWriterBase.LIST_SCRIPT_FORMATS[propScriptFormat]
                 .toLowerCase();
@@ -1584,6 +1655,10 @@ public class Logger implements EventLogInterface {
             return String.valueOf(database.getResultMaxMemoryRows());
         }
 
+        if (HsqlDatabaseProperties.hsqldb_result_cache_size.equals(name)) {
+            return String.valueOf(database.getResultCacheSize());
+        }
+
         if (HsqlDatabaseProperties.hsqldb_write_delay.equals(name)) {
             return String.valueOf(propWriteDelay != 0);
         }
@@ -1604,6 +1679,10 @@ public class Logger implements EventLogInterface {
             return String.valueOf(database.sqlAvgScale);
         }
 
+        if (HsqlDatabaseProperties.sql_max_recursive.equals(name)) {
+            return String.valueOf(database.sqlMaxRecursive);
+        }
+
         if (HsqlDatabaseProperties.sql_char_literal.equals(name)) {
             return String.valueOf(database.sqlCharLiteral);
         }
@@ -1767,6 +1846,11 @@ public class Logger implements EventLogInterface {
         sb.append(database.getResultMaxMemoryRows());
         list.add(sb.toString());
         sb.setLength(0);
+        sb.append("SET DATABASE ").append(Tokens.T_RESULT).append(' ');
+        sb.append(Tokens.T_CACHE).append(' ').append(Tokens.T_SIZE);
+        sb.append(' ').append(database.getResultCacheSize());
+        list.add(sb.toString());
+        sb.setLength(0);
         sb.append("SET DATABASE ").append(Tokens.T_EVENT).append(' ');
         sb.append(Tokens.T_LOG).append(' ').append(Tokens.T_LEVEL);
         sb.append(' ').append(propEventLogLevel);
@@ -2008,6 +2092,12 @@ public class Logger implements EventLogInterface {
         list.add(sb.toString());
         sb.setLength(0);
         sb.append("SET DATABASE ").append(Tokens.T_SQL).append(' ');
+        sb.append(Tokens.T_MAX).append(' ');
+        sb.append(Tokens.T_RECURSIVE).append(' ');
+        sb.append(database.sqlMaxRecursive);
+        list.add(sb.toString());
+        sb.setLength(0);
+        sb.append("SET DATABASE ").append(Tokens.T_SQL).append(' ');
         sb.append(Tokens.T_DOUBLE).append(' ');
         sb.append(Tokens.T_NAN).append(' ');
         sb.append(database.sqlDoubleNaN ? Tokens.T_TRUE
@@ -2136,6 +2226,13 @@ public class Logger implements EventLogInterface {
             sb.setLength(0);
         }
 
+        if (propCompressData) {
+            sb.append("SET FILES ").append(Tokens.T_COMPRESSED);
+            sb.append(' ').append(Tokens.T_TRUE);
+            list.add(sb.toString());
+            sb.setLength(0);
+        }
+
         sb.append("SET FILES ").append(Tokens.T_LOB).append(' ').append(
             Tokens.T_SCALE);
         sb.append(' ').append(getLobFileScale());
@@ -2151,6 +2248,15 @@ public class Logger implements EventLogInterface {
             sb.setLength(0);
         }
 
+        if (propLobInlineSize > 0) {
+            sb.append("SET FILES ").append(Tokens.T_LOB).append(' ').append(
+                Tokens.T_INLINE);
+            sb.append(' ').append(Tokens.T_SIZE);
+            sb.append(' ').append(propLobInlineSize);
+            list.add(sb.toString());
+            sb.setLength(0);
+        }
+
         sb.append("SET FILES ").append(Tokens.T_DEFRAG);
         sb.append(' ').append(propCacheDefragLimit);
         list.add(sb.toString());
@@ -61,6 +61,12 @@ public interface PersistentStore {
 
     void setTimestamp(long timestamp);
 
+    /**
+     * Returns a count that changes after each change to the rows of the store
+     * or to their transactional visibility.
+     */
+    long getModificationCount();
+
     boolean isMemory();
 
     void setMemory(boolean mode);
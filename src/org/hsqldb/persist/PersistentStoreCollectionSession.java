@@ -41,6 +41,7 @@ import org.hsqldb.index.Index;
 import org.hsqldb.lib.HsqlDeque;
 import org.hsqldb.lib.Iterator;
 import org.hsqldb.lib.LongKeyHashMap;
+import org.hsqldb.rights.Grantee;
 
 /**
  * Collection of PersistenceStore items currently used by a session.
@@ -48,7 +49,7 @@ import org.hsqldb.lib.LongKeyHashMap;
  * TableBase.getPersistenceId().
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.9.0
  */
 public class PersistentStoreCollectionSession
@@ -59,8 +60,14 @@ implements PersistentStoreCollection {
     private LongKeyHashMap       rowStoreMapTransaction = new LongKeyHashMap();
     private LongKeyHashMap       rowStoreMapStatement   = new LongKeyHashMap();
     private LongKeyHashMap       rowStoreMapRoutine     = new LongKeyHashMap();
+    private LongKeyHashMap       rowStoreMapInfoSchema  = new LongKeyHashMap();
     private HsqlDeque            rowStoreListStack;
 
+    // settings used for generating the cached INFORMATION_SCHEMA tables
+    private Grantee infoSchemaUser;
+    private Grantee infoSchemaRole;
+    private boolean infoSchemaTranslateTTI;
+
     public PersistentStoreCollectionSession(Session session) {
         this.session = session;
     }
@@ -81,6 +88,7 @@ implements PersistentStoreCollection {
             case TableBase.SCOPE_FULL :
             case TableBase.SCOPE_TRANSACTION :
                 rowStoreMapTransaction.remove(table.getPersistenceId());
+                rowStoreMapInfoSchema.remove(table.getPersistenceId());
                 break;
 
             case TableBase.SCOPE_SESSION :
@@ -132,6 +140,12 @@ implements PersistentStoreCollection {
             // TEMP TABLE default, SYSTEM_TABLE + INFO_SCHEMA_TABLE
             case TableBase.SCOPE_FULL :
             case TableBase.SCOPE_TRANSACTION :
+                if (table.getTableType() == TableBase.INFO_SCHEMA_TABLE
+                        && session.database.dbInfo.isSessionCachedTable(
+                            (Table) table)) {
+                    return getInfoSchemaStore((Table) table);
+                }
+
                 store = (PersistentStore) rowStoreMapTransaction.get(
                     table.getPersistenceId());
 
@@ -169,10 +183,50 @@ implements PersistentStoreCollection {
         }
     }
 
+    /**
+     * INFORMATION_SCHEMA tables that are maintained incrementally are kept
+     * across transactions. They are cleared when the user, the role or a
+     * setting that affects their contents changes.
+     */
+    private PersistentStore getInfoSchemaStore(Table table) {
+
+        checkInfoSchemaTables();
+
+        PersistentStore store = (PersistentStore) rowStoreMapInfoSchema.get(
+            table.getPersistenceId());
+
+        if (store == null) {
+            store = session.database.logger.newStore(session, this, table);
+
+            rowStoreMapInfoSchema.put(table.getPersistenceId(), store);
+        }
+
+        session.database.dbInfo.setStore(session, table, store);
+
+        return store;
+    }
+
+    private void checkInfoSchemaTables() {
+
+        if (infoSchemaUser == session.getUser()
+                && infoSchemaRole == session.getRole()
+                && infoSchemaTranslateTTI
+                   == session.database.sqlTranslateTTI) {
+            return;
+        }
+
+        clearInfoSchemaTables();
+
+        infoSchemaUser         = session.getUser();
+        infoSchemaRole         = session.getRole();
+        infoSchemaTranslateTTI = session.database.sqlTranslateTTI;
+    }
+
     synchronized public void clearAllTables() {
 
         clearSessionTables();
         clearTransactionTables();
+        clearInfoSchemaTables();
         clearStatementTables();
         clearRoutineTables();
         closeSessionDataCache();
@@ -230,6 +284,23 @@ implements PersistentStoreCollection {
         rowStoreMapTransaction.clear();
     }
 
+    synchronized public void clearInfoSchemaTables() {
+
+        if (rowStoreMapInfoSchema.isEmpty()) {
+            return;
+        }
+
+        Iterator it = rowStoreMapInfoSchema.values().iterator();
+
+        while (it.hasNext()) {
+            PersistentStore store = (PersistentStore) it.next();
+
+            store.release();
+        }
+
+        rowStoreMapInfoSchema.clear();
+    }
+
     synchronized public void clearStatementTables() {
 
         if (rowStoreMapStatement.isEmpty()) {
@@ -285,6 +356,15 @@ implements PersistentStoreCollection {
             case TableBase.SCOPE_TRANSACTION :
                 store = (PersistentStore) rowStoreMapTransaction.get(
                     table.getPersistenceId());
+
+                if (store == null
+                        && table.getTableType()
+                           == TableBase.INFO_SCHEMA_TABLE) {
+                    checkInfoSchemaTables();
+
+                    store = (PersistentStore) rowStoreMapInfoSchema.get(
+                        table.getPersistenceId());
+                }
                 break;
 
             case TableBase.SCOPE_SESSION :
@@ -37,15 +37,16 @@ import org.hsqldb.Database;
 
 /**
  * Mixed NIO / non-NIO version of ScaledRAFile.
- * This class is used only for storing a CACHED
- * TABLE .data file and cannot be used for TEXT TABLE source files.
+ * This class is used for storing a CACHED TABLE .data file, and for the
+ * .lobs file when the hsqldb.nio_lobs_file property is true. It cannot be
+ * used for TEXT TABLE source files.
  *
  * Due to various issues with java.nio classes, this class will use a mapped
  * channel of fixed size. After reaching this size, the file and channel are
  * closed and a new one opened, up to the maximum size.
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.3.3
+ * @version 2.5.1
  * @since 1.7.2
  */
 public final class RAFileHybrid implements RandomAccessInterface {
@@ -75,6 +75,7 @@ public abstract class RowStoreAVL implements PersistentStore {
     TableBase             table;
     long                  baseElementCount;
     AtomicLong            elementCount = new AtomicLong();
+    AtomicLong            modificationCount = new AtomicLong();
     long                  storageSize;
     boolean[]             nullsList;
     double[][]            searchCost;
@@ -113,6 +114,10 @@ public abstract class RowStoreAVL implements PersistentStore {
         this.timestamp = timestamp;
     }
 
+    public long getModificationCount() {
+        return modificationCount.get();
+    }
+
     public abstract boolean isMemory();
 
     public void setMemory(boolean mode) {}
@@ -225,6 +230,8 @@ public abstract class RowStoreAVL implements PersistentStore {
 
             long count = elementCount.decrementAndGet();
 
+            modificationCount.incrementAndGet();
+
             if (count > 16 * 1024 && count < baseElementCount / 2) {
                 baseElementCount = count;
                 searchCost       = null;
@@ -267,6 +274,8 @@ public abstract class RowStoreAVL implements PersistentStore {
 
             long count = elementCount.incrementAndGet();
 
+            modificationCount.incrementAndGet();
+
             if (count > 16 * 1024 && count > baseElementCount * 2) {
                 baseElementCount = count;
                 searchCost       = null;
@@ -726,7 +735,7 @@ public abstract class RowStoreAVL implements PersistentStore {
                 while (it.next()) {
                     Row row = it.getCurrentRow();
 
-                    ((RowAVL) row).insertNode(position);
+                    ((RowAVL) row).insertNode(newIndex);
 
                     // count before inserting
                     rowCount++;
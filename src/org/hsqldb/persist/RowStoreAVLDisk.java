@@ -197,6 +197,11 @@ public class RowStoreAVLDisk extends RowStoreAVL {
 
         Row row;
 
+        if (table.hasLobColumn()) {
+            database.lobManager.setInlineLobs(table.getColumnTypes(),
+                                              (Object[]) object);
+        }
+
         if (largeData) {
             row = new RowAVLDiskLarge(table, (Object[]) object, this);
         } else {
@@ -232,6 +237,8 @@ public class RowStoreAVLDisk extends RowStoreAVL {
 
     public void removeAll() {
 
+        modificationCount.incrementAndGet();
+
         elementCount.set(0);
         cache.spaceManager.freeTableSpace(tableSpace.getSpaceID());
         ArrayUtil.fillArray(accessorList, null);
@@ -280,6 +287,8 @@ public class RowStoreAVLDisk extends RowStoreAVL {
     public void commitRow(Session session, Row row, int changeAction,
                           int txModel) {
 
+        modificationCount.incrementAndGet();
+
         Object[] data = row.getData();
 
         switch (changeAction) {
@@ -322,6 +331,8 @@ public class RowStoreAVLDisk extends RowStoreAVL {
     public void rollbackRow(Session session, Row row, int changeAction,
                             int txModel) {
 
+        modificationCount.incrementAndGet();
+
         switch (changeAction) {
 
             case RowAction.ACTION_DELETE :
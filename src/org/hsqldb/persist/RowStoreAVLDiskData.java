@@ -141,6 +141,14 @@ public class RowStoreAVLDiskData extends RowStoreAVL {
         }
     }
 
+    /**
+     * Adds a row created from the source file by a TextFileLoader thread
+     * to the cache.
+     */
+    public void addLoadedRow(RowAVLDiskData row) {
+        cache.cache.put(row);
+    }
+
     public CachedObject get(CachedObject object, RowInputInterface in) {
 
         Object[] rowData = in.readData(table.getColumnTypes());
@@ -153,6 +161,11 @@ public class RowStoreAVLDiskData extends RowStoreAVL {
     public CachedObject getNewCachedObject(Session session, Object object,
                                            boolean tx) {
 
+        if (table.hasLobColumn()) {
+            database.lobManager.setStoredLobs(session, table.getColumnTypes(),
+                                              (Object[]) object);
+        }
+
         Row row = new RowAVLDiskData(this, table, (Object[]) object);
 
         add(session, row, tx);
@@ -170,6 +183,8 @@ public class RowStoreAVLDiskData extends RowStoreAVL {
 
     public void removeAll() {
 
+        modificationCount.incrementAndGet();
+
         destroyIndexes();
         elementCount.set(0);
         ArrayUtil.fillArray(accessorList, null);
@@ -217,6 +232,8 @@ public class RowStoreAVLDiskData extends RowStoreAVL {
     public void commitRow(Session session, Row row, int changeAction,
                           int txModel) {
 
+        modificationCount.incrementAndGet();
+
         switch (changeAction) {
 
             case RowAction.ACTION_DELETE :
@@ -246,6 +263,8 @@ public class RowStoreAVLDiskData extends RowStoreAVL {
     public void rollbackRow(Session session, Row row, int changeAction,
                             int txModel) {
 
+        modificationCount.incrementAndGet();
+
         switch (changeAction) {
 
             case RowAction.ACTION_DELETE :
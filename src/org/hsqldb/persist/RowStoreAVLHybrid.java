@@ -210,6 +210,8 @@ public class RowStoreAVLHybrid extends RowStoreAVL {
 
     public void removeAll() {
 
+        modificationCount.incrementAndGet();
+
         if (!isCached) {
             destroyIndexes();
         }
@@ -240,6 +242,8 @@ public class RowStoreAVLHybrid extends RowStoreAVL {
     public void commitRow(Session session, Row row, int changeAction,
                           int txModel) {
 
+        modificationCount.incrementAndGet();
+
         switch (changeAction) {
 
             case RowAction.ACTION_DELETE :
@@ -263,6 +267,8 @@ public class RowStoreAVLHybrid extends RowStoreAVL {
     public void rollbackRow(Session session, Row row, int changeAction,
                             int txModel) {
 
+        modificationCount.incrementAndGet();
+
         switch (changeAction) {
 
             case RowAction.ACTION_DELETE :
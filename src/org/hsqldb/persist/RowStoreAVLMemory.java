@@ -100,6 +100,8 @@ public class RowStoreAVLMemory extends RowStoreAVL {
 
     public void removeAll() {
 
+        modificationCount.incrementAndGet();
+
         destroyIndexes();
         setTimestamp(0);
         elementCount.set(0);
@@ -127,6 +129,8 @@ public class RowStoreAVLMemory extends RowStoreAVL {
     public void commitRow(Session session, Row row, int changeAction,
                           int txModel) {
 
+        modificationCount.incrementAndGet();
+
         if (!database.logger.isCurrentlyLogged()) {
             return;
         }
@@ -158,6 +162,8 @@ public class RowStoreAVLMemory extends RowStoreAVL {
     public void rollbackRow(Session session, Row row, int changeAction,
                             int txModel) {
 
+        modificationCount.incrementAndGet();
+
         switch (changeAction) {
 
             case RowAction.ACTION_DELETE :
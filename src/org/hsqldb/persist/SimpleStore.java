@@ -205,6 +205,10 @@ public abstract class SimpleStore implements PersistentStore {
 
     public void setTimestamp(long timestamp) {}
 
+    public long getModificationCount() {
+        return 0;
+    }
+
     public void commitRow(Session session, Row row, int changeAction,
                           int txModel) {}
 
@@ -0,0 +1,517 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.hsqldb.persist;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+
+import org.hsqldb.ColumnSchema;
+import org.hsqldb.Session;
+import org.hsqldb.Table;
+import org.hsqldb.error.Error;
+import org.hsqldb.error.ErrorCode;
+import org.hsqldb.lib.ArrayUtil;
+import org.hsqldb.lib.FileUtil;
+import org.hsqldb.lib.HsqlArrayList;
+import org.hsqldb.navigator.RowIterator;
+import org.hsqldb.rowio.RowOutputBinary;
+import org.hsqldb.rowio.RowOutputInterface;
+import org.hsqldb.rowio.RowOutputText;
+import org.hsqldb.rowio.RowOutputTextQuoted;
+import org.hsqldb.types.BinaryData;
+import org.hsqldb.types.BlobData;
+import org.hsqldb.types.ClobData;
+import org.hsqldb.types.Type;
+
+/**
+ * Writes the rows of a table to a file, for EXPORT TABLE.
+ * <p>
+ * The rows are read from the PersistentStore of the table by the calling
+ * thread. Batches of rows are encoded by worker threads, each with its own
+ * row output, and the encoded batches are written to the file in the order
+ * of the rows.
+ * <p>
+ * In TEXT format, the file has the format of a text table source with the
+ * settings given in the source string, or the textdb defaults of the
+ * database. In BINARY format, the file has a header with the table and
+ * column definitions, followed by blocks of up to 4096 rows. Each block
+ * has the row count and the values of each column stored together, in
+ * the format used for the rows of CACHED tables. A block with zero rows
+ * and the total row count end the file.
+ * <p>
+ * LOB values are written inline in TEXT format. In BINARY format, the
+ * block has the length of each LOB value and the contents of the LOB
+ * values of the block follow the block, in the order of the rows and
+ * columns. The contents are read from the database and written in chunks
+ * by the calling thread, so there is no limit on the length of the LOB
+ * values.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TableExporter {
+
+    public static final int FORMAT_TEXT    = 0;
+    public static final int FORMAT_BINARY  = 1;
+    public static final int BINARY_MAGIC   = 0x48534344;
+    public static final int BINARY_VERSION = 2;
+    static final int        batchSize      = 4096;
+    static final int        lobChunkSize   = 1 << 16;
+
+    //
+    private final Session          session;
+    private final Table            table;
+    private final int              format;
+    private final String           fileName;
+    private final TextFileSettings textFileSettings;
+    private final int              columnCount;
+    private final Type[]           columnTypes;
+    private final Type[]           exportTypes;
+    private final boolean          hasConvertedTypes;
+    private BatchExecutor          executor;
+    private OutputStream           fileStreamOut;
+    private RowOutputBinary        lobOut;
+    private long                   rowCount;
+
+    public TableExporter(Session session, Table table, String source,
+                         int format) {
+
+        this.session     = session;
+        this.table       = table;
+        this.format      = format;
+        this.columnCount = table.getColumnCount();
+        this.columnTypes = table.getColumnTypes();
+        this.exportTypes = new Type[columnCount];
+
+        String name;
+
+        if (format == FORMAT_TEXT) {
+            textFileSettings = new TextFileSettings(
+                session.database.getProperties(), source);
+            name = textFileSettings.dataFileName;
+        } else {
+            textFileSettings = null;
+            name             = source.trim();
+        }
+
+        if (name == null || name.length() == 0) {
+            throw Error.error(ErrorCode.X_S0501);
+        }
+
+        fileName = FileUtil.getFileUtil().canonicalOrAbsolutePath(name);
+
+        if (FileUtil.getFileUtil().exists(fileName)) {
+            throw Error.error(ErrorCode.FILE_IO_ERROR,
+                              fileName + " already exists");
+        }
+
+        boolean converted = false;
+
+        for (int i = 0; i < columnCount; i++) {
+            exportTypes[i] = getFileType(columnTypes[i], format);
+
+            if (exportTypes[i] != columnTypes[i]) {
+                converted = true;
+            }
+        }
+
+        hasConvertedTypes = converted;
+    }
+
+    /**
+     * Returns the type used in the file for values of a column. LOB values
+     * are written inline in TEXT format and as their length in BINARY
+     * format. ARRAY values are written as strings in TEXT format.
+     */
+    static Type getFileType(Type type, int format) {
+
+        if (type.isLobType()) {
+            if (format == FORMAT_BINARY) {
+                return Type.SQL_BIGINT;
+            }
+
+            return type.isCharacterType() ? (Type) Type.SQL_VARCHAR_DEFAULT
+                                          : (Type) Type.SQL_VARBINARY_DEFAULT;
+        }
+
+        if (type.isArrayType() && format == FORMAT_TEXT) {
+            return Type.SQL_VARCHAR_DEFAULT;
+        }
+
+        return type;
+    }
+
+    /**
+     * Returns the number of threads used for encoding the rows.
+     */
+    public static int getThreadCount() {
+        return Math.min(Runtime.getRuntime().availableProcessors(), 8);
+    }
+
+    /**
+     * Writes the rows of the table that are visible to the session and
+     * returns the row count. The file is removed if the export fails.
+     */
+    public long write() {
+
+        boolean success = false;
+
+        executor = new BatchExecutor("HSQLDB Table Exporter",
+                                     getThreadCount(),
+                                     ErrorCode.GENERAL_ERROR) {
+
+            Object newThreadState() {
+                return newRowOutput();
+            }
+        };
+
+        try {
+            fileStreamOut = new BufferedOutputStream(
+                FileUtil.getFileUtil().openOutputStreamElement(fileName,
+                    false), 1 << 16);
+
+            writeHeader();
+
+            RowIterator it    = table.rowIteratorClustered(session);
+            Batch       batch = new Batch();
+
+            while (it.next()) {
+                Object[] data = it.getCurrentRow().getData();
+
+                if (hasConvertedTypes) {
+                    data = convertData(data, batch);
+                }
+
+                batch.data[batch.rowCount++] = data;
+
+                if (batch.rowCount == batchSize) {
+                    submitBatch(batch);
+
+                    batch = new Batch();
+                }
+            }
+
+            it.release();
+
+            if (batch.rowCount > 0) {
+                submitBatch(batch);
+            }
+
+            while (!executor.isEmpty()) {
+                writeBatch((Batch) executor.removeFirst());
+            }
+
+            writeEnd();
+            fileStreamOut.flush();
+
+            success = true;
+        } catch (IOException e) {
+            throw Error.error(e, ErrorCode.FILE_IO_ERROR,
+                              ErrorCode.M_Message_Pair, new Object[] {
+                e.toString(), fileName
+            });
+        } finally {
+            close(success);
+        }
+
+        return rowCount;
+    }
+
+    private void close(boolean success) {
+
+        executor.close();
+
+        if (fileStreamOut != null) {
+            try {
+                fileStreamOut.close();
+            } catch (IOException e) {}
+        }
+
+        if (!success) {
+            FileUtil.getFileUtil().removeElement(fileName);
+        }
+    }
+
+    private void writeHeader() throws IOException {
+
+        if (format == FORMAT_TEXT) {
+            if (!textFileSettings.ignoreFirst) {
+                return;
+            }
+
+            StringBuilder sb = new StringBuilder();
+
+            for (int i = 0; i < columnCount; i++) {
+                if (i > 0) {
+                    sb.append(textFileSettings.fs);
+                }
+
+                sb.append(table.getColumn(i).getName().name);
+            }
+
+            sb.append(TextFileSettings.NL);
+
+            String header = sb.toString();
+            byte[] buf;
+
+            try {
+                buf = header.getBytes(textFileSettings.charEncoding);
+            } catch (UnsupportedEncodingException e) {
+                buf = header.getBytes();
+            }
+
+            fileStreamOut.write(buf);
+
+            return;
+        }
+
+        RowOutputBinary out = new RowOutputBinary(1024, 1);
+
+        out.writeInt(BINARY_MAGIC);
+        out.writeInt(BINARY_VERSION);
+        out.writeString(table.getName().name);
+        out.writeInt(columnCount);
+
+        for (int i = 0; i < columnCount; i++) {
+            ColumnSchema column = table.getColumn(i);
+
+            out.writeString(column.getName().name);
+            out.writeString(columnTypes[i].getTypeDefinition());
+            out.writeBoolean(column.isNullable());
+        }
+
+        fileStreamOut.write(out.getBuffer(), 0, out.size());
+    }
+
+    private void writeEnd() throws IOException {
+
+        if (format == FORMAT_TEXT) {
+            return;
+        }
+
+        RowOutputBinary out = new RowOutputBinary(16, 1);
+
+        out.writeInt(0);
+        out.writeLong(rowCount);
+        fileStreamOut.write(out.getBuffer(), 0, out.size());
+    }
+
+    /**
+     * LOB values are read by the calling thread, as the session is not
+     * used by the worker threads. In BINARY format, the length of each LOB
+     * value is encoded and the LOB is added to the batch. In TEXT format,
+     * the contents of LOB values and the string form of ARRAY values are
+     * encoded.
+     */
+    private Object[] convertData(Object[] data, Batch batch) {
+
+        data = (Object[]) ArrayUtil.duplicateArray(data);
+
+        for (int i = 0; i < columnCount; i++) {
+            Object value = data[i];
+
+            if (value == null || exportTypes[i] == columnTypes[i]) {
+                continue;
+            }
+
+            if (format == FORMAT_BINARY) {
+                long length = columnTypes[i].isCharacterType()
+                              ? ((ClobData) value).length(session)
+                              : ((BlobData) value).length(session);
+
+                data[i] = Long.valueOf(length);
+
+                batch.lobs.add(value);
+            } else if (value instanceof ClobData) {
+                ClobData clob   = (ClobData) value;
+                long     length = clob.length(session);
+
+                data[i] = clob.getSubString(session, 0,
+                                            getInlineLength(length));
+            } else if (value instanceof BlobData) {
+                BlobData blob   = (BlobData) value;
+                long     length = blob.length(session);
+
+                data[i] = new BinaryData(blob.getBytes(session, 0,
+                        getInlineLength(length)), false);
+            } else {
+                data[i] = columnTypes[i].convertToString(value);
+            }
+        }
+
+        return data;
+    }
+
+    /**
+     * LOB values written inline in TEXT format cannot be longer than the
+     * maximum length of a string.
+     */
+    private static int getInlineLength(long length) {
+
+        if (length > Integer.MAX_VALUE) {
+            throw Error.error(ErrorCode.X_22001);
+        }
+
+        return (int) length;
+    }
+
+    private void submitBatch(Batch batch) throws IOException {
+
+        rowCount += batch.rowCount;
+
+        executor.submit(batch);
+
+        while (executor.isFull()) {
+            writeBatch((Batch) executor.removeFirst());
+        }
+    }
+
+    private void writeBatch(Batch batch) throws IOException {
+
+        fileStreamOut.write(batch.bytes);
+
+        for (int i = 0; i < batch.lobs.size(); i++) {
+            writeLob(batch.lobs.get(i));
+        }
+    }
+
+    /**
+     * Writes the contents of a LOB in chunks. The characters of a CLOB are
+     * written as two bytes each.
+     */
+    private void writeLob(Object lob) throws IOException {
+
+        if (lob instanceof ClobData) {
+            ClobData clob   = (ClobData) lob;
+            long     length = clob.length(session);
+
+            if (lobOut == null) {
+                lobOut = new RowOutputBinary(lobChunkSize * 2, 1);
+            }
+
+            for (long pos = 0; pos < length; ) {
+                int    count = (int) Math.min(lobChunkSize, length - pos);
+                char[] chars = clob.getChars(session, pos, count);
+
+                lobOut.reset();
+                lobOut.writeChars(chars);
+                fileStreamOut.write(lobOut.getBuffer(), 0, lobOut.size());
+
+                pos += count;
+            }
+        } else {
+            BlobData blob   = (BlobData) lob;
+            long     length = blob.length(session);
+
+            for (long pos = 0; pos < length; ) {
+                int count = (int) Math.min(lobChunkSize, length - pos);
+
+                fileStreamOut.write(blob.getBytes(session, pos, count));
+
+                pos += count;
+            }
+        }
+    }
+
+    private RowOutputInterface[] newRowOutput() {
+
+        if (format == FORMAT_TEXT) {
+            RowOutputInterface out;
+
+            if (textFileSettings.isQuoted || textFileSettings.isAllQuoted) {
+                out = new RowOutputTextQuoted(textFileSettings);
+            } else {
+                out = new RowOutputText(textFileSettings);
+            }
+
+            return new RowOutputInterface[] {
+                out
+            };
+        }
+
+        return new RowOutputInterface[] {
+            new RowOutputBinary(1 << 16, 1),
+            new RowOutputBinary(1 << 16, 1)
+        };
+    }
+
+    private class Batch extends BatchExecutor.Batch {
+
+        Object[][]    data = new Object[batchSize][];
+        HsqlArrayList lobs = new HsqlArrayList();
+        int           rowCount;
+        byte[]        bytes;
+
+        void run(Object state) {
+
+            RowOutputInterface[] out = (RowOutputInterface[]) state;
+
+            if (format == FORMAT_TEXT) {
+                RowOutputText rowOut = (RowOutputText) out[0];
+
+                rowOut.reset();
+
+                for (int i = 0; i < rowCount; i++) {
+                    rowOut.writeSize(0);
+                    rowOut.writeData(columnCount, exportTypes, data[i], null,
+                                     null);
+                    rowOut.writeEnd();
+                }
+
+                bytes = rowOut.toByteArray();
+            } else {
+                RowOutputBinary blockOut  = (RowOutputBinary) out[0];
+                RowOutputBinary columnOut = (RowOutputBinary) out[1];
+
+                blockOut.reset();
+                blockOut.writeInt(rowCount);
+
+                for (int j = 0; j < columnCount; j++) {
+                    columnOut.reset();
+
+                    for (int i = 0; i < rowCount; i++) {
+                        columnOut.writeData(data[i][j], exportTypes[j]);
+                    }
+
+                    blockOut.writeInt(columnOut.size());
+                    blockOut.write(columnOut.getBuffer(), 0,
+                                   columnOut.size());
+                }
+
+                bytes = blockOut.toByteArray();
+            }
+
+            data = null;
+        }
+    }
+}
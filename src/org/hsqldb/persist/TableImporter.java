@@ -0,0 +1,601 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.hsqldb.persist;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.hsqldb.Constraint;
+import org.hsqldb.HsqlException;
+import org.hsqldb.Row;
+import org.hsqldb.Session;
+import org.hsqldb.Table;
+import org.hsqldb.error.Error;
+import org.hsqldb.error.ErrorCode;
+import org.hsqldb.index.Index;
+import org.hsqldb.lib.FileUtil;
+import org.hsqldb.lib.HashSet;
+import org.hsqldb.lib.HsqlArrayList;
+import org.hsqldb.lib.ObjectComparator;
+import org.hsqldb.lib.StringConverter;
+import org.hsqldb.rowio.RowInputBinary;
+import org.hsqldb.rowio.RowInputInterface;
+import org.hsqldb.rowio.RowInputText;
+import org.hsqldb.rowio.RowInputTextQuoted;
+import org.hsqldb.types.BinaryData;
+import org.hsqldb.types.BlobData;
+import org.hsqldb.types.ClobData;
+import org.hsqldb.types.Type;
+
+/**
+ * Reads the rows of a file written by EXPORT TABLE into a table, for
+ * IMPORT TABLE.
+ * <p>
+ * The rows are inserted outside transaction control and are not written
+ * to the log. Each row is checked as it is for an INSERT statement but
+ * triggers are not fired. When the rows have been read, a CHECKPOINT
+ * persists the new data for the whole load in one operation.
+ * <p>
+ * When the rows are only checked, the key of each unique index is looked
+ * up in the index and in a set of the keys of the rows checked before.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TableImporter {
+
+    private final Session          session;
+    private final Table            table;
+    private final int              format;
+    private final int              mode;
+    private final String           fileName;
+    private final TextFileSettings textFileSettings;
+    private final int              columnCount;
+    private final Type[]           columnTypes;
+    private final Type[]           importTypes;
+    private final boolean          hasConvertedTypes;
+    private final PersistentStore  store;
+    private final boolean          checkOnly;
+    private Index[]                uniqueIndexes;
+    private HashSet[]              uniqueKeys;
+    private RowInsertInterface.ErrorLogger errorLogger;
+    private long                           rowCount;
+    private long                           position;
+
+    public TableImporter(Session session, Table table, String source,
+                         int format, int mode) {
+
+        this.session     = session;
+        this.table       = table;
+        this.format      = format;
+        this.mode        = mode;
+        this.columnCount = table.getColumnCount();
+        this.columnTypes = table.getColumnTypes();
+        this.importTypes = new Type[columnCount];
+        this.store       = table.getRowStore(session);
+        this.checkOnly   = mode == RowInsertInterface.modes.checkUntillError;
+
+        if (checkOnly) {
+            setUniqueIndexes();
+        }
+
+        String name;
+
+        if (format == TableExporter.FORMAT_TEXT) {
+            textFileSettings = new TextFileSettings(
+                session.database.getProperties(), source);
+            name = textFileSettings.dataFileName;
+        } else {
+            textFileSettings = null;
+            name             = source.trim();
+        }
+
+        if (name == null || name.length() == 0) {
+            throw Error.error(ErrorCode.X_S0501);
+        }
+
+        fileName = FileUtil.getFileUtil().canonicalOrAbsolutePath(name);
+
+        if (!FileUtil.getFileUtil().exists(fileName)) {
+            throw Error.error(ErrorCode.FILE_IO_ERROR,
+                              fileName + " does not exist");
+        }
+
+        boolean converted = false;
+
+        for (int i = 0; i < columnCount; i++) {
+            importTypes[i] = TableExporter.getFileType(columnTypes[i],
+                    format);
+
+            // in BINARY format, the LOB values are read after the block
+            if (importTypes[i] != columnTypes[i]
+                    && format == TableExporter.FORMAT_TEXT) {
+                converted = true;
+            }
+        }
+
+        hasConvertedTypes = converted;
+    }
+
+    /**
+     * Reads the rows and returns the count of rows inserted, or checked
+     * when the mode is CHECK ON ERROR.
+     */
+    public long read() {
+
+        if (mode == RowInsertInterface.modes.continueOnError) {
+            errorLogger = new RowInsertSimple.InsertErrorHandler(
+                session.database, fileName);
+        } else {
+            errorLogger = new RowInsertSimple.DefaultErrorHandler();
+        }
+
+        try {
+            if (format == TableExporter.FORMAT_TEXT) {
+                readText();
+            } else {
+                readBinary();
+            }
+        } finally {
+            errorLogger.close();
+
+            if (rowCount > 0
+                    && mode != RowInsertInterface.modes.checkUntillError) {
+                session.database.logger.checkpoint(session, false, false);
+            }
+        }
+
+        return rowCount;
+    }
+
+    private void readText() {
+
+        RandomAccessInterface dataFile = null;
+
+        try {
+            dataFile = RAFile.newScaledRAFile(session.database, fileName,
+                                              true, RAFile.DATA_FILE_TEXT);
+
+            RowInputText rowIn;
+
+            if (textFileSettings.isQuoted || textFileSettings.isAllQuoted) {
+                rowIn = new RowInputTextQuoted(textFileSettings);
+            } else {
+                rowIn = new RowInputText(textFileSettings);
+            }
+
+            TextFileReader reader =
+                TextFileReader8.newTextFileReader(dataFile, textFileSettings,
+                                                  rowIn, true);
+
+            if (textFileSettings.ignoreFirst) {
+                reader.readHeaderLine();
+            }
+
+            while (reader.readObject() != null) {
+                position = rowIn.getLineNumber();
+
+                Object[] data;
+
+                try {
+                    data = rowIn.readData(importTypes);
+                } catch (HsqlException e) {
+                    handleError(e, null, rowIn.getSource());
+
+                    continue;
+                }
+
+                insertRow(data, rowIn.getSource());
+            }
+        } catch (IOException e) {
+            throw Error.error(e, ErrorCode.FILE_IO_ERROR,
+                              ErrorCode.M_Message_Pair, new Object[] {
+                e.toString(), fileName
+            });
+        } finally {
+            if (dataFile != null) {
+                try {
+                    dataFile.close();
+                } catch (IOException e) {}
+            }
+        }
+    }
+
+    private void readBinary() {
+
+        InputStream     fis = null;
+        DataInputStream in;
+
+        try {
+            fis = FileUtil.getFileUtil().openInputStreamElement(fileName);
+            in  = new DataInputStream(new BufferedInputStream(fis, 1 << 16));
+
+            readBinaryHeader(in);
+
+            Object[][] data = new Object[TableExporter.batchSize][];
+
+            for (;;) {
+                int count = in.readInt();
+
+                if (count == 0) {
+                    break;
+                }
+
+                if (count < 0 || count > TableExporter.batchSize) {
+                    throw Error.error(ErrorCode.DATA_FILE_ERROR, fileName);
+                }
+
+                for (int i = 0; i < count; i++) {
+                    data[i] = new Object[columnCount];
+                }
+
+                for (int j = 0; j < columnCount; j++) {
+                    byte[] bytes = new byte[in.readInt()];
+
+                    in.readFully(bytes);
+
+                    RowInputBinary columnIn = new RowInputBinary(bytes);
+
+                    for (int i = 0; i < count; i++) {
+                        data[i][j] = columnIn.readData(importTypes[j]);
+                    }
+                }
+
+                for (int i = 0; i < count; i++) {
+                    position++;
+
+                    if (table.hasLobColumn()) {
+                        readLobs(in, data[i]);
+                    }
+
+                    insertRow(data[i], null);
+
+                    data[i] = null;
+                }
+            }
+        } catch (EOFException e) {
+            throw Error.error(e, ErrorCode.DATA_FILE_ERROR,
+                              ErrorCode.M_Message_Pair, new Object[] {
+                e.toString(), fileName
+            });
+        } catch (IOException e) {
+            throw Error.error(e, ErrorCode.FILE_IO_ERROR,
+                              ErrorCode.M_Message_Pair, new Object[] {
+                e.toString(), fileName
+            });
+        } finally {
+            if (fis != null) {
+                try {
+                    fis.close();
+                } catch (IOException e) {}
+            }
+        }
+    }
+
+    /**
+     * The columns in the file must have the same names and types as the
+     * columns of the table.
+     */
+    private void readBinaryHeader(DataInputStream in) throws IOException {
+
+        if (in.readInt() != TableExporter.BINARY_MAGIC
+                || in.readInt() != TableExporter.BINARY_VERSION) {
+            throw Error.error(ErrorCode.DATA_FILE_ERROR, fileName);
+        }
+
+        readString(in);
+
+        if (in.readInt() != columnCount) {
+            throw Error.error(ErrorCode.X_42564);
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            String name       = readString(in);
+            String definition = readString(in);
+
+            in.readBoolean();
+
+            if (!definition.equals(columnTypes[i].getTypeDefinition())) {
+                throw Error.error(ErrorCode.X_42561, name);
+            }
+        }
+    }
+
+    /**
+     * Replaces the length of each LOB value of the row with a LOB that has
+     * the contents read from the file. Short contents are converted in the
+     * same way as inline values, longer contents are written to a new LOB in
+     * chunks.
+     */
+    private void readLobs(DataInputStream in,
+                          Object[] data) throws IOException {
+
+        for (int j = 0; j < columnCount; j++) {
+            if (data[j] == null || !columnTypes[j].isLobType()) {
+                continue;
+            }
+
+            long length = ((Long) data[j]).longValue();
+
+            if (length < 0) {
+                throw Error.error(ErrorCode.DATA_FILE_ERROR, fileName);
+            }
+
+            if (columnTypes[j].isCharacterType()) {
+                data[j] = readClob(in, columnTypes[j], length);
+            } else {
+                data[j] = readBlob(in, columnTypes[j], length);
+            }
+        }
+    }
+
+    private Object readClob(DataInputStream in, Type type,
+                            long length) throws IOException {
+
+        if (length <= TableExporter.lobChunkSize) {
+            String value = new String(readChars(in, (int) length));
+
+            return type.convertToType(session, value,
+                                      Type.SQL_VARCHAR_DEFAULT);
+        }
+
+        ClobData clob = session.createClob(length);
+
+        for (long pos = 0; pos < length; ) {
+            int count = (int) Math.min(TableExporter.lobChunkSize,
+                                       length - pos);
+
+            clob.setChars(session, pos, readChars(in, count), 0, count);
+
+            pos += count;
+        }
+
+        return clob;
+    }
+
+    private Object readBlob(DataInputStream in, Type type,
+                            long length) throws IOException {
+
+        if (length <= TableExporter.lobChunkSize) {
+            byte[] bytes = new byte[(int) length];
+
+            in.readFully(bytes);
+
+            return type.convertToType(session, new BinaryData(bytes, false),
+                                      Type.SQL_VARBINARY_DEFAULT);
+        }
+
+        BlobData blob = session.createBlob(length);
+
+        for (long pos = 0; pos < length; ) {
+            int    count = (int) Math.min(TableExporter.lobChunkSize,
+                                          length - pos);
+            byte[] bytes = new byte[count];
+
+            in.readFully(bytes);
+            blob.setBytes(session, pos, bytes);
+
+            pos += count;
+        }
+
+        return blob;
+    }
+
+    private static char[] readChars(DataInputStream in,
+                                    int length) throws IOException {
+
+        char[] chars = new char[length];
+
+        for (int i = 0; i < length; i++) {
+            chars[i] = in.readChar();
+        }
+
+        return chars;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+
+        int    length = in.readInt();
+        byte[] bytes  = new byte[length];
+
+        in.readFully(bytes);
+
+        return StringConverter.readUTF(bytes, 0, length);
+    }
+
+    private void insertRow(Object[] data, String source) {
+
+        try {
+            if (hasConvertedTypes) {
+                for (int i = 0; i < columnCount; i++) {
+                    if (importTypes[i] != columnTypes[i]) {
+                        data[i] = columnTypes[i].convertToType(session,
+                                                               data[i],
+                                                               importTypes[i]);
+                    }
+                }
+            }
+
+            table.insertFromImport(session, store, data, checkOnly);
+
+            if (checkOnly) {
+                checkUnique(data);
+            }
+
+            rowCount++;
+        } catch (HsqlException e) {
+            handleError(e, data, source);
+        }
+    }
+
+    private void setUniqueIndexes() {
+
+        Index[]       indexes = table.getIndexList();
+        HsqlArrayList list    = new HsqlArrayList();
+
+        for (int i = 0; i < indexes.length; i++) {
+            if (indexes[i].isUnique()) {
+                list.add(indexes[i]);
+            }
+        }
+
+        uniqueIndexes = new Index[list.size()];
+        uniqueKeys    = new HashSet[list.size()];
+
+        list.toArray(uniqueIndexes);
+
+        for (int i = 0; i < uniqueIndexes.length; i++) {
+            uniqueKeys[i] = new HashSet();
+
+            uniqueKeys[i].setComparator(
+                new KeyComparator(session, uniqueIndexes[i].getColumnTypes()));
+        }
+    }
+
+    /**
+     * Checks the row for a duplicate key in the table or in the rows
+     * checked before. Keys with a null value are not checked.
+     */
+    private void checkUnique(Object[] data) {
+
+        for (int i = 0; i < uniqueIndexes.length; i++) {
+            Index    index = uniqueIndexes[i];
+            int[]    cols  = index.getColumns();
+            Object[] key   = new Object[cols.length];
+            boolean  found = false;
+
+            for (int j = 0; j < cols.length; j++) {
+                key[j] = data[cols[j]];
+
+                if (key[j] == null) {
+                    found = true;
+
+                    break;
+                }
+            }
+
+            if (found) {
+                continue;
+            }
+
+            if (index.existsParent(session, store, data, cols)
+                    || !uniqueKeys[i].add(key)) {
+                Constraint c = table.getUniqueConstraintForIndex(index);
+
+                if (c == null) {
+                    throw Error.error(ErrorCode.X_23505,
+                                      index.getName().statementName);
+                }
+
+                throw c.getException(data);
+            }
+        }
+    }
+
+    /**
+     * Rejected rows are written to a file when the mode is CONTINUE ON
+     * ERROR, otherwise the error is thrown with the line number in TEXT
+     * format or the row number in BINARY format.
+     */
+    private void handleError(HsqlException e, Object[] data, String source) {
+
+        if (mode != RowInsertInterface.modes.continueOnError) {
+            if (format == TableExporter.FORMAT_TEXT) {
+                throw Error.error(e, ErrorCode.TEXT_FILE, 0, new Object[] {
+                    Long.valueOf(position), e.getMessage()
+                });
+            }
+
+            throw Error.error(e, ErrorCode.DATA_FILE_ERROR,
+                              ErrorCode.M_Message_Pair, new Object[] {
+                e.getMessage(), "row " + position
+            });
+        }
+
+        if (source != null) {
+            errorLogger.writeLogStatement(position, source);
+        } else {
+            errorLogger.writeRow(position, new Row(table, data));
+        }
+    }
+
+    /**
+     * Compares the keys of a unique index. Only the columns with a hash code
+     * that is consistent with the comparison are used for the hash code.
+     */
+    private static final class KeyComparator implements ObjectComparator {
+
+        final Session session;
+        final Type[]  types;
+
+        KeyComparator(Session session, Type[] types) {
+            this.session = session;
+            this.types   = types;
+        }
+
+        public int compare(Object a, Object b) {
+
+            Object[] arrayA = (Object[]) a;
+            Object[] arrayB = (Object[]) b;
+
+            for (int i = 0; i < types.length; i++) {
+                int result = types[i].compare(session, arrayA[i], arrayB[i]);
+
+                if (result != 0) {
+                    return result;
+                }
+            }
+
+            return 0;
+        }
+
+        public int hashCode(Object a) {
+
+            Object[] array = (Object[]) a;
+            int      hash  = 0;
+
+            for (int i = 0; i < types.length; i++) {
+                if (types[i].isHashCompatible()) {
+                    hash = hash * 31 + types[i].hashCode(array[i]);
+                }
+            }
+
+            return hash;
+        }
+
+        public long longKey(Object a) {
+            return 0;
+        }
+    }
+}
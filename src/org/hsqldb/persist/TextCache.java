@@ -132,6 +132,19 @@ public class TextCache extends DataFileCache {
         }
     }
 
+    /**
+     *  Returns a new row input object for the text format, used by threads
+     *  that read the source in parallel.
+     */
+    RowInputText getNewRowInput() {
+
+        if (textFileSettings.isQuoted || textFileSettings.isAllQuoted) {
+            return new RowInputTextQuoted(textFileSettings);
+        } else {
+            return new RowInputText(textFileSettings);
+        }
+    }
+
     /**
      *  Opens a data source file.
      */
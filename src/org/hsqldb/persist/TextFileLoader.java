@@ -0,0 +1,204 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.persist;
+
+import java.io.IOException;
+
+import org.hsqldb.Row;
+import org.hsqldb.RowAVLDiskData;
+import org.hsqldb.error.ErrorCode;
+import org.hsqldb.rowio.RowInputInterface;
+import org.hsqldb.rowio.RowInputText;
+
+/**
+ * Converts the lines of a text table source into rows with several threads.
+ * <p>
+ * The lines are read by the calling thread with the TextFileReader of the
+ * table, which deals with blank lines, quoted fields that span lines and
+ * the end of the file. Batches of lines are converted into rows by worker
+ * threads, each with its own RowInputText. The rows are returned to the
+ * calling thread in file order, to be checked and indexed as they are when
+ * the source is read with a single thread.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TextFileLoader {
+
+    static final int batchSize = 4096;
+
+    //
+    private final RowStoreAVLDiskData store;
+    private final TextCache           cache;
+    private final TextFileReader      reader;
+    private final BatchExecutor       executor;
+    private Batch                     currentBatch;
+    private int                       currentIndex;
+    private long                      lineNumber;
+    private boolean                   isEndOfFile;
+
+    public TextFileLoader(RowStoreAVLDiskData store, TextCache cache,
+                          TextFileReader reader, int threadCount) {
+
+        this.store    = store;
+        this.cache    = cache;
+        this.reader   = reader;
+        this.executor = new BatchExecutor("HSQLDB Text Loader", threadCount,
+                                          ErrorCode.TEXT_FILE_IO) {
+
+            Object newThreadState() {
+                return TextFileLoader.this.cache.getNewRowInput();
+            }
+        };
+    }
+
+    /**
+     * Returns the number of threads used for loading a text source of the
+     * given length, or 1 if the source should be read by a single thread.
+     */
+    public static int getThreadCount(TextCache cache) {
+
+        int threads = cache.getTextFileSettings().getLoadThreads();
+
+        if (threads <= 0) {
+            threads = Math.min(Runtime.getRuntime().availableProcessors(), 8);
+        }
+
+        if (cache.getFileFreePos() < 1L << 20) {
+            threads = 1;
+        }
+
+        return threads;
+    }
+
+    /**
+     * Returns the next row of the source in file order, or null at the end
+     * of the file. The row is added to the cache of the table.
+     */
+    public Row getNextRow() {
+
+        while (currentBatch == null
+                || currentIndex == currentBatch.lineCount) {
+            while (!isEndOfFile && !executor.isFull()) {
+                submitBatch();
+            }
+
+            if (executor.isEmpty()) {
+                return null;
+            }
+
+            currentBatch = (Batch) executor.removeFirst();
+            currentIndex = 0;
+        }
+
+        RowAVLDiskData row = currentBatch.rows[currentIndex];
+
+        lineNumber = currentBatch.lineNumbers[currentIndex];
+
+        currentIndex++;
+        store.addLoadedRow(row);
+
+        return row;
+    }
+
+    /**
+     * Returns the line number of the last returned row, or of the line that
+     * could not be converted.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public void close() {
+        executor.close();
+    }
+
+    private void submitBatch() {
+
+        Batch batch = new Batch();
+
+        while (batch.lineCount < batchSize) {
+            RowInputInterface rowIn = reader.readObject();
+
+            if (rowIn == null) {
+                isEndOfFile = true;
+
+                break;
+            }
+
+            RowInputText rowInText = (RowInputText) rowIn;
+            int          i         = batch.lineCount;
+
+            batch.lines[i]       = rowInText.getSource();
+            batch.positions[i]   = rowInText.getFilePosition();
+            batch.sizes[i]       = rowInText.getSize();
+            batch.lineNumbers[i] = rowInText.getLineNumber();
+
+            batch.lineCount++;
+        }
+
+        if (batch.lineCount == 0) {
+            return;
+        }
+
+        executor.submit(batch);
+    }
+
+    private class Batch extends BatchExecutor.Batch {
+
+        final String[]         lines       = new String[batchSize];
+        final long[]           positions   = new long[batchSize];
+        final int[]            sizes       = new int[batchSize];
+        final long[]           lineNumbers = new long[batchSize];
+        final RowAVLDiskData[] rows        = new RowAVLDiskData[batchSize];
+        int                    lineCount;
+        int                    failedIndex;
+
+        void run(Object state) throws IOException {
+
+            RowInputText rowIn = (RowInputText) state;
+
+            for (int i = 0; i < lineCount; i++) {
+                failedIndex = i;
+
+                rowIn.setSource(lines[i], positions[i], sizes[i]);
+
+                rows[i]  = new RowAVLDiskData(store, store.getTable(), rowIn);
+                lines[i] = null;
+            }
+        }
+
+        void onFailure() {
+            lineNumber = lineNumbers[failedIndex];
+        }
+    }
+}
@@ -41,7 +41,7 @@ import org.hsqldb.error.ErrorCode;
  *
  * @author Bob Preston (sqlbob@users dot sourceforge.net)
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 2.2.6
  */
 public class TextFileSettings {
@@ -71,6 +71,7 @@ public class TextFileSettings {
     String dataFileName;
     int    maxCacheRows;
     int    maxCacheBytes;
+    int    loadThreads;
     char   singleSeparator = 0;
     byte[] bytesForLineEnd = BYTES_NL;
     byte[] bytesForSpace   = SP;
@@ -231,6 +232,12 @@ public class TextFileSettings {
         maxCacheBytes = tableprops.getIntegerProperty(
             HsqlDatabaseProperties.textdb_cache_size, maxCacheBytes);
         maxCacheBytes *= 1024;
+
+        //-- get number of threads used to read the source, 0 for automatic
+        loadThreads = dbProps.getIntegerProperty(
+            HsqlDatabaseProperties.textdb_load_threads);
+        loadThreads = tableprops.getIntegerProperty(
+            HsqlDatabaseProperties.textdb_load_threads, loadThreads);
     }
 
     String getFileName() {
@@ -245,6 +252,10 @@ public class TextFileSettings {
         return maxCacheBytes;
     }
 
+    int getLoadThreads() {
+        return loadThreads;
+    }
+
     /**
      * for UTF-16 with BOM in file
      */
@@ -61,7 +61,7 @@ import org.hsqldb.types.Types;
  *
  * @author Bob Preston (sqlbob@users dot sourceforge.net)
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.7.0
  */
 public class RowInputBinary extends RowInputBase implements RowInputInterface {
@@ -291,10 +291,22 @@ public class RowInputBinary extends RowInputBase implements RowInputInterface {
         return new BinaryData(readByteArray(), false);
     }
 
+    /**
+     * A negative id indicates the lob contents follow the id.
+     */
     protected ClobData readClob() {
 
         long id = readLong();
 
+        if (id == 0) {
+            try {
+                return new ClobDataID(readCharArray());
+            } catch (IOException e) {
+                throw Error.error(e, ErrorCode.GENERAL_IO_ERROR,
+                                  "RowInputBinary" + ' ' + getFilePosition());
+            }
+        }
+
         return new ClobDataID(id);
     }
 
@@ -302,6 +314,10 @@ public class RowInputBinary extends RowInputBase implements RowInputInterface {
 
         long id = readLong();
 
+        if (id == 0) {
+            return new BlobDataID(readByteArray());
+        }
+
         return new BlobDataID(id);
     }
 
@@ -31,36 +31,122 @@
 
 package org.hsqldb.rowio;
 
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.hsqldb.error.Error;
+import org.hsqldb.error.ErrorCode;
 import org.hsqldb.persist.Crypto;
 import org.hsqldb.types.Type;
 
 /**
+ * Reads the data part of row images written by RowOutputBinaryEncode,
+ * decrypting and then inflating the data when required.
+ *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.3.3
+ * @version 2.5.1
  * @since 1.9.0
  */
 public class RowInputBinaryDecode extends RowInputBinary {
 
-    final Crypto crypto;
+    final Crypto  crypto;
+    final boolean compressed;
+    Inflater      inflater;
+    byte[]        compressBuffer;
 
     public RowInputBinaryDecode(Crypto crypto, byte[] buf) {
+        this(crypto, false, buf);
+    }
+
+    public RowInputBinaryDecode(Crypto crypto, boolean compressed,
+                                byte[] buf) {
 
         super(buf);
 
-        this.crypto = crypto;
+        this.crypto     = crypto;
+        this.compressed = compressed;
     }
 
     public Object[] readData(Type[] colTypes) {
 
-        if (crypto != null) {
-            int start = pos;
-            int size  = readInt();
+        if (crypto != null || compressed) {
+            int     start        = pos;
+            int     size         = readInt();
+            int     dataPos      = pos;
+            boolean isCompressed = size < 0;
 
-            crypto.decode(buffer, pos, size, buffer, start);
+            if (isCompressed) {
+                size = -size;
+            }
 
-            pos = start;
+            if (crypto != null) {
+                size    = crypto.decode(buffer, pos, size, buffer, start);
+                dataPos = start;
+                pos     = start;
+            }
+
+            if (isCompressed) {
+                inflate(dataPos, size, start);
+            }
         }
 
         return super.readData(colTypes);
     }
+
+    /**
+     * Ends the Inflater.
+     */
+    public void close() {
+
+        if (inflater != null) {
+            inflater.end();
+
+            inflater = null;
+        }
+    }
+
+    private void inflate(int dataPos, int size, int start) {
+
+        pos = dataPos;
+
+        int origLength = readInt();
+        int compLength = size - RowOutputBinary.INT_STORE_SIZE;
+
+        if (compressBuffer == null || compressBuffer.length < compLength) {
+            compressBuffer = new byte[compLength];
+        }
+
+        System.arraycopy(buffer, pos, compressBuffer, 0, compLength);
+
+        if (buffer.length < start + origLength) {
+            byte[] newBuffer = new byte[start + origLength];
+
+            System.arraycopy(buffer, 0, newBuffer, 0, start);
+
+            buffer = newBuffer;
+        }
+
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+
+        int length;
+
+        try {
+            inflater.setInput(compressBuffer, 0, compLength);
+
+            length = inflater.inflate(buffer, start, origLength);
+        } catch (DataFormatException e) {
+            throw Error.error(ErrorCode.DATA_FILE_ERROR, e);
+        } finally {
+            inflater.reset();
+        }
+
+        if (length != origLength) {
+            throw Error.error(ErrorCode.DATA_FILE_ERROR);
+        }
+
+        pos   = start;
+        count = start + origLength;
+    }
 }
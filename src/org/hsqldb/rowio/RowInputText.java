@@ -57,7 +57,7 @@ import org.hsqldb.types.Types;
  * Class for reading the data for a database row in text table format.
  *
  * @author Bob Preston (sqlbob@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.7.0
  */
 public class RowInputText extends RowInputBase implements RowInputInterface {
@@ -131,6 +131,10 @@ public class RowInputText extends RowInputBase implements RowInputInterface {
         field = 0;
     }
 
+    public String getSource() {
+        return text;
+    }
+
     protected String getField(String sep, int sepLen, boolean isEnd) {
 
         String s = null;
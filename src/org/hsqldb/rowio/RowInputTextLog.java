@@ -63,7 +63,7 @@ import org.hsqldb.types.Type;
  * Class for reading the data for a database row from the script file.
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.7.3
  */
 public class RowInputTextLog extends RowInputBase
@@ -523,6 +523,10 @@ implements RowInputInterface {
             return null;
         }
 
+        if (value instanceof String) {
+            return new ClobDataID(((String) value).toCharArray());
+        }
+
         long id = ((Number) value).longValue();
 
         return new ClobDataID(id);
@@ -536,6 +540,10 @@ implements RowInputInterface {
             return null;
         }
 
+        if (value instanceof BinaryData) {
+            return new BlobDataID(((BinaryData) value).getBytes());
+        }
+
         long id = ((Number) value).longValue();
 
         return new BlobDataID(id);
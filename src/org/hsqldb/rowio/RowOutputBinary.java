@@ -40,7 +40,9 @@ import org.hsqldb.error.ErrorCode;
 import org.hsqldb.lib.StringConverter;
 import org.hsqldb.types.BinaryData;
 import org.hsqldb.types.BlobData;
+import org.hsqldb.types.BlobDataID;
 import org.hsqldb.types.ClobData;
+import org.hsqldb.types.ClobDataID;
 import org.hsqldb.types.IntervalMonthData;
 import org.hsqldb.types.IntervalSecondData;
 import org.hsqldb.types.JavaObjectData;
@@ -56,7 +58,7 @@ import org.hsqldb.types.Types;
  *
  * @author Bob Preston (sqlbob@users dot sourceforge.net)
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.7.0
  */
 public class RowOutputBinary extends RowOutputBase {
@@ -274,12 +276,48 @@ public class RowOutputBinary extends RowOutputBase {
         writeByteArray(o.getBytes());
     }
 
+    /**
+     * A lob with inline contents has no id and is written as id 0 followed
+     * by the contents.
+     */
     protected void writeClob(ClobData o, Type type) {
+
+        char[] chars = getInlineChars(o);
+
         writeLong(o.getId());
+
+        if (chars != null) {
+            writeCharArray(chars);
+        }
     }
 
     protected void writeBlob(BlobData o, Type type) {
+
+        byte[] bytes = getInlineBytes(o);
+
         writeLong(o.getId());
+
+        if (bytes != null) {
+            writeByteArray(bytes);
+        }
+    }
+
+    static char[] getInlineChars(Object o) {
+
+        if (o instanceof ClobDataID) {
+            return ((ClobDataID) o).getInlineChars();
+        }
+
+        return null;
+    }
+
+    static byte[] getInlineBytes(Object o) {
+
+        if (o instanceof BlobDataID) {
+            return ((BlobDataID) o).getInlineBytes();
+        }
+
+        return null;
     }
 
     protected void writeArray(Object[] o, Type type) {
@@ -449,10 +487,28 @@ public class RowOutputBinary extends RowOutputBase {
                 s += ((BinaryData) o).length(null);
                 break;
 
-            case Types.SQL_CLOB :
-            case Types.SQL_BLOB :
+            case Types.SQL_CLOB : {
+                s += 8;
+
+                char[] chars = getInlineChars(o);
+
+                if (chars != null) {
+                    s += INT_STORE_SIZE + chars.length * 2;
+                }
+
+                break;
+            }
+            case Types.SQL_BLOB : {
                 s += 8;
+
+                byte[] bytes = getInlineBytes(o);
+
+                if (bytes != null) {
+                    s += INT_STORE_SIZE + bytes.length;
+                }
+
                 break;
+            }
 
             case Types.SQL_ARRAY : {
                 s += 4;
@@ -513,6 +569,7 @@ public class RowOutputBinary extends RowOutputBase {
     }
 
     public RowOutputInterface duplicate() {
+
         return new RowOutputBinary(128, this.scale);
     }
 }
@@ -31,50 +31,119 @@
 
 package org.hsqldb.rowio;
 
+import java.util.zip.Deflater;
+
 import org.hsqldb.Row;
+import org.hsqldb.lib.ArrayUtil;
+import org.hsqldb.lib.HsqlArrayList;
 import org.hsqldb.persist.Crypto;
+import org.hsqldb.types.BinaryData;
 import org.hsqldb.types.Type;
 
 /**
+ * Writes the data part of each row image, optionally compressed and / or
+ * encrypted.<p>
+ *
+ * When compression is used, the row data is deflated before it is
+ * encrypted. A compressed image is stored as the original length followed by
+ * the deflated bytes and is flagged by a negative stored length. The image
+ * is stored uncompressed when deflating does not make it smaller.<p>
+ *
+ * The data of a new row is deflated once, when the row is sized by
+ * getSize(Row), which can be called by several threads. The result is kept
+ * with the row and copied to the row image when the row is saved. The
+ * Deflater objects are shared with the duplicates of this object and are
+ * released by close().
+ *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.0.1
+ * @version 2.5.1
  * @since 1.9.0
  */
 public class RowOutputBinaryEncode extends RowOutputBinary {
 
-    final Crypto crypto;
+    final Crypto        crypto;
+    final boolean       compressed;
+    final HsqlArrayList deflaters;
+    long                dataSize;
+    long                storedSize;
 
     public RowOutputBinaryEncode(Crypto crypto, int initialSize, int scale) {
+        this(crypto, false, initialSize, scale);
+    }
+
+    public RowOutputBinaryEncode(Crypto crypto, boolean compressed,
+                                 int initialSize, int scale) {
+        this(crypto, compressed, initialSize, scale, new HsqlArrayList());
+    }
+
+    private RowOutputBinaryEncode(Crypto crypto, boolean compressed,
+                                  int initialSize, int scale,
+                                  HsqlArrayList deflaters) {
 
         super(initialSize, scale);
 
-        this.crypto = crypto;
+        this.crypto     = crypto;
+        this.compressed = compressed;
+        this.deflaters  = deflaters;
     }
 
     public void writeData(Row row, Type[] types) {
 
-        if (crypto == null) {
+        if (crypto == null && !compressed) {
             super.writeData(row, types);
         } else {
             int start = count;
 
             ensureRoom(row.getStorageSize());
             writeInt(0);
-            super.writeData(row, types);
 
-            int origLength = count - start - INT_STORE_SIZE;
-            int newLength = crypto.encode(buffer, start + INT_STORE_SIZE,
-                                          origLength, buffer,
+            byte[] image = compressed ? row.getDataImage()
+                                      : null;
+
+            if (image == null || image.length == 0) {
+                super.writeData(row, types);
+            }
+
+            int     origLength   = count - start - INT_STORE_SIZE;
+            int     newLength    = origLength;
+            boolean isCompressed = false;
+
+            if (compressed) {
+                if (image == null) {
+                    image = compress(buffer, start + INT_STORE_SIZE,
+                                     origLength);
+                }
+
+                if (image.length > 0) {
+                    System.arraycopy(image, 0, buffer,
+                                     start + INT_STORE_SIZE, image.length);
+
+                    origLength   = readOriginalLength(image);
+                    newLength    = image.length;
+                    isCompressed = true;
+                }
+
+                dataSize   += origLength;
+                storedSize += newLength;
+            }
+
+            if (crypto != null) {
+                newLength = crypto.encode(buffer, start + INT_STORE_SIZE,
+                                          newLength, buffer,
                                           start + INT_STORE_SIZE);
+            }
 
-            writeIntData(newLength, start);
+            writeIntData(isCompressed ? -newLength
+                                      : newLength, start);
 
             count = start + INT_STORE_SIZE + newLength;
         }
     }
 
     /**
-     *  Calculate the size of byte array required to store a row.
+     *  Calculate the size of byte array required to store a row. With
+     *  compression, the deflated data is kept with the row for use when the
+     *  row is written.
      *
      * @param  row - a database row
      * @return  size of byte array
@@ -83,15 +152,136 @@ public class RowOutputBinaryEncode extends RowOutputBinary {
 
         int size = super.getSize(row);
 
+        if (compressed) {
+            byte[] image = row.getDataImage();
+
+            if (image == null) {
+                RowOutputBinary out = new RowOutputBinary(size, 1);
+
+                out.writeData(row, row.getTable().getColumnTypes());
+
+                image = compress(out.getBuffer(), 0, out.size());
+
+                row.setDataImage(image);
+            }
+
+            if (image.length > 0) {
+                size = image.length + INT_STORE_SIZE;
+            }
+        }
+
         if (crypto != null) {
             size = crypto.getEncodedSize(size - INT_STORE_SIZE)
                    + INT_STORE_SIZE * 2;
+        } else if (compressed) {
+            size += INT_STORE_SIZE;
         }
 
         return size;
     }
 
+    /**
+     * Returns the size of the data written since this object was created,
+     * as a percentage of the size of the data before compression.
+     */
+    public int getCompressionRatio() {
+
+        if (dataSize == 0) {
+            return 100;
+        }
+
+        return (int) (storedSize * 100 / dataSize);
+    }
+
+    /**
+     * Ends the Deflater objects that are not in use.
+     */
+    public void close() {
+
+        synchronized (deflaters) {
+            for (int i = 0; i < deflaters.size(); i++) {
+                ((Deflater) deflaters.get(i)).end();
+            }
+
+            deflaters.clear();
+        }
+    }
+
+    /**
+     * Returns the original length followed by the deflated data, or an empty
+     * array if the result is not smaller than the data.
+     */
+    private byte[] compress(byte[] data, int offset, int length) {
+
+        int limit = length - INT_STORE_SIZE;
+
+        if (limit <= 0) {
+            return BinaryData.zeroLengthBytes;
+        }
+
+        byte[]   result     = new byte[length];
+        int      compLength = INT_STORE_SIZE;
+        Deflater deflater   = getDeflater();
+
+        try {
+            deflater.setInput(data, offset, length);
+            deflater.finish();
+
+            while (!deflater.finished() && compLength < length) {
+                int n = deflater.deflate(result, compLength,
+                                         length - compLength);
+
+                if (n == 0) {
+                    break;
+                }
+
+                compLength += n;
+            }
+
+            if (!deflater.finished() || compLength >= length) {
+                return BinaryData.zeroLengthBytes;
+            }
+        } finally {
+            releaseDeflater(deflater);
+        }
+
+        result[0] = (byte) (length >>> 24);
+        result[1] = (byte) (length >>> 16);
+        result[2] = (byte) (length >>> 8);
+        result[3] = (byte) length;
+
+        return (byte[]) ArrayUtil.resizeArray(result, compLength);
+    }
+
+    private static int readOriginalLength(byte[] image) {
+
+        return ((image[0] & 0xff) << 24) | ((image[1] & 0xff) << 16)
+               | ((image[2] & 0xff) << 8) | (image[3] & 0xff);
+    }
+
+    private Deflater getDeflater() {
+
+        synchronized (deflaters) {
+            if (deflaters.isEmpty()) {
+                return new Deflater(Deflater.BEST_SPEED);
+            }
+
+            return (Deflater) deflaters.remove(deflaters.size() - 1);
+        }
+    }
+
+    private void releaseDeflater(Deflater deflater) {
+
+        deflater.reset();
+
+        synchronized (deflaters) {
+            deflaters.add(deflater);
+        }
+    }
+
     public RowOutputInterface duplicate() {
-        return new RowOutputBinaryEncode(crypto, 128, this.scale);
+
+        return new RowOutputBinaryEncode(crypto, compressed, 128, this.scale,
+                                         deflaters);
     }
 }
@@ -51,7 +51,7 @@ import org.hsqldb.types.Type;
 
 /**
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  */
 public class RowOutputTextLog extends RowOutputBase {
 
@@ -138,12 +138,35 @@ public class RowOutputTextLog extends RowOutputBase {
         write('\'');
     }
 
+    /**
+     * A lob with inline contents has no id and is written as a literal.
+     */
     protected void writeClob(ClobData o, Type type) {
-        writeBytes(Long.toString(o.getId()));
+
+        char[] chars = RowOutputBinary.getInlineChars(o);
+
+        if (chars == null) {
+            writeBytes(Long.toString(o.getId()));
+        } else {
+            writeChar(new String(chars), type);
+        }
     }
 
     protected void writeBlob(BlobData o, Type type) {
-        writeBytes(Long.toString(o.getId()));
+
+        byte[] bytes = RowOutputBinary.getInlineBytes(o);
+
+        if (bytes == null) {
+            writeBytes(Long.toString(o.getId()));
+        } else {
+            ensureRoom(bytes.length * 2 + 3);
+            write('X');
+            write('\'');
+
+            count += StringConverter.writeHexBytes(getBuffer(), count, bytes);
+
+            write('\'');
+        }
     }
 
     protected void writeArray(Object[] o, Type type) {
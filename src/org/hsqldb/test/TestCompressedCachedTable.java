@@ -0,0 +1,177 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.hsqldb.lib.FileUtil;
+
+/**
+ * Tests concurrent inserts into a CACHED table of a database with compressed
+ * row images.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TestCompressedCachedTable extends TestBase {
+
+    static final String testPath = TestDirectorySettings.fileBase
+                                   + "testcompressed/test";
+    static final String testURL = "jdbc:hsqldb:file:" + testPath
+                                  + ";hsqldb.tx=mvcc;hsqldb.cache_rows=100";
+    static final int threadCount = 8;
+    static final int rowCount    = 1000;
+
+    public TestCompressedCachedTable(String name) {
+        super(name, testURL, false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        FileUtil.deleteOrRenameDatabaseFiles(testPath);
+        super.setUp();
+    }
+
+    protected void tearDown() {
+
+        try {
+            Connection c = newConnection();
+
+            c.createStatement().execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        FileUtil.deleteOrRenameDatabaseFiles(testPath);
+        super.tearDown();
+    }
+
+    static String getValue(int id) {
+
+        StringBuffer sb = new StringBuffer();
+
+        for (int i = 0; i < 1 + id % 13; i++) {
+            sb.append("value ").append(id % 17).append(' ');
+        }
+
+        return sb.toString();
+    }
+
+    public void testConcurrentInsert() throws Exception {
+
+        Connection connection = newConnection();
+        Statement  st         = connection.createStatement();
+
+        st.execute("SET FILES COMPRESSED TRUE");
+        st.execute(
+            "CREATE CACHED TABLE T (ID INT PRIMARY KEY, V VARCHAR(1000))");
+
+        final Throwable[] errors  = new Throwable[threadCount];
+        Thread[]          threads = new Thread[threadCount];
+
+        for (int i = 0; i < threadCount; i++) {
+            final int index = i;
+
+            threads[i] = new Thread() {
+
+                public void run() {
+
+                    try {
+                        Connection c = newConnection();
+                        PreparedStatement ps =
+                            c.prepareStatement("INSERT INTO T VALUES(?, ?)");
+
+                        for (int j = 0; j < rowCount; j++) {
+                            int id = j * threadCount + index;
+
+                            ps.setInt(1, id);
+                            ps.setString(2, getValue(id));
+                            ps.executeUpdate();
+                        }
+
+                        c.close();
+                    } catch (Throwable t) {
+                        errors[index] = t;
+                    }
+                }
+            };
+        }
+
+        for (int i = 0; i < threadCount; i++) {
+            threads[i].start();
+        }
+
+        for (int i = 0; i < threadCount; i++) {
+            threads[i].join();
+        }
+
+        for (int i = 0; i < threadCount; i++) {
+            if (errors[i] != null) {
+                fail(errors[i].toString());
+            }
+        }
+
+        checkRows(connection);
+        st.execute("CHECKPOINT");
+        checkRows(connection);
+
+        ResultSet rs = st.executeQuery(
+            "SELECT COMPRESSION_RATIO FROM INFORMATION_SCHEMA.SYSTEM_CACHEINFO");
+
+        assertTrue(rs.next());
+        assertTrue(rs.getInt(1) < 100);
+        st.execute("SHUTDOWN");
+
+        connection = DriverManager.getConnection(testURL, "SA", "");
+
+        checkRows(connection);
+    }
+
+    void checkRows(Connection c) throws SQLException {
+
+        ResultSet rs =
+            c.createStatement().executeQuery("SELECT ID, V FROM T ORDER BY ID");
+        int count = 0;
+
+        while (rs.next()) {
+            assertEquals(count, rs.getInt(1));
+            assertEquals(getValue(count), rs.getString(2));
+
+            count++;
+        }
+
+        assertEquals(threadCount * rowCount, count);
+    }
+}
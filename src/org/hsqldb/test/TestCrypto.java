@@ -0,0 +1,316 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.test;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.hsqldb.lib.StringConverter;
+import org.hsqldb.persist.Crypto;
+
+/**
+ * Tests encoding and decoding with the pooled Cipher instances of Crypto by
+ * several threads, and an encrypted database that is written by several
+ * sessions and reopened.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TestCrypto extends TestBase {
+
+    static final String key = StringConverter.byteArrayToHexString(
+        Crypto.getNewKey("AES", null));
+    static final String iv = "000102030405060708090a0b0c0d0e0f";
+    static final String filepath = new File(TestDirectorySettings.fileBase
+        + "testcrypto/").getAbsolutePath() + File.separator;
+    static final String url = TestDirectorySettings.fileBaseURL
+                              + "testcrypto/test;crypt_key=" + key
+                              + ";crypt_type=AES;crypt_lobs=true";
+    static final int threadCount = 8;
+    static final int rowCount    = 10000;
+
+    public TestCrypto(String name) {
+        super(name, url, false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        TestUtil.deleteDatabase(filepath + "test");
+        super.setUp();
+    }
+
+    public void testConcurrentEncodeDecode() throws Exception {
+        checkConcurrentEncodeDecode(new Crypto(key, null, "AES", null),
+                                    new Crypto(key, null, "AES", null));
+        checkConcurrentEncodeDecode(
+            new Crypto(key, iv, "AES/CBC/PKCS5Padding", null),
+            new Crypto(key, iv, "AES/CBC/PKCS5Padding", null));
+    }
+
+    /**
+     * Each thread encodes and decodes its own buffers with the shared
+     * instance and compares the results with those of a second instance
+     * used by one thread at a time.
+     */
+    void checkConcurrentEncodeDecode(final Crypto crypto,
+                                     final Crypto reference)
+                                     throws Exception {
+
+        final AtomicReference failure = new AtomicReference();
+        Thread[]              threads = new Thread[threadCount];
+
+        for (int i = 0; i < threadCount; i++) {
+            final int seed = i;
+
+            threads[i] = new Thread() {
+
+                public void run() {
+
+                    Random random = new Random(seed);
+
+                    try {
+                        for (int j = 0; j < 2000; j++) {
+                            byte[] source = new byte[random.nextInt(300) + 1];
+
+                            random.nextBytes(source);
+
+                            byte[] encoded =
+                                new byte[crypto.getEncodedSize(source.length)];
+                            int encodedLength = crypto.encode(source, 0,
+                                source.length, encoded, 0);
+                            byte[] expected;
+
+                            synchronized (reference) {
+                                expected = new byte[reference.getEncodedSize(
+                                    source.length)];
+
+                                reference.encode(source, 0, source.length,
+                                                 expected, 0);
+                            }
+
+                            if (!Arrays.equals(expected, encoded)) {
+                                throw new RuntimeException("encoded data");
+                            }
+
+                            byte[] decoded = new byte[encodedLength];
+                            int decodedLength = crypto.decode(encoded, 0,
+                                encodedLength, decoded, 0);
+
+                            if (decodedLength != source.length
+                                    || !Arrays.equals(source,
+                                        Arrays.copyOf(decoded,
+                                            decodedLength))) {
+                                throw new RuntimeException("decoded data");
+                            }
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            };
+
+            threads[i].start();
+        }
+
+        for (int i = 0; i < threadCount; i++) {
+            threads[i].join();
+        }
+
+        assertNull(String.valueOf(failure.get()), failure.get());
+    }
+
+    /**
+     * Rows and lobs of a CACHED table with a small cache are written and
+     * read concurrently by several sessions, then read after the database
+     * is reopened.
+     */
+    public void testReopen() throws Exception {
+
+        Connection conn = newConnection();
+        Statement  st   = conn.createStatement();
+
+        st.execute("set files cache rows 100");
+        st.execute("create cached table tc (id int primary key, "
+                   + "v varchar(200), c clob)");
+        st.execute("insert into tc select n, 'v' || n || '" + getPadding()
+                   + "', null from unnest(sequence_array(1, " + rowCount
+                   + ", 1)) as t(n)");
+        runSessions(true);
+        checkRows(conn);
+        st.execute("shutdown");
+        conn.close();
+
+        conn = newConnection();
+
+        checkRows(conn);
+        runSessions(false);
+        conn.createStatement().execute("shutdown");
+        conn.close();
+
+        conn = newConnection();
+
+        checkRows(conn);
+        conn.createStatement().execute("shutdown");
+        conn.close();
+    }
+
+    /**
+     * Each session reads all rows with an id in its own range in random
+     * order and, if update is true, sets the clob of the rows.
+     */
+    void runSessions(final boolean update) throws Exception {
+
+        final AtomicReference failure = new AtomicReference();
+        Thread[]              threads = new Thread[threadCount];
+
+        for (int i = 0; i < threadCount; i++) {
+            final int        part = i;
+            final Connection c    = newConnection();
+
+            threads[i] = new Thread() {
+
+                public void run() {
+
+                    Random random = new Random(part);
+                    int    size   = rowCount / threadCount;
+
+                    try {
+                        PreparedStatement ps = c.prepareStatement(
+                            "select v, c from tc where id = ?");
+                        PreparedStatement us = c.prepareStatement(
+                            "update tc set c = ? where id = ?");
+
+                        for (int j = 0; j < size; j++) {
+                            int id = part * size + random.nextInt(size) + 1;
+
+                            ps.setInt(1, id);
+
+                            ResultSet rs = ps.executeQuery();
+
+                            if (!rs.next()
+                                    || !getValue(id).equals(
+                                        rs.getString(1))) {
+                                throw new RuntimeException("row " + id);
+                            }
+
+                            String clob = rs.getString(2);
+
+                            if (clob != null
+                                    && !clob.equals(getClob(id))) {
+                                throw new RuntimeException("clob " + id);
+                            }
+
+                            rs.close();
+
+                            if (update) {
+                                us.setString(1, getClob(id));
+                                us.setInt(2, id);
+                                us.executeUpdate();
+                            }
+                        }
+
+                        c.close();
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            };
+
+            threads[i].start();
+        }
+
+        for (int i = 0; i < threadCount; i++) {
+            threads[i].join();
+        }
+
+        assertNull(String.valueOf(failure.get()), failure.get());
+    }
+
+    void checkRows(Connection conn) throws Exception {
+
+        ResultSet rs = conn.createStatement().executeQuery(
+            "select id, v, c from tc order by id");
+        int count = 0;
+        int clobs = 0;
+
+        while (rs.next()) {
+            int id = rs.getInt(1);
+
+            count++;
+
+            assertEquals(count, id);
+            assertEquals(getValue(id), rs.getString(2));
+
+            String clob = rs.getString(3);
+
+            if (clob != null) {
+                assertEquals(getClob(id), clob);
+
+                clobs++;
+            }
+        }
+
+        rs.close();
+        assertEquals(rowCount, count);
+        assertTrue(clobs > 0);
+    }
+
+    static String getPadding() {
+
+        char[] chars = new char[100];
+
+        Arrays.fill(chars, 'x');
+
+        return new String(chars);
+    }
+
+    static String getValue(int id) {
+        return "v" + id + getPadding();
+    }
+
+    static String getClob(int id) {
+
+        StringBuffer sb = new StringBuffer();
+
+        for (int i = 0; i < 200; i++) {
+            sb.append(id).append(' ');
+        }
+
+        return sb.toString();
+    }
+}
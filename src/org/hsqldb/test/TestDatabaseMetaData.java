@@ -36,8 +36,10 @@ import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -269,4 +271,133 @@ public class TestDatabaseMetaData extends TestBase {
             conn.close();
         }
     }
+
+    static String getValues(ResultSet rs, String column) throws Exception {
+
+        List list = new ArrayList();
+
+        while (rs.next()) {
+            list.add(rs.getString(column));
+        }
+
+        rs.close();
+        Collections.sort(list);
+
+        return list.toString();
+    }
+
+    /**
+     * Queries on exact table names use a store with the rows of the named
+     * table only. The results must be the same as those from the store
+     * with the rows of all tables.
+     */
+    public void testTableNameFilteredStore() throws Exception {
+
+        Connection conn = newConnection();
+        Statement  st   = conn.createStatement();
+
+        st.execute("DROP SCHEMA METATEST IF EXISTS CASCADE");
+        st.execute("CREATE SCHEMA METATEST");
+        st.execute("CREATE TABLE METATEST.TA (A INT PRIMARY KEY, B INT)");
+        st.execute("CREATE TABLE METATEST.TB (C INT, D INT, E INT,"
+                   + " PRIMARY KEY (D, C))");
+        st.execute("CREATE INDEX IB ON METATEST.TB (E)");
+
+        DatabaseMetaData dbmeta = conn.getMetaData();
+
+        assertEquals("[A, B]",
+                     getValues(dbmeta.getColumns(null, "METATEST", "TA",
+                         null), "COLUMN_NAME"));
+        assertEquals("[C, D, E]",
+                     getValues(dbmeta.getColumns(null, "METATEST", "TB",
+                         null), "COLUMN_NAME"));
+        assertEquals("[C, D]",
+                     getValues(dbmeta.getPrimaryKeys(null, "METATEST",
+                         "TB"), "COLUMN_NAME"));
+        assertEquals("[C, D, E]",
+                     getValues(dbmeta.getIndexInfo(null, "METATEST", "TB",
+                         false, false), "COLUMN_NAME"));
+        assertEquals("[TB]",
+                     getValues(dbmeta.getTables(null, "METATEST", "TB",
+                         null), "TABLE_NAME"));
+
+        PreparedStatement ps = conn.prepareStatement(
+            "SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.SYSTEM_COLUMNS"
+            + " WHERE TABLE_SCHEM = ? AND TABLE_NAME = ?");
+
+        ps.setString(1, "METATEST");
+        ps.setString(2, "TB");
+        assertEquals("[C, D, E]", getValues(ps.executeQuery(),
+                                            "COLUMN_NAME"));
+        ps.setString(2, "TA");
+        assertEquals("[A, B]", getValues(ps.executeQuery(), "COLUMN_NAME"));
+        ps.setString(2, "NONE");
+        assertEquals("[]", getValues(ps.executeQuery(), "COLUMN_NAME"));
+
+        // the same rows from the store for all tables
+        assertEquals("[C, D, E]",
+                     getValues(st.executeQuery(
+                         "SELECT COLUMN_NAME FROM"
+                         + " INFORMATION_SCHEMA.SYSTEM_COLUMNS"
+                         + " WHERE TABLE_SCHEM LIKE 'METATEST'"
+                         + " AND TABLE_NAME LIKE 'TB'"), "COLUMN_NAME"));
+        st.execute("DROP SCHEMA METATEST CASCADE");
+        conn.close();
+    }
+
+    /**
+     * Schema changes made by another session are visible in the metadata
+     * stores that a session keeps across transactions.
+     */
+    public void testSchemaChangeFromOtherSession() throws Exception {
+
+        Connection conn  = newConnection();
+        Connection other = newConnection();
+        Statement  st    = other.createStatement();
+
+        st.execute("DROP SCHEMA METATEST IF EXISTS CASCADE");
+        st.execute("CREATE SCHEMA METATEST");
+        st.execute("CREATE TABLE METATEST.TA (A INT PRIMARY KEY, B INT)");
+        st.execute("CREATE TABLE METATEST.TC (F INT)");
+
+        DatabaseMetaData dbmeta = conn.getMetaData();
+
+        assertEquals("[A, B, F]",
+                     getValues(dbmeta.getColumns(null, "METATEST", "%",
+                         null), "COLUMN_NAME"));
+        assertEquals("[A]",
+                     getValues(dbmeta.getIndexInfo(null, "METATEST", "TA",
+                         false, false), "COLUMN_NAME"));
+
+        // changes recorded for single tables
+        st.execute("CREATE TABLE METATEST.TB (C INT, D INT)");
+        st.execute("CREATE INDEX IA ON METATEST.TA (B)");
+        st.execute("COMMENT ON TABLE METATEST.TA IS 'commented'");
+        assertEquals("[A, B, C, D, F]",
+                     getValues(dbmeta.getColumns(null, "METATEST", "%",
+                         null), "COLUMN_NAME"));
+        assertEquals("[A, B]",
+                     getValues(dbmeta.getIndexInfo(null, "METATEST", "TA",
+                         false, false), "COLUMN_NAME"));
+        assertEquals("[commented]",
+                     getValues(dbmeta.getTables(null, "METATEST", "TA",
+                         null), "REMARKS"));
+
+        // other changes
+        st.execute("ALTER TABLE METATEST.TB ADD COLUMN G INT");
+        st.execute("DROP TABLE METATEST.TC");
+        st.execute("ALTER TABLE METATEST.TA ALTER COLUMN B RENAME TO H");
+        assertEquals("[A, C, D, G, H]",
+                     getValues(dbmeta.getColumns(null, "METATEST", "%",
+                         null), "COLUMN_NAME"));
+        assertEquals("[TA, TB]",
+                     getValues(dbmeta.getTables(null, "METATEST", "%",
+                         null), "TABLE_NAME"));
+        assertEquals("[C, D, G]",
+                     getValues(dbmeta.getColumns(null, "METATEST", "TB",
+                         null), "COLUMN_NAME"));
+        st.execute("DROP SCHEMA METATEST CASCADE");
+        other.close();
+        conn.close();
+    }
 }
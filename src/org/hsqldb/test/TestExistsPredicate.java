@@ -0,0 +1,260 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Tests EXISTS and NOT EXISTS predicates, including the bodies that stop
+ * at the first row and the ones that must be evaluated in full.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TestExistsPredicate extends TestBase {
+
+    Connection conn;
+    Statement  st;
+
+    public TestExistsPredicate(String name) {
+        super(name, "jdbc:hsqldb:mem:testexistspredicate", false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        conn = newConnection();
+        st   = conn.createStatement();
+
+        st.execute("create table ta (k int, v int)");
+        st.execute("create table tb (k int)");
+        st.execute("insert into ta values (3, 4), (3, 5), (3, 6), (1, 1), "
+                   + "(1, 2), (2, 3), (4, null)");
+        st.execute("insert into tb values (1), (2), (3), (4), (5)");
+    }
+
+    protected void tearDown() {
+
+        try {
+            st.execute("SHUTDOWN");
+            conn.close();
+        } catch (Exception e) {}
+
+        super.tearDown();
+    }
+
+    public void testSimpleBody() throws Exception {
+
+        String body = "select 1 from ta where ta.k = tb.k";
+
+        checkExists(body, "1,2,3,4", "5");
+        assertEquals(1, getLimitCount(body));
+
+        body = "select v from ta where ta.k = tb.k and v is null";
+
+        checkExists(body, "4", "1,2,3,5");
+        assertEquals(1, getLimitCount(body));
+    }
+
+    public void testUnionBody() throws Exception {
+
+        String body = "select v from ta where ta.k = tb.k and v > 4 "
+                      + "union select v from ta where ta.k = tb.k and v < 2";
+
+        checkExists(body, "1,3", "2,4,5");
+        assertEquals(2, getLimitCount(body));
+
+        body = "select v from ta where ta.k = tb.k and v > 100 "
+               + "union all select k from ta where ta.k = tb.k "
+               + "and v is null";
+
+        checkExists(body, "4", "1,2,3,5");
+        assertEquals(2, getLimitCount(body));
+
+        // a side with its own slice keeps it
+        body = "select v from ta where ta.k = tb.k and v > 100 "
+               + "union all (select v from ta where ta.k = tb.k "
+               + "order by v offset 2 rows)";
+
+        checkExists(body, "3", "1,2,4,5");
+        assertEquals(1, getLimitCount(body));
+
+        // the slice of the union applies to the union as a whole
+        body = "select v from ta where ta.k = tb.k union "
+               + "select v from ta where ta.k = tb.k order by 1 offset 2 rows";
+
+        checkExists(body, "3", "1,2,4,5");
+        assertEquals(0, getLimitCount(body));
+    }
+
+    public void testExceptAndIntersectBody() throws Exception {
+
+        String body = "select v from ta where ta.k = tb.k "
+                      + "except select v from ta where v < 5";
+
+        checkExists(body, "3,4", "1,2,5");
+        assertEquals(0, getLimitCount(body));
+
+        body = "select v from ta where ta.k = tb.k "
+               + "intersect select v from ta where v > 4";
+
+        checkExists(body, "3", "1,2,4,5");
+        assertEquals(0, getLimitCount(body));
+    }
+
+    public void testGroupedBody() throws Exception {
+
+        String body = "select ta.k from ta where ta.k = tb.k group by ta.k "
+                      + "having count(*) > 2";
+
+        checkExists(body, "3", "1,2,4,5");
+        assertEquals(0, getLimitCount(body));
+
+        body = "select k from ta group by k having count(*) > 2";
+
+        checkExists(body, "1,2,3,4,5", "");
+        assertEquals(0, getLimitCount(body));
+
+        body = "select max(v) from ta where ta.k = tb.k having max(v) > 4";
+
+        checkExists(body, "3", "1,2,4,5");
+        assertEquals(0, getLimitCount(body));
+
+        // an aggregate without grouping always returns one row
+        body = "select count(*) from ta where ta.k = tb.k";
+
+        checkExists(body, "1,2,3,4,5", "");
+        assertEquals(0, getLimitCount(body));
+
+        body = "select k, count(*) from ta group by k having count(*) > 1 "
+               + "union select k, 1 from ta where ta.k = tb.k and v = 3";
+
+        checkExists(body, "1,2,3,4,5", "");
+        assertEquals(1, getLimitCount(body));
+    }
+
+    public void testDistinctBody() throws Exception {
+
+        String body = "select distinct v from ta where ta.k = tb.k";
+
+        checkExists(body, "1,2,3,4", "5");
+        assertEquals(0, getLimitCount(body));
+
+        body = "select distinct ta.k from ta where ta.k <= tb.k "
+               + "offset 2 rows";
+
+        checkExists(body, "3,4,5", "1,2");
+        assertEquals(0, getLimitCount(body));
+
+        body = "select distinct v from ta where ta.k = tb.k and v > 4 "
+               + "union select v from ta where ta.k = tb.k and v < 2";
+
+        checkExists(body, "1,3", "2,4,5");
+        assertEquals(1, getLimitCount(body));
+    }
+
+    public void testWindowBody() throws Exception {
+
+        String body = "select rank() over (order by v) from ta "
+                      + "where ta.k = tb.k";
+
+        checkExists(body, "1,2,3,4", "5");
+        assertEquals(0, getLimitCount(body));
+    }
+
+    /**
+     * Checks the rows of TB selected with EXISTS and NOT EXISTS over the body.
+     */
+    private void checkExists(String body,
+                             String exists,
+                             String notExists) throws Exception {
+
+        assertEquals(body, exists,
+                     getKeys("select k from tb where exists (" + body
+                             + ") order by k"));
+        assertEquals(body, notExists,
+                     getKeys("select k from tb where not exists (" + body
+                             + ") order by k"));
+    }
+
+    private String getKeys(String sql) throws Exception {
+
+        ResultSet    rs = st.executeQuery(sql);
+        StringBuffer sb = new StringBuffer();
+
+        while (rs.next()) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+
+            sb.append(rs.getInt(1));
+        }
+
+        rs.close();
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns the number of LIMIT clauses in the plan of the EXISTS predicate.
+     */
+    private int getLimitCount(String body) throws Exception {
+
+        ResultSet rs = st.executeQuery(
+            "explain plan for select k from tb where exists (" + body + ")");
+        StringBuffer sb = new StringBuffer();
+
+        while (rs.next()) {
+            sb.append(rs.getString(1));
+        }
+
+        rs.close();
+
+        String plan  = sb.toString();
+        int    end   = plan.indexOf("SUBQUERIES[");
+        int    count = 0;
+
+        if (end >= 0) {
+            plan = plan.substring(0, end);
+        }
+
+        for (int i = plan.indexOf("limit=["); i >= 0;
+                i = plan.indexOf("limit=[", i + 1)) {
+            count++;
+        }
+
+        return count;
+    }
+}
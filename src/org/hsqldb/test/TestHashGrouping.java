@@ -0,0 +1,247 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.hsqldb.types.CharacterType;
+import org.hsqldb.types.Collation;
+import org.hsqldb.types.Type;
+import org.hsqldb.types.Types;
+
+/**
+ * Tests the hash codes of values that compare as equal and the grouping of
+ * such values when groups are located with a hash map.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TestHashGrouping extends TestBase {
+
+    public TestHashGrouping(String name) {
+        super(name, "jdbc:hsqldb:mem:testhashgrouping", false, false);
+    }
+
+    protected void tearDown() {
+
+        try {
+            Connection c = newConnection();
+
+            c.createStatement().execute("SHUTDOWN");
+            c.close();
+        } catch (Exception e) {}
+
+        super.tearDown();
+    }
+
+    public void testNumberHashCodes() {
+
+        checkEqualValues(Type.SQL_BIGINT, new Object[] {
+            Integer.valueOf(-7), Long.valueOf(-7), Short.valueOf((short) -7),
+            Byte.valueOf((byte) -7)
+        });
+        checkEqualValues(Type.SQL_INTEGER, new Object[] {
+            Integer.valueOf(Integer.MAX_VALUE),
+            Long.valueOf(Integer.MAX_VALUE)
+        });
+
+        // 0.0 and -0.0 are distinct in comparison but share the hash code
+        assertTrue(Type.SQL_DOUBLE.compare(null, Double.valueOf(0.0),
+                                           Double.valueOf(-0.0)) != 0);
+        assertEquals(Type.SQL_DOUBLE.hashCode(Double.valueOf(0.0)),
+                     Type.SQL_DOUBLE.hashCode(Double.valueOf(-0.0)));
+        checkEqualValues(Type.SQL_DOUBLE, new Object[] {
+            Double.valueOf(2.5), Float.valueOf(2.5f)
+        });
+        checkEqualValues(Type.SQL_DECIMAL_DEFAULT, new Object[] {
+            new BigDecimal("1.5"), new BigDecimal("1.50"),
+            new BigDecimal("1.500"), new BigDecimal("15E-1")
+        });
+        checkEqualValues(Type.SQL_DECIMAL_DEFAULT, new Object[] {
+            new BigDecimal("0"), new BigDecimal("0.00"),
+            new BigDecimal("-0.0")
+        });
+        checkEqualValues(Type.SQL_DECIMAL_DEFAULT, new Object[] {
+            new BigDecimal("100"), new BigDecimal("1E+2"),
+            new BigDecimal("100.0")
+        });
+        assertTrue(Type.SQL_BIGINT.isHashCompatible());
+        assertTrue(Type.SQL_DOUBLE.isHashCompatible());
+        assertTrue(Type.SQL_DECIMAL_DEFAULT.isHashCompatible());
+    }
+
+    public void testCharacterHashCodes() {
+
+        CharacterType padSpace = CharacterType.getCharacterType(
+            Types.SQL_VARCHAR, 20, Collation.getDefaultInstance());
+        CharacterType ignoreCase = CharacterType.getCharacterType(
+            Types.SQL_VARCHAR, 20, Collation.getDefaultIgnoreCaseInstance());
+        Collation noPadCollation = Collation.newDatabaseInstance();
+
+        noPadCollation.setPadding(false);
+
+        CharacterType noPad = CharacterType.getCharacterType(
+            Types.SQL_VARCHAR, 20, noPadCollation);
+        CharacterType french = CharacterType.getCharacterType(
+            Types.SQL_VARCHAR, 20, Collation.getCollation("French"));
+
+        checkEqualValues(padSpace, new Object[] {
+            "abc", "abc ", "abc   "
+        });
+        checkEqualValues(padSpace, new Object[] {
+            "", " ", "  "
+        });
+        checkEqualValues(ignoreCase, new Object[] {
+            "Abc", "aBC", "ABC  ", "abc"
+        });
+        checkEqualValues(ignoreCase, new Object[] {
+            "straße ", "STRAßE"
+        });
+        assertTrue(padSpace.compare(null, "abc", "ABC") != 0);
+        assertTrue(noPad.compare(null, "abc", "abc ") != 0);
+        assertEquals(0, noPad.compare(null, "abc", "abc"));
+        assertEquals(noPad.hashCode("abc"), noPad.hashCode("abc"));
+        assertTrue(padSpace.isHashCompatible());
+        assertTrue(ignoreCase.isHashCompatible());
+        assertTrue(noPad.isHashCompatible());
+        assertFalse(french.isHashCompatible());
+    }
+
+    public void testGroupedQueries() throws Exception {
+
+        Connection conn = newConnection();
+        Statement  st   = conn.createStatement();
+
+        st.execute("create table th (id int, d double, n decimal(10, 3), "
+                   + "v varchar(10), vi varchar_ignorecase(10), "
+                   + "vf varchar(10) collate \"French\")");
+        st.execute("create collation public.sql_text_nopad for "
+                   + "information_schema.sql_text from sql_text no pad");
+        st.execute("alter table th add column vn varchar(10) "
+                   + "collate public.sql_text_nopad");
+        st.execute("insert into th values "
+                   + "(1, 0.0e0, 1.5, 'a', 'A', 'cote', 'a'), "
+                   + "(2, -0.0e0, 1.500, 'a ', 'a', 'cote ', 'a '), "
+                   + "(3, cast('-0.0' as double), 1.50, 'a  ', 'a  ', "
+                   + "'côte', 'a  '), "
+                   + "(4, 1.0e0, 2, 'b', 'B ', 'Côte', 'b'), "
+                   + "(5, null, null, null, null, null, null)");
+        assertEquals(4, getCount(st, "select d from th group by d"));
+        assertEquals(3, getCount(st, "select n from th group by n"));
+        assertEquals(3, getCount(st, "select v from th group by v"));
+        assertEquals(3, getCount(st, "select vi from th group by vi"));
+        assertEquals(5, getCount(st, "select vn from th group by vn"));
+        assertEquals(4, getCount(st, "select vf from th group by vf"));
+        assertEquals(3, getCount(st,
+                                 "select v, vi from th group by v, vi"));
+        assertEquals(2, getCount(st,
+                                 "select case when id = 1 then 1.5 "
+                                 + "when id = 2 then 1.50 else 2 end "
+                                 + "from th group by case when id = 1 "
+                                 + "then 1.5 when id = 2 then 1.50 "
+                                 + "else 2 end"));
+        assertEquals(3, getCount(st,
+                                 "select coalesce(cast(id as smallint), 0) "
+                                 + "+ 0, sum(id) from th where id < 3 "
+                                 + "group by grouping sets ((coalesce("
+                                 + "cast(id as smallint), 0) + 0), ())"));
+        assertEquals(7, getCount(st,
+                                 "select v, vi from th group by "
+                                 + "grouping sets ((v), (vi), ())"));
+
+        ResultSet rs = st.executeQuery(
+            "select upper(vi), count(*), sum(id) from th "
+            + "where vi is not null group by vi order by 1");
+
+        assertTrue(rs.next());
+        assertEquals("A", rs.getString(1).trim());
+        assertEquals(3, rs.getInt(2));
+        assertEquals(6, rs.getInt(3));
+        assertTrue(rs.next());
+        assertEquals("B", rs.getString(1).trim());
+        assertEquals(1, rs.getInt(2));
+        assertFalse(rs.next());
+
+        // prepared statement executed repeatedly with the same groups
+        PreparedStatement ps = conn.prepareStatement(
+            "select count(*) from (select v from th where id <= ? "
+            + "group by v)");
+
+        for (int i = 1; i <= 5; i++) {
+            ps.setInt(1, i);
+
+            ResultSet prs = ps.executeQuery();
+
+            prs.next();
+            assertEquals(i < 4 ? 1
+                               : i == 4 ? 2
+                                        : 3, prs.getInt(1));
+        }
+
+        conn.close();
+    }
+
+    private static int getCount(Statement st, String sql) throws Exception {
+
+        ResultSet rs    = st.executeQuery(sql);
+        int       count = 0;
+
+        while (rs.next()) {
+            count++;
+        }
+
+        rs.close();
+
+        return count;
+    }
+
+    /**
+     * Checks that all the values compare as equal and have the same hash
+     * code.
+     */
+    private static void checkEqualValues(Type type, Object[] values) {
+
+        for (int i = 1; i < values.length; i++) {
+            String message = type.getNameString() + " " + values[0] + " "
+                             + values[i];
+
+            assertEquals(message, 0,
+                         type.compare(null, values[0], values[i]));
+            assertEquals(message, type.hashCode(values[0]),
+                         type.hashCode(values[i]));
+        }
+    }
+}
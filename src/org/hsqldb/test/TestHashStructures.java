@@ -34,6 +34,7 @@ package org.hsqldb.test;
 import java.util.Random;
 
 import org.hsqldb.lib.DoubleIntIndex;
+import org.hsqldb.lib.ObjectComparator;
 import org.hsqldb.lib.StopWatch;
 
 import junit.framework.TestCase;
@@ -162,6 +163,78 @@ public class TestHashStructures extends TestCase {
         assertTrue(!failed);
     }
 
+    public void testHashSetComparator() throws Exception {
+
+        ObjectComparator comparator = new ObjectComparator() {
+
+            public int compare(Object a, Object b) {
+
+                Object[] arrayA = (Object[]) a;
+                Object[] arrayB = (Object[]) b;
+
+                for (int i = 0; i < arrayA.length; i++) {
+                    int result =
+                        ((String) arrayA[i]).compareToIgnoreCase(
+                            (String) arrayB[i]);
+
+                    if (result != 0) {
+                        return result;
+                    }
+                }
+
+                return 0;
+            }
+
+            public int hashCode(Object a) {
+
+                Object[] array = (Object[]) a;
+                int      hash  = 0;
+
+                for (int i = 0; i < array.length; i++) {
+                    hash = hash * 31
+                           + ((String) array[i]).toLowerCase().hashCode();
+                }
+
+                return hash;
+            }
+
+            public long longKey(Object a) {
+                return 0;
+            }
+        };
+        org.hsqldb.lib.HashSet hSet = new org.hsqldb.lib.HashSet();
+
+        hSet.setComparator(comparator);
+
+        for (int i = 0; i < 100; i++) {
+            hSet.add(new Object[] {
+                "key" + i, "Value" + i
+            });
+        }
+
+        assertEquals(100, hSet.size());
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(hSet.contains(new Object[] {
+                "KEY" + i, "value" + i
+            }));
+            assertFalse(hSet.contains(new Object[] {
+                "key" + i, "value" + (i + 1)
+            }));
+        }
+
+        assertFalse(hSet.add(new Object[] {
+            "Key7", "VALUE7"
+        }));
+        assertTrue(hSet.remove(new Object[] {
+            "KEY7", "value7"
+        }));
+        assertFalse(hSet.contains(new Object[] {
+            "key7", "Value7"
+        }));
+        assertEquals(99, hSet.size());
+    }
+
     public void testDoubleIntLookup() throws Exception {
 
         boolean failed   = false;
@@ -0,0 +1,262 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+
+/**
+ * Tests IN predicates with lists of constants and parameters, which are
+ * tested with a hash set of the values of the list.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TestHashedInList extends TestBase {
+
+    Connection conn;
+    Statement  st;
+
+    public TestHashedInList(String name) {
+        super(name, "jdbc:hsqldb:mem:testhashedinlist", false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        conn = newConnection();
+        st   = conn.createStatement();
+
+        st.execute("create table ti (id int, i int, b bigint, s smallint, "
+                   + "d decimal(10,2), f double, c char(5), v varchar(10), "
+                   + "vi varchar_ignorecase(10), n int default 0)");
+        st.execute("insert into ti (id, i, b, s, d, f, c, v, vi) values "
+                   + "(1, 1, 1, 1, 1.00, 1.0e0, 'a', 'a', 'A'), "
+                   + "(2, 2, 20000000000, 2, 2.50, 2.5e0, 'bb', 'bb ', 'Bb'), "
+                   + "(3, 3, -3, -3, -3.10, -3.1e0, 'c c', 'c c', 'c C'), "
+                   + "(4, null, null, null, null, null, null, null, null)");
+    }
+
+    protected void tearDown() {
+
+        try {
+            st.execute("SHUTDOWN");
+            conn.close();
+        } catch (Exception e) {}
+
+        super.tearDown();
+    }
+
+    public void testNulls() throws Exception {
+
+        checkIds("i in (1, 3)", "1,3");
+        checkIds("i in (1, null)", "1");
+        checkIds("i not in (2, 3)", "1");
+        checkIds("i not in (2, null)", "");
+        checkIds("(i in (1, null)) is null", "2,3,4");
+        checkIds("(i in (1, 2)) is null", "4");
+        checkIds("(i not in (1, null)) is null", "2,3,4");
+        checkIds("(i, v) in ((1, 'a'), (2, null))", "1");
+        checkIds("((i, v) in ((1, 'a'), (2, null))) is null", "2,4");
+        checkIds("(i, v) not in ((1, 'a'), (3, 'x'))", "2,3");
+        checkIds("((i, v) not in ((1, null), (3, 'c c'))) is null", "1,4");
+        checkIds("i in (cast(null as int))", "");
+        checkIds("i not in (cast(null as int))", "");
+    }
+
+    public void testNumberTypes() throws Exception {
+
+        checkIds("b in (1, 20000000000)", "1,2");
+        checkIds("b in (-3, 2)", "3");
+        checkIds("s in (1, -3)", "1,3");
+        checkIds("i in (cast(1 as bigint), cast(3 as smallint))", "1,3");
+        checkIds("b in (cast(1 as smallint), 20000000000)", "1,2");
+        checkIds("i in (1.0, 2.5)", "1");
+        checkIds("i in (3.00, 2e0)", "2,3");
+        checkIds("d in (1, 2.5)", "1,2");
+        checkIds("d in (1.000, 2.5000, -3.1)", "1,2,3");
+        checkIds("d in (1e0, 2.5e0)", "1,2");
+        checkIds("d not in (1.0, 2.50)", "3");
+        checkIds("f in (1, 2.5)", "1,2");
+        checkIds("f in (1.00, -3.1)", "1,3");
+        checkIds("f in (-0e0, 1e0)", "1");
+        checkIds("(i, d) in ((1, 1.0), (2, 2.5), (3, 3.1))", "1,2");
+    }
+
+    public void testStrings() throws Exception {
+
+        checkIds("c in ('a', 'bb')", "1,2");
+        checkIds("c in ('a   ', 'c c  ')", "1,3");
+        checkIds("c not in ('a', 'bb   ')", "3");
+        checkIds("v in ('a', 'bb')", "1,2");
+        checkIds("v in ('a  ', 'bb ', 'c c ')", "1,2,3");
+        checkIds("v in (cast('bb' as char(4)))", "2");
+        checkIds("v not in ('bb', 'C C')", "1,3");
+        checkIds("vi in ('a', 'bb')", "1,2");
+        checkIds("vi in ('C c', 'x')", "3");
+        checkIds("vi in ('bB  ')", "2");
+        checkIds("vi not in ('A')", "2,3");
+        checkIds("v in ('A', 'BB')", "");
+        checkIds("upper(v) in ('A', 'BB')", "1,2");
+        checkIds("(v, vi) in (('a', 'a'), ('bb', 'BB'))", "1,2");
+    }
+
+    public void testParameters() throws Exception {
+
+        PreparedStatement ps = conn.prepareStatement(
+            "select id from ti where i in (?, ?, 3) order by id");
+
+        ps.setInt(1, 1);
+        ps.setInt(2, 2);
+        assertEquals("1,2,3", getIds(ps.executeQuery()));
+        ps.setInt(1, 5);
+        ps.setInt(2, 6);
+        assertEquals("3", getIds(ps.executeQuery()));
+        ps.setNull(1, Types.INTEGER);
+        ps.setInt(2, 2);
+        assertEquals("2,3", getIds(ps.executeQuery()));
+        ps.setInt(1, 1);
+        assertEquals("1,2,3", getIds(ps.executeQuery()));
+        ps.close();
+
+        ps = conn.prepareStatement(
+            "select id from ti where d not in (?, ?) order by id");
+
+        ps.setBigDecimal(1, new BigDecimal("1"));
+        ps.setBigDecimal(2, new BigDecimal("2.500"));
+        assertEquals("3", getIds(ps.executeQuery()));
+        ps.setNull(2, Types.DECIMAL);
+        assertEquals("", getIds(ps.executeQuery()));
+        ps.setBigDecimal(2, new BigDecimal("-3.1"));
+        assertEquals("2", getIds(ps.executeQuery()));
+        ps.close();
+
+        ps = conn.prepareStatement(
+            "select id from ti where vi in (?, 'x') order by id");
+
+        ps.setString(1, "a ");
+        assertEquals("1", getIds(ps.executeQuery()));
+        ps.setString(1, "BB");
+        assertEquals("2", getIds(ps.executeQuery()));
+        ps.close();
+
+        // the list evaluated for each outer row in one execution
+        ps = conn.prepareStatement(
+            "select id from ti t where exists (select 1 from ti u "
+            + "where u.id = t.id and u.b in (?, ?)) order by id");
+
+        ps.setLong(1, 20000000000L);
+        ps.setLong(2, -3);
+        assertEquals("2,3", getIds(ps.executeQuery()));
+        ps.setLong(1, 1);
+        assertEquals("1,3", getIds(ps.executeQuery()));
+        ps.close();
+    }
+
+    public void testBatch() throws Exception {
+
+        PreparedStatement ps = conn.prepareStatement(
+            "update ti set n = n + 1 where i in (?, ?)");
+
+        ps.setInt(1, 1);
+        ps.setInt(2, 2);
+        ps.addBatch();
+        ps.setInt(1, 3);
+        ps.setInt(2, 4);
+        ps.addBatch();
+        ps.setNull(1, Types.INTEGER);
+        ps.setInt(2, 1);
+        ps.addBatch();
+        ps.setInt(1, 5);
+        ps.setInt(2, 6);
+        ps.addBatch();
+
+        int[] counts = ps.executeBatch();
+
+        assertEquals(4, counts.length);
+        assertEquals(2, counts[0]);
+        assertEquals(1, counts[1]);
+        assertEquals(1, counts[2]);
+        assertEquals(0, counts[3]);
+        ps.close();
+
+        ResultSet rs = st.executeQuery("select n from ti order by id");
+
+        assertEquals("2,1,1,0", getIds(rs));
+
+        ps = conn.prepareStatement(
+            "delete from ti where v not in (?, 'c c')");
+
+        ps.setString(1, "a");
+        ps.addBatch();
+        ps.setString(1, "bb");
+        ps.addBatch();
+
+        counts = ps.executeBatch();
+
+        assertEquals(1, counts[0]);
+        assertEquals(1, counts[1]);
+        ps.close();
+        checkIds("true", "3,4");
+    }
+
+    private void checkIds(String condition,
+                          String expected) throws Exception {
+
+        ResultSet rs = st.executeQuery("select id from ti where "
+                                       + condition + " order by id");
+
+        assertEquals(condition, expected, getIds(rs));
+    }
+
+    private static String getIds(ResultSet rs) throws Exception {
+
+        StringBuffer sb = new StringBuffer();
+
+        while (rs.next()) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+
+            sb.append(rs.getInt(1));
+        }
+
+        rs.close();
+
+        return sb.toString();
+    }
+}
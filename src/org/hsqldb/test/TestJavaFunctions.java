@@ -34,6 +34,7 @@ package org.hsqldb.test;
 import java.math.BigInteger;
 import java.sql.CallableStatement;
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -73,6 +74,7 @@ public class TestJavaFunctions extends TestBase {
         s.executeUpdate("DROP FUNCTION TEST_CUSTOM_RESULT IF EXISTS");
         s.executeUpdate("DROP FUNCTION SORT_BYTE_ARRAY IF EXISTS");
         s.executeUpdate("DROP FUNCTION SORT_BINARY_ARRAY IF EXISTS");
+        s.executeUpdate("DROP FUNCTION TEST_DEFAULT_CONNECTION IF EXISTS");
         s.executeUpdate("DROP TABLE T IF EXISTS");
         s.executeUpdate("CREATE TABLE T(C VARCHAR(20), I INT)");
         s.executeUpdate("INSERT INTO T VALUES 'Thames', 10");
@@ -85,6 +87,9 @@ public class TestJavaFunctions extends TestBase {
         s.executeUpdate(
             "CREATE FUNCTION TEST_CUSTOM_RESULT(BIGINT, BIGINT) RETURNS TABLE(I BIGINT, N VARBINARY(1000)) "
             + " READS SQL DATA LANGUAGE JAVA EXTERNAL NAME 'CLASSPATH:org.hsqldb.test.TestJavaFunctions.getCustomResult'");
+        s.executeUpdate(
+            "CREATE FUNCTION TEST_DEFAULT_CONNECTION(INT) RETURNS VARCHAR(20) "
+            + " NO SQL LANGUAGE JAVA EXTERNAL NAME 'CLASSPATH:org.hsqldb.test.TestJavaFunctions.getDefaultConnectionState'");
         s.executeUpdate(
             "CREATE FUNCTION SORT_BYTE_ARRAY(VARBINARY(20)) RETURNS VARBINARY(20) "
             + " NO SQL LANGUAGE JAVA EXTERNAL NAME 'CLASSPATH:org.hsqldb.test.TestJavaFunctions.getSortedByteArray'");
@@ -141,6 +146,62 @@ public class TestJavaFunctions extends TestBase {
         c.close();
     }
 
+    /**
+     * A NO SQL function can use the default connection but cannot execute
+     * SQL statements with it.
+     */
+    public void testNoSQLDefaultConnection() throws SQLException {
+
+        Connection c = newConnection();
+        Statement  s = c.createStatement();
+        ResultSet  r = s.executeQuery(
+            "SELECT TEST_DEFAULT_CONNECTION(I) FROM T WHERE I > 10");
+        int        count = 0;
+
+        while (r.next()) {
+            assertEquals("connection rejected", r.getString(1));
+
+            count++;
+        }
+
+        assertEquals(3, count);
+
+        r = s.executeQuery("VALUES TEST_DEFAULT_CONNECTION(1)");
+
+        r.next();
+        assertEquals("connection rejected", r.getString(1));
+
+        r = s.executeQuery("SELECT COUNT(*) FROM T");
+
+        r.next();
+        assertEquals(4, r.getInt(1));
+        c.close();
+    }
+
+    public static String getDefaultConnectionState(int i) {
+
+        Connection connection;
+
+        try {
+            connection =
+                DriverManager.getConnection("jdbc:default:connection");
+        } catch (SQLException e) {
+            return "no connection";
+        }
+
+        if (connection == null) {
+            return "no connection";
+        }
+
+        try {
+            connection.createStatement().execute("DELETE FROM T");
+        } catch (SQLException e) {
+            return "connection rejected";
+        }
+
+        return "connection allowed";
+    }
+
     public static ResultSet getQueryResult(Connection connection,
                                            int i) throws SQLException {
 
@@ -0,0 +1,216 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.CharArrayReader;
+import java.sql.SQLException;
+
+import org.hsqldb.jdbc.JDBCBlob;
+import org.hsqldb.lib.KMPSearchAlgorithm;
+
+import junit.framework.TestCase;
+
+/**
+ * Compares the results of KMPSearchAlgorithm and JDBCBlob.position() with
+ * String.indexOf() for all strings of two letters up to a fixed length.
+ * Repeated prefixes in the pattern, such as "aab" in "aaab", exercise the
+ * fallback through the table after a partial match.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TestKMPSearchAlgorithm extends TestCase {
+
+    static final int maxSourceLength  = 9;
+    static final int maxPatternLength = 5;
+
+    public TestKMPSearchAlgorithm(String name) {
+        super(name);
+    }
+
+    public void testKnownCases() throws Exception {
+
+        checkSearch("aaab", "aab");
+        checkSearch("abacabab", "abab");
+        checkSearch("aabaabaaa", "aabaaa");
+        checkSearch("abcabd", "abd");
+        checkSearch("aaaa", "aab");
+        checkSearch("ab", "abc");
+        checkSearch("", "a");
+    }
+
+    public void testAllStrings() throws Exception {
+
+        String[] sources  = getStrings(maxSourceLength);
+        String[] patterns = getStrings(maxPatternLength);
+
+        for (int i = 0; i < sources.length; i++) {
+            for (int j = 0; j < patterns.length; j++) {
+                if (patterns[j].length() > 0) {
+                    checkSearch(sources[i], patterns[j]);
+                }
+            }
+        }
+    }
+
+    public void testStartPosition() throws Exception {
+
+        String source  = "aabaabaab";
+        String pattern = "aab";
+
+        for (int start = 0; start <= source.length(); start++) {
+            int expected = source.indexOf(pattern, start);
+
+            assertEquals(expected,
+                         KMPSearchAlgorithm.search(source, pattern,
+                             getTable(pattern),
+                             start));
+            assertEquals(expected,
+                         KMPSearchAlgorithm.search(source.toCharArray(),
+                             pattern.toCharArray(),
+                             getTable(pattern.toCharArray()), start));
+            assertEquals(expected,
+                         KMPSearchAlgorithm.search(source.getBytes("US-ASCII"),
+                             pattern.getBytes("US-ASCII"),
+                             getTable(pattern.getBytes("US-ASCII")), start));
+
+            if (start < source.length()) {
+                JDBCBlob blob = new JDBCBlob(source.getBytes("US-ASCII"));
+
+                assertEquals(expected < 0 ? -1
+                                          : expected + 1, blob.position(
+                                              pattern.getBytes("US-ASCII"),
+                                              start + 1));
+            }
+        }
+    }
+
+    public void testBlobPattern() throws Exception {
+
+        JDBCBlob blob    = new JDBCBlob("xaaabaab".getBytes("US-ASCII"));
+        JDBCBlob pattern = new JDBCBlob("aab".getBytes("US-ASCII"));
+
+        assertEquals(3, blob.position(pattern, 1));
+        assertEquals(6, blob.position(pattern, 4));
+        assertEquals(-1, blob.position(pattern, 7));
+    }
+
+    private void checkSearch(String source,
+                             String pattern) throws Exception {
+
+        String message  = "\"" + pattern + "\" in \"" + source + "\"";
+        int    expected = source.indexOf(pattern);
+        char[] sourceChars  = source.toCharArray();
+        char[] patternChars = pattern.toCharArray();
+        byte[] sourceBytes  = source.getBytes("US-ASCII");
+        byte[] patternBytes = pattern.getBytes("US-ASCII");
+
+        assertEquals(message, expected,
+                     KMPSearchAlgorithm.search(source, pattern,
+                         getTable(pattern), 0));
+        assertEquals(message, expected,
+                     KMPSearchAlgorithm.search(sourceChars, patternChars,
+                         getTable(patternChars), 0));
+        assertEquals(message, expected,
+                     KMPSearchAlgorithm.search(sourceBytes, patternBytes,
+                         getTable(patternBytes), 0));
+        assertEquals(message, expected,
+                     KMPSearchAlgorithm.search(
+                         new ByteArrayInputStream(sourceBytes), patternBytes,
+                         getTable(patternBytes)));
+        assertEquals(message, expected,
+                     KMPSearchAlgorithm.search(
+                         new CharArrayReader(sourceChars), patternChars,
+                         getTable(patternChars)));
+
+        if (source.length() > 0) {
+            assertEquals(message, expected < 0 ? -1
+                                               : expected + 1, getPosition(
+                                                   sourceBytes,
+                                                   patternBytes));
+        }
+    }
+
+    /**
+     * The table is computed only for patterns longer than one element.
+     */
+    private static int[] getTable(String pattern) {
+        return pattern.length() > 1 ? KMPSearchAlgorithm.computeTable(pattern)
+                                    : null;
+    }
+
+    private static int[] getTable(char[] pattern) {
+        return pattern.length > 1 ? KMPSearchAlgorithm.computeTable(pattern)
+                                  : null;
+    }
+
+    private static int[] getTable(byte[] pattern) {
+        return pattern.length > 1 ? KMPSearchAlgorithm.computeTable(pattern)
+                                  : null;
+    }
+
+    private static long getPosition(byte[] source,
+                                    byte[] pattern) throws SQLException {
+        return new JDBCBlob(source).position(pattern, 1);
+    }
+
+    /**
+     * Returns all strings of the letters a and b up to the given length.
+     */
+    private static String[] getStrings(int maxLength) {
+
+        int count = 0;
+
+        for (int length = 0; length <= maxLength; length++) {
+            count += 1 << length;
+        }
+
+        String[] strings = new String[count];
+        int      index   = 0;
+
+        for (int length = 0; length <= maxLength; length++) {
+            for (int bits = 0; bits < 1 << length; bits++) {
+                char[] chars = new char[length];
+
+                for (int i = 0; i < length; i++) {
+                    chars[i] = (bits & (1 << i)) == 0 ? 'a'
+                                                      : 'b';
+                }
+
+                strings[index++] = new String(chars);
+            }
+        }
+
+        return strings;
+    }
+}
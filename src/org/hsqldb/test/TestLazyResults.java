@@ -0,0 +1,372 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.hsqldb.Database;
+import org.hsqldb.server.Server;
+
+/**
+ * Tests results whose rows are read from the tables as they are fetched,
+ * with MVCC and a non-zero fetch size, and the fetching of blocks of rows
+ * over the network.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TestLazyResults extends TestBase {
+
+    static final int rowCount = 100;
+    Connection       conn;
+
+    public TestLazyResults(String name) {
+        super(name, "jdbc:hsqldb:mem:testlazyresults;hsqldb.tx=mvcc", false,
+              false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        conn = newConnection();
+
+        Statement st = conn.createStatement();
+
+        st.execute("create table tl (id int primary key, v varchar(20))");
+        st.execute("insert into tl select n, 'v' || n from "
+                   + "unnest(sequence_array(1, " + rowCount
+                   + ", 1)) as t(n)");
+        st.close();
+    }
+
+    protected void tearDown() {
+
+        try {
+            conn.createStatement().execute("SHUTDOWN");
+            conn.close();
+        } catch (Exception e) {}
+
+        super.tearDown();
+    }
+
+    public void testRows() throws Exception {
+
+        Statement st = conn.createStatement();
+
+        st.setFetchSize(10);
+
+        ResultSet rs = st.executeQuery("select id, v from tl");
+
+        assertTrue(rs.isBeforeFirst());
+
+        for (int i = 1; i <= rowCount; i++) {
+            assertTrue(rs.next());
+            assertEquals(i, rs.getInt(1));
+            assertEquals("v" + i, rs.getString(2));
+            assertEquals(i == rowCount, rs.isLast());
+        }
+
+        assertFalse(rs.next());
+        assertTrue(rs.isAfterLast());
+        assertFalse(rs.next());
+        rs.close();
+
+        // empty and single row results
+        rs = st.executeQuery("select id from tl where v = 'none'");
+
+        assertFalse(rs.isBeforeFirst());
+        assertFalse(rs.next());
+        rs.close();
+
+        rs = st.executeQuery("select id from tl where id = 7");
+
+        assertTrue(rs.isBeforeFirst());
+        assertTrue(rs.next());
+        assertEquals(7, rs.getInt(1));
+        assertTrue(rs.isLast());
+        assertFalse(rs.next());
+        rs.close();
+
+        // slices and the maximum number of rows
+        rs = st.executeQuery("select id from tl limit 5 offset 20");
+
+        assertEquals("21,22,23,24,25", getValues(rs, 0));
+
+        st.setMaxRows(3);
+
+        rs = st.executeQuery("select id from tl where id > 50");
+
+        assertEquals("51,52,53", getValues(rs, 0));
+
+        st.setMaxRows(0);
+
+        // a join
+        rs = st.executeQuery(
+            "select a.id from tl a, tl b where a.id = b.id - 1 and a.id > 96");
+
+        assertEquals("97,98,99", getValues(rs, 0));
+        st.close();
+    }
+
+    public void testDrain() throws Exception {
+
+        Statement st  = conn.createStatement();
+        Statement st2 = conn.createStatement();
+
+        st.setFetchSize(10);
+
+        // the next statement on the connection reads the remaining rows first
+        ResultSet rs = st.executeQuery("select id from tl");
+
+        assertTrue(rs.next());
+        assertTrue(rs.next());
+        assertEquals(2, rs.getInt(1));
+        assertEquals(rowCount - 5,
+                     st2.executeUpdate("delete from tl where id > 5"));
+        assertEquals(rowCount - 2, getCount(rs));
+        assertEquals(5, getCount(st2.executeQuery("select id from tl")));
+
+        // rows of another session are not seen once the result is open
+        rs = st.executeQuery("select id from tl");
+
+        assertTrue(rs.next());
+
+        Connection conn2 = newConnection();
+
+        conn2.createStatement().execute("delete from tl where id > 1");
+        assertEquals(4, getCount(rs));
+        assertEquals(1, getCount(st2.executeQuery("select id from tl")));
+        conn2.createStatement().execute(
+            "insert into tl values (2, 'v2'), (3, 'v3')");
+        conn2.close();
+
+        // commit and rollback read the remaining rows first
+        conn.setAutoCommit(false);
+
+        rs = st.executeQuery("select id from tl");
+
+        assertTrue(rs.next());
+        st2.execute("insert into tl values (4, 'v4')");
+        conn.rollback();
+        assertEquals(2, getCount(rs));
+
+        rs = st.executeQuery("select id from tl");
+
+        assertTrue(rs.next());
+        conn.commit();
+        assertEquals(2, getCount(rs));
+        conn.setAutoCommit(true);
+        st.close();
+        st2.close();
+    }
+
+    public void testAutoCommit() throws Exception {
+
+        Statement st = conn.createStatement();
+        ResultSet rs = st.executeQuery("select id from tl");
+
+        assertTrue(rs.next());
+
+        // without a fetch size the result is complete and the transaction
+        // is committed, so another session can change the schema
+        Thread thread = executeInThread("create table tx1 (a int)");
+
+        thread.join(10000);
+        assertFalse(thread.isAlive());
+        assertEquals(rowCount - 1, getCount(rs));
+
+        // with a fetch size, the commit waits for the result to be closed
+        st.setFetchSize(10);
+
+        rs = st.executeQuery("select id from tl");
+
+        assertTrue(rs.next());
+
+        thread = executeInThread("create table tx2 (a int)");
+
+        thread.join(500);
+        assertTrue(thread.isAlive());
+        rs.close();
+        thread.join(10000);
+        assertFalse(thread.isAlive());
+
+        // or for the last row to be read
+        rs = st.executeQuery("select id from tl");
+
+        assertTrue(rs.next());
+
+        thread = executeInThread("create table tx3 (a int)");
+
+        thread.join(500);
+        assertTrue(thread.isAlive());
+        assertEquals(rowCount - 1, getCount(rs));
+        thread.join(10000);
+        assertFalse(thread.isAlive());
+        st.close();
+    }
+
+    public void testNetworkBlocks() throws Exception {
+
+        Server server = new Server();
+
+        server.setDatabaseName(0, "testlazyresults");
+        server.setDatabasePath(0, "mem:testlazyresults");
+        server.setLogWriter(null);
+        server.setErrWriter(null);
+        server.start();
+
+        try {
+            Connection c = DriverManager.getConnection(
+                "jdbc:hsqldb:hsql://localhost/testlazyresults", user,
+                password);
+            Statement st = c.createStatement();
+            int[]     fetchSizes = new int[] {
+                0, 1, 7, 10, rowCount - 1, rowCount, rowCount + 1
+            };
+
+            for (int i = 0; i < fetchSizes.length; i++) {
+                String message = "fetch size " + fetchSizes[i];
+
+                st.setFetchSize(fetchSizes[i]);
+
+                ResultSet rs = st.executeQuery("select id from tl");
+
+                for (int j = 1; j <= rowCount; j++) {
+                    assertTrue(message, rs.next());
+                    assertEquals(message, j, rs.getInt(1));
+                    assertEquals(message, j == rowCount, rs.isLast());
+                }
+
+                assertFalse(message, rs.next());
+                rs.close();
+
+                // rows skipped without reading them
+                rs = st.executeQuery("select id from tl");
+
+                for (int j = 1; j <= rowCount; j++) {
+                    assertTrue(message, rs.next());
+
+                    if (j % 13 == 0) {
+                        assertEquals(message, j, rs.getInt(1));
+                    }
+                }
+
+                assertFalse(message, rs.next());
+                rs.close();
+
+                // a scrollable result that is not read lazily
+                Statement sst = c.createStatement(
+                    ResultSet.TYPE_SCROLL_INSENSITIVE,
+                    ResultSet.CONCUR_READ_ONLY);
+
+                sst.setFetchSize(fetchSizes[i]);
+
+                rs = sst.executeQuery("select id from tl");
+
+                assertTrue(message, rs.absolute(50));
+                assertEquals(message, 50, rs.getInt(1));
+                assertTrue(message, rs.absolute(3));
+                assertEquals(message, 3, rs.getInt(1));
+                assertTrue(message, rs.last());
+                assertEquals(message, rowCount, rs.getInt(1));
+                assertTrue(message, rs.first());
+                assertEquals(message, 1, rs.getInt(1));
+                assertEquals(message, rowCount - 1, getCount(rs));
+                rs.close();
+                sst.close();
+            }
+
+            c.close();
+        } finally {
+            server.shutdownWithCatalogs(Database.CLOSEMODE_NORMAL);
+        }
+    }
+
+    private Thread executeInThread(final String sql) {
+
+        Thread thread = new Thread() {
+
+            public void run() {
+
+                try {
+                    Connection c = newConnection();
+
+                    c.createStatement().execute(sql);
+                    c.close();
+                } catch (SQLException e) {}
+            }
+        };
+
+        thread.start();
+
+        return thread;
+    }
+
+    /**
+     * Returns the number of remaining rows and closes the result.
+     */
+    private static int getCount(ResultSet rs) throws Exception {
+
+        int count = 0;
+
+        while (rs.next()) {
+            count++;
+        }
+
+        rs.close();
+
+        return count;
+    }
+
+    private static String getValues(ResultSet rs,
+                                    int column) throws Exception {
+
+        StringBuffer sb = new StringBuffer();
+
+        while (rs.next()) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+
+            sb.append(rs.getInt(column + 1));
+        }
+
+        rs.close();
+
+        return sb.toString();
+    }
+}
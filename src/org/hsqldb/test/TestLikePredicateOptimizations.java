@@ -32,9 +32,15 @@
 package org.hsqldb.test;
 
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.Statement;
+import java.util.regex.Pattern;
+
+import org.hsqldb.Database;
+import org.hsqldb.Session;
+import org.hsqldb.jdbc.JDBCConnection;
 
 import junit.framework.TestCase;
 import junit.framework.TestResult;
@@ -43,7 +49,7 @@ import junit.framework.TestResult;
  * HSQLDB TestLikePredicate Junit test case. <p>
  *
  * @author Campbell Burnet (campbell-burnet@users dot sourceforge.net)
- * @version 1.9.0
+ * @version 2.5.1
  * @since 1.7.2
  */
 public class TestLikePredicateOptimizations extends TestBase {
@@ -308,6 +314,276 @@ public class TestLikePredicateOptimizations extends TestBase {
         assertEquals("\"" + sql + "\"", result, presult);
     }
 
+    /**
+     * Patterns that are a literal, with or without a leading and / or
+     * trailing percent, are matched without the generic comparison. The
+     * results must be the same as for a pattern interpreted in full.
+     */
+    public void testPatternClassification() throws Exception {
+
+        Connection conn = newConnection();
+        Statement  stmt = conn.createStatement();
+
+        stmt.execute("drop table testmatch if exists");
+        stmt.execute("create table testmatch(id int, name varchar(20), "
+                     + "iname varchar_ignorecase(20), cname char(10))");
+
+        PreparedStatement pstmt =
+            conn.prepareStatement("insert into testmatch values(?, ?, ?, ?)");
+
+        for (int i = 0; i < matchValues.length; i++) {
+            pstmt.setInt(1, i);
+            pstmt.setString(2, matchValues[i]);
+            pstmt.setString(3, matchValues[i]);
+            pstmt.setString(4, matchValues[i]);
+            pstmt.execute();
+        }
+
+        String[] columns = new String[] {
+            "name", "iname", "cname"
+        };
+
+        for (int c = 0; c < columns.length; c++) {
+            PreparedStatement pquery = conn.prepareStatement(
+                "select count(*) from testmatch where " + columns[c]
+                + " like ?");
+            PreparedStatement pqueryEscape = conn.prepareStatement(
+                "select count(*) from testmatch where " + columns[c]
+                + " like ? escape '\\'");
+
+            for (int i = 0; i < matchPatterns.length; i++) {
+                String pattern  = matchPatterns[i];
+                String sql = "select count(*) from testmatch where "
+                             + columns[c] + " like '" + pattern + "'";
+
+                assertEquals(sql, getMatchCount(pattern, c, false, true),
+                             getCount(stmt, sql));
+                pquery.setString(1, pattern);
+                assertEquals(sql, getMatchCount(pattern, c, false, false),
+                             getCount(pquery));
+
+                sql = sql + " escape '\\'";
+
+                assertEquals(sql, getMatchCount(pattern, c, true, true),
+                             getCount(stmt, sql));
+                pqueryEscape.setString(1, pattern);
+                assertEquals(sql, getMatchCount(pattern, c, true, false),
+                             getCount(pqueryEscape));
+            }
+        }
+
+        stmt.execute("drop table testmatch");
+        conn.close();
+    }
+
+    /**
+     * A parameterised pattern is parsed again only when the pattern or the
+     * escape differs from the previous one.
+     */
+    public void testPatternReuse() throws Exception {
+
+        Connection conn = newConnection();
+        Statement  stmt = conn.createStatement();
+
+        stmt.execute("drop table testreuse if exists");
+        stmt.execute("create table testreuse(id int, name varchar(20), "
+                     + "pattern varchar(20), esc char(1))");
+        stmt.execute("insert into testreuse values "
+                     + "(1, 'abc', 'ab%', null), (2, 'abc', 'ab%', null), "
+                     + "(3, 'a%c', 'a!%c', '!'), (4, 'abc', 'a!%c', '!'), "
+                     + "(5, 'abc', 'a!%c', '#'), (6, 'a!bc', 'a!%c', '#'), "
+                     + "(7, 'xabx', '%ab%', null), (8, 'xbax', '%ab%', null), "
+                     + "(9, 'abc', '%bc', null), (10, 'abc', 'abc', null), "
+                     + "(11, 'abc', 'abc ', null), (12, 'abc', null, null)");
+
+        assertEquals("1,2,3,6,7,9,10",
+                     getIds(stmt,
+                            "select id from testreuse where name like pattern"
+                            + " escape coalesce(esc, '\\') order by id"));
+
+        PreparedStatement pstmt = conn.prepareStatement(
+            "select count(*) from testreuse where name like ?");
+        String[] patterns = new String[] {
+            "abc", "abc", "ab%", "ab%", "%bc", "%ab%", "%ab%", "abc", "a_c",
+            "%", "a%c", "abc"
+        };
+        int[] expected = new int[] {
+            8, 8, 8, 8, 9, 9, 9, 8, 9, 12, 10, 8
+        };
+
+        for (int i = 0; i < patterns.length; i++) {
+            pstmt.setString(1, patterns[i]);
+            assertEquals(patterns[i], expected[i], getCount(pstmt));
+        }
+
+        pstmt.setNull(1, java.sql.Types.VARCHAR);
+        assertEquals(0, getCount(pstmt));
+        pstmt.setString(1, "abc");
+        assertEquals(8, getCount(pstmt));
+
+        pstmt = conn.prepareStatement(
+            "select count(*) from testreuse where name like ? escape ?");
+
+        pstmt.setString(1, "a!%c");
+        pstmt.setString(2, "!");
+        assertEquals(1, getCount(pstmt));
+        pstmt.setString(2, "#");
+        assertEquals(1, getCount(pstmt));
+        pstmt.setString(1, "a%c");
+        assertEquals(10, getCount(pstmt));
+        pstmt.setString(1, "a%%c");
+        pstmt.setString(2, "%");
+        assertEquals(1, getCount(pstmt));
+        pstmt.setString(2, "#");
+        assertEquals(10, getCount(pstmt));
+
+        stmt.execute("drop table testreuse");
+        conn.close();
+    }
+
+    /**
+     * The shared cache of compiled regular expressions keeps the most
+     * recently used patterns when it is full.
+     */
+    public void testPatternCache() throws Exception {
+
+        Connection conn = DriverManager.getConnection(
+            "jdbc:hsqldb:mem:patterncache", "sa", "");
+        Session    session  = (Session) ((JDBCConnection) conn).getSession();
+        Database   database = session.database;
+        Pattern[]  patterns = new Pattern[1000];
+
+        for (int i = 0; i < patterns.length; i++) {
+            patterns[i] = database.getPattern("p" + i, 0);
+
+            assertSame(patterns[0], database.getPattern("p0", 0));
+        }
+
+        for (int i = patterns.length - 1; i > patterns.length - 256; i--) {
+            assertSame(patterns[i], database.getPattern("p" + i, 0));
+        }
+
+        assertNotSame(patterns[1], database.getPattern("p1", 0));
+        conn.createStatement().execute("SHUTDOWN");
+    }
+
+    static final String[] matchValues = new String[] {
+        "", "a", "ab", "abc", "aab", "xaab", "ba", "abab", "abacabab", "a%b",
+        "a_b", "ABC", "Ab", "xab", "ab ", "a\\b", null
+    };
+    static final String[] matchPatterns = new String[] {
+        "", "a", "ab", "abc", "ab%", "%ab", "%ab%", "%aab%", "%abab%", "%",
+        "%%", "a%b", "_b", "%a_b%", "a\\%b", "%\\%%", "%\\_%", "%b%",
+        "ab ", "%b ", "AB%", "%AB%", "%c", "aab", "x%", "%x"
+    };
+
+    /**
+     * Matches the values with a regular expression built from the pattern.
+     * A constant pattern without wildcards is an equality comparison, which
+     * ignores trailing spaces.
+     */
+    private static int getMatchCount(String pattern, int column,
+                                     boolean hasEscape, boolean isConstant) {
+
+        StringBuffer sb       = new StringBuffer();
+        StringBuffer literal  = new StringBuffer();
+        boolean      wildcard = false;
+
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+
+            if (hasEscape && c == '\\') {
+                i++;
+
+                sb.append(java.util.regex.Pattern.quote(
+                    String.valueOf(pattern.charAt(i))));
+                literal.append(pattern.charAt(i));
+            } else if (c == '%') {
+                sb.append(".*");
+
+                wildcard = true;
+            } else if (c == '_') {
+                sb.append('.');
+
+                wildcard = true;
+            } else {
+                sb.append(java.util.regex.Pattern.quote(String.valueOf(c)));
+                literal.append(c);
+            }
+        }
+
+        if (isConstant && !wildcard) {
+            sb.setLength(0);
+            sb.append(java.util.regex.Pattern.quote(
+                literal.toString().replaceAll(" +$", "")));
+            sb.append(" *");
+        }
+
+        int flags = column == 1 ? java.util.regex.Pattern.CASE_INSENSITIVE
+                                : 0;
+        java.util.regex.Pattern regex =
+            java.util.regex.Pattern.compile(sb.toString(),
+                                            flags | java.util.regex.Pattern
+                                                .DOTALL);
+        int count = 0;
+
+        for (int i = 0; i < matchValues.length; i++) {
+            String value = matchValues[i];
+
+            if (value == null) {
+                continue;
+            }
+
+            if (column == 2) {
+                while (value.length() < 10) {
+                    value += ' ';
+                }
+            }
+
+            if (regex.matcher(value).matches()) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private static int getCount(Statement stmt,
+                                String sql) throws Exception {
+
+        ResultSet rs = stmt.executeQuery(sql);
+
+        rs.next();
+
+        return rs.getInt(1);
+    }
+
+    private static int getCount(PreparedStatement pstmt) throws Exception {
+
+        ResultSet rs = pstmt.executeQuery();
+
+        rs.next();
+
+        return rs.getInt(1);
+    }
+
+    private static String getIds(Statement stmt,
+                                 String sql) throws Exception {
+
+        ResultSet    rs = stmt.executeQuery(sql);
+        StringBuffer sb = new StringBuffer();
+
+        while (rs.next()) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+
+            sb.append(rs.getInt(1));
+        }
+
+        return sb.toString();
+    }
+
     /* Runs TestLikePredicate test from the command line*/
     public static void main(String[] args) throws Exception {
 
@@ -0,0 +1,345 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.test;
+
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.hsqldb.Session;
+import org.hsqldb.jdbc.JDBCConnection;
+import org.hsqldb.persist.LobManager;
+import org.hsqldb.types.ClobDataID;
+
+/**
+ * Tests the lob directory of LobManager and the creation of lobs without
+ * the SYSTEM_LOBS statements.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TestLobDirectory extends TestBase {
+
+    static String url = TestDirectorySettings.fileBaseURL
+                        + "testlobdirectory/test";
+    static String filepath = TestDirectorySettings.fileBase
+                             + "testlobdirectory/test";
+    static final int rowCount = 200;
+
+    public TestLobDirectory(String name) {
+        super(name, url, false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        TestUtil.deleteDatabase(filepath);
+        super.setUp();
+
+        Connection c  = newConnection();
+        Statement  st = c.createStatement();
+
+        st.execute("CREATE CACHED TABLE TL (ID INT PRIMARY KEY, C CLOB,"
+                   + " B BLOB)");
+
+        PreparedStatement ps =
+            c.prepareStatement("INSERT INTO TL VALUES (?, ?, ?)");
+
+        for (int i = 0; i < rowCount; i++) {
+            ps.setInt(1, i);
+            ps.setString(2, getString(i));
+            ps.setBytes(3, getBytes(i));
+            ps.executeUpdate();
+        }
+
+        c.close();
+    }
+
+    protected void tearDown() {
+
+        try {
+            newConnection().createStatement().execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        super.tearDown();
+    }
+
+    static String getString(int i) {
+
+        StringBuffer sb = new StringBuffer();
+
+        for (int j = 0; j < i % 7 * 100 + 1; j++) {
+            sb.append((char) ('a' + (i + j) % 26));
+        }
+
+        return sb.toString();
+    }
+
+    static byte[] getBytes(int i) {
+
+        byte[] bytes = new byte[i % 5 * 1000 + 1];
+
+        for (int j = 0; j < bytes.length; j++) {
+            bytes[j] = (byte) (i + j);
+        }
+
+        return bytes;
+    }
+
+    static LobManager getLobManager(Connection c) {
+        return getSession(c).getDatabase().lobManager;
+    }
+
+    static Session getSession(Connection c) {
+        return (Session) ((JDBCConnection) c).getSession();
+    }
+
+    void checkRows(Connection c) throws Exception {
+
+        ResultSet rs = c.createStatement().executeQuery(
+            "SELECT ID, C, B FROM TL ORDER BY ID");
+        int count = 0;
+
+        while (rs.next()) {
+            int  id   = rs.getInt(1);
+            Clob clob = rs.getClob(2);
+            Blob blob = rs.getBlob(3);
+
+            assertEquals(getString(id),
+                         clob.getSubString(1, (int) clob.length()));
+            assertTrue(java.util.Arrays.equals(getBytes(id),
+                                               blob.getBytes(1,
+                                                   (int) blob.length())));
+
+            count++;
+        }
+
+        rs.close();
+        assertEquals(rowCount, count);
+    }
+
+    /**
+     * The LOB_IDS and LOBS rows of the lobs, and the free blocks, do not
+     * overlap.
+     */
+    void checkLobTables(Connection c, int lobCount) throws Exception {
+
+        Statement st = c.createStatement();
+        ResultSet rs = st.executeQuery(
+            "SELECT COUNT(*) FROM SYSTEM_LOBS.LOB_IDS");
+
+        rs.next();
+        assertEquals(lobCount, rs.getInt(1));
+
+        rs = st.executeQuery(
+            "SELECT COUNT(*) FROM SYSTEM_LOBS.LOB_IDS I WHERE NOT EXISTS"
+            + " (SELECT * FROM SYSTEM_LOBS.LOBS L WHERE L.LOB_ID = I.LOB_ID)"
+            + " AND I.LOB_LENGTH > 0");
+
+        rs.next();
+        assertEquals(0, rs.getInt(1));
+
+        rs = st.executeQuery(
+            "SELECT COUNT(*) FROM SYSTEM_LOBS.LOBS L, SYSTEM_LOBS.BLOCKS B"
+            + " WHERE B.BLOCK_ADDR < L.BLOCK_ADDR + L.BLOCK_COUNT"
+            + " AND L.BLOCK_ADDR < B.BLOCK_ADDR + B.BLOCK_COUNT");
+
+        rs.next();
+        assertEquals(0, rs.getInt(1));
+
+        rs = st.executeQuery(
+            "SELECT COUNT(*) FROM SYSTEM_LOBS.LOBS L, SYSTEM_LOBS.LOBS M"
+            + " WHERE L.BLOCK_ADDR <> M.BLOCK_ADDR"
+            + " AND M.BLOCK_ADDR < L.BLOCK_ADDR + L.BLOCK_COUNT"
+            + " AND L.BLOCK_ADDR < M.BLOCK_ADDR + M.BLOCK_COUNT");
+
+        rs.next();
+        assertEquals(0, rs.getInt(1));
+        rs.close();
+    }
+
+    public void testCreate() throws Exception {
+
+        Connection c = newConnection();
+
+        checkRows(c);
+        checkLobTables(c, rowCount * 2);
+        c.close();
+    }
+
+    public void testReopen() throws Exception {
+
+        Connection c = newConnection();
+
+        c.createStatement().execute("SHUTDOWN IMMEDIATELY");
+
+        c = newConnection();
+
+        checkRows(c);
+        checkLobTables(c, rowCount * 2);
+        c.createStatement().execute("SHUTDOWN");
+
+        c = newConnection();
+
+        checkRows(c);
+        checkLobTables(c, rowCount * 2);
+
+        // lobs created after the reopen use the free blocks
+        PreparedStatement ps =
+            c.prepareStatement("UPDATE TL SET C = ?, B = ? WHERE ID = ?");
+
+        for (int i = 0; i < rowCount; i += 3) {
+            ps.setString(1, getString(i));
+            ps.setBytes(2, getBytes(i));
+            ps.setInt(3, i);
+            ps.executeUpdate();
+        }
+
+        c.createStatement().execute("CHECKPOINT");
+        checkRows(c);
+        checkLobTables(c, rowCount * 2);
+        c.createStatement().execute("SHUTDOWN IMMEDIATELY");
+
+        c = newConnection();
+
+        checkRows(c);
+        checkLobTables(c, rowCount * 2);
+        c.close();
+    }
+
+    public void testHits() throws Exception {
+
+        Connection c       = newConnection();
+        LobManager manager = getLobManager(c);
+        ResultSet rs = c.createStatement().executeQuery(
+            "SELECT C FROM TL WHERE ID = 6");
+
+        rs.next();
+
+        Clob clob = rs.getClob(1);
+        long hits = manager.getDirectoryHitCount();
+
+        assertEquals(getString(6).substring(100, 110),
+                     clob.getSubString(101, 10));
+        assertTrue(manager.getDirectoryHitCount() > hits);
+        assertTrue(manager.getDirectorySize() > 0);
+        c.close();
+    }
+
+    public void testInvalidation() throws Exception {
+
+        Connection c       = newConnection();
+        Session    session = getSession(c);
+        LobManager manager = getLobManager(c);
+        ClobDataID clob    = session.createClob(6);
+
+        clob.setString(session, 0, "abcdef");
+
+        long id = clob.getId();
+
+        assertEquals(6, new ClobDataID(id).length(session));
+        assertEquals("abcdef",
+                     new ClobDataID(id).getSubString(session, 0, 6));
+
+        // update
+        clob.setString(session, 4, "xyz");
+        assertEquals(7, new ClobDataID(id).length(session));
+        assertEquals("abcdxyz",
+                     new ClobDataID(id).getSubString(session, 0, 7));
+
+        // truncate
+        clob.truncate(session, 2);
+        assertEquals(2, new ClobDataID(id).length(session));
+        assertEquals("ab", new ClobDataID(id).getSubString(session, 0, 2));
+
+        // write after the truncation reuses the directory entry
+        clob.setString(session, 2, "cd");
+        assertEquals("abcd", new ClobDataID(id).getSubString(session, 0, 4));
+
+        // delete
+        assertEquals(1, manager.getLobCount() - rowCount * 2);
+        assertFalse(manager.deleteLob(id).isError());
+        assertNull(manager.getClob(id));
+        assertEquals(0, manager.getLobCount() - rowCount * 2);
+
+        // unused lobs are deleted and the directory is emptied
+        c.createStatement().execute("DELETE FROM TL WHERE ID < 10");
+        c.createStatement().execute("CHECKPOINT");
+        assertEquals(0, manager.getDirectorySize());
+        checkLobTables(c, rowCount * 2 - 20);
+        c.close();
+    }
+
+    public void testLeastRecentlyUsed() throws Exception {
+
+        Connection   c       = newConnection();
+        Session      session = getSession(c);
+        LobManager   manager = getLobManager(c);
+        ClobDataID[] clobs   = new ClobDataID[5];
+
+        manager.setDirectoryLimit(3);
+        assertTrue(manager.getDirectorySize() <= 3);
+
+        for (int i = 0; i < clobs.length; i++) {
+            clobs[i] = session.createClob(1);
+
+            clobs[i].setString(session, 0, String.valueOf(i));
+        }
+
+        // 2, 3 and 4 are in the directory, 2 is used and 3 is removed
+        assertEquals(3, manager.getDirectorySize());
+        checkHit(session, manager, clobs[2], true);
+
+        clobs[0] = session.createClob(1);
+
+        clobs[0].setString(session, 0, "0");
+        checkHit(session, manager, clobs[2], true);
+        checkHit(session, manager, clobs[4], true);
+        checkHit(session, manager, clobs[3], false);
+        checkHit(session, manager, clobs[1], false);
+        manager.setDirectoryLimit(4096);
+        c.close();
+    }
+
+    void checkHit(Session session, LobManager manager, ClobDataID clob,
+                  boolean hit) {
+
+        long hits = manager.getDirectoryHitCount();
+
+        new ClobDataID(clob.getId()).length(session);
+        assertEquals(hit ? hits + 1
+                         : hits, manager.getDirectoryHitCount());
+    }
+}
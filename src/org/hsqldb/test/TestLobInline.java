@@ -0,0 +1,445 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import org.hsqldb.Session;
+import org.hsqldb.jdbc.JDBCConnection;
+import org.hsqldb.server.Server;
+import org.hsqldb.types.BlobDataID;
+import org.hsqldb.types.ClobDataID;
+
+/**
+ * Tests lobs held inline in rows when hsqldb.lob_inline_size is set.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TestLobInline extends TestBase {
+
+    static String url = TestDirectorySettings.fileBaseURL
+                        + "testlobinline/test";
+    static String filepath = TestDirectorySettings.fileBase
+                             + "testlobinline/test";
+    static final int rowCount   = 100;
+    static final int inlineSize = 1000;
+
+    public TestLobInline(String name) {
+        super(name, url, false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        TestUtil.deleteDatabase(filepath);
+        super.setUp();
+
+        Connection c  = newConnection();
+        Statement  st = c.createStatement();
+
+        st.execute("SET FILES LOB INLINE SIZE " + inlineSize);
+        st.execute("CREATE CACHED TABLE TI (ID INT PRIMARY KEY, C CLOB,"
+                   + " B BLOB)");
+
+        PreparedStatement ps =
+            c.prepareStatement("INSERT INTO TI VALUES (?, ?, ?)");
+
+        for (int i = 0; i < rowCount; i++) {
+            String s     = getString(i);
+            byte[] bytes = getBytes(i);
+
+            ps.setInt(1, i);
+
+            // half the values are sent as streams and stored as lobs first
+            if (i % 2 == 0) {
+                ps.setString(2, s);
+                ps.setBytes(3, bytes);
+            } else {
+                ps.setCharacterStream(2, new StringReader(s), s.length());
+                ps.setBinaryStream(3, new ByteArrayInputStream(bytes),
+                                   bytes.length);
+            }
+
+            ps.executeUpdate();
+        }
+
+        c.close();
+    }
+
+    protected void tearDown() {
+
+        try {
+            newConnection().createStatement().execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        super.tearDown();
+    }
+
+    /**
+     * Every fourth value is larger than the inline size.
+     */
+    static boolean isLarge(int i) {
+        return i % 4 == 0;
+    }
+
+    static String getString(int i) {
+
+        int          length = isLarge(i) ? 1000 + i
+                                         : i % 4 * 100 + i;
+        StringBuffer sb     = new StringBuffer();
+
+        for (int j = 0; j < length; j++) {
+            sb.append((char) ('a' + (i + j) % 26));
+        }
+
+        return sb.toString();
+    }
+
+    static byte[] getBytes(int i) {
+
+        byte[] bytes = new byte[isLarge(i) ? 2000 + i
+                                           : i % 4 * 200 + i];
+
+        for (int j = 0; j < bytes.length; j++) {
+            bytes[j] = (byte) (i + j);
+        }
+
+        return bytes;
+    }
+
+    static Session getSession(Connection c) {
+        return (Session) ((JDBCConnection) c).getSession();
+    }
+
+    void checkRows(Connection c, String table) throws Exception {
+        checkRows(c, table, true);
+    }
+
+    /**
+     * Checks the contents of each row and, when inline is true, that only
+     * the large values have a lob id.
+     */
+    void checkRows(Connection c, String table,
+                   boolean inline) throws Exception {
+
+        ResultSet rs = c.createStatement().executeQuery(
+            "SELECT ID, C, B, LOB_ID(C), LOB_ID(B) FROM " + table
+            + " ORDER BY ID");
+        int count = 0;
+
+        while (rs.next()) {
+            int  id   = rs.getInt(1);
+            Clob clob = rs.getClob(2);
+            Blob blob = rs.getBlob(3);
+
+            assertEquals(getString(id),
+                         clob.getSubString(1, (int) clob.length()));
+            assertTrue(Arrays.equals(getBytes(id),
+                                     blob.getBytes(1, (int) blob.length())));
+            assertEquals(isLarge(id) || !inline, rs.getLong(4) != 0);
+            assertEquals(isLarge(id) || !inline, rs.getLong(5) != 0);
+
+            count++;
+        }
+
+        rs.close();
+        assertEquals(rowCount, count);
+    }
+
+    /**
+     * Only the lobs larger than the inline size are in the lob store.
+     */
+    void checkLobCount(Connection c, int lobCount) throws Exception {
+
+        Statement st = c.createStatement();
+
+        st.execute("CHECKPOINT");
+
+        ResultSet rs = st.executeQuery(
+            "SELECT COUNT(*) FROM SYSTEM_LOBS.LOB_IDS");
+
+        rs.next();
+        assertEquals(lobCount, rs.getInt(1));
+        rs.close();
+    }
+
+    public void testRoundTrip() throws Exception {
+
+        Connection c  = newConnection();
+        Statement  st = c.createStatement();
+
+        checkRows(c, "TI");
+        checkLobCount(c, rowCount / 2);
+
+        // operations on inline values
+        ResultSet rs = st.executeQuery(
+            "SELECT LENGTH(C), SUBSTRING(C, 2, 3), OCTET_LENGTH(B),"
+            + " POSITION('cde' IN C) FROM TI WHERE ID = 2");
+
+        rs.next();
+        assertEquals(getString(2).length(), rs.getInt(1));
+        assertEquals(getString(2).substring(1, 4), rs.getString(2));
+        assertEquals(getBytes(2).length, rs.getInt(3));
+        assertEquals(getString(2).indexOf("cde") + 1, rs.getInt(4));
+
+        // copies to a MEMORY table keep the values inline
+        st.execute("CREATE MEMORY TABLE TM (ID INT PRIMARY KEY, C CLOB,"
+                   + " B BLOB)");
+        st.execute("INSERT INTO TM SELECT * FROM TI");
+        checkRows(c, "TM");
+
+        // deleted inline values need no lob usage changes
+        st.execute("DELETE FROM TI WHERE MOD(ID, 4) = 1");
+        checkLobCount(c, rowCount / 2);
+
+        // lookups with lob parameters, which are deleted once unused
+        PreparedStatement ps = c.prepareStatement(
+            "SELECT ID FROM TI WHERE C = ? AND B = ?");
+
+        for (int i = 0; i < 8; i++) {
+            if (i % 4 == 1) {
+                continue;
+            }
+
+            ps.setString(1, getString(i));
+            ps.setBytes(2, getBytes(i));
+
+            rs = ps.executeQuery();
+
+            assertTrue(rs.next());
+            assertEquals(i, rs.getInt(1));
+        }
+
+        st.execute("DELETE FROM TM");
+        st.execute("DELETE FROM TI WHERE MOD(ID, 4) = 0");
+        checkLobCount(c, 0);
+        c.close();
+    }
+
+    public void testTruncate() throws Exception {
+
+        Connection c       = newConnection();
+        Session    session = getSession(c);
+
+        // inline values
+        ClobDataID clob = new ClobDataID("abcdef".toCharArray());
+
+        clob.truncate(session, 3);
+        assertEquals(3, clob.length(session));
+        assertEquals("abc", clob.getSubString(session, 0, 3));
+        clob.setString(session, 2, "xyz");
+        assertEquals(5, clob.length(session));
+        assertEquals("abxyz", clob.getSubString(session, 0, 5));
+
+        BlobDataID blob = new BlobDataID(new byte[] {
+            1, 2, 3, 4
+        });
+
+        blob.truncate(session, 1);
+        assertEquals(1, blob.length(session));
+        blob.setBytes(session, 1, new byte[] {
+            7, 8
+        });
+        assertTrue(Arrays.equals(new byte[] {
+            1, 7, 8
+        }, blob.getBytes(session, 0, 3)));
+
+        // lobs in the lob store
+        blob = session.createBlob(6);
+
+        blob.setBytes(session, 0, new byte[] {
+            1, 2, 3, 4, 5, 6
+        });
+        blob.truncate(session, 2);
+        assertEquals(2, blob.length(session));
+        blob.setBytes(session, 2, new byte[]{ 9 });
+        assertEquals(3, blob.length(session));
+
+        clob = session.createClob(6);
+
+        clob.setString(session, 0, "abcdef");
+        clob.truncate(session, 4);
+        assertEquals(4, clob.length(session));
+
+        // changes made through an updatable result set
+        Statement st = c.createStatement(ResultSet.TYPE_FORWARD_ONLY,
+                                         ResultSet.CONCUR_UPDATABLE);
+        ResultSet rs = st.executeQuery("SELECT ID, C, B FROM TI WHERE ID = 2");
+
+        rs.next();
+
+        Clob jdbcClob = rs.getClob(2);
+        Blob jdbcBlob = rs.getBlob(3);
+
+        jdbcClob.truncate(10);
+        jdbcBlob.truncate(20);
+        rs.updateRow();
+        rs.close();
+
+        rs = c.createStatement().executeQuery(
+            "SELECT C, B, LOB_ID(C) FROM TI WHERE ID = 2");
+
+        rs.next();
+        assertEquals(getString(2).substring(0, 10), rs.getString(1));
+        assertTrue(Arrays.equals(Arrays.copyOf(getBytes(2), 20),
+                                 rs.getBytes(2)));
+        assertEquals(0, rs.getLong(3));
+        c.close();
+    }
+
+    public void testReopen() throws Exception {
+
+        Connection c = newConnection();
+
+        c.createStatement().execute("SHUTDOWN IMMEDIATELY");
+
+        // rows from the .log
+        c = newConnection();
+
+        checkRows(c, "TI");
+        c.createStatement().execute("SHUTDOWN SCRIPT");
+
+        // rows from the .script
+        c = newConnection();
+
+        checkRows(c, "TI");
+        c.createStatement().execute("SHUTDOWN");
+
+        // rows from the .data file
+        c = newConnection();
+
+        checkRows(c, "TI");
+
+        ResultSet rs = c.createStatement().executeQuery(
+            "SELECT PROPERTY_VALUE FROM INFORMATION_SCHEMA.SYSTEM_PROPERTIES"
+            + " WHERE PROPERTY_NAME = 'hsqldb.lob_inline_size'");
+
+        rs.next();
+        assertEquals(String.valueOf(inlineSize), rs.getString(1));
+
+        PreparedStatement ps =
+            c.prepareStatement("UPDATE TI SET C = ?, B = ? WHERE ID = ?");
+
+        for (int i = 0; i < rowCount; i += 3) {
+            ps.setString(1, getString(i + 1));
+            ps.setBytes(2, getBytes(i + 1));
+            ps.setInt(3, i);
+            ps.executeUpdate();
+        }
+
+        c.createStatement().execute("SHUTDOWN IMMEDIATELY");
+
+        c = newConnection();
+        rs = c.createStatement().executeQuery(
+            "SELECT ID, C, B FROM TI WHERE MOD(ID, 3) = 0");
+
+        while (rs.next()) {
+            int id = rs.getInt(1);
+
+            assertEquals(getString(id + 1), rs.getString(2));
+            assertTrue(Arrays.equals(getBytes(id + 1), rs.getBytes(3)));
+        }
+
+        c.close();
+    }
+
+    public void testTextTable() throws Exception {
+
+        Connection c  = newConnection();
+        Statement  st = c.createStatement();
+
+        // TEXT tables store lob ids, so values are moved to the lob store
+        st.execute("CREATE TEXT TABLE TT (ID INT PRIMARY KEY, C CLOB,"
+                   + " B BLOB)");
+        st.execute("SET TABLE TT SOURCE 'testlobinline.csv'");
+        st.execute("INSERT INTO TT SELECT * FROM TI");
+        st.execute("INSERT INTO TT VALUES (" + rowCount
+                   + ", 'abc', X'0102')");
+        st.execute("DELETE FROM TT WHERE ID = " + rowCount);
+        checkRows(c, "TT", false);
+        st.execute("SHUTDOWN");
+
+        c = newConnection();
+
+        checkRows(c, "TT", false);
+        c.close();
+    }
+
+    public void testNetwork() throws Exception {
+
+        Server server = new Server();
+
+        server.setPort(9301);
+        server.setDatabaseName(0, "test");
+        server.setDatabasePath(0, "file:" + filepath);
+        server.setLogWriter(null);
+        server.setErrWriter(null);
+        server.start();
+
+        try {
+            Connection c = DriverManager.getConnection(
+                "jdbc:hsqldb:hsql://localhost:9301/test", "sa", "");
+
+            checkRows(c, "TI");
+
+            PreparedStatement ps = c.prepareStatement(
+                "INSERT INTO TI VALUES (?, ?, ?)");
+
+            ps.setInt(1, rowCount);
+            ps.setString(2, "abc");
+            ps.setBytes(3, new byte[] {
+                1, 2, 3
+            });
+            ps.executeUpdate();
+
+            ResultSet rs = c.createStatement().executeQuery(
+                "SELECT C, B FROM TI WHERE ID = " + rowCount);
+
+            rs.next();
+            assertEquals("abc", rs.getClob(1).getSubString(1, 3));
+            assertEquals(3, rs.getBlob(2).length());
+            c.close();
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,444 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hsqldb.ResultCache;
+import org.hsqldb.Session;
+import org.hsqldb.jdbc.JDBCConnection;
+
+/**
+ * Tests the reuse of cached query results, their invalidation by changes
+ * committed or rolled back in other sessions, the removal of the least
+ * recently used results, and the queries that are not cached.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TestResultCache extends TestBase {
+
+    static final int rowCount = 100;
+    Connection       conn;
+    ResultCache      cache;
+
+    public TestResultCache(String name) {
+        super(name, "jdbc:hsqldb:mem:testresultcache;hsqldb.tx=mvcc", false,
+              false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        conn = newConnection();
+
+        Statement st = conn.createStatement();
+
+        st.execute("set database result cache size 1024");
+        st.execute("create table tr (id int primary key, v varchar(20))");
+        st.execute("insert into tr select n, 'v' || n from "
+                   + "unnest(sequence_array(1, " + rowCount
+                   + ", 1)) as t(n)");
+        st.close();
+
+        cache = ((Session) ((JDBCConnection) conn).getSession()).getDatabase()
+            .resultCache;
+    }
+
+    protected void tearDown() {
+
+        try {
+            conn.createStatement().execute("SHUTDOWN");
+            conn.close();
+        } catch (Exception e) {}
+
+        super.tearDown();
+    }
+
+    public void testHits() throws Exception {
+
+        PreparedStatement ps =
+            conn.prepareStatement("select id from tr where id < ? order by id");
+
+        assertTrue(cache.isEnabled());
+        ps.setInt(1, 4);
+        assertEquals("1,2,3", getIds(ps));
+
+        int  entries = cache.getEntryCount();
+        long hits    = cache.getHitCount();
+
+        assertEquals("1,2,3", getIds(ps));
+        assertEquals(hits + 1, cache.getHitCount());
+        assertEquals(entries, cache.getEntryCount());
+
+        // other parameter values and maximum number of rows
+        ps.setInt(1, 3);
+        assertEquals("1,2", getIds(ps));
+        assertEquals(hits + 1, cache.getHitCount());
+        assertEquals(entries + 1, cache.getEntryCount());
+        ps.setMaxRows(1);
+        assertEquals("1", getIds(ps));
+        assertEquals(hits + 1, cache.getHitCount());
+        ps.setMaxRows(0);
+        assertEquals("1,2", getIds(ps));
+        assertEquals(hits + 2, cache.getHitCount());
+
+        // a change in the same session
+        conn.createStatement().execute("delete from tr where id = 1");
+        assertEquals("2", getIds(ps));
+        assertEquals(hits + 2, cache.getHitCount());
+        assertEquals("2", getIds(ps));
+        assertEquals(hits + 3, cache.getHitCount());
+
+        // disabled
+        conn.createStatement().execute("set database result cache size 0");
+        assertFalse(cache.isEnabled());
+        assertEquals(0, cache.getEntryCount());
+        assertEquals("2", getIds(ps));
+        assertEquals(hits + 3, cache.getHitCount());
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    public void testOtherSession() throws Exception {
+
+        Connection other = newConnection();
+
+        other.setAutoCommit(false);
+
+        Statement         ost = other.createStatement();
+        PreparedStatement ps  = conn.prepareStatement(
+            "select id from tr where id > ? order by id");
+
+        ps.setInt(1, 98);
+        assertEquals("99,100", getIds(ps));
+
+        long hits = cache.getHitCount();
+
+        assertEquals("99,100", getIds(ps));
+        assertEquals(hits + 1, cache.getHitCount());
+
+        // uncommitted rows of the other session are not returned
+        ost.execute("insert into tr values (101, 'v101')");
+        assertEquals("99,100", getIds(ps));
+        assertEquals(hits + 1, cache.getHitCount());
+        assertEquals("99,100", getIds(ps));
+        assertEquals(hits + 2, cache.getHitCount());
+
+        // commit
+        other.commit();
+        assertEquals("99,100,101", getIds(ps));
+        assertEquals(hits + 2, cache.getHitCount());
+        assertEquals("99,100,101", getIds(ps));
+        assertEquals(hits + 3, cache.getHitCount());
+
+        // rollback
+        ost.execute("delete from tr where id = 100");
+        ost.execute("update tr set id = 102 where id = 99");
+        assertEquals("99,100,101", getIds(ps));
+        other.rollback();
+        assertEquals("99,100,101", getIds(ps));
+
+        hits = cache.getHitCount();
+
+        ost.execute("delete from tr where id = 99");
+        other.rollback();
+        assertEquals("99,100,101", getIds(ps));
+        assertEquals(hits, cache.getHitCount());
+        assertEquals("99,100,101", getIds(ps));
+        assertEquals(hits + 1, cache.getHitCount());
+
+        // the statement compiled for the other session has its own entry
+        PreparedStatement ops = other.prepareStatement(
+            "select id from tr where id > ? order by id");
+
+        ops.setInt(1, 98);
+        assertEquals("99,100,101", getIds(ops));
+        assertEquals(hits + 1, cache.getHitCount());
+        assertEquals("99,100,101", getIds(ops));
+        assertEquals(hits + 2, cache.getHitCount());
+        ost.execute("delete from tr where id = 101");
+        other.commit();
+        assertEquals("99,100", getIds(ps));
+        assertEquals(hits + 2, cache.getHitCount());
+        other.close();
+    }
+
+    /**
+     * A commit by another session while a query starts must not leave a
+     * cached result that misses the committed change. The query has a large
+     * array parameter, which makes the start of the query slow, and the other
+     * session commits a new row while every second query starts.
+     */
+    public void testConcurrentCommit() throws Exception {
+
+        final int           commitCount = 200;
+        final AtomicInteger committed   = new AtomicInteger();
+        final AtomicInteger started     = new AtomicInteger();
+        final Connection    other       = newConnection();
+        Thread              writer      = new Thread() {
+
+            public void run() {
+
+                try {
+                    PreparedStatement ups = other.prepareStatement(
+                        "insert into tr values (?, 'w')");
+
+                    for (int i = 1; i <= commitCount; i++) {
+                        int count = started.get();
+
+                        ups.setInt(1, rowCount + i);
+                        ups.executeUpdate();
+
+                        while (started.get() < count + 2) {
+                            Thread.yield();
+                        }
+
+                        other.commit();
+                        committed.set(i);
+                    }
+                } catch (Exception e) {
+                    committed.set(-1);
+                }
+            }
+        };
+        Integer[] array = new Integer[200000];
+
+        for (int i = 0; i < array.length; i++) {
+            array[i] = Integer.valueOf(i);
+        }
+
+        PreparedStatement ps = conn.prepareStatement(
+            "select count(*) from tr"
+            + " where cardinality(cast(? as int array)) > 0");
+
+        ps.setArray(1, conn.createArrayOf("INTEGER", array));
+        other.setAutoCommit(false);
+        writer.start();
+
+        int value = 0;
+
+        while (value < commitCount) {
+            value = committed.get();
+
+            assertTrue(value >= 0);
+            started.incrementAndGet();
+
+            ResultSet rs = ps.executeQuery();
+
+            rs.next();
+
+            int count = rs.getInt(1) - rowCount;
+
+            rs.close();
+
+            if (value > 0) {
+                assertTrue(value + " " + count, count >= value);
+            }
+        }
+
+        writer.join();
+        other.close();
+    }
+
+    public void testUncommitted() throws Exception {
+
+        PreparedStatement ps =
+            conn.prepareStatement("select id from tr where id < ? order by id");
+
+        ps.setInt(1, 3);
+        assertEquals("1,2", getIds(ps));
+
+        int  entries = cache.getEntryCount();
+        long hits    = cache.getHitCount();
+
+        // the session's own uncommitted changes are returned without caching
+        conn.setAutoCommit(false);
+        conn.createStatement().execute("insert into tr values (0, 'v0')");
+        assertEquals("0,1,2", getIds(ps));
+        assertEquals("0,1,2", getIds(ps));
+        assertEquals(hits, cache.getHitCount());
+        conn.createStatement().execute("delete from tr where id = 0");
+        assertEquals("1,2", getIds(ps));
+        assertEquals(hits, cache.getHitCount());
+        conn.rollback();
+        assertEquals(entries, cache.getEntryCount());
+        assertEquals("1,2", getIds(ps));
+        assertEquals(hits, cache.getHitCount());
+        assertEquals("1,2", getIds(ps));
+        assertEquals(hits + 1, cache.getHitCount());
+
+        // a read-only transaction
+        conn.commit();
+        assertEquals("1,2", getIds(ps));
+        assertEquals(hits + 2, cache.getHitCount());
+        conn.setAutoCommit(true);
+
+        // isolation other than READ COMMITTED
+        conn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+        assertEquals("1,2", getIds(ps));
+        assertEquals(hits + 2, cache.getHitCount());
+        conn.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        assertEquals("1,2", getIds(ps));
+        assertEquals(hits + 3, cache.getHitCount());
+    }
+
+    public void testLeastRecentlyUsed() throws Exception {
+
+        PreparedStatement ps =
+            conn.prepareStatement("select id from tr where id = ?");
+
+        conn.createStatement().execute("set database result cache size 1");
+
+        for (int i = 1; i <= rowCount; i++) {
+            ps.setInt(1, i);
+            assertEquals(String.valueOf(i), getIds(ps));
+        }
+
+        // the cache is full and holds the most recent results
+        int entries = cache.getEntryCount();
+        int oldest  = rowCount - entries + 1;
+
+        assertTrue(entries > 2);
+        assertTrue(entries < rowCount);
+
+        long hits = cache.getHitCount();
+
+        ps.setInt(1, oldest - 1);
+        getIds(ps);
+        assertEquals(hits, cache.getHitCount());
+        assertEquals(entries, cache.getEntryCount());
+
+        // oldest was removed, oldest + 1 is now the least recently used
+        ps.setInt(1, oldest);
+        getIds(ps);
+        assertEquals(hits, cache.getHitCount());
+
+        hits = cache.getHitCount();
+
+        ps.setInt(1, oldest + 2);
+        getIds(ps);
+        assertEquals(hits + 1, cache.getHitCount());
+        ps.setInt(1, 1);
+        getIds(ps);
+
+        // oldest + 2 was used more recently than oldest + 3
+        ps.setInt(1, oldest + 2);
+        getIds(ps);
+        assertEquals(hits + 2, cache.getHitCount());
+        ps.setInt(1, oldest + 3);
+        getIds(ps);
+        assertEquals(hits + 2, cache.getHitCount());
+        assertEquals(entries, cache.getEntryCount());
+
+        // results larger than an eighth of the capacity are not cached
+        PreparedStatement all =
+            conn.prepareStatement("select id from tr where id > ?");
+
+        all.setInt(1, rowCount - 2);
+        getIds(all);
+        getIds(all);
+        assertEquals(hits + 3, cache.getHitCount());
+        all.setInt(1, 0);
+        getIds(all);
+        getIds(all);
+        assertEquals(hits + 3, cache.getHitCount());
+
+        // a smaller capacity removes the least recently used results
+        conn.createStatement().execute("set database result cache size 0");
+        assertEquals(0, cache.getEntryCount());
+    }
+
+    public void testExcluded() throws Exception {
+
+        Statement st = conn.createStatement();
+
+        st.execute("create sequence sr start with 1");
+        st.execute("create table tl (id int primary key, c clob)");
+        st.execute("insert into tl values (1, 'c1')");
+
+        checkExcluded("select id, next value for sr from tr where id = ?");
+        checkExcluded("select id from tr where id = ? and rand() < 2");
+        checkExcluded("select id from tr where id = ? "
+                      + "and current_timestamp is not null");
+        checkExcluded("select id, c from tl where id = ?");
+        checkExcluded("select id, c || 'x' from tl where id = ?");
+
+        // the same query without the excluded expressions
+        int               entries = cache.getEntryCount();
+        long              hits    = cache.getHitCount();
+        PreparedStatement ps      =
+            conn.prepareStatement("select id from tl where id = ?");
+
+        ps.setInt(1, 1);
+        assertEquals("1", getIds(ps));
+        assertEquals("1", getIds(ps));
+        assertEquals(entries + 1, cache.getEntryCount());
+        assertEquals(hits + 1, cache.getHitCount());
+    }
+
+    private void checkExcluded(String sql) throws Exception {
+
+        int               entries = cache.getEntryCount();
+        long              hits    = cache.getHitCount();
+        PreparedStatement ps      = conn.prepareStatement(sql);
+
+        ps.setInt(1, 1);
+        assertEquals("1", getIds(ps));
+        assertEquals("1", getIds(ps));
+        assertEquals(sql, entries, cache.getEntryCount());
+        assertEquals(sql, hits, cache.getHitCount());
+        ps.close();
+    }
+
+    private static String getIds(PreparedStatement ps) throws Exception {
+
+        StringBuffer sb = new StringBuffer();
+        ResultSet    rs = ps.executeQuery();
+
+        while (rs.next()) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+
+            sb.append(rs.getInt(1));
+        }
+
+        rs.close();
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,213 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the reuse of results of deterministic SQL functions within a
+ * statement and the direct evaluation of functions with a single RETURN
+ * statement. The calls are counted with a Java function.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TestRoutineResults extends TestBase {
+
+    static final int           rowCount  = 100;
+    static final AtomicInteger callCount = new AtomicInteger();
+    Connection                 conn;
+    Statement                  st;
+
+    public TestRoutineResults(String name) {
+        super(name, "jdbc:hsqldb:mem:testroutineresults", false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        conn = newConnection();
+        st   = conn.createStatement();
+
+        st.execute("create table tr (id int primary key, k int)");
+        st.execute("insert into tr select n, mod(n, 5) from "
+                   + "unnest(sequence_array(1, " + rowCount
+                   + ", 1)) as t(n)");
+        st.execute("create function tick(x int) returns int deterministic "
+                   + "no sql language java external name "
+                   + "'CLASSPATH:org.hsqldb.test.TestRoutineResults.tick'");
+        st.execute("create function det(x int) returns int deterministic "
+                   + "contains sql return tick(x) * 2");
+        st.execute("create function nondet(x int) returns int "
+                   + "not deterministic contains sql return tick(x) * 2");
+        st.execute("create function reads(x int) returns int deterministic "
+                   + "reads sql data return tick((select count(*) from tr "
+                   + "where k = x))");
+        st.execute("create function inl(x int, y varchar(10)) returns "
+                   + "varchar(40) return coalesce(cast(x * 3 + 1 as "
+                   + "varchar(10)), 'null') || ':' || coalesce(y, 'null')");
+        st.execute("create function ninl(x int, y varchar(10)) returns "
+                   + "varchar(40) begin atomic declare v varchar(40); "
+                   + "set v = coalesce(cast(x * 3 + 1 as varchar(10)), "
+                   + "'null') || ':' || coalesce(y, 'null'); return v; end");
+        st.execute("create function caller(x int) returns varchar(80) "
+                   + "begin atomic declare v int default 7; "
+                   + "declare w varchar(40); set w = inl(x + 1, 'c'); "
+                   + "return w || '/' || v || '/' || x; end");
+        callCount.set(0);
+    }
+
+    protected void tearDown() {
+
+        try {
+            st.execute("SHUTDOWN");
+            conn.close();
+        } catch (Exception e) {}
+
+        super.tearDown();
+    }
+
+    public static int tick(int x) {
+
+        callCount.incrementAndGet();
+
+        return x;
+    }
+
+    public void testHits() throws Exception {
+
+        // five distinct arguments over the rows
+        assertEquals(400, getSum("select sum(det(k)) from tr"));
+        assertEquals(5, callCount.getAndSet(0));
+
+        // the same arguments in another expression of the statement
+        assertEquals(800,
+                     getSum("select sum(det(k)) + sum(det(mod(id, 5))) "
+                            + "from tr"));
+        assertEquals(10, callCount.getAndSet(0));
+    }
+
+    public void testArgumentsChange() throws Exception {
+
+        // each row has a different argument
+        assertEquals(rowCount * (rowCount + 1),
+                     getSum("select sum(det(id)) from tr"));
+        assertEquals(rowCount, callCount.getAndSet(0));
+
+        ResultSet rs =
+            st.executeQuery("select id, k, det(k), det(id) from tr order by id");
+
+        while (rs.next()) {
+            assertEquals(rs.getInt(2) * 2, rs.getInt(3));
+            assertEquals(rs.getInt(1) * 2, rs.getInt(4));
+        }
+
+        rs.close();
+    }
+
+    public void testDataChange() throws Exception {
+
+        assertEquals(400, getSum("select sum(det(k)) from tr"));
+        assertEquals(5, callCount.getAndSet(0));
+
+        // the results are not kept for the next statement
+        st.execute("update tr set k = k + 10");
+        assertEquals(2400, getSum("select sum(det(k)) from tr"));
+        assertEquals(5, callCount.getAndSet(0));
+
+        // with the same arguments
+        st.execute("update tr set id = id + 1000");
+        assertEquals(2400, getSum("select sum(det(k)) from tr"));
+        assertEquals(5, callCount.getAndSet(0));
+    }
+
+    public void testNotCached() throws Exception {
+
+        assertEquals(400, getSum("select sum(nondet(k)) from tr"));
+        assertEquals(rowCount, callCount.getAndSet(0));
+
+        // a function that reads the table sees the changes of the statement
+        assertEquals(rowCount * 20, getSum("select sum(reads(k)) from tr"));
+        assertEquals(rowCount, callCount.getAndSet(0));
+        assertEquals(rowCount,
+                     st.executeUpdate("update tr set k = reads(k) + k"));
+        assertEquals(rowCount, callCount.getAndSet(0));
+        assertEquals(0, getSum("select count(*) from tr where k < 20"));
+    }
+
+    public void testInline() throws Exception {
+
+        st.execute("insert into tr values (0, null)");
+
+        ResultSet rs = st.executeQuery(
+            "select inl(k, 'a' || id), ninl(k, 'a' || id), inl(id, null), "
+            + "ninl(id, null), inl(length(inl(k, 'x')), 'y'), "
+            + "ninl(length(ninl(k, 'x')), 'y') from tr order by id");
+        int count = 0;
+
+        while (rs.next()) {
+            assertEquals(rs.getString(2), rs.getString(1));
+            assertEquals(rs.getString(4), rs.getString(3));
+            assertEquals(rs.getString(6), rs.getString(5));
+
+            count++;
+        }
+
+        rs.close();
+        assertEquals(rowCount + 1, count);
+
+        // the arguments and variables of the calling routine are kept
+        rs = st.executeQuery("select caller(k) from tr where id = 3");
+
+        rs.next();
+        assertEquals("13:c/7/3", rs.getString(1));
+        rs.close();
+    }
+
+    long getSum(String sql) throws SQLException {
+
+        ResultSet rs = st.executeQuery(sql);
+
+        rs.next();
+
+        long value = rs.getLong(1);
+
+        rs.close();
+
+        return value;
+    }
+}
@@ -0,0 +1,178 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Tests sequence values generated by concurrent sessions up to and across
+ * the limit of the sequence.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TestSequenceConcurrency extends TestBase {
+
+    static final int threadCount = 8;
+
+    public TestSequenceConcurrency(String name) {
+        super(name, "jdbc:hsqldb:mem:testsequence", false, false);
+    }
+
+    protected void tearDown() {
+
+        try {
+            Connection c = newConnection();
+
+            c.createStatement().execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        super.tearDown();
+    }
+
+    /**
+     * Each thread calls NEXT VALUE FOR the given number of times or until the
+     * limit is reached. Returns the number of times each value in the range
+     * from 1 to size was returned.
+     */
+    int[] getValues(final int size, final int calls) throws Exception {
+
+        final int[]       counts  = new int[size + 1];
+        final Throwable[] errors  = new Throwable[threadCount];
+        Thread[]          threads = new Thread[threadCount];
+
+        for (int i = 0; i < threadCount; i++) {
+            final int index = i;
+
+            threads[i] = new Thread() {
+
+                public void run() {
+
+                    try {
+                        Connection c = newConnection();
+                        PreparedStatement ps =
+                            c.prepareStatement("CALL NEXT VALUE FOR S");
+
+                        for (int j = 0; j < calls; j++) {
+                            ResultSet rs;
+
+                            try {
+                                rs = ps.executeQuery();
+                            } catch (SQLException e) {
+                                assertEquals("2200H", e.getSQLState());
+
+                                break;
+                            }
+
+                            rs.next();
+
+                            int value = rs.getInt(1);
+
+                            synchronized (counts) {
+                                counts[value]++;
+                            }
+                        }
+
+                        c.close();
+                    } catch (Throwable t) {
+                        errors[index] = t;
+                    }
+                }
+            };
+        }
+
+        for (int i = 0; i < threadCount; i++) {
+            threads[i].start();
+        }
+
+        for (int i = 0; i < threadCount; i++) {
+            threads[i].join();
+        }
+
+        for (int i = 0; i < threadCount; i++) {
+            if (errors[i] != null) {
+                fail(errors[i].toString());
+            }
+        }
+
+        return counts;
+    }
+
+    public void testNoCycle() throws Exception {
+
+        Connection connection = newConnection();
+        Statement  st         = connection.createStatement();
+
+        st.execute("CREATE SEQUENCE S AS INTEGER START WITH 1 MAXVALUE 2000");
+
+        int[] counts = getValues(2000, 1000);
+
+        for (int i = 1; i <= 2000; i++) {
+            assertEquals("value " + i, 1, counts[i]);
+        }
+
+        try {
+            st.executeQuery("CALL NEXT VALUE FOR S");
+            fail("limit not reached");
+        } catch (SQLException e) {
+            assertEquals("2200H", e.getSQLState());
+        }
+
+        st.execute("ALTER SEQUENCE S RESTART WITH 1991");
+
+        counts = getValues(2000, 1000);
+
+        for (int i = 1; i <= 2000; i++) {
+            assertEquals("value " + i, i > 1990 ? 1
+                                                : 0, counts[i]);
+        }
+    }
+
+    public void testCycle() throws Exception {
+
+        Connection connection = newConnection();
+        Statement  st         = connection.createStatement();
+
+        st.execute(
+            "CREATE SEQUENCE S AS INTEGER START WITH 1 MINVALUE 1 MAXVALUE 100 CYCLE");
+
+        int[] counts = getValues(100, 500);
+
+        for (int i = 1; i <= 100; i++) {
+            assertEquals("value " + i, threadCount * 5, counts[i]);
+        }
+    }
+}
@@ -0,0 +1,519 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Tests PERFORM EXPORT TABLE and PERFORM IMPORT TABLE.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TestTableExportImport extends TestBase {
+
+    static String url = TestDirectorySettings.fileBaseURL
+                        + "testexport/test";
+    static String filepath = new File(TestDirectorySettings.fileBase
+                                      + "testexport/").getAbsolutePath()
+                             + File.separator;
+    static final String columns =
+        " (ID INT PRIMARY KEY, NAME VARCHAR(40), AMOUNT DECIMAL(10,2),"
+        + " D DATE, TS TIMESTAMP, FLAG BOOLEAN, DATA VARBINARY(16),"
+        + " C CLOB, B BLOB)";
+    static final int rowCount = 5000;
+
+    public TestTableExportImport(String name) {
+        super(name, url, false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        TestUtil.deleteDatabase(filepath + "test");
+
+        File dir = new File(filepath);
+
+        dir.mkdirs();
+
+        File[] files = dir.listFiles();
+
+        for (int i = 0; i < files.length; i++) {
+            if (!files[i].getName().startsWith("test.")) {
+                files[i].delete();
+            }
+        }
+
+        super.setUp();
+
+        Connection c  = newConnection();
+        Statement  st = c.createStatement();
+
+        st.execute("CREATE CACHED TABLE T" + columns);
+
+        PreparedStatement ps = c.prepareStatement(
+            "INSERT INTO T VALUES (?, ?, ?, DATE '2020-01-01' + ? DAY,"
+            + " TIMESTAMP '2020-01-01 10:00:00.123456' + ? SECOND, ?, ?, ?, ?)");
+
+        for (int i = 0; i < rowCount; i++) {
+            ps.setInt(1, i);
+            ps.setString(2, getName(i));
+            ps.setString(3, i % 11 == 0 ? null
+                                        : (i % 1000) + "." + (i % 100));
+            ps.setInt(4, i % 300);
+            ps.setInt(5, i);
+
+            if (i % 13 == 0) {
+                ps.setNull(6, java.sql.Types.BOOLEAN);
+            } else {
+                ps.setBoolean(6, i % 2 == 0);
+            }
+
+            ps.setBytes(7, new byte[] {
+                (byte) i, (byte) (i >> 8), 0, -1
+            });
+            ps.setString(8, i % 50 != 1 ? null
+                                        : "clob, \"" + i + "\"\nend");
+            ps.setBytes(9, i % 50 != 2 ? null
+                                       : new byte[] {
+                1, 2, (byte) i
+            });
+            ps.addBatch();
+        }
+
+        ps.executeBatch();
+        c.close();
+    }
+
+    protected void tearDown() {
+
+        try {
+            newConnection().createStatement().execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        super.tearDown();
+    }
+
+    static String getName(int i) {
+
+        switch (i % 5) {
+
+            case 0 :
+                return null;
+
+            case 1 :
+                return "name, " + i;
+
+            case 2 :
+                return "say \"" + i + "\"";
+
+            case 3 :
+                return "line\n" + i;
+
+            default :
+                return "name " + i;
+        }
+    }
+
+    static void compareTables(Connection c, String source,
+                              String target) throws SQLException {
+
+        ResultSet rsSource = c.createStatement().executeQuery("SELECT * FROM "
+            + source + " ORDER BY ID");
+        ResultSet rsTarget = c.createStatement().executeQuery("SELECT * FROM "
+            + target + " ORDER BY ID");
+        int count       = 0;
+        int columnCount = rsSource.getMetaData().getColumnCount();
+
+        while (rsSource.next()) {
+            assertTrue(rsTarget.next());
+
+            for (int i = 1; i <= columnCount; i++) {
+                if (i == 7 || i == 9) {
+                    assertTrue(Arrays.equals(rsSource.getBytes(i),
+                                             rsTarget.getBytes(i)));
+                } else {
+                    assertEquals(rsSource.getString(i),
+                                 rsTarget.getString(i));
+                }
+            }
+
+            count++;
+        }
+
+        assertFalse(rsTarget.next());
+        assertEquals(rowCount, count);
+    }
+
+    public void testTextRoundTrip() throws Exception {
+
+        Connection c  = newConnection();
+        Statement  st = c.createStatement();
+
+        assertEquals(rowCount,
+                     st.executeUpdate("PERFORM EXPORT TABLE T TO '"
+                                      + filepath + "t.csv' FORMAT TEXT"));
+
+        try {
+            st.executeUpdate("PERFORM EXPORT TABLE T TO '" + filepath
+                             + "t.csv'");
+            fail("existing file overwritten");
+        } catch (SQLException e) {}
+
+        st.execute("CREATE CACHED TABLE T2" + columns);
+        assertEquals(rowCount,
+                     st.executeUpdate("PERFORM IMPORT TABLE T2 FROM '"
+                                      + filepath
+                                      + "t.csv' FORMAT TEXT STOP ON ERROR"));
+        compareTables(c, "T", "T2");
+
+        // the exported file is a text table source
+        st.execute(
+            "CREATE TEXT TABLE TT (ID INT PRIMARY KEY, NAME VARCHAR(40),"
+            + " AMOUNT DECIMAL(10,2), D DATE, TS TIMESTAMP, FLAG BOOLEAN,"
+            + " DATA VARBINARY(16), C VARCHAR(40), B VARBINARY(16))");
+        st.execute("SET TABLE TT SOURCE 't.csv'");
+        compareTables(c, "T", "TT");
+        st.execute("SHUTDOWN");
+
+        c  = newConnection();
+        st = c.createStatement();
+
+        compareTables(c, "T", "T2");
+    }
+
+    public void testBinaryRoundTrip() throws Exception {
+
+        Connection c  = newConnection();
+        Statement  st = c.createStatement();
+
+        assertEquals(rowCount,
+                     st.executeUpdate("PERFORM EXPORT TABLE T TO '"
+                                      + filepath + "t.bin' FORMAT BINARY"));
+        st.execute("CREATE TABLE T2" + columns);
+        assertEquals(
+            rowCount,
+            st.executeUpdate(
+                "PERFORM IMPORT TABLE T2 FROM '" + filepath
+                + "t.bin' FORMAT BINARY STOP ON ERROR"));
+        compareTables(c, "T", "T2");
+
+        // imported lobs are counted as used and survive the deletion of
+        // unused lobs at checkpoint
+        st.execute("CREATE TABLE T4" + columns);
+        st.execute("INSERT INTO T4 SELECT * FROM T");
+        st.execute("DELETE FROM T4");
+        st.execute("CHECKPOINT");
+        compareTables(c, "T", "T2");
+        st.execute("SHUTDOWN");
+
+        c  = newConnection();
+        st = c.createStatement();
+
+        compareTables(c, "T", "T2");
+    }
+
+    /**
+     * LOB values longer than one chunk are streamed in BINARY format.
+     */
+    public void testBinaryLargeLobs() throws Exception {
+
+        Connection c     = newConnection();
+        Statement  st    = c.createStatement();
+        char[]     chars = new char[200001];
+        byte[]     bytes = new byte[150001];
+
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + i % 26 + (i % 7 == 0 ? 0x400 : 0));
+        }
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+
+        PreparedStatement ps =
+            c.prepareStatement("UPDATE T SET C = ?, B = ? WHERE ID = ?");
+
+        ps.setString(1, new String(chars));
+        ps.setBytes(2, bytes);
+        ps.setInt(3, 4000);
+        ps.executeUpdate();
+        assertEquals(rowCount,
+                     st.executeUpdate("PERFORM EXPORT TABLE T TO '"
+                                      + filepath + "t.bin' FORMAT BINARY"));
+        st.execute("CREATE CACHED TABLE T2" + columns);
+        assertEquals(
+            rowCount,
+            st.executeUpdate(
+                "PERFORM IMPORT TABLE T2 FROM '" + filepath
+                + "t.bin' FORMAT BINARY STOP ON ERROR"));
+        st.execute("SHUTDOWN");
+
+        c  = newConnection();
+        st = c.createStatement();
+
+        compareTables(c, "T", "T2");
+
+        ResultSet rs =
+            st.executeQuery("SELECT C, B FROM T2 WHERE ID = 4000");
+
+        assertTrue(rs.next());
+        assertEquals(new String(chars), rs.getString(1));
+        assertTrue(Arrays.equals(bytes, rs.getBytes(2)));
+    }
+
+    static final String goodRows =
+        "ID < 4000 AND (AMOUNT IS NOT NULL OR ID < 100)";
+
+    /**
+     * Creates a table that rejects rows of T from ID 110.
+     */
+    static void createCheckedTable(Statement st) throws SQLException {
+
+        st.execute("DROP TABLE T3 IF EXISTS");
+        st.execute("CREATE CACHED TABLE T3"
+                   + columns.substring(0, columns.length() - 1)
+                   + ", CHECK (" + goodRows + "))");
+    }
+
+    static int getCount(Statement st, String sql) throws SQLException {
+
+        ResultSet rs = st.executeQuery(sql);
+
+        rs.next();
+
+        return rs.getInt(1);
+    }
+
+    static String getRejectFile(String name) throws Exception {
+
+        File[] files = new File(filepath).listFiles();
+
+        for (int i = 0; i < files.length; i++) {
+            String fileName = files[i].getName();
+
+            if (fileName.startsWith(name + ".")
+                    && fileName.endsWith(".reject")) {
+                Reader       reader = new InputStreamReader(
+                    new FileInputStream(files[i]), "UTF-8");
+                StringBuffer sb     = new StringBuffer();
+                char[]       buffer = new char[4096];
+
+                for (int n; (n = reader.read(buffer)) > 0; ) {
+                    sb.append(buffer, 0, n);
+                }
+
+                reader.close();
+
+                return sb.toString();
+            }
+        }
+
+        return null;
+    }
+
+    static int countOccurrences(String text, String part) {
+
+        int count = 0;
+
+        for (int i = text.indexOf(part); i >= 0;
+                i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+
+        return count;
+    }
+
+    public void testImportErrorModes() throws Exception {
+
+        Connection c  = newConnection();
+        Statement  st = c.createStatement();
+
+        st.executeUpdate("PERFORM EXPORT TABLE T TO '" + filepath
+                         + "t.csv'");
+        st.executeUpdate("PERFORM EXPORT TABLE T TO '" + filepath
+                         + "t.bin' FORMAT BINARY");
+
+        int good = getCount(st, "SELECT COUNT(*) FROM T WHERE " + goodRows);
+
+        // STOP keeps the rows before the error
+        createCheckedTable(st);
+
+        try {
+            st.executeUpdate("PERFORM IMPORT TABLE T3 FROM '" + filepath
+                             + "t.csv' STOP ON ERROR");
+            fail("error not reported");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage(), e.getMessage().indexOf("111") > 0);
+        }
+
+        assertEquals(110, getCount(st, "SELECT COUNT(*) FROM T3"));
+        createCheckedTable(st);
+
+        try {
+            st.executeUpdate("PERFORM IMPORT TABLE T3 FROM '" + filepath
+                             + "t.bin' FORMAT BINARY STOP ON ERROR");
+            fail("error not reported");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage(), e.getMessage().indexOf("row 111") > 0);
+        }
+
+        assertEquals(110, getCount(st, "SELECT COUNT(*) FROM T3"));
+
+        // CHECK inserts no rows
+        createCheckedTable(st);
+
+        try {
+            st.executeUpdate("PERFORM IMPORT TABLE T3 FROM '" + filepath
+                             + "t.csv' CHECK ON ERROR");
+            fail("error not reported");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage(), e.getMessage().indexOf("111") > 0);
+        }
+
+        assertEquals(0, getCount(st, "SELECT COUNT(*) FROM T3"));
+        st.execute("CREATE TABLE T2" + columns);
+        assertEquals(rowCount,
+                     st.executeUpdate("PERFORM IMPORT TABLE T2 FROM '"
+                                      + filepath
+                                      + "t.bin' FORMAT BINARY"
+                                      + " CHECK ON ERROR"));
+        assertEquals(0, getCount(st, "SELECT COUNT(*) FROM T2"));
+
+        // CONTINUE writes the rejected rows to a .reject file
+        assertNull(getRejectFile("t.csv"));
+        createCheckedTable(st);
+        assertEquals(good,
+                     st.executeUpdate("PERFORM IMPORT TABLE T3 FROM '"
+                                      + filepath
+                                      + "t.csv' CONTINUE ON ERROR"));
+        assertEquals(
+            good,
+            getCount(
+                st, "SELECT COUNT(*) FROM T3 JOIN T USING (ID)"
+                + " WHERE T3.TS = T.TS"));
+
+        String reject = getRejectFile("t.csv");
+
+        assertNotNull(reject);
+        assertTrue(reject.startsWith("110,"));
+        assertTrue(reject.indexOf("\n4999,") > 0);
+        assertTrue(reject.indexOf("\n4001,") > 0);
+        assertTrue(reject.indexOf("\n111,") < 0);
+        createCheckedTable(st);
+        assertEquals(good,
+                     st.executeUpdate("PERFORM IMPORT TABLE T3 FROM '"
+                                      + filepath
+                                      + "t.bin' FORMAT BINARY"
+                                      + " CONTINUE ON ERROR"));
+
+        reject = getRejectFile("t.bin");
+
+        assertNotNull(reject);
+        assertEquals(rowCount - good,
+                     countOccurrences(reject, "INSERT INTO"));
+    }
+
+    public void testImportCheckUnique() throws Exception {
+
+        Connection c  = newConnection();
+        Statement  st = c.createStatement();
+
+        st.execute("CREATE TABLE TD (ID INT, NAME VARCHAR(40))");
+        st.execute("INSERT INTO TD SELECT ID, CASE WHEN MOD(ID, 3) = 0"
+                   + " THEN NULL ELSE 'n' || ID END FROM T WHERE ID < 100");
+        st.execute("CREATE TABLE TU (ID INT PRIMARY KEY,"
+                   + " NAME VARCHAR(40) UNIQUE)");
+        st.executeUpdate("PERFORM EXPORT TABLE TD TO '" + filepath
+                         + "td.csv'");
+
+        // keys with null values are not duplicates
+        assertEquals(100,
+                     st.executeUpdate("PERFORM IMPORT TABLE TU FROM '"
+                                      + filepath + "td.csv' CHECK ON ERROR"));
+        assertEquals(0, getCount(st, "SELECT COUNT(*) FROM TU"));
+
+        // keys already in the table
+        st.execute("INSERT INTO TU VALUES (60, 'x')");
+
+        try {
+            st.executeUpdate("PERFORM IMPORT TABLE TU FROM '" + filepath
+                             + "td.csv' CHECK ON ERROR");
+            fail("duplicate key not reported");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage(),
+                       e.getMessage().indexOf("unique constraint") > 0);
+            assertTrue(e.getMessage(), e.getMessage().indexOf("61") > 0);
+        }
+
+        // duplicate keys in the file
+        st.execute("DELETE FROM TU");
+        st.execute("INSERT INTO TD VALUES (20, 'y'), (120, 'n7')");
+        st.executeUpdate("PERFORM EXPORT TABLE TD TO '" + filepath
+                         + "td2.csv'");
+        st.executeUpdate("PERFORM EXPORT TABLE TD TO '" + filepath
+                         + "td2.bin' FORMAT BINARY");
+
+        try {
+            st.executeUpdate("PERFORM IMPORT TABLE TU FROM '" + filepath
+                             + "td2.csv' CHECK ON ERROR");
+            fail("duplicate key not reported");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage(),
+                       e.getMessage().indexOf("unique constraint") > 0);
+            assertTrue(e.getMessage(), e.getMessage().indexOf("101") > 0);
+        }
+
+        st.execute("ALTER TABLE TU DROP PRIMARY KEY");
+
+        try {
+            st.executeUpdate("PERFORM IMPORT TABLE TU FROM '" + filepath
+                             + "td2.bin' FORMAT BINARY CHECK ON ERROR");
+            fail("duplicate key not reported");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage(),
+                       e.getMessage().indexOf("unique constraint") > 0);
+            assertTrue(e.getMessage(), e.getMessage().indexOf("row 102") > 0);
+        }
+
+        assertEquals(0, getCount(st, "SELECT COUNT(*) FROM TU"));
+        c.close();
+    }
+}
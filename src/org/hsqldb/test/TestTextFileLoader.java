@@ -0,0 +1,216 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Compares TEXT table sources with quoted fields read by several threads
+ * with the same sources read by a single thread.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TestTextFileLoader extends TestBase {
+
+    static String url = TestDirectorySettings.fileBaseURL
+                        + "testtextload/test";
+    static String filepath = TestDirectorySettings.fileBase + "testtextload/";
+    static final int rowCount = 40000;
+
+    public TestTextFileLoader(String name) {
+        super(name, url, false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        TestUtil.deleteDatabase(filepath + "test");
+        TestUtil.delete(filepath + "multi.csv");
+        TestUtil.delete(filepath + "single.csv");
+        TestUtil.delete(filepath + "badmulti.csv");
+        TestUtil.delete(filepath + "badsingle.csv");
+        new File(filepath).mkdirs();
+        super.setUp();
+    }
+
+    protected void tearDown() {
+
+        try {
+            newConnection().createStatement().execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        super.tearDown();
+    }
+
+    /**
+     * Writes a source larger than the size below which a single thread is
+     * used. Some fields contain the separator, doubled quotes and line ends.
+     */
+    static void writeSource(String name, int badLine) throws Exception {
+
+        Writer w = new OutputStreamWriter(
+            new FileOutputStream(filepath + name), "UTF-8");
+
+        for (int i = 1; i <= rowCount; i++) {
+            StringBuffer sb = new StringBuffer();
+
+            sb.append(i).append(',');
+
+            switch (i % 4) {
+
+                case 0 :
+                    sb.append("\"name, ").append(i).append('"');
+                    break;
+
+                case 1 :
+                    sb.append("\"say \"\"").append(i).append("\"\"\"");
+                    break;
+
+                case 2 :
+                    sb.append("\"line one\nline ").append(i).append('"');
+                    break;
+
+                default :
+                    sb.append("plain ").append(i);
+            }
+
+            sb.append(',');
+
+            if (i == badLine) {
+                sb.append("not a number");
+            } else {
+                sb.append(i % 1000).append('.').append(i % 100);
+            }
+
+            sb.append(",\"").append(i % 7 == 0 ? "" : "text " + i);
+            sb.append("\"\n");
+
+            if (i % 5000 == 0) {
+                sb.append('\n');
+            }
+
+            w.write(sb.toString());
+        }
+
+        w.close();
+    }
+
+    static void createTable(Statement st, String table, String source,
+                            int threads) throws SQLException {
+
+        st.execute("CREATE TEXT TABLE " + table
+                   + " (ID INT PRIMARY KEY, NAME VARCHAR(40),"
+                   + " AMOUNT DECIMAL(10,2), TXT VARCHAR(40))");
+        st.execute("SET TABLE " + table + " SOURCE '" + source
+                   + ";fs=,;qc=\";load_threads=" + threads + "'");
+    }
+
+    public void testQuotedSource() throws Exception {
+
+        writeSource("multi.csv", 0);
+        writeSource("single.csv", 0);
+
+        Connection c  = newConnection();
+        Statement  st = c.createStatement();
+
+        createTable(st, "TMULTI", "multi.csv", 4);
+        createTable(st, "TSINGLE", "single.csv", 1);
+
+        ResultSet rsMulti = c.createStatement().executeQuery(
+            "SELECT * FROM TMULTI ORDER BY ID");
+        ResultSet rsSingle = c.createStatement().executeQuery(
+            "SELECT * FROM TSINGLE ORDER BY ID");
+        int count = 0;
+
+        while (rsSingle.next()) {
+            assertTrue(rsMulti.next());
+
+            for (int i = 1; i <= 4; i++) {
+                assertEquals(rsSingle.getString(i), rsMulti.getString(i));
+            }
+
+            count++;
+        }
+
+        assertFalse(rsMulti.next());
+        assertEquals(rowCount, count);
+
+        ResultSet rs = st.executeQuery(
+            "SELECT NAME FROM TMULTI WHERE ID IN (5, 6, 8) ORDER BY ID");
+
+        rs.next();
+        assertEquals("say \"5\"", rs.getString(1));
+        rs.next();
+        assertEquals("line one\nline 6", rs.getString(1));
+        rs.next();
+        assertEquals("name, 8", rs.getString(1));
+    }
+
+    public void testConversionError() throws Exception {
+
+        writeSource("badmulti.csv", 30001);
+        writeSource("badsingle.csv", 30001);
+
+        Connection c  = newConnection();
+        Statement  st = c.createStatement();
+        String     multiMessage  = null;
+        String     singleMessage = null;
+
+        try {
+            createTable(st, "TMULTI", "badmulti.csv", 4);
+            fail("error not reported");
+        } catch (SQLException e) {
+            multiMessage = e.getMessage();
+        }
+
+        try {
+            createTable(st, "TSINGLE", "badsingle.csv", 1);
+            fail("error not reported");
+        } catch (SQLException e) {
+            singleMessage = e.getMessage();
+        }
+
+        // same line number and cause, different statement text
+        int length = singleMessage.indexOf(" in statement");
+
+        assertTrue(length > 0);
+        assertEquals(singleMessage.substring(0, length),
+                     multiMessage.substring(0, length));
+    }
+}
@@ -0,0 +1,313 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+
+import org.hsqldb.lib.HsqlArrayList;
+import org.hsqldb.trigger.Trigger;
+import org.hsqldb.trigger.TriggerBatch;
+
+/**
+ * Tests the batches of changed rows passed to statement-level Java triggers
+ * that implement TriggerBatch, directly and through the trigger queue.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public class TestTriggerBatch extends TestBase {
+
+    static final int rowCount = 2500;
+    Connection       conn;
+    Statement        st;
+
+    public TestTriggerBatch(String name) {
+        super(name, "jdbc:hsqldb:mem:testtriggerbatch", false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        conn = newConnection();
+        st   = conn.createStatement();
+
+        st.execute("create table tb (id int primary key, v varchar(20))");
+
+        String[] events = new String[] {
+            "insert", "update", "delete"
+        };
+
+        for (int i = 0; i < events.length; i++) {
+            st.execute("create trigger tb_" + events[i] + " after "
+                       + events[i] + " on tb for each statement call \""
+                       + BatchRecorder.class.getName() + "\"");
+        }
+
+        BatchRecorder.clear();
+    }
+
+    protected void tearDown() {
+
+        try {
+            st.execute("SHUTDOWN");
+            conn.close();
+        } catch (Exception e) {}
+
+        super.tearDown();
+    }
+
+    public void testInsert() throws Exception {
+
+        // the rows are inserted in descending order of id
+        assertEquals(rowCount,
+                     st.executeUpdate("insert into tb select n, 'v' || n "
+                                      + "from unnest(sequence_array(" + rowCount
+                                      + ", 1, -1)) as t(n)"));
+
+        HsqlArrayList calls = BatchRecorder.getCalls();
+
+        assertEquals(3, calls.size());
+
+        int id = rowCount;
+
+        for (int i = 0; i < calls.size(); i++) {
+            Object[] call = (Object[]) calls.get(i);
+
+            assertEquals("TB_INSERT", call[0]);
+            assertEquals(Integer.valueOf(Trigger.INSERT_AFTER), call[1]);
+            assertNull(call[2]);
+
+            Object[][] newRows = (Object[][]) call[3];
+
+            assertEquals(i < 2 ? 1024
+                               : rowCount - 2048, newRows.length);
+
+            for (int j = 0; j < newRows.length; j++) {
+                assertEquals(Integer.valueOf(id), newRows[j][0]);
+                assertEquals("v" + id, newRows[j][1]);
+
+                id--;
+            }
+        }
+
+        assertEquals(0, id);
+
+        // single row insert
+        BatchRecorder.clear();
+        st.execute("insert into tb values (0, 'v0')");
+
+        calls = BatchRecorder.getCalls();
+
+        assertEquals(1, calls.size());
+
+        Object[][] newRows = (Object[][]) ((Object[]) calls.get(0))[3];
+
+        assertEquals(1, newRows.length);
+        assertEquals(Integer.valueOf(0), newRows[0][0]);
+    }
+
+    public void testUpdate() throws Exception {
+
+        insertRows();
+        assertEquals(rowCount - 10,
+                     st.executeUpdate("update tb set v = v || 'u' "
+                                      + "where id > 10"));
+
+        HsqlArrayList calls = BatchRecorder.getCalls();
+        int           id    = 11;
+
+        assertEquals(3, calls.size());
+
+        for (int i = 0; i < calls.size(); i++) {
+            Object[] call = (Object[]) calls.get(i);
+
+            assertEquals("TB_UPDATE", call[0]);
+            assertEquals(Integer.valueOf(Trigger.UPDATE_AFTER), call[1]);
+
+            Object[][] oldRows = (Object[][]) call[2];
+            Object[][] newRows = (Object[][]) call[3];
+
+            assertEquals(oldRows.length, newRows.length);
+
+            for (int j = 0; j < oldRows.length; j++) {
+                assertEquals(Integer.valueOf(id), oldRows[j][0]);
+                assertEquals(Integer.valueOf(id), newRows[j][0]);
+                assertEquals("v" + id, oldRows[j][1]);
+                assertEquals("v" + id + "u", newRows[j][1]);
+
+                id++;
+            }
+        }
+
+        assertEquals(rowCount + 1, id);
+
+        // no rows changed
+        BatchRecorder.clear();
+        assertEquals(0, st.executeUpdate("update tb set v = 'x' where id < 0"));
+
+        calls = BatchRecorder.getCalls();
+
+        assertEquals(1, calls.size());
+        assertEquals(0, ((Object[][]) ((Object[]) calls.get(0))[2]).length);
+        assertEquals(0, ((Object[][]) ((Object[]) calls.get(0))[3]).length);
+    }
+
+    public void testDelete() throws Exception {
+
+        insertRows();
+        assertEquals(rowCount / 2,
+                     st.executeUpdate("delete from tb where mod(id, 2) = 0"));
+
+        HsqlArrayList calls = BatchRecorder.getCalls();
+        int           id    = 2;
+
+        assertEquals(2, calls.size());
+
+        for (int i = 0; i < calls.size(); i++) {
+            Object[] call = (Object[]) calls.get(i);
+
+            assertEquals("TB_DELETE", call[0]);
+            assertEquals(Integer.valueOf(Trigger.DELETE_AFTER), call[1]);
+            assertNull(call[3]);
+
+            Object[][] oldRows = (Object[][]) call[2];
+
+            for (int j = 0; j < oldRows.length; j++) {
+                assertEquals(Integer.valueOf(id), oldRows[j][0]);
+                assertEquals("v" + id, oldRows[j][1]);
+
+                id += 2;
+            }
+        }
+
+        assertEquals(rowCount + 2, id);
+    }
+
+    /**
+     * A queued trigger gets the same batches from the trigger thread.
+     */
+    public void testQueued() throws Exception {
+
+        st.execute("create table tq (id int primary key, v varchar(20))");
+        st.execute("create trigger tq_update after update on tq "
+                   + "for each statement queue 2 call \""
+                   + BatchRecorder.class.getName() + "\"");
+        st.execute("insert into tq select n, 'v' || n from "
+                   + "unnest(sequence_array(1, " + rowCount + ", 1)) as t(n)");
+        st.execute("update tq set v = 'w' || id");
+
+        HsqlArrayList calls = BatchRecorder.waitForCalls(3);
+        int           id    = 1;
+
+        for (int i = 0; i < calls.size(); i++) {
+            Object[] call = (Object[]) calls.get(i);
+
+            assertEquals("TQ_UPDATE", call[0]);
+
+            Object[][] oldRows = (Object[][]) call[2];
+            Object[][] newRows = (Object[][]) call[3];
+
+            for (int j = 0; j < oldRows.length; j++) {
+                assertEquals("v" + id, oldRows[j][1]);
+                assertEquals("w" + id, newRows[j][1]);
+
+                id++;
+            }
+        }
+
+        assertEquals(rowCount + 1, id);
+    }
+
+    void insertRows() throws Exception {
+
+        st.execute("insert into tb select n, 'v' || n from "
+                   + "unnest(sequence_array(1, " + rowCount + ", 1)) as t(n)");
+        BatchRecorder.clear();
+    }
+
+    /**
+     * Records each batch with the trigger name and type.
+     */
+    public static class BatchRecorder implements TriggerBatch {
+
+        static HsqlArrayList calls = new HsqlArrayList();
+
+        static synchronized void clear() {
+            calls.clear();
+        }
+
+        static synchronized HsqlArrayList getCalls() {
+
+            HsqlArrayList list = new HsqlArrayList();
+
+            list.addAll(calls);
+
+            return list;
+        }
+
+        static synchronized HsqlArrayList waitForCalls(int count)
+        throws InterruptedException {
+
+            long end = System.currentTimeMillis() + 10000;
+
+            while (calls.size() < count) {
+                long remaining = end - System.currentTimeMillis();
+
+                if (remaining <= 0) {
+                    break;
+                }
+
+                BatchRecorder.class.wait(remaining);
+            }
+
+            return getCalls();
+        }
+
+        public void fire(int type, String trigName, String tabName,
+                         Object[] oldRow, Object[] newRow) {
+            throw new RuntimeException("fire called for a batch trigger");
+        }
+
+        public void fireBatch(int type, String trigName, String tabName,
+                              Object[][] oldRows, Object[][] newRows) {
+
+            synchronized (BatchRecorder.class) {
+                calls.add(new Object[] {
+                    trigName, Integer.valueOf(type), oldRows, newRows
+                });
+                BatchRecorder.class.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/* Copyright (c) 2001-2019, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.trigger;
+
+/**
+ * An extension of the Trigger interface for statement-level triggers that
+ * process the rows changed by the triggering statement. A trigger class
+ * declared FOR EACH STATEMENT that implements this interface is fired with
+ * arrays of rows instead of a single call with null rows. When a statement
+ * changes more rows than the batch size, the method is called several
+ * times. It is called once with empty arrays when no rows are changed.
+ *
+ * <p> For INSERT triggers, oldRows is null and newRows contains the inserted
+ * rows. For DELETE triggers, newRows is null and oldRows contains the
+ * deleted rows. For UPDATE triggers, each element of oldRows contains the
+ * row before the update and the element at the same index of newRows
+ * contains the row after the update.
+ *
+ * <p> The {@link Trigger#fire(int, String, String, Object[], Object[]) fire}
+ * method is still called for FOR EACH ROW triggers.
+ *
+ * @version 2.5.1
+ * @since 2.5.1
+ */
+public interface TriggerBatch extends Trigger {
+
+    /**
+     * The method invoked for each batch of rows changed by the triggering
+     * statement.
+     *
+     * @param type the type as one of the int values defined in the Trigger
+     *   interface
+     * @param trigName the name of the trigger
+     * @param tabName the name of the table upon which the triggered action is
+     *   occurring
+     * @param oldRows the old rows
+     * @param newRows the new rows
+     * @throws org.hsqldb.HsqlException the preferred type of exception thrown
+     *   by the method
+     */
+    void fireBatch(int type, String trigName, String tabName,
+                   Object[][] oldRows, Object[][] newRows);
+}
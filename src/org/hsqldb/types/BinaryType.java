@@ -76,7 +76,7 @@ import org.hsqldb.lib.StringConverter;
  *
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.0.1
+ * @version 2.5.1
  * @since 1.9.0
  */
 public class BinaryType extends Type {
@@ -700,11 +700,7 @@ public class BinaryType extends Type {
         }
 
         if (typeCode == Types.SQL_BLOB) {
-            BlobData blob = session.createBlob(newBytes.length);
-
-            blob.setBytes(session, 0, newBytes);
-
-            return blob;
+            return BlobType.createBlob(session, newBytes);
         } else {
             return new BinaryData(newBytes, newBytes == bytes);
         }
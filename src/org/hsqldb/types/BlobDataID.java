@@ -36,11 +36,17 @@ import java.io.InputStream;
 import org.hsqldb.HsqlException;
 import org.hsqldb.SessionInterface;
 import org.hsqldb.error.Error;
+import org.hsqldb.error.ErrorCode;
+import org.hsqldb.lib.ArrayUtil;
 import org.hsqldb.result.Result;
 import org.hsqldb.result.ResultLob;
 
 /**
- * Locator for BLOB.
+ * Locator for BLOB.<p>
+ *
+ * A locator with id 0 holds the contents of a small BLOB inline. There is no
+ * lob in the LobManager for such a locator and all operations use the
+ * inline contents.
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
  * @version 2.5.1
@@ -48,15 +54,36 @@ import org.hsqldb.result.ResultLob;
  */
 public class BlobDataID implements BlobData {
 
-    long id;
-    long length = -1;
+    long   id;
+    long   length = -1;
+    byte[] inlineBytes;
 
     public BlobDataID(long id) {
         this.id = id;
     }
 
+    public BlobDataID(byte[] inlineBytes) {
+
+        this.inlineBytes = inlineBytes;
+        this.length      = inlineBytes.length;
+    }
+
+    public byte[] getInlineBytes() {
+        return inlineBytes;
+    }
+
+    public boolean isInline() {
+        return inlineBytes != null;
+    }
+
     public BlobData duplicate(SessionInterface session) {
 
+        if (inlineBytes != null) {
+            byte[] bytes = (byte[]) ArrayUtil.duplicateArray(inlineBytes);
+
+            return new BlobDataID(bytes);
+        }
+
         ResultLob resultOut = ResultLob.newLobDuplicateRequest(id);
         Result    resultIn  = session.execute(resultOut);
 
@@ -105,6 +132,14 @@ public class BlobDataID implements BlobData {
             length = (int) (blobLength - pos);
         }
 
+        if (inlineBytes != null) {
+            byte[] bytes = new byte[length];
+
+            System.arraycopy(inlineBytes, (int) pos, bytes, 0, length);
+
+            return bytes;
+        }
+
         ResultLob resultOut = ResultLob.newLobGetBytesRequest(id, pos, length);
         Result    resultIn  = session.execute(resultOut);
 
@@ -117,6 +152,14 @@ public class BlobDataID implements BlobData {
 
     public BlobData getBlob(SessionInterface session, long pos, long length) {
 
+        if (inlineBytes != null) {
+            if (!BinaryData.isInLimits(inlineBytes.length, pos, length)) {
+                throw Error.error(ErrorCode.X_22011);
+            }
+
+            return new BlobDataID(getBytes(session, pos, (int) length));
+        }
+
         ResultLob resultOut = ResultLob.newLobGetRequest(id, pos, length);
         Result    resultIn  = session.execute(resultOut);
 
@@ -175,6 +218,13 @@ public class BlobDataID implements BlobData {
     public long position(SessionInterface session, BlobData pattern,
                          long start) {
 
+        if (inlineBytes != null || isInline(pattern)) {
+            byte[] bytes = pattern.getBytes(session, 0,
+                                            (int) pattern.length(session));
+
+            return position(session, bytes, start);
+        }
+
         ResultLob resultOut = ResultLob.newLobGetCharPatternPositionRequest(id,
             pattern.getId(), start);
         Result resultIn = session.execute(resultOut);
@@ -189,6 +239,15 @@ public class BlobDataID implements BlobData {
     public long position(SessionInterface session, byte[] pattern,
                          long start) {
 
+        if (inlineBytes != null) {
+            if (start >= inlineBytes.length) {
+                return -1;
+            }
+
+            return ArrayUtil.find(inlineBytes, (int) start,
+                                  inlineBytes.length, pattern);
+        }
+
         ResultLob resultOut = ResultLob.newLobGetBytePatternPositionRequest(id,
             pattern, start);
         Result resultIn = session.execute(resultOut);
@@ -203,6 +262,16 @@ public class BlobDataID implements BlobData {
     /** @todo - implement the next method call in Session */
     public long nonZeroLength(SessionInterface session) {
 
+        if (inlineBytes != null) {
+            int i = inlineBytes.length;
+
+            while (i > 0 && inlineBytes[i - 1] == 0) {
+                i--;
+            }
+
+            return i;
+        }
+
         ResultLob resultOut = ResultLob.newLobGetTruncateLength(id);
         Result    resultIn  = session.execute(resultOut);
 
@@ -228,6 +297,12 @@ public class BlobDataID implements BlobData {
             bytes = newbytes;
         }
 
+        if (inlineBytes != null) {
+            setInlineBytes(pos, bytes);
+
+            return;
+        }
+
         ResultLob resultOut = ResultLob.newLobSetBytesRequest(id, pos, bytes);
         Result    resultIn  = session.execute(resultOut);
 
@@ -238,6 +313,27 @@ public class BlobDataID implements BlobData {
         length = ((ResultLob) resultIn).getBlockLength();
     }
 
+    /**
+     * Writes to inline contents, extending them when the bytes go beyond the
+     * current length.
+     */
+    private void setInlineBytes(long pos, byte[] bytes) {
+
+        if (pos > inlineBytes.length
+                || pos + bytes.length > Integer.MAX_VALUE) {
+            throw Error.error(ErrorCode.X_22001);
+        }
+
+        if (pos + bytes.length > inlineBytes.length) {
+            inlineBytes = (byte[]) ArrayUtil.resizeArray(inlineBytes,
+                    (int) pos + bytes.length);
+        }
+
+        System.arraycopy(bytes, 0, inlineBytes, (int) pos, bytes.length);
+
+        length = inlineBytes.length;
+    }
+
     public void setBytes(SessionInterface session, long pos, byte[] bytes) {
         setBytes(session, pos, bytes, 0, bytes.length);
     }
@@ -268,20 +364,37 @@ public class BlobDataID implements BlobData {
             return;
         }
 
+        if (inlineBytes != null) {
+            inlineBytes = getBytes(session, 0, (int) len);
+            length      = len;
+
+            return;
+        }
+
         ResultLob resultOut = ResultLob.newLobTruncateRequest(id, len);
         Result    resultIn  = session.execute(resultOut);
 
         if (resultIn.isError()) {
             throw resultIn.getException();
         }
+
+        length = ((ResultLob) resultIn).getBlockLength();
     }
 
     public boolean isBinary() {
         return true;
     }
 
+    static boolean isInline(BlobData blob) {
+        return blob instanceof BlobDataID && ((BlobDataID) blob).isInline();
+    }
+
     public boolean equals(Object other) {
 
+        if (inlineBytes != null) {
+            return this == other;
+        }
+
         if (other instanceof BlobDataID) {
             return id == ((BlobDataID) other).id;
         }
@@ -37,12 +37,13 @@ import org.hsqldb.Tokens;
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
 import org.hsqldb.jdbc.JDBCBlobClient;
+import org.hsqldb.lib.ArrayUtil;
 
 /**
  * Type object for BLOB.
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.9.0
  */
 public final class BlobType extends BinaryType {
@@ -146,9 +147,7 @@ public final class BlobType extends BinaryType {
         }
 
         if (b instanceof BinaryData) {
-            long lobId = ((BlobData) a).getId();
-
-            return session.database.lobManager.compare(lobId,
+            return session.database.lobManager.compare((BlobData) a,
                     ((BlobData) b).getBytes());
         }
 
@@ -195,11 +194,14 @@ public final class BlobType extends BinaryType {
                 session.addWarning(Error.error(ErrorCode.W_01004));
             }
 
-            BlobData blob = session.createBlob(b.length(session));
+            byte[] bytes = b.getBytes();
 
-            blob.setBytes(session, 0, b.getBytes(), 0, (int) blobLength);
+            if (blobLength < bytes.length) {
+                bytes = (byte[]) ArrayUtil.resizeArray(bytes,
+                                                       (int) blobLength);
+            }
 
-            return blob;
+            return createBlob(session, bytes);
         }
 
         throw Error.error(ErrorCode.X_42561);
@@ -247,14 +249,33 @@ public final class BlobType extends BinaryType {
                 throw Error.error(ErrorCode.X_22001);
             }
 
-            BlobData blob = session.createBlob(b.length(session));
+            return createBlob(session, b.getBytes());
+        }
+
+        throw Error.error(ErrorCode.X_42561);
+    }
 
-            blob.setBytes(session, 0, b.getBytes());
+    /**
+     * Returns a BLOB with the given contents. When the database holds small
+     * lobs inline, contents within the inline size are held by the returned
+     * locator and no lob is created.
+     */
+    static BlobData createBlob(SessionInterface session, byte[] bytes) {
 
-            return blob;
+        if (session instanceof Session) {
+            int inlineSize =
+                ((Session) session).database.logger.getLobInlineSize();
+
+            if (inlineSize > 0 && bytes.length <= inlineSize) {
+                return new BlobDataID(bytes);
+            }
         }
 
-        throw Error.error(ErrorCode.X_42561);
+        BlobData blob = session.createBlob(bytes.length);
+
+        blob.setBytes(session, 0, bytes);
+
+        return blob;
     }
 
     public Object convertJavaToSQL(SessionInterface session, Object a) {
@@ -138,6 +138,10 @@ public final class BooleanType extends Type {
                                          : 1);
     }
 
+    public boolean isHashCompatible() {
+        return true;
+    }
+
     public Object convertToTypeLimits(SessionInterface session, Object a) {
         return a;
     }
@@ -47,7 +47,7 @@ import org.hsqldb.lib.StringUtil;
  * Type subclass for CHARACTER, VARCHAR, etc.<p>
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.9.0
  */
 public class CharacterType extends Type {
@@ -366,10 +366,8 @@ public class CharacterType extends Type {
         }
 
         if (b instanceof ClobData) {
-            long lobId = ((ClobData) a).getId();
-
-            return -session.database.lobManager.compare(collation, lobId,
-                    (String) a);
+            return -session.database.lobManager.compare(collation,
+                    (ClobData) b, (String) a);
         }
 
         String as = (String) a;
@@ -405,6 +403,48 @@ public class CharacterType extends Type {
         return String.valueOf(buffer);
     }
 
+    /**
+     * Trailing spaces are ignored with PAD SPACE collations and case is
+     * ignored with case-insensitive collations, as in compare().
+     */
+    public int hashCode(Object a) {
+
+        if (a == null) {
+            return 0;
+        }
+
+        if (!isHashCompatible()) {
+            return a.hashCode();
+        }
+
+        String  s          = (String) a;
+        int     length     = s.length();
+        boolean ignoreCase = !collation.isUnicodeSimple();
+        int     hash       = 0;
+
+        if (collation.isPadSpace()) {
+            while (length > 0 && s.charAt(length - 1) == ' ') {
+                length--;
+            }
+        }
+
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+
+            if (ignoreCase) {
+                c = Character.toLowerCase(Character.toUpperCase(c));
+            }
+
+            hash = 31 * hash + c;
+        }
+
+        return hash;
+    }
+
+    public boolean isHashCompatible() {
+        return !isLobType() && !collation.hasSortKey();
+    }
+
     public Object convertToTypeLimits(SessionInterface session, Object a) {
 
         if (a == null) {
@@ -508,14 +548,9 @@ public class CharacterType extends Type {
                     case Types.SQL_VARCHAR :
                         return a;
 
-                    case Types.SQL_CLOB : {
-                        ClobData clob =
-                            session.createClob(((String) a).length());
-
-                        clob.setString(session, 0, (String) a);
+                    case Types.SQL_CLOB :
+                        return ClobType.createClob(session, (String) a);
 
-                        return clob;
-                    }
                     default :
                         throw Error.runtimeError(ErrorCode.U_S0500,
                                                  "CharacterType");
@@ -891,8 +926,6 @@ public class CharacterType extends Type {
             return ((String) data).substring((int) offset,
                                              (int) (offset + length));
         } else if (data instanceof ClobData) {
-            ClobData clob = session.createClob(length);
-
             if (length > Integer.MAX_VALUE) {
                 throw Error.error(ErrorCode.X_22001);
             }
@@ -901,9 +934,7 @@ public class CharacterType extends Type {
             String result = ((ClobData) data).getSubString(session, offset,
                 (int) length);
 
-            clob.setString(session, 0, result);
-
-            return clob;
+            return ClobType.createClob(session, result);
         } else {
             throw Error.runtimeError(ErrorCode.U_S0500, "CharacterType");
         }
@@ -924,11 +955,7 @@ public class CharacterType extends Type {
 
             result = collation.toUpperCase(result);
 
-            ClobData clob = session.createClob(result.length());
-
-            clob.setString(session, 0, result);
-
-            return clob;
+            return ClobType.createClob(session, result);
         }
 
         return collation.toUpperCase((String) data);
@@ -946,11 +973,7 @@ public class CharacterType extends Type {
 
             result = collation.toLowerCase(result);
 
-            ClobData clob = session.createClob(result.length());
-
-            clob.setString(session, 0, result);
-
-            return clob;
+            return ClobType.createClob(session, result);
         }
 
         return collation.toLowerCase((String) data);
@@ -1001,11 +1024,7 @@ public class CharacterType extends Type {
         }
 
         if (typeCode == Types.SQL_CLOB) {
-            ClobData clob = session.createClob(s.length());
-
-            clob.setString(session, 0, s);
-
-            return clob;
+            return ClobType.createClob(session, s);
         } else {
             return s;
         }
@@ -1058,12 +1077,7 @@ public class CharacterType extends Type {
         }
 
         if (typeCode == Types.SQL_CLOB) {
-            ClobData clob = session.createClob(left.length() + right.length());
-
-            clob.setString(session, 0, left);
-            clob.setString(session, left.length(), right);
-
-            return clob;
+            return ClobType.createClob(session, left + right);
         } else {
             return left + right;
         }
@@ -37,28 +37,60 @@ import org.hsqldb.HsqlException;
 import org.hsqldb.SessionInterface;
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
+import org.hsqldb.lib.ArrayUtil;
 import org.hsqldb.result.Result;
 import org.hsqldb.result.ResultLob;
 
 /**
  * Locator for CLOB.<p>
  *
+ * A locator with id 0 holds the contents of a small CLOB inline. There is no
+ * lob in the LobManager for such a locator and all operations use the
+ * inline contents.
+ *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
  * @version 2.5.1
  * @since 1.9.0
  */
 public class ClobDataID implements ClobData {
 
-    long id;
-    long length = -1;
+    long   id;
+    long   length = -1;
+    char[] inlineChars;
 
     public ClobDataID(long id) {
         this.id = id;
     }
 
+    public ClobDataID(char[] inlineChars) {
+
+        this.inlineChars = inlineChars;
+        this.length      = inlineChars.length;
+    }
+
+    public char[] getInlineChars() {
+        return inlineChars;
+    }
+
     public char[] getChars(SessionInterface session, long position,
                            int length) {
 
+        if (inlineChars != null) {
+            if (position >= inlineChars.length) {
+                return new char[0];
+            }
+
+            if (position + length > inlineChars.length) {
+                length = (int) (inlineChars.length - position);
+            }
+
+            char[] chars = new char[length];
+
+            System.arraycopy(inlineChars, (int) position, chars, 0, length);
+
+            return chars;
+        }
+
         ResultLob resultOut = ResultLob.newLobGetCharsRequest(id, position,
             length);
         Result resultIn = session.execute(resultOut);
@@ -70,6 +102,10 @@ public class ClobDataID implements ClobData {
         return ((ResultLob) resultIn).getCharArray();
     }
 
+    public boolean isInline() {
+        return inlineChars != null;
+    }
+
     public long length(SessionInterface session) {
 
         if (length > -1) {
@@ -109,6 +145,12 @@ public class ClobDataID implements ClobData {
 
     public ClobData duplicate(SessionInterface session) {
 
+        if (inlineChars != null) {
+            char[] chars = (char[]) ArrayUtil.duplicateArray(inlineChars);
+
+            return new ClobDataID(chars);
+        }
+
         ResultLob resultOut = ResultLob.newLobDuplicateRequest(id);
         Result    resultIn  = session.execute(resultOut);
 
@@ -130,6 +172,14 @@ public class ClobDataID implements ClobData {
     public ClobData getClob(SessionInterface session, long position,
                             long length) {
 
+        if (inlineChars != null) {
+            if (!isInLimits(inlineChars.length, position, length)) {
+                throw Error.error(ErrorCode.X_22011);
+            }
+
+            return new ClobDataID(getChars(session, position, (int) length));
+        }
+
         ResultLob resultOut = ResultLob.newLobGetRequest(id, position, length);
         Result    resultIn  = session.execute(resultOut);
 
@@ -148,6 +198,13 @@ public class ClobDataID implements ClobData {
             return;
         }
 
+        if (inlineChars != null) {
+            inlineChars = getChars(session, 0, (int) len);
+            length      = len;
+
+            return;
+        }
+
         ResultLob resultOut = ResultLob.newLobTruncateRequest(id, len);
         Result    resultIn  = session.execute(resultOut);
 
@@ -170,6 +227,12 @@ public class ClobDataID implements ClobData {
 
     public void setString(SessionInterface session, long pos, String str) {
 
+        if (inlineChars != null) {
+            setInlineChars(pos, str.toCharArray());
+
+            return;
+        }
+
         ResultLob resultOut = ResultLob.newLobSetCharsRequest(id, pos,
             str.toCharArray());
         Result resultIn = session.execute(resultOut);
@@ -201,6 +264,12 @@ public class ClobDataID implements ClobData {
             }
         }
 
+        if (inlineChars != null) {
+            setInlineChars(pos, chars);
+
+            return;
+        }
+
         ResultLob resultOut = ResultLob.newLobSetCharsRequest(id, pos, chars);
         Result    resultIn  = session.execute(resultOut);
 
@@ -211,9 +280,34 @@ public class ClobDataID implements ClobData {
         this.length = ((ResultLob) resultIn).getBlockLength();
     }
 
+    /**
+     * Writes to inline contents, extending them when the chars go beyond the
+     * current length.
+     */
+    private void setInlineChars(long pos, char[] chars) {
+
+        if (pos > inlineChars.length
+                || pos + chars.length > Integer.MAX_VALUE) {
+            throw Error.error(ErrorCode.X_22001);
+        }
+
+        if (pos + chars.length > inlineChars.length) {
+            inlineChars = (char[]) ArrayUtil.resizeArray(inlineChars,
+                    (int) pos + chars.length);
+        }
+
+        System.arraycopy(chars, 0, inlineChars, (int) pos, chars.length);
+
+        length = inlineChars.length;
+    }
+
     public long position(SessionInterface session, String searchstr,
                          long start) {
 
+        if (inlineChars != null) {
+            return new String(inlineChars).indexOf(searchstr, (int) start);
+        }
+
         ResultLob resultOut = ResultLob.newLobGetCharPatternPositionRequest(id,
             searchstr.toCharArray(), start);
         Result resultIn = session.execute(resultOut);
@@ -228,6 +322,13 @@ public class ClobDataID implements ClobData {
     public long position(SessionInterface session, ClobData searchstr,
                          long start) {
 
+        if (inlineChars != null || isInline(searchstr)) {
+            String search = searchstr.getSubString(session, 0,
+                (int) searchstr.length(session));
+
+            return position(session, search, start);
+        }
+
         ResultLob resultOut = ResultLob.newLobGetCharPatternPositionRequest(id,
             searchstr.getId(), start);
         Result resultIn = session.execute(resultOut);
@@ -242,6 +343,16 @@ public class ClobDataID implements ClobData {
     /** @todo - implement the next method call in Session */
     public long nonSpaceLength(SessionInterface session) {
 
+        if (inlineChars != null) {
+            int i = inlineChars.length;
+
+            while (i > 0 && inlineChars[i - 1] == ' ') {
+                i--;
+            }
+
+            return i;
+        }
+
         ResultLob resultOut = ResultLob.newLobGetTruncateLength(id);
         Result    resultIn  = session.execute(resultOut);
 
@@ -265,6 +376,10 @@ public class ClobDataID implements ClobData {
         this.id = id;
     }
 
+    static boolean isInline(ClobData clob) {
+        return clob instanceof ClobDataID && ((ClobDataID) clob).isInline();
+    }
+
     static boolean isInLimits(long fullLength, long pos, long len) {
         return pos >= 0 && len >= 0 && pos + len <= fullLength;
     }
@@ -277,6 +392,10 @@ public class ClobDataID implements ClobData {
 
     public boolean equals(Object other) {
 
+        if (inlineChars != null) {
+            return this == other;
+        }
+
         if (other instanceof ClobDataID) {
             return id == ((ClobDataID) other).id;
         }
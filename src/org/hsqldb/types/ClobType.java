@@ -43,7 +43,7 @@ import org.hsqldb.jdbc.JDBCClobClient;
  * Type object for CLOB.<p>
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.9.0
  */
 public final class ClobType extends CharacterType {
@@ -142,10 +142,8 @@ public final class ClobType extends CharacterType {
         }
 
         if (b instanceof String) {
-            long lobId = ((ClobData) a).getId();
-
             return session.database.lobManager.compare(collation,
-                    lobId, (String) b);
+                    (ClobData) a, (String) b);
         }
 
         return session.database.lobManager.compare(collation, (ClobData) a,
@@ -163,14 +161,33 @@ public final class ClobType extends CharacterType {
         }
 
         if (a instanceof String) {
-            ClobData clob = session.createClob(((String) a).length());
+            return createClob(session, (String) a);
+        }
+
+        throw Error.error(ErrorCode.X_42561);
+    }
 
-            clob.setString(session, 0, (String) a);
+    /**
+     * Returns a CLOB with the contents of the string. When the database holds
+     * small lobs inline, a string within the inline size is held by the
+     * returned locator and no lob is created.
+     */
+    static ClobData createClob(SessionInterface session, String s) {
 
-            return clob;
+        if (session instanceof Session) {
+            int inlineSize =
+                ((Session) session).database.logger.getLobInlineSize();
+
+            if (inlineSize > 0 && s.length() * 2L <= inlineSize) {
+                return new ClobDataID(s.toCharArray());
+            }
         }
 
-        throw Error.error(ErrorCode.X_42561);
+        ClobData clob = session.createClob(s.length());
+
+        clob.setString(session, 0, s);
+
+        return clob;
     }
 
     public String convertToString(Object a) {
@@ -31,6 +31,7 @@
 
 package org.hsqldb.types;
 
+import java.text.CollationKey;
 import java.text.Collator;
 import java.util.Locale;
 
@@ -54,7 +55,7 @@ import org.hsqldb.rights.Grantee;
  *
  * @author Frand Schoenheit (frank.schoenheit@sun dot com)
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.8.0
  */
 public class Collation implements SchemaObject {
@@ -188,9 +189,11 @@ public class Collation implements SchemaObject {
 
     final HsqlName   name;
     private Collator collator;
+    private Collator primaryCollator;
     private Locale   locale;
     private boolean  isUnicodeSimple;
     private boolean  isUpperCaseCompare;
+    private boolean  isPadIgnorable;
     private boolean  isFinal;
     private boolean  padSpace = true;
 
@@ -226,6 +229,12 @@ public class Collation implements SchemaObject {
 
         strength        = collator.getStrength();
         isUnicodeSimple = false;
+        primaryCollator = (Collator) collator.clone();
+
+        primaryCollator.setStrength(Collator.PRIMARY);
+
+        isPadIgnorable = primaryCollator.compare("a", "a ") == 0
+                         && primaryCollator.compare("", " ") == 0;
         this.name = HsqlNameManager.newInfoSchemaObjectName(name, true,
                 SchemaObject.COLLATION);
         charset            = Charset.SQL_TEXT;
@@ -239,7 +248,9 @@ public class Collation implements SchemaObject {
         this.name            = name;
         this.locale          = source.locale;
         this.collator        = source.collator;
+        this.primaryCollator = source.primaryCollator;
         this.isUnicodeSimple = source.isUnicodeSimple;
+        this.isPadIgnorable  = source.isPadIgnorable;
         this.isFinal         = true;
 
         //
@@ -397,7 +408,9 @@ public class Collation implements SchemaObject {
 
         this.locale          = newCollation.locale;
         this.collator        = newCollation.collator;
+        this.primaryCollator = newCollation.primaryCollator;
         this.isUnicodeSimple = newCollation.isUnicodeSimple;
+        this.isPadIgnorable  = newCollation.isPadIgnorable;
         this.padSpace        = padSpace;
     }
 
@@ -449,6 +462,42 @@ public class Collation implements SchemaObject {
                                  : 1);
     }
 
+    /**
+     * Returns true if comparisons use a language collator and can be
+     * performed on sort keys.
+     */
+    public boolean hasSortKey() {
+        return collator != null;
+    }
+
+    /**
+     * Returns the primary strength sort key for a string. When the keys of
+     * two strings differ and isSortKeyComparable is true for the strings,
+     * the result of compare(String, String) is the result of comparing the
+     * keys. When the keys are equal, the strings must be compared.<p>
+     *
+     * Full strength keys are not used as the JDK collators do not always
+     * order them in the same way as compare(), for example with the
+     * backwards secondary ordering of French.
+     */
+    public CollationKey getSortKey(String s) {
+
+        if (isUpperCaseCompare) {
+            s = toUpperCase(s);
+        }
+
+        return primaryCollator.getCollationKey(s);
+    }
+
+    /**
+     * With PAD SPACE, the shorter string is compared as padded with spaces,
+     * which the sort keys do not reflect unless spaces are ignored at the
+     * primary strength.
+     */
+    public boolean isSortKeyComparable(String a, String b) {
+        return !padSpace || isPadIgnorable || a.length() == b.length();
+    }
+
     public String toUpperCase(String s) {
         return s.toUpperCase(locale);
     }
@@ -531,6 +531,10 @@ public final class DateTimeType extends DTIType {
         }
     }
 
+    public boolean isHashCompatible() {
+        return true;
+    }
+
     public Object convertToTypeLimits(SessionInterface session, Object a) {
 
         if (a == null) {
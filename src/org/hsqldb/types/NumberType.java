@@ -765,6 +765,52 @@ public final class NumberType extends Type {
         }
     }
 
+    /**
+     * Values of different Java classes or scale that compare as equal
+     * return the same hash code.
+     */
+    public int hashCode(Object a) {
+
+        if (a == null) {
+            return 0;
+        }
+
+        switch (typeCode) {
+
+            case Types.TINYINT :
+            case Types.SQL_SMALLINT :
+            case Types.SQL_INTEGER :
+            case Types.SQL_BIGINT : {
+                long value = ((Number) a).longValue();
+
+                return (int) (value ^ (value >>> 32));
+            }
+            case Types.SQL_REAL :
+            case Types.SQL_FLOAT :
+            case Types.SQL_DOUBLE : {
+                double value = ((Number) a).doubleValue();
+
+                if (value == 0) {
+                    return 0;
+                }
+
+                long bits = Double.doubleToLongBits(value);
+
+                return (int) (bits ^ (bits >>> 32));
+            }
+            case Types.SQL_NUMERIC :
+            case Types.SQL_DECIMAL :
+                return ((BigDecimal) a).stripTrailingZeros().hashCode();
+
+            default :
+                return a.hashCode();
+        }
+    }
+
+    public boolean isHashCompatible() {
+        return true;
+    }
+
     /** @todo - review usage to see if range enforcement / java type conversion is necessary */
     public Object convertToTypeLimits(SessionInterface session, Object a) {
 
@@ -48,7 +48,7 @@ import org.hsqldb.rights.Grantee;
  * Base class for type objects.<p>
  *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.5.0
+ * @version 2.5.1
  * @since 1.9.0
  */
 public abstract class Type implements SchemaObject, Cloneable {
@@ -590,6 +590,14 @@ public abstract class Type implements SchemaObject, Cloneable {
         return a.hashCode();
     }
 
+    /**
+     * Returns true if hashCode(Object) returns the same value for all values
+     * that compare as equal, so that the values can be used as hash keys.
+     */
+    public boolean isHashCompatible() {
+        return false;
+    }
+
     public boolean equals(Object other) {
 
         if (other == this) {